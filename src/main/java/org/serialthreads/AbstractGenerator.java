@@ -0,0 +1,73 @@
+package org.serialthreads;
+
+import org.serialthreads.context.IRunnable;
+import org.serialthreads.context.ThreadFinishedException;
+
+/**
+ * Base class for generators.
+ * The body of a generator is a serial thread, which is resumed directly by the consumer
+ * whenever it needs the next value, without any {@link org.serialthreads.context.SerialThreadManager}.
+ */
+abstract class AbstractGenerator implements IRunnable {
+  /**
+   * Has the body yielded a value which has not been consumed yet?.
+   */
+  boolean ready;
+
+  /**
+   * Has the body finished?.
+   */
+  private boolean finished;
+
+  /**
+   * Execute the body.
+   * Do not override, override {@code generate()} instead.
+   */
+  @Override
+  @Interruptible
+  public final void run() {
+    generate();
+  }
+
+  /**
+   * The body of the generator, which yields the values.
+   */
+  @Interruptible
+  protected abstract void generate();
+
+  /**
+   * Is there a next value?.
+   * Resumes the body, if the last value has been consumed already.
+   */
+  public final boolean hasNext() {
+    if (!ready && !finished) {
+      advance();
+    }
+    return ready;
+  }
+
+  /**
+   * Resume the body until it yields the next value or finishes.
+   */
+  @Executor
+  private void advance() {
+    try {
+      run();
+    } catch (ThreadFinishedException e) {
+      // expected: the body finished normally
+      finished = true;
+    } catch (RuntimeException | Error e) {
+      finished = true;
+      throw e;
+    }
+  }
+
+  /**
+   * Interrupt the body after it yielded a value.
+   */
+  @Interruptible
+  final void interrupt() {
+    ready = true;
+    SerialThreads.park();
+  }
+}
@@ -0,0 +1,63 @@
+package org.serialthreads;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Generator of values whose body is a serial thread.
+ * The body is implemented in {@link #generate()} and yields the values via {@link #yield(Object)},
+ * so pull-based code, e.g. parsers, does not need to be written as a state machine.
+ * Each call of {@link #next()} resumes the body until it yields the next value.
+ * <p>
+ * Not thread-safe.
+ *
+ * @param <T> type of the values
+ */
+public abstract class Generator<T> extends AbstractGenerator implements Iterator<T> {
+  /**
+   * Last yielded value.
+   */
+  private T next;
+
+  /**
+   * Yield a value to the consumer.
+   * Needs to be called qualified, e.g. {@code this.yield(value)}, because {@code yield} is a restricted identifier.
+   *
+   * @param value value
+   */
+  @Interruptible
+  protected final void yield(T value) {
+    next = value;
+    interrupt();
+  }
+
+  @Override
+  public final T next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+
+    var value = next;
+    next = null;
+    ready = false;
+    return value;
+  }
+
+  /**
+   * Spliterator for the remaining values.
+   */
+  public Spliterator<T> spliterator() {
+    return Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED);
+  }
+
+  /**
+   * Sequential stream of the remaining values.
+   */
+  public Stream<T> stream() {
+    return StreamSupport.stream(spliterator(), false);
+  }
+}
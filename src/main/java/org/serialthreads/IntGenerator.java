@@ -0,0 +1,57 @@
+package org.serialthreads;
+
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Generator of int values whose body is a serial thread.
+ * Like {@link Generator}, but never boxes the values.
+ * <p>
+ * Not thread-safe.
+ */
+public abstract class IntGenerator extends AbstractGenerator implements PrimitiveIterator.OfInt {
+  /**
+   * Last yielded value.
+   */
+  private int next;
+
+  /**
+   * Yield a value to the consumer.
+   * Needs to be called qualified, e.g. {@code this.yield(value)}, because {@code yield} is a restricted identifier.
+   *
+   * @param value value
+   */
+  @Interruptible
+  protected final void yield(int value) {
+    next = value;
+    interrupt();
+  }
+
+  @Override
+  public final int nextInt() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+
+    ready = false;
+    return next;
+  }
+
+  /**
+   * Spliterator for the remaining values.
+   */
+  public Spliterator.OfInt spliterator() {
+    return Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED);
+  }
+
+  /**
+   * Sequential stream of the remaining values.
+   */
+  public IntStream stream() {
+    return StreamSupport.intStream(spliterator(), false);
+  }
+}
@@ -13,4 +13,20 @@ import static java.lang.annotation.RetentionPolicy.RUNTIME;
 @Retention(RUNTIME)
 @Target({METHOD})
 public @interface Interrupt {
+  /**
+   * Interrupt only every n-th call.
+   * All other calls just decrement a countdown of the serial thread and continue without capturing the stack.
+   * Each call site has its own countdown per serial thread, so that call sites with different intervals do not interfere.
+   * The interval is fixed at transform time and may be overridden per interrupt or per calling method,
+   * see {@link org.serialthreads.transformer.strategies.AbstractTransformer#setInterruptEvery(String, String, String, String, int)}.
+   */
+  int every() default 1;
+
+  /**
+   * Interrupt only if a yield has been requested via
+   * {@link org.serialthreads.context.SerialThreadManager#requestYield()}.
+   * All other calls just check the flag of the serial thread and continue without capturing the stack.
+   * May not be combined with {@link #every()}.
+   */
+  boolean onYieldRequest() default false;
 }
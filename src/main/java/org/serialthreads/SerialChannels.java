@@ -0,0 +1,155 @@
+package org.serialthreads;
+
+import org.serialthreads.context.SelectorSerialThreadManager;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
+import static java.nio.channels.SelectionKey.OP_ACCEPT;
+import static java.nio.channels.SelectionKey.OP_CONNECT;
+import static java.nio.channels.SelectionKey.OP_READ;
+import static java.nio.channels.SelectionKey.OP_WRITE;
+import static org.serialthreads.SerialThreads.park;
+
+/**
+ * Interruptible I/O on non-blocking channels.
+ * The current serial thread gets parked until the channel is ready.
+ * Needs to be executed by a {@link SelectorSerialThreadManager}.
+ */
+public final class SerialChannels {
+  /**
+   * Utility class.
+   */
+  private SerialChannels() {
+  }
+
+  /**
+   * Wait until the channel is readable.
+   *
+   * @param channel non-blocking channel
+   * @exception IOException if the channel could not be registered
+   */
+  @Interruptible
+  public static void awaitReadable(SelectableChannel channel) throws IOException {
+    await(channel, OP_READ);
+  }
+
+  /**
+   * Wait until the channel is writable.
+   *
+   * @param channel non-blocking channel
+   * @exception IOException if the channel could not be registered
+   */
+  @Interruptible
+  public static void awaitWritable(SelectableChannel channel) throws IOException {
+    await(channel, OP_WRITE);
+  }
+
+  /**
+   * Wait until the channel can accept a connection.
+   *
+   * @param channel non-blocking channel
+   * @exception IOException if the channel could not be registered
+   */
+  @Interruptible
+  public static void awaitAcceptable(SelectableChannel channel) throws IOException {
+    await(channel, OP_ACCEPT);
+  }
+
+  /**
+   * Wait until the channel can finish connecting.
+   *
+   * @param channel non-blocking channel
+   * @exception IOException if the channel could not be registered
+   */
+  @Interruptible
+  public static void awaitConnectable(SelectableChannel channel) throws IOException {
+    await(channel, OP_CONNECT);
+  }
+
+  /**
+   * Wait until the channel is ready for the given operations.
+   *
+   * @param channel non-blocking channel
+   * @param ops operations to wait for, see {@link java.nio.channels.SelectionKey}
+   * @exception IOException if the channel could not be registered
+   */
+  @Interruptible
+  private static void await(SelectableChannel channel, int ops) throws IOException {
+    SelectorSerialThreadManager.current().requestPark(channel, ops);
+    park();
+  }
+
+  /**
+   * Accept a connection.
+   *
+   * @param channel non-blocking channel
+   * @return accepted connection, configured as non-blocking
+   * @exception IOException on I/O errors
+   */
+  @Interruptible
+  public static SocketChannel accept(ServerSocketChannel channel) throws IOException {
+    SocketChannel result;
+    while ((result = channel.accept()) == null) {
+      awaitAcceptable(channel);
+    }
+    result.configureBlocking(false);
+    return result;
+  }
+
+  /**
+   * Connect to a remote address.
+   *
+   * @param channel non-blocking channel
+   * @param remote remote address
+   * @exception IOException on I/O errors
+   */
+  @Interruptible
+  public static void connect(SocketChannel channel, SocketAddress remote) throws IOException {
+    if (channel.connect(remote)) {
+      return;
+    }
+    do {
+      awaitConnectable(channel);
+    } while (!channel.finishConnect());
+  }
+
+  /**
+   * Read at least one byte.
+   *
+   * @param channel non-blocking channel
+   * @param buffer buffer to read into
+   * @return number of bytes read, or -1 at the end of the stream
+   * @exception IOException on I/O errors
+   */
+  @Interruptible
+  public static int read(SocketChannel channel, ByteBuffer buffer) throws IOException {
+    assert buffer.hasRemaining() : "Precondition: buffer.hasRemaining()";
+
+    int read;
+    while ((read = channel.read(buffer)) == 0) {
+      awaitReadable(channel);
+    }
+    return read;
+  }
+
+  /**
+   * Write all remaining bytes of the buffer.
+   *
+   * @param channel non-blocking channel
+   * @param buffer buffer to write
+   * @exception IOException on I/O errors
+   */
+  @Interruptible
+  public static void write(SocketChannel channel, ByteBuffer buffer) throws IOException {
+    while (buffer.hasRemaining()) {
+      if (channel.write(buffer) == 0) {
+        awaitWritable(channel);
+      }
+    }
+  }
+}
@@ -0,0 +1,132 @@
+package org.serialthreads;
+
+import org.serialthreads.context.ParkingSerialThreadManager;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+import static org.serialthreads.SerialThreads.park;
+
+/**
+ * Interruptible waiting for asynchronous results.
+ * The current serial thread gets parked until the result is available,
+ * so no rounds are wasted for polling.
+ * Needs to be executed by a {@link ParkingSerialThreadManager}.
+ */
+public final class SerialFutures {
+  /**
+   * Utility class.
+   */
+  private SerialFutures() {
+  }
+
+  /**
+   * Wait for the completion of a stage.
+   * Does not park, if the stage is an already completed {@link CompletableFuture}.
+   *
+   * @param stage stage
+   * @return result of the stage
+   * @exception CompletionException if the stage completed exceptionally
+   */
+  @Interruptible
+  public static <T> T await(CompletionStage<? extends T> stage) {
+    if (stage instanceof CompletableFuture<? extends T> future && future.isDone()) {
+      return future.join();
+    }
+
+    var completion = new Completion<T>(stage);
+    ParkingSerialThreadManager.current().requestPark(completion);
+    park();
+    return completion.get();
+  }
+
+  /**
+   * Wait for the completion of a stage with an int result.
+   * The result is unboxed once, so the serial thread only stores the primitive value.
+   *
+   * @param stage stage
+   * @return result of the stage
+   * @exception CompletionException if the stage completed exceptionally
+   */
+  @Interruptible
+  public static int awaitInt(CompletionStage<Integer> stage) {
+    return await(stage).intValue();
+  }
+
+  /**
+   * Wait for the completion of a stage with a long result.
+   * The result is unboxed once, so the serial thread only stores the primitive value.
+   *
+   * @param stage stage
+   * @return result of the stage
+   * @exception CompletionException if the stage completed exceptionally
+   */
+  @Interruptible
+  public static long awaitLong(CompletionStage<Long> stage) {
+    return await(stage).longValue();
+  }
+
+  /**
+   * Wait for the completion of a stage with a double result.
+   * The result is unboxed once, so the serial thread only stores the primitive value.
+   *
+   * @param stage stage
+   * @return result of the stage
+   * @exception CompletionException if the stage completed exceptionally
+   */
+  @Interruptible
+  public static double awaitDouble(CompletionStage<Double> stage) {
+    return await(stage).doubleValue();
+  }
+
+  /**
+   * Completion of a stage, see {@link #await(CompletionStage)}.
+   */
+  private static final class Completion<T> implements Consumer<Runnable>, BiConsumer<T, Throwable> {
+    private final CompletionStage<? extends T> stage;
+    private Runnable unpark;
+    private T result;
+    private Throwable failure;
+
+    private Completion(CompletionStage<? extends T> stage) {
+      this.stage = stage;
+    }
+
+    /**
+     * Register for completion, after the serial thread has been parked.
+     */
+    @Override
+    public void accept(Runnable unpark) {
+      this.unpark = unpark;
+      stage.whenComplete(this);
+    }
+
+    /**
+     * Store the result and unpark the serial thread.
+     */
+    @Override
+    public void accept(T result, Throwable failure) {
+      this.result = result;
+      this.failure = failure;
+      unpark.run();
+    }
+
+    /**
+     * Result of the stage.
+     *
+     * @exception CompletionException if the stage completed exceptionally
+     */
+    private T get() {
+      if (failure instanceof CompletionException e) {
+        throw e;
+      }
+      if (failure != null) {
+        throw new CompletionException(failure);
+      }
+      return result;
+    }
+  }
+}
@@ -0,0 +1,86 @@
+package org.serialthreads;
+
+import org.serialthreads.context.ParkingSerialThreadManager;
+import org.serialthreads.context.Stack;
+
+import static org.serialthreads.SerialThreads.park;
+
+/**
+ * Typed requests from serial threads to their manager.
+ * The current serial thread gets interrupted and passes the request to
+ * {@link ParkingSerialThreadManager#onRequest(org.serialthreads.context.ITransformedRunnable, Stack)}.
+ * The request and the answer are passed via the return registers of the {@link Stack} of the serial thread,
+ * so neither shared objects nor allocations are needed.
+ * Needs to be executed by a {@link ParkingSerialThreadManager} which answers the requests.
+ */
+public final class SerialRequests {
+  /**
+   * Utility class.
+   */
+  private SerialRequests() {
+  }
+
+  /**
+   * Request an int answer.
+   * The request is passed in {@link Stack#returnInt}, the answer is expected there too.
+   *
+   * @param request request
+   * @return answer
+   */
+  @Interruptible
+  public static int request(int request) {
+    var stack = ParkingSerialThreadManager.current().request();
+    stack.returnInt = request;
+    park();
+    return stack.returnInt;
+  }
+
+  /**
+   * Request a long answer.
+   * The request is passed in {@link Stack#returnLong}, the answer is expected there too.
+   *
+   * @param request request
+   * @return answer
+   */
+  @Interruptible
+  public static long request(long request) {
+    var stack = ParkingSerialThreadManager.current().request();
+    stack.returnLong = request;
+    park();
+    return stack.returnLong;
+  }
+
+  /**
+   * Request a double answer.
+   * The request is passed in {@link Stack#returnDouble}, the answer is expected there too.
+   *
+   * @param request request
+   * @return answer
+   */
+  @Interruptible
+  public static double request(double request) {
+    var stack = ParkingSerialThreadManager.current().request();
+    stack.returnDouble = request;
+    park();
+    return stack.returnDouble;
+  }
+
+  /**
+   * Request an object answer.
+   * The request is passed in {@link Stack#returnObject}, the answer is expected there too.
+   * The register gets cleared after the answer has been read.
+   *
+   * @param request request
+   * @return answer
+   */
+  @Interruptible
+  @SuppressWarnings("unchecked")
+  public static <T> T request(Object request) {
+    var stack = ParkingSerialThreadManager.current().request();
+    stack.returnObject = request;
+    park();
+    var answer = (T) stack.returnObject;
+    stack.returnObject = null;
+    return answer;
+  }
+}
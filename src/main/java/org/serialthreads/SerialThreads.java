@@ -0,0 +1,111 @@
+package org.serialthreads;
+
+import org.serialthreads.context.ParkingSerialThreadManager;
+
+import java.util.concurrent.Callable;
+import java.util.function.Consumer;
+
+/**
+ * Predefined interrupts and interruptible methods.
+ */
+public final class SerialThreads {
+  /**
+   * Default interval of {@link #backEdge()}.
+   */
+  public static final int BACK_EDGE_EVERY = 1024;
+
+  /**
+   * Utility class.
+   */
+  private SerialThreads() {
+  }
+
+  /**
+   * Interrupt inserted by the transformer at loop back edges of interruptible methods,
+   * if enabled via {@link org.serialthreads.transformer.ITransformer#interruptBackEdges(int)}.
+   * Should not be called directly.
+   */
+  @Interrupt(every = BACK_EDGE_EVERY)
+  public static void backEdge() {
+    throw new IllegalThreadStateException("Byte code transformation failed");
+  }
+
+  /**
+   * Interrupt inserted by the transformer at the start and at the loop back edges of interruptible methods,
+   * if enabled via {@link org.serialthreads.transformer.ITransformer#pollYieldRequests()}.
+   * May be called directly too, to add further checks for yield requests.
+   */
+  @Interrupt(onYieldRequest = true)
+  public static void safepoint() {
+    throw new IllegalThreadStateException("Byte code transformation failed");
+  }
+
+  /**
+   * Interrupt to park the current serial thread,
+   * if requested before via {@link ParkingSerialThreadManager#requestPark(Consumer)}.
+   * Otherwise, it is a plain interrupt.
+   */
+  @Interrupt
+  public static void park() {
+    throw new IllegalThreadStateException("Byte code transformation failed");
+  }
+
+  /**
+   * Execute a blocking call on a virtual thread.
+   * The current serial thread gets parked until the call completes,
+   * so the other serial threads keep running meanwhile.
+   * Needs to be executed by a {@link ParkingSerialThreadManager}.
+   *
+   * @param callable blocking call
+   * @return result of the call
+   * @exception Exception if the call failed
+   */
+  @Interruptible
+  public static <T> T offload(Callable<T> callable) throws Exception {
+    var offload = new Offload<>(callable);
+    ParkingSerialThreadManager.current().requestPark(offload);
+    park();
+    return offload.get();
+  }
+
+  /**
+   * Blocking call executed on a virtual thread, see {@link #offload(Callable)}.
+   */
+  private static final class Offload<T> implements Consumer<Runnable> {
+    private final Callable<T> callable;
+    private T result;
+    private Exception exception;
+
+    private Offload(Callable<T> callable) {
+      this.callable = callable;
+    }
+
+    /**
+     * Start the call, after the serial thread has been parked.
+     */
+    @Override
+    public void accept(Runnable unpark) {
+      Thread.ofVirtual().name("offload").start(() -> {
+        try {
+          result = callable.call();
+        } catch (Exception e) {
+          exception = e;
+        } finally {
+          unpark.run();
+        }
+      });
+    }
+
+    /**
+     * Result of the call.
+     *
+     * @exception Exception if the call failed
+     */
+    private T get() throws Exception {
+      if (exception != null) {
+        throw exception;
+      }
+      return result;
+    }
+  }
+}
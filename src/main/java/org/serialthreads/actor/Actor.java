@@ -0,0 +1,126 @@
+package org.serialthreads.actor;
+
+import org.serialthreads.Interruptible;
+import org.serialthreads.concurrent.SerialBlockingQueue;
+import org.serialthreads.context.IRunnable;
+
+/**
+ * Actor: A serial thread with a bounded mailbox.
+ * The behaviour is implemented as sequential code in {@link #act()}, which receives the messages via {@link #receive()}.
+ * Idle actors are parked, so they cost no scheduling time.
+ * Messages between actors of the same {@link ActorSystem} are delivered without any synchronization.
+ *
+ * @param <M> type of the messages
+ */
+public abstract class Actor<M> implements IRunnable {
+  /**
+   * Mailbox. Only accessed by the thread executing the actor system.
+   */
+  private final SerialBlockingQueue<M> mailbox;
+
+  /**
+   * Actor system executing this actor.
+   */
+  private ActorSystem system;
+
+  /**
+   * Constructor.
+   *
+   * @param capacity capacity of the mailbox
+   */
+  protected Actor(int capacity) {
+    this.mailbox = new SerialBlockingQueue<>(capacity);
+  }
+
+  /**
+   * Execute the actor.
+   * Do not override, override {@link #act()} instead.
+   */
+  @Override
+  @Interruptible
+  public final void run() {
+    act();
+  }
+
+  /**
+   * The behaviour of this actor.
+   * The actor terminates, when this method returns.
+   */
+  @Interruptible
+  protected abstract void act();
+
+  /**
+   * Receive the next message. Parks until there is one.
+   *
+   * @return message
+   */
+  @Interruptible
+  protected final M receive() {
+    return mailbox.take();
+  }
+
+  /**
+   * Send a message to this actor.
+   * If called by an actor of the same actor system, parks the sender while the mailbox is full.
+   * Otherwise, see {@link #tell(Object)}.
+   *
+   * @param message message
+   */
+  @Interruptible
+  public final void send(M message) {
+    assert message != null : "Precondition: message != null";
+
+    if (!system.isExecutingThread()) {
+      system.deliverRemote(this, message);
+      return;
+    }
+    mailbox.put(message);
+  }
+
+  /**
+   * Send a message to this actor without waiting. May be called by any thread.
+   * Messages sent by other threads than the one executing the actor system are queued without any bound,
+   * and get delivered into the mailbox, as soon as it has free capacity.
+   *
+   * @param message message
+   * @return false, if the mailbox is full and the message has been sent by the thread executing the actor system
+   */
+  public final boolean tell(M message) {
+    assert message != null : "Precondition: message != null";
+
+    if (!system.isExecutingThread()) {
+      system.deliverRemote(this, message);
+      return true;
+    }
+    return mailbox.offer(message);
+  }
+
+  /**
+   * Deliver a message sent by another thread into the mailbox.
+   * Called by the thread executing the actor system.
+   *
+   * @param message message
+   * @return false, if the mailbox is full
+   */
+  final boolean deliver(M message) {
+    return mailbox.offer(message);
+  }
+
+  /**
+   * Bind this actor to the actor system executing it.
+   *
+   * @param system actor system
+   */
+  final void bind(ActorSystem system) {
+    assert this.system == null : "Precondition: actor has not been spawned yet";
+
+    this.system = system;
+  }
+
+  /**
+   * Actor system executing this actor.
+   */
+  public final ActorSystem getSystem() {
+    return system;
+  }
+}
@@ -0,0 +1,118 @@
+package org.serialthreads.actor;
+
+import org.serialthreads.context.IdleStrategy;
+import org.serialthreads.context.MpscQueue;
+import org.serialthreads.context.ParkingSerialThreadManager;
+
+import java.util.ArrayDeque;
+
+/**
+ * Carrier executing {@link Actor}s as serial threads on a single thread.
+ * Messages between its actors are delivered without any synchronization.
+ * Messages from other threads, e.g. from actors of other actor systems,
+ * are passed via a lock-free queue and get delivered before each round.
+ */
+public class ActorSystem extends ParkingSerialThreadManager {
+  /**
+   * Messages sent by other threads, which have not been delivered yet.
+   */
+  private final MpscQueue<Envelope> remote = new MpscQueue<>();
+
+  /**
+   * Messages sent by other threads, whose receiver's mailbox has been full.
+   * Delivery will be retried before the next round.
+   */
+  private final ArrayDeque<Envelope> backlog = new ArrayDeque<>();
+
+  /**
+   * Constructor using {@link IdleStrategy#PARK}.
+   *
+   * @param actors initial actors
+   */
+  public ActorSystem(Actor<?>... actors) {
+    this(IdleStrategy.PARK, actors);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param idleStrategy strategy for waiting, if all actors are parked
+   * @param actors initial actors
+   */
+  public ActorSystem(IdleStrategy idleStrategy, Actor<?>... actors) {
+    super(idleStrategy, actors);
+    for (var actor : actors) {
+      actor.bind(this);
+    }
+  }
+
+  /**
+   * Start a new actor.
+   * May only be called by the thread executing this actor system or before it executes.
+   *
+   * @param actor actor
+   * @return actor
+   */
+  public <A extends Actor<?>> A spawn(A actor) {
+    assert actor != null : "Precondition: actor != null";
+
+    actor.bind(this);
+    super.spawn(actor);
+    return actor;
+  }
+
+  /**
+   * Queue a message sent by another thread.
+   * May be called by any thread.
+   *
+   * @param actor receiver
+   * @param message message
+   */
+  void deliverRemote(Actor<?> actor, Object message) {
+    remote.offer(new Envelope(actor, message));
+    wakeup();
+  }
+
+  @Override
+  protected void poll() {
+    deliver();
+  }
+
+  @Override
+  protected void idle() {
+    super.idle();
+    deliver();
+  }
+
+  @Override
+  protected boolean hasPendingEvents() {
+    return !remote.isEmpty();
+  }
+
+  /**
+   * Deliver all messages sent by other threads.
+   */
+  @SuppressWarnings("unchecked")
+  private void deliver() {
+    for (int i = backlog.size(); i > 0; i--) {
+      var envelope = backlog.poll();
+      if (!((Actor<Object>) envelope.actor).deliver(envelope.message)) {
+        backlog.add(envelope);
+      }
+    }
+    for (Envelope envelope; (envelope = remote.poll()) != null; ) {
+      if (!((Actor<Object>) envelope.actor).deliver(envelope.message)) {
+        backlog.add(envelope);
+      }
+    }
+  }
+
+  /**
+   * Message together with its receiver.
+   *
+   * @param actor receiver
+   * @param message message
+   */
+  private record Envelope(Actor<?> actor, Object message) {
+  }
+}
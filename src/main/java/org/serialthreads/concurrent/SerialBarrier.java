@@ -0,0 +1,105 @@
+package org.serialthreads.concurrent;
+
+import org.serialthreads.Interruptible;
+import org.serialthreads.context.ParkingSerialThreadManager;
+
+import static org.serialthreads.SerialThreads.park;
+
+/**
+ * Cyclic barrier for serial threads.
+ * Waiting parks the serial thread in its manager instead of blocking the executing thread.
+ * When the last party arrives, all parties get released in one step and continue in the next round.
+ * Not thread-safe: May only be used by serial threads of the same
+ * {@link ParkingSerialThreadManager}, so no atomic operations are needed at all.
+ */
+public final class SerialBarrier {
+  /**
+   * Number of parties.
+   */
+  private final int parties;
+
+  /**
+   * Action executed by the last arriving party before releasing all parties, or null.
+   */
+  private final Runnable action;
+
+  /**
+   * Runnables to unpark the parked parties.
+   */
+  private final Runnable[] parked;
+
+  /**
+   * Number of parties arrived in the current generation.
+   */
+  private int arrived;
+
+  /**
+   * Constructor.
+   *
+   * @param parties number of parties
+   */
+  public SerialBarrier(int parties) {
+    this(parties, null);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param parties number of parties
+   * @param action action executed by the last arriving party before releasing all parties, or null
+   */
+  public SerialBarrier(int parties, Runnable action) {
+    assert parties > 0 : "Precondition: parties > 0";
+
+    this.parties = parties;
+    this.action = action;
+    this.parked = new Runnable[parties - 1];
+  }
+
+  /**
+   * Wait until all parties have arrived.
+   * Always interrupts, so all parties continue in the same round.
+   *
+   * @return arrival index of the current party: 0 for the first, parties - 1 for the last one
+   */
+  @Interruptible
+  public int await() {
+    int index = arrived++;
+    if (index < parties - 1) {
+      ParkingSerialThreadManager.current().requestPark(unpark -> parked[index] = unpark);
+      park();
+      return index;
+    }
+
+    // Last party: Release all parties.
+    if (action != null) {
+      action.run();
+    }
+    arrived = 0;
+    for (int i = 0; i < parked.length; i++) {
+      parked[i].run();
+      parked[i] = null;
+    }
+    park();
+    return index;
+  }
+
+  /**
+   * Number of parties.
+   */
+  public int getParties() {
+    return parties;
+  }
+
+  /**
+   * Number of parties waiting at the barrier.
+   */
+  public int getNumberWaiting() {
+    return arrived;
+  }
+
+  @Override
+  public String toString() {
+    return "Serial barrier " + arrived + "/" + parties;
+  }
+}
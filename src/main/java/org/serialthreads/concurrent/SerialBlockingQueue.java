@@ -0,0 +1,127 @@
+package org.serialthreads.concurrent;
+
+import org.serialthreads.Interruptible;
+
+import java.util.ArrayDeque;
+
+/**
+ * Bounded FIFO blocking queue for serial threads.
+ * Waiting parks the serial thread in its manager instead of blocking the executing thread.
+ * Not thread-safe: May only be used by serial threads of the same
+ * {@link org.serialthreads.context.ParkingSerialThreadManager}, so no atomic operations are needed at all.
+ */
+public final class SerialBlockingQueue<E> {
+  /**
+   * Capacity.
+   */
+  private final int capacity;
+
+  /**
+   * Elements.
+   */
+  private final ArrayDeque<E> elements;
+
+  /**
+   * Serial threads waiting for an element.
+   */
+  private final Waiters notEmpty = new Waiters();
+
+  /**
+   * Serial threads waiting for free capacity.
+   */
+  private final Waiters notFull = new Waiters();
+
+  /**
+   * Constructor.
+   *
+   * @param capacity capacity
+   */
+  public SerialBlockingQueue(int capacity) {
+    assert capacity > 0 : "Precondition: capacity > 0";
+
+    this.capacity = capacity;
+    this.elements = new ArrayDeque<>(capacity);
+  }
+
+  /**
+   * Append an element. Parks until there is free capacity.
+   *
+   * @param element element
+   */
+  @Interruptible
+  public void put(E element) {
+    assert element != null : "Precondition: element != null";
+
+    while (elements.size() >= capacity) {
+      // Pass on the signal, if cancelled before resuming.
+      notFull.await(notFull::signal);
+    }
+    elements.add(element);
+    notEmpty.signal();
+  }
+
+  /**
+   * Append an element, if there is free capacity.
+   *
+   * @param element element
+   * @return whether the element has been appended
+   */
+  public boolean offer(E element) {
+    assert element != null : "Precondition: element != null";
+
+    if (elements.size() >= capacity) {
+      return false;
+    }
+    elements.add(element);
+    notEmpty.signal();
+    return true;
+  }
+
+  /**
+   * Remove the first element. Parks until there is an element.
+   *
+   * @return first element
+   */
+  @Interruptible
+  public E take() {
+    while (elements.isEmpty()) {
+      // Pass on the signal, if cancelled before resuming.
+      notEmpty.await(notEmpty::signal);
+    }
+    var element = elements.poll();
+    notFull.signal();
+    return element;
+  }
+
+  /**
+   * Remove the first element, if there is one.
+   *
+   * @return first element, or null if the queue is empty
+   */
+  public E poll() {
+    var element = elements.poll();
+    if (element != null) {
+      notFull.signal();
+    }
+    return element;
+  }
+
+  /**
+   * Number of elements.
+   */
+  public int size() {
+    return elements.size();
+  }
+
+  /**
+   * Is the queue empty?.
+   */
+  public boolean isEmpty() {
+    return elements.isEmpty();
+  }
+
+  @Override
+  public String toString() {
+    return "Serial blocking queue " + elements.size() + "/" + capacity;
+  }
+}
@@ -0,0 +1,65 @@
+package org.serialthreads.concurrent;
+
+import org.serialthreads.Interruptible;
+
+/**
+ * Count down latch for serial threads.
+ * Waiting parks the serial thread in its manager instead of blocking the executing thread.
+ * Not thread-safe: May only be used by serial threads of the same
+ * {@link org.serialthreads.context.ParkingSerialThreadManager}, so no atomic operations are needed at all.
+ */
+public final class SerialCountDownLatch {
+  /**
+   * Count.
+   */
+  private long count;
+
+  /**
+   * Serial threads waiting for the count to reach zero.
+   */
+  private final Waiters waiters = new Waiters();
+
+  /**
+   * Constructor.
+   *
+   * @param count initial count
+   */
+  public SerialCountDownLatch(long count) {
+    assert count >= 0 : "Precondition: count >= 0";
+
+    this.count = count;
+  }
+
+  /**
+   * Wait until the count reaches zero.
+   */
+  @Interruptible
+  public void await() {
+    if (count == 0) {
+      return;
+    }
+
+    waiters.await();
+  }
+
+  /**
+   * Decrement the count. Unparks all waiting serial threads, if the count reaches zero.
+   */
+  public void countDown() {
+    if (count > 0 && --count == 0) {
+      waiters.signalAll();
+    }
+  }
+
+  /**
+   * Current count.
+   */
+  public long getCount() {
+    return count;
+  }
+
+  @Override
+  public String toString() {
+    return "Serial count down latch " + count;
+  }
+}
@@ -0,0 +1,74 @@
+package org.serialthreads.concurrent;
+
+import org.serialthreads.Interruptible;
+
+/**
+ * Non-reentrant, fair lock for serial threads.
+ * Waiting parks the serial thread in its manager instead of blocking the executing thread.
+ * Not thread-safe: May only be used by serial threads of the same
+ * {@link org.serialthreads.context.ParkingSerialThreadManager}, so no atomic operations are needed at all.
+ */
+public final class SerialLock {
+  /**
+   * Is the lock held?.
+   */
+  private boolean locked;
+
+  /**
+   * Serial threads waiting for the lock.
+   */
+  private final Waiters waiters = new Waiters();
+
+  /**
+   * Acquire the lock. Parks until the lock is available.
+   */
+  @Interruptible
+  public void lock() {
+    if (!locked) {
+      locked = true;
+      return;
+    }
+
+    // The lock is handed over by unlock() and passed on by unlock(), if cancelled before resuming.
+    waiters.await(this::unlock);
+  }
+
+  /**
+   * Acquire the lock, if it is available.
+   *
+   * @return whether the lock has been acquired
+   */
+  public boolean tryLock() {
+    if (locked) {
+      return false;
+    }
+    locked = true;
+    return true;
+  }
+
+  /**
+   * Release the lock. Hands it over to the longest waiting serial thread, if any.
+   *
+   * @exception IllegalMonitorStateException if the lock is not held
+   */
+  public void unlock() {
+    if (!locked) {
+      throw new IllegalMonitorStateException("Lock is not held");
+    }
+    if (!waiters.signal()) {
+      locked = false;
+    }
+  }
+
+  /**
+   * Is the lock held?.
+   */
+  public boolean isLocked() {
+    return locked;
+  }
+
+  @Override
+  public String toString() {
+    return "Serial lock " + (locked ? "locked, " + waiters.size() + " waiting" : "unlocked");
+  }
+}
@@ -0,0 +1,80 @@
+package org.serialthreads.concurrent;
+
+import org.serialthreads.Interruptible;
+
+/**
+ * Fair counting semaphore for serial threads.
+ * Waiting parks the serial thread in its manager instead of blocking the executing thread.
+ * Not thread-safe: May only be used by serial threads of the same
+ * {@link org.serialthreads.context.ParkingSerialThreadManager}, so no atomic operations are needed at all.
+ */
+public final class SerialSemaphore {
+  /**
+   * Available permits.
+   */
+  private int permits;
+
+  /**
+   * Serial threads waiting for a permit.
+   */
+  private final Waiters waiters = new Waiters();
+
+  /**
+   * Constructor.
+   *
+   * @param permits initially available permits
+   */
+  public SerialSemaphore(int permits) {
+    assert permits >= 0 : "Precondition: permits >= 0";
+
+    this.permits = permits;
+  }
+
+  /**
+   * Acquire a permit. Parks until a permit is available.
+   */
+  @Interruptible
+  public void acquire() {
+    if (permits > 0) {
+      permits--;
+      return;
+    }
+
+    // The permit is handed over by release() and passed on by release(), if cancelled before resuming.
+    waiters.await(this::release);
+  }
+
+  /**
+   * Acquire a permit, if one is available.
+   *
+   * @return whether a permit has been acquired
+   */
+  public boolean tryAcquire() {
+    if (permits == 0) {
+      return false;
+    }
+    permits--;
+    return true;
+  }
+
+  /**
+   * Release a permit. Hands it over to the longest waiting serial thread, if any.
+   */
+  public void release() {
+    if (!waiters.signal()) {
+      permits++;
+    }
+  }
+
+  /**
+   * Available permits.
+   */
+  public int availablePermits() {
+    return permits;
+  }
+
+  @Override
+  public String toString() {
+    return "Serial semaphore " + permits + " permits, " + waiters.size() + " waiting";
+  }
+}
@@ -0,0 +1,315 @@
+package org.serialthreads.concurrent;
+
+import org.serialthreads.Interruptible;
+import org.serialthreads.context.IRunnable;
+import org.serialthreads.context.ParkingSerialThreadManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.serialthreads.SerialThreads.park;
+
+/**
+ * Serial thread with structured fork/join.
+ * Child tasks are forked as serial threads of the same {@link ParkingSerialThreadManager}.
+ * Joining parks the parent until all of its children finished. The parent gets unparked exactly once.
+ * Results are passed via typed return slots like the ones of {@link org.serialthreads.context.Stack},
+ * so primitive results do not need to be boxed.
+ * Cancelling a task cancels all of its unfinished children too.
+ * <p>
+ * Not thread-safe: May only be used by serial threads of the same {@link ParkingSerialThreadManager},
+ * so no atomic operations are needed at all.
+ */
+public abstract class SerialTask implements IRunnable {
+  /**
+   * Manager executing this task.
+   */
+  private ParkingSerialThreadManager manager;
+
+  /**
+   * Parent task, or null for a root task.
+   */
+  private SerialTask parent;
+
+  /**
+   * Forked children.
+   */
+  private final List<SerialTask> children = new ArrayList<>();
+
+  /**
+   * Number of unfinished children.
+   */
+  private int pending;
+
+  /**
+   * Function to unpark this task while joining, or null.
+   */
+  private BooleanSupplier unpark;
+
+  /**
+   * Has this task finished or been cancelled?.
+   */
+  private boolean done;
+
+  /**
+   * Has this task been cancelled?.
+   */
+  private boolean cancelled;
+
+  /**
+   * Exception thrown by {@link #compute()}, or null.
+   */
+  private RuntimeException exception;
+
+  /**
+   * Return value of type object.
+   */
+  private Object returnObject;
+
+  /**
+   * Return value of type int.
+   */
+  private int returnInt;
+
+  /**
+   * Return value of type long.
+   */
+  private long returnLong;
+
+  /**
+   * Return value of type float.
+   */
+  private float returnFloat;
+
+  /**
+   * Return value of type double.
+   */
+  private double returnDouble;
+
+  /**
+   * Execute the task.
+   * Do not override, override {@link #compute()} instead.
+   */
+  @Override
+  @Interruptible
+  public final void run() {
+    if (done) {
+      // cancelled before it has been started
+      return;
+    }
+    if (manager == null) {
+      manager = ParkingSerialThreadManager.current();
+    }
+
+    try {
+      compute();
+    } catch (RuntimeException e) {
+      exception = e;
+    }
+
+    if (!done) {
+      // Children which have not been joined do not outlive their parent.
+      cancelChildren();
+      finish();
+    }
+  }
+
+  /**
+   * The computation of this task.
+   */
+  @Interruptible
+  protected abstract void compute();
+
+  /**
+   * Fork a child task. It will be executed starting with the next round.
+   *
+   * @param child child task
+   * @return child task
+   */
+  protected final <T extends SerialTask> T fork(T child) {
+    assert child != null : "Precondition: child != null";
+
+    SerialTask task = child;
+    assert task.parent == null && task.manager == null : "Precondition: child has not been forked yet";
+
+    task.parent = this;
+    task.manager = manager;
+    children.add(task);
+    pending++;
+    manager.spawn(task);
+    return child;
+  }
+
+  /**
+   * Wait until all forked children finished.
+   * Does not interrupt, if all of them already finished.
+   */
+  @Interruptible
+  protected final void join() {
+    if (pending == 0) {
+      children.clear();
+      return;
+    }
+
+    manager.requestCancellablePark(unpark -> this.unpark = unpark);
+    park();
+    children.clear();
+  }
+
+  /**
+   * Cancel this task and all of its unfinished children.
+   * A cancelled task will not be executed again, starting with the next round.
+   * Has no effect, if this task already finished.
+   */
+  public final void cancel() {
+    if (done) {
+      return;
+    }
+
+    cancelled = true;
+    if (manager != null) {
+      manager.cancel(this);
+    }
+    cancelChildren();
+    finish();
+  }
+
+  /**
+   * Cancel all unfinished children.
+   */
+  private void cancelChildren() {
+    for (var child : children) {
+      child.cancel();
+    }
+    children.clear();
+  }
+
+  /**
+   * Mark this task as done and notify its parent.
+   */
+  private void finish() {
+    done = true;
+    if (parent != null) {
+      parent.childFinished();
+    }
+  }
+
+  /**
+   * A child finished: Unpark this task, if it is joining and this was the last unfinished child.
+   * A cancelled task gets discarded by its manager instead of being resumed.
+   */
+  private void childFinished() {
+    if (--pending == 0 && unpark != null) {
+      var unpark = this.unpark;
+      this.unpark = null;
+      unpark.getAsBoolean();
+    }
+  }
+
+  /**
+   * Has this task finished or been cancelled?.
+   */
+  public final boolean isDone() {
+    return done;
+  }
+
+  /**
+   * Has this task been cancelled?.
+   */
+  public final boolean isCancelled() {
+    return cancelled;
+  }
+
+  /**
+   * Exception thrown by {@link #compute()}, or null.
+   */
+  public final RuntimeException getException() {
+    return exception;
+  }
+
+  //
+  // Return values.
+  //
+
+  /**
+   * Set the return value of type object.
+   *
+   * @param value return value
+   */
+  protected final void returnObject(Object value) {
+    returnObject = value;
+  }
+
+  /**
+   * Set the return value of type int.
+   *
+   * @param value return value
+   */
+  protected final void returnInt(int value) {
+    returnInt = value;
+  }
+
+  /**
+   * Set the return value of type long.
+   *
+   * @param value return value
+   */
+  protected final void returnLong(long value) {
+    returnLong = value;
+  }
+
+  /**
+   * Set the return value of type float.
+   *
+   * @param value return value
+   */
+  protected final void returnFloat(float value) {
+    returnFloat = value;
+  }
+
+  /**
+   * Set the return value of type double.
+   *
+   * @param value return value
+   */
+  protected final void returnDouble(double value) {
+    returnDouble = value;
+  }
+
+  /**
+   * Return value of type object.
+   */
+  @SuppressWarnings("unchecked")
+  public final <T> T getReturnObject() {
+    return (T) returnObject;
+  }
+
+  /**
+   * Return value of type int.
+   */
+  public final int getReturnInt() {
+    return returnInt;
+  }
+
+  /**
+   * Return value of type long.
+   */
+  public final long getReturnLong() {
+    return returnLong;
+  }
+
+  /**
+   * Return value of type float.
+   */
+  public final float getReturnFloat() {
+    return returnFloat;
+  }
+
+  /**
+   * Return value of type double.
+   */
+  public final double getReturnDouble() {
+    return returnDouble;
+  }
+}
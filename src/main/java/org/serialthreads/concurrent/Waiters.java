@@ -0,0 +1,83 @@
+package org.serialthreads.concurrent;
+
+import org.serialthreads.Interruptible;
+import org.serialthreads.context.ParkingSerialThreadManager;
+
+import java.util.ArrayDeque;
+import java.util.function.BooleanSupplier;
+
+import static org.serialthreads.SerialThreads.park;
+
+/**
+ * FIFO queue of parked serial threads.
+ * Serial threads which have been cancelled while waiting are skipped when signalling.
+ * Serial threads which have been cancelled after being signalled may pass on the signal, see {@link #await(Runnable)}.
+ * Not thread-safe: May only be used by serial threads of the same manager.
+ */
+final class Waiters {
+  /**
+   * Functions to unpark the waiting serial threads.
+   * They return false, if the serial thread has been cancelled meanwhile.
+   */
+  private final ArrayDeque<BooleanSupplier> unparks = new ArrayDeque<>();
+
+  /**
+   * Park the current serial thread until it gets signalled.
+   */
+  @Interruptible
+  void await() {
+    ParkingSerialThreadManager.current().requestCancellablePark(unparks::add);
+    park();
+  }
+
+  /**
+   * Park the current serial thread until it gets signalled.
+   * If it gets cancelled after it has been signalled, but before it resumed,
+   * the cancel callback gets called, e.g. to pass on what has been handed over to it.
+   *
+   * @param onCancelled callback if the serial thread gets cancelled after it has been signalled
+   */
+  @Interruptible
+  void await(Runnable onCancelled) {
+    ParkingSerialThreadManager.current().requestCancellablePark(unparks::add, onCancelled);
+    park();
+  }
+
+  /**
+   * Unpark the longest waiting serial thread, if any.
+   * Cancelled serial threads are discarded.
+   *
+   * @return whether a serial thread has been unparked
+   */
+  boolean signal() {
+    for (BooleanSupplier unpark; (unpark = unparks.poll()) != null; ) {
+      if (unpark.getAsBoolean()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Unpark all waiting serial threads.
+   */
+  void signalAll() {
+    for (BooleanSupplier unpark; (unpark = unparks.poll()) != null; ) {
+      unpark.getAsBoolean();
+    }
+  }
+
+  /**
+   * Are there waiting serial threads?.
+   */
+  boolean isEmpty() {
+    return unparks.isEmpty();
+  }
+
+  /**
+   * Number of waiting serial threads, including cancelled ones not yet discarded.
+   */
+  int size() {
+    return unparks.size();
+  }
+}
@@ -0,0 +1,266 @@
+package org.serialthreads.context;
+
+import org.serialthreads.Executor;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * Thread manager which executes the serial threads in batches of the same concrete class.
+ * Each round executes every serial thread once, batch by batch.
+ * <p>
+ * The JIT profiles the types at each call site of {@link IRunnable#run()}.
+ * If a call site sees many types, it becomes megamorphic and the called methods cannot be inlined.
+ * So the batches are executed by {@value #LANES} lanes with separate call sites:
+ * The largest batches get a lane of their own, so their call sites stay monomorphic.
+ * All remaining batches share the last lane.
+ * <p>
+ * Execution stops after the round in which any serial thread finished.
+ */
+public class BatchSerialThreadManager extends SerialThreadManager {
+  /**
+   * Number of lanes.
+   */
+  public static final int LANES = 8;
+
+  /**
+   * Serial threads grouped by their concrete class, largest batches first.
+   */
+  private final ITransformedRunnable[][] batches;
+
+  /**
+   * Lane of each batch.
+   */
+  private final int[] lanes;
+
+  /**
+   * Did a serial thread finish?.
+   */
+  private boolean finished;
+
+  /**
+   * Constructor.
+   *
+   * @param runnables runnables
+   */
+  public BatchSerialThreadManager(IRunnable... runnables) {
+    assert runnables.length > 0 : "Precondition: runnables.length > 0";
+
+    var groups = new LinkedHashMap<Class<?>, List<ITransformedRunnable>>();
+    for (var runnable : runnables) {
+      var transformedRunnable = (ITransformedRunnable) runnable;
+      manage(transformedRunnable);
+      groups.computeIfAbsent(runnable.getClass(), type -> new ArrayList<>()).add(transformedRunnable);
+    }
+
+    var sorted = new ArrayList<>(groups.values());
+    sorted.sort(Comparator.comparingInt(List<ITransformedRunnable>::size).reversed());
+    batches = new ITransformedRunnable[sorted.size()][];
+    lanes = new int[sorted.size()];
+    for (int i = 0; i < batches.length; i++) {
+      batches[i] = sorted.get(i).toArray(new ITransformedRunnable[0]);
+      lanes[i] = Math.min(i, LANES - 1);
+    }
+  }
+
+  /**
+   * Execute rounds until a serial thread finishes.
+   */
+  @Override
+  @Executor
+  public void execute() {
+    while (!finished) {
+      round();
+    }
+    close();
+  }
+
+  /**
+   * Execute the given number of rounds or until a serial thread finishes.
+   *
+   * @param interrupts number of rounds
+   */
+  @Override
+  @Executor
+  public void execute(int interrupts) {
+    assert interrupts > 0 : "Precondition: interrupts > 0";
+
+    for (int i = 0; i < interrupts && !finished; i++) {
+      round();
+    }
+    if (finished) {
+      close();
+    }
+  }
+
+  /**
+   * Execute one round: Execute all batches in their lanes.
+   */
+  @Executor
+  private void round() {
+    var batches = this.batches;
+    var lanes = this.lanes;
+    for (int i = 0; i < batches.length; i++) {
+      var batch = batches[i];
+      switch (lanes[i]) {
+        case 0 -> run0(batch);
+        case 1 -> run1(batch);
+        case 2 -> run2(batch);
+        case 3 -> run3(batch);
+        case 4 -> run4(batch);
+        case 5 -> run5(batch);
+        case 6 -> run6(batch);
+        case 7 -> run7(batch);
+        default -> throw new IllegalStateException("Unknown lane " + lanes[i]);
+      }
+    }
+  }
+
+  /**
+   * Execute a batch in lane 0.
+   *
+   * @param batch serial threads of the batch
+   */
+  @Executor
+  private void run0(ITransformedRunnable[] batch) {
+    for (var runnable : batch) {
+      try {
+        runnable.run();
+      } catch (ThreadFinishedException e) {
+        finished(runnable);
+      }
+    }
+  }
+
+  /**
+   * Execute a batch in lane 1.
+   *
+   * @param batch serial threads of the batch
+   */
+  @Executor
+  private void run1(ITransformedRunnable[] batch) {
+    for (var runnable : batch) {
+      try {
+        runnable.run();
+      } catch (ThreadFinishedException e) {
+        finished(runnable);
+      }
+    }
+  }
+
+  /**
+   * Execute a batch in lane 2.
+   *
+   * @param batch serial threads of the batch
+   */
+  @Executor
+  private void run2(ITransformedRunnable[] batch) {
+    for (var runnable : batch) {
+      try {
+        runnable.run();
+      } catch (ThreadFinishedException e) {
+        finished(runnable);
+      }
+    }
+  }
+
+  /**
+   * Execute a batch in lane 3.
+   *
+   * @param batch serial threads of the batch
+   */
+  @Executor
+  private void run3(ITransformedRunnable[] batch) {
+    for (var runnable : batch) {
+      try {
+        runnable.run();
+      } catch (ThreadFinishedException e) {
+        finished(runnable);
+      }
+    }
+  }
+
+  /**
+   * Execute a batch in lane 4.
+   *
+   * @param batch serial threads of the batch
+   */
+  @Executor
+  private void run4(ITransformedRunnable[] batch) {
+    for (var runnable : batch) {
+      try {
+        runnable.run();
+      } catch (ThreadFinishedException e) {
+        finished(runnable);
+      }
+    }
+  }
+
+  /**
+   * Execute a batch in lane 5.
+   *
+   * @param batch serial threads of the batch
+   */
+  @Executor
+  private void run5(ITransformedRunnable[] batch) {
+    for (var runnable : batch) {
+      try {
+        runnable.run();
+      } catch (ThreadFinishedException e) {
+        finished(runnable);
+      }
+    }
+  }
+
+  /**
+   * Execute a batch in lane 6.
+   *
+   * @param batch serial threads of the batch
+   */
+  @Executor
+  private void run6(ITransformedRunnable[] batch) {
+    for (var runnable : batch) {
+      try {
+        runnable.run();
+      } catch (ThreadFinishedException e) {
+        finished(runnable);
+      }
+    }
+  }
+
+  /**
+   * Execute a batch in lane 7.
+   *
+   * @param batch serial threads of the batch
+   */
+  @Executor
+  private void run7(ITransformedRunnable[] batch) {
+    for (var runnable : batch) {
+      try {
+        runnable.run();
+      } catch (ThreadFinishedException e) {
+        finished(runnable);
+      }
+    }
+  }
+
+  /**
+   * A serial thread finished.
+   *
+   * @param runnable serial thread
+   */
+  private void finished(ITransformedRunnable runnable) {
+    // expected: execution finished normally due to the end of a serial thread
+    Stack.stack(runnable).reset();
+    finished = true;
+  }
+
+  /**
+   * Number of batches.
+   */
+  public int getBatches() {
+    return batches.length;
+  }
+}
@@ -0,0 +1,305 @@
+package org.serialthreads.context;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
+import static java.nio.channels.FileChannel.MapMode.READ_WRITE;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Checkpoint file containing the stacks of serial threads.
+ * A checkpoint is either a base containing the complete stacks,
+ * or a delta containing only the frames modified since the previous checkpoint of the same base.
+ * <p>
+ * Format: Magic number, version, id of the base, sequence number (0 for the base, deltas numbered from 1 on),
+ * number of stacks n, n + 2 offsets: of the stacks, of the layout and of the end of the file,
+ * followed by the stacks, see {@link StackCodec}, and the layout of the stacks, see {@link StackLayout}.
+ * The offsets allow to restore the stacks in parallel.
+ * The layout allows to restore checkpoints written by older builds.
+ * The file is accessed via memory mappings, so primitive arrays are copied in bulk.
+ */
+final class Checkpoint {
+  /**
+   * Magic number identifying checkpoint files.
+   */
+  private static final int MAGIC = 0x53544350;
+
+  /**
+   * Version of the format.
+   */
+  private static final int VERSION = 5;
+
+  /**
+   * Size of the fixed part of the header: Magic number, version, id of the base, sequence number, number of stacks.
+   */
+  private static final int HEADER_SIZE = 24;
+
+  /**
+   * Initial size of mappings used for writing.
+   */
+  private static final int WINDOW_SIZE = 64 << 20;
+
+  /**
+   * Maximum size of mappings used for reading.
+   */
+  private static final long MAX_CHUNK_SIZE = 1 << 30;
+
+  /**
+   * Utility class.
+   */
+  private Checkpoint() {
+  }
+
+  /**
+   * Write stacks to a checkpoint file.
+   * The stacks are written to a temporary file first, which then replaces the checkpoint file.
+   *
+   * @param file checkpoint file
+   * @param stacks stacks
+   * @param layout layout of the stacks, for deltas of the modified stacks only
+   * @param codec codec for object references
+   * @param baseId id of the base
+   * @param sequence 0 to write a base, otherwise the sequence number of the delta to write
+   * @exception IOException if writing failed
+   */
+  static void write(Path file, List<Stack> stacks, StackLayout layout, ObjectCodec codec, long baseId, int sequence)
+    throws IOException {
+    assert sequence >= 0 : "Precondition: sequence >= 0";
+
+    var stackCodec = new StackCodec(codec);
+    var temp = file.resolveSibling(file.getFileName() + ".tmp");
+    int count = stacks.size();
+    var offsets = new long[count + 2];
+    long headerSize = HEADER_SIZE + 8L * offsets.length;
+    try (var channel = FileChannel.open(temp, CREATE, TRUNCATE_EXISTING, READ, WRITE)) {
+      int windowSize = WINDOW_SIZE;
+      long windowStart = headerSize;
+      var window = map(channel, READ_WRITE, windowStart, windowSize);
+      for (int i = 0; i < count; i++) {
+        var stack = stacks.get(i);
+        while (true) {
+          int start = window.position();
+          try {
+            if (sequence == 0) {
+              stackCodec.encode(stack, window);
+            } else {
+              stackCodec.encodeDelta(stack, window);
+            }
+            offsets[i] = windowStart + start;
+            break;
+          } catch (BufferOverflowException e) {
+            // Move window to the start of the stack, enlarging it, if the stack alone does not fit.
+            if (start == 0) {
+              if (windowSize > Integer.MAX_VALUE / 2) {
+                throw new IOException("Stack too large");
+              }
+              windowSize *= 2;
+            }
+            window.force();
+            windowStart += start;
+            window = map(channel, READ_WRITE, windowStart, windowSize);
+          }
+        }
+      }
+      offsets[count] = windowStart + window.position();
+      window.force();
+
+      var encodedLayout = encode(layout);
+      offsets[count + 1] = offsets[count] + encodedLayout.remaining();
+      channel.write(encodedLayout, offsets[count]);
+
+      var header = map(channel, READ_WRITE, 0, headerSize);
+      header.putInt(MAGIC);
+      header.putInt(VERSION);
+      header.putLong(baseId);
+      header.putInt(sequence);
+      header.putInt(count);
+      header.asLongBuffer().put(offsets);
+      header.force();
+
+      // Mapping beyond the end extends the file.
+      channel.truncate(offsets[count + 1]);
+    }
+    Files.move(temp, file, REPLACE_EXISTING, ATOMIC_MOVE);
+  }
+
+  /**
+   * Encode the layout of the stacks.
+   */
+  private static ByteBuffer encode(StackLayout layout) {
+    var buffer = ByteBuffer.allocate(4096).order(StackCodec.ORDER);
+    while (true) {
+      try {
+        layout.write(buffer);
+        return buffer.flip();
+      } catch (BufferOverflowException e) {
+        buffer = ByteBuffer.allocate(buffer.capacity() * 2).order(StackCodec.ORDER);
+      }
+    }
+  }
+
+  /**
+   * Read the header of a checkpoint file.
+   *
+   * @param file checkpoint file
+   * @exception IOException if reading failed or the file is not a checkpoint file
+   */
+  static Header header(Path file) throws IOException {
+    try (var channel = FileChannel.open(file, READ)) {
+      return header(file, channel);
+    }
+  }
+
+  /**
+   * Read the header of a checkpoint file.
+   */
+  private static Header header(Path file, FileChannel channel) throws IOException {
+    if (channel.size() < HEADER_SIZE) {
+      throw new IOException("Not a checkpoint file: " + file);
+    }
+    var header = map(channel, READ_ONLY, 0, HEADER_SIZE);
+    if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+      throw new IOException("Not a checkpoint file: " + file);
+    }
+    return new Header(header.getLong(), header.getInt(), header.getInt());
+  }
+
+  /**
+   * Read stacks from a checkpoint file in parallel.
+   * Deltas are applied to the stacks, which have to be in the state of the previous checkpoint.
+   * The stacks must not report to a {@link RoundHistory}, see {@link SerialThreadManager#replacing(List)}.
+   *
+   * @param file checkpoint file
+   * @param stacks stacks
+   * @param codec codec for object references, has to be thread-safe
+   * @return header of the checkpoint file
+   * @exception IOException if reading failed
+   */
+  static Header read(Path file, List<Stack> stacks, ObjectCodec codec) throws IOException {
+    assert stacks.stream().allMatch(stack -> stack.history == null) : "Precondition: stacks detached from round history";
+
+    try (var channel = FileChannel.open(file, READ)) {
+      var header = header(file, channel);
+      int count = header.count();
+      if (count != stacks.size()) {
+        throw new IllegalArgumentException(
+          "Checkpoint contains " + count + " serial threads, but " + stacks.size() + " are managed");
+      }
+      boolean delta = header.sequence() > 0;
+      var offsets = new long[count + 1];
+      map(channel, READ_ONLY, HEADER_SIZE, 8L * offsets.length).asLongBuffer().get(offsets);
+
+      var stackCodec = new StackCodec(codec);
+      var chunks = chunks(offsets);
+      try {
+        IntStream.range(0, chunks.size() - 1).parallel().forEach(chunk -> {
+          int from = chunks.get(chunk);
+          int to = chunks.get(chunk + 1);
+          try {
+            var buffer = map(channel, READ_ONLY, offsets[from], offsets[to] - offsets[from]);
+            for (int i = from; i < to; i++) {
+              buffer.position((int) (offsets[i] - offsets[from]));
+              if (delta) {
+                stackCodec.decodeDelta(buffer, stacks.get(i));
+              } else {
+                stackCodec.decode(buffer, stacks.get(i));
+              }
+            }
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        });
+      } catch (UncheckedIOException e) {
+        throw e.getCause();
+      }
+      return header;
+    }
+  }
+
+  /**
+   * Read the layout of the stacks from a checkpoint file.
+   * The layouts of the stacks contained in the file replace the ones in the given layout,
+   * so the layouts of deltas can be applied to the layout of their base.
+   *
+   * @param file checkpoint file
+   * @param layout layout to read into
+   * @exception IOException if reading failed
+   */
+  static void readLayout(Path file, StackLayout layout) throws IOException {
+    try (var channel = FileChannel.open(file, READ)) {
+      int count = header(file, channel).count();
+      if (count != layout.getStacks()) {
+        throw new IllegalArgumentException(
+          "Checkpoint contains " + count + " serial threads, but " + layout.getStacks() + " are managed");
+      }
+      var offsets = map(channel, READ_ONLY, HEADER_SIZE + 8L * count, 16).asLongBuffer();
+      long start = offsets.get();
+      long end = offsets.get();
+      layout.read(map(channel, READ_ONLY, start, end - start));
+    }
+  }
+
+  /**
+   * Split the stacks into chunks for reading them in parallel.
+   * Creates about 4 chunks per core, each of them small enough to be mapped at once.
+   *
+   * @param offsets offsets of the stacks
+   * @return start indexes of the chunks, followed by the number of stacks
+   */
+  private static List<Integer> chunks(long[] offsets) {
+    int count = offsets.length - 1;
+    int stacksPerChunk = Math.max(1, count / (4 * ForkJoinPool.getCommonPoolParallelism()));
+    var result = new ArrayList<Integer>();
+    result.add(0);
+    int start = 0;
+    for (int i = 1; i < count; i++) {
+      if (i - start == stacksPerChunk || offsets[i + 1] - offsets[start] > MAX_CHUNK_SIZE) {
+        result.add(i);
+        start = i;
+      }
+    }
+    if (count > 0) {
+      result.add(count);
+    }
+    return result;
+  }
+
+  /**
+   * Map a region of the file.
+   */
+  private static MappedByteBuffer map(FileChannel channel, FileChannel.MapMode mode, long position, long size)
+    throws IOException {
+    if (size > Integer.MAX_VALUE) {
+      throw new IOException("Region too large");
+    }
+    var result = channel.map(mode, position, size);
+    result.order(StackCodec.ORDER);
+    return result;
+  }
+
+  /**
+   * Header of a checkpoint file.
+   *
+   * @param baseId id of the base
+   * @param sequence 0 for a base, otherwise the sequence number of the delta
+   * @param count number of stacks
+   */
+  record Header(long baseId, int sequence, int count) {
+  }
+}
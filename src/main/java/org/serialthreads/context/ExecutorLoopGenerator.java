@@ -0,0 +1,157 @@
+package org.serialthreads.context;
+
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.Type;
+import org.serialthreads.Executor;
+
+import java.lang.invoke.MethodHandles;
+
+import static org.objectweb.asm.ClassWriter.COMPUTE_FRAMES;
+import static org.objectweb.asm.Opcodes.AALOAD;
+import static org.objectweb.asm.Opcodes.ACC_FINAL;
+import static org.objectweb.asm.Opcodes.ACC_PUBLIC;
+import static org.objectweb.asm.Opcodes.ACC_SUPER;
+import static org.objectweb.asm.Opcodes.ALOAD;
+import static org.objectweb.asm.Opcodes.CHECKCAST;
+import static org.objectweb.asm.Opcodes.GOTO;
+import static org.objectweb.asm.Opcodes.ICONST_M1;
+import static org.objectweb.asm.Opcodes.IF_ICMPGE;
+import static org.objectweb.asm.Opcodes.ILOAD;
+import static org.objectweb.asm.Opcodes.INVOKESPECIAL;
+import static org.objectweb.asm.Opcodes.INVOKEVIRTUAL;
+import static org.objectweb.asm.Opcodes.IRETURN;
+import static org.objectweb.asm.Opcodes.POP;
+import static org.objectweb.asm.Opcodes.RETURN;
+import static org.objectweb.asm.Opcodes.V17;
+
+/**
+ * Generates {@link IExecutorLoop}s as hidden classes.
+ * The loop for a concrete class casts each serial thread to that class
+ * and calls its transformed {@link IRunnable#run()} with a direct invokevirtual.
+ * So each concrete class gets a call site of its own, which stays monomorphic.
+ * <p>
+ * The hidden classes are defined in the package of the concrete class,
+ * so package private classes are supported too.
+ * The loops are cached per concrete class and get unloaded together with it.
+ */
+final class ExecutorLoopGenerator {
+  /**
+   * Loops per concrete class.
+   */
+  private static final ClassValue<IExecutorLoop> loops = new ClassValue<>() {
+    @Override
+    protected IExecutorLoop computeValue(Class<?> type) {
+      return generate(type);
+    }
+  };
+
+  /**
+   * Utility class.
+   */
+  private ExecutorLoopGenerator() {
+  }
+
+  /**
+   * The loop for serial threads of the given concrete class.
+   *
+   * @param type concrete class of the serial threads
+   */
+  static IExecutorLoop loop(Class<?> type) {
+    assert ITransformedRunnable.class.isAssignableFrom(type) : "Precondition: type is transformed runnable";
+
+    return loops.get(type);
+  }
+
+  /**
+   * Generate the loop for serial threads of the given concrete class.
+   *
+   * @param type concrete class of the serial threads
+   */
+  private static IExecutorLoop generate(Class<?> type) {
+    try {
+      var lookup = MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+      var loopClass = lookup.defineHiddenClass(byteCode(type), true).lookupClass();
+      return (IExecutorLoop) loopClass.getConstructor().newInstance();
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalArgumentException("Failed to generate executor loop for " + type.getName(), e);
+    }
+  }
+
+  /**
+   * Byte code of the loop for serial threads of the given concrete class.
+   * Corresponds to:
+   * <pre>
+   * public int run(ITransformedRunnable[] runnables, int from, int to) {
+   *   for (int i = from; i &lt; to; i++) {
+   *     try {
+   *       ((Type) runnables[i]).run();
+   *     } catch (ThreadFinishedException e) {
+   *       return i;
+   *     }
+   *   }
+   *   return -1;
+   * }
+   * </pre>
+   *
+   * @param type concrete class of the serial threads
+   */
+  private static byte[] byteCode(Class<?> type) {
+    var typeName = Type.getInternalName(type);
+    var loopName = typeName + "$ExecutorLoop";
+    var writer = new ClassWriter(COMPUTE_FRAMES) {
+      @Override
+      protected String getCommonSuperClass(String type1, String type2) {
+        // No frames with merged reference types are generated, see below.
+        return "java/lang/Object";
+      }
+    };
+    writer.visit(V17, ACC_PUBLIC | ACC_FINAL | ACC_SUPER, loopName, null, "java/lang/Object",
+      new String[]{Type.getInternalName(IExecutorLoop.class)});
+
+    var constructor = writer.visitMethod(ACC_PUBLIC, "<init>", "()V", null, null);
+    constructor.visitCode();
+    constructor.visitVarInsn(ALOAD, 0);
+    constructor.visitMethodInsn(INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+    constructor.visitInsn(RETURN);
+    constructor.visitMaxs(0, 0);
+    constructor.visitEnd();
+
+    // Locals: 0 = this, 1 = runnables, 2 = from, used as i, 3 = to.
+    var run = writer.visitMethod(ACC_PUBLIC, "run",
+      "([" + Type.getDescriptor(ITransformedRunnable.class) + "II)I", null, null);
+    run.visitAnnotation(Type.getDescriptor(Executor.class), true).visitEnd();
+    run.visitCode();
+    var loop = new Label();
+    var tryStart = new Label();
+    var tryEnd = new Label();
+    var handler = new Label();
+    var end = new Label();
+    run.visitTryCatchBlock(tryStart, tryEnd, handler, Type.getInternalName(ThreadFinishedException.class));
+    run.visitLabel(loop);
+    run.visitVarInsn(ILOAD, 2);
+    run.visitVarInsn(ILOAD, 3);
+    run.visitJumpInsn(IF_ICMPGE, end);
+    run.visitLabel(tryStart);
+    run.visitVarInsn(ALOAD, 1);
+    run.visitVarInsn(ILOAD, 2);
+    run.visitInsn(AALOAD);
+    run.visitTypeInsn(CHECKCAST, typeName);
+    run.visitMethodInsn(INVOKEVIRTUAL, typeName, "run", "()V", false);
+    run.visitLabel(tryEnd);
+    run.visitIincInsn(2, 1);
+    run.visitJumpInsn(GOTO, loop);
+    run.visitLabel(handler);
+    run.visitInsn(POP);
+    run.visitVarInsn(ILOAD, 2);
+    run.visitInsn(IRETURN);
+    run.visitLabel(end);
+    run.visitInsn(ICONST_M1);
+    run.visitInsn(IRETURN);
+    run.visitMaxs(0, 0);
+    run.visitEnd();
+
+    writer.visitEnd();
+    return writer.toByteArray();
+  }
+}
@@ -0,0 +1,322 @@
+package org.serialthreads.context;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.nio.channels.FileChannel.MapMode.READ_WRITE;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.DELETE_ON_CLOSE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Hibernation policy for parked serial threads of a {@link ParkingSerialThreadManager},
+ * see {@link ParkingSerialThreadManager#setHibernation(Hibernation)}.
+ * <p>
+ * Serial threads parked for longer than the given time get their stacks written to a memory-mapped swap file,
+ * see {@link StackCodec}. Their in-memory stacks get reduced to a stub of a single empty frame.
+ * When they get unparked, their stacks get restored before they are executed again.
+ * So the memory used by the frames is bounded by the serial threads which are not idle.
+ * Object references on the stacks are kept in memory, so they need not to be serializable.
+ * <p>
+ * The swap file is divided into regions of power of two sizes, which get reused after the stacks have been restored.
+ * It gets deleted when the hibernation gets closed.
+ * Not thread-safe: Used by the thread executing the manager only.
+ */
+public class Hibernation implements AutoCloseable {
+  /**
+   * Size of the mappings of the swap file. Power of two.
+   */
+  private static final int CHUNK_SIZE = 64 << 20;
+
+  /**
+   * Size class of the smallest region.
+   */
+  private static final int MIN_SIZE_CLASS = 6;
+
+  /**
+   * Swap file.
+   */
+  private final FileChannel channel;
+
+  /**
+   * Time in nanoseconds a serial thread has to be parked, before it gets hibernated.
+   */
+  private final long after;
+
+  /**
+   * Mappings of the swap file.
+   */
+  private final List<MappedByteBuffer> chunks = new ArrayList<>();
+
+  /**
+   * End of the allocated part of the swap file.
+   */
+  private long top;
+
+  /**
+   * Addresses of free regions by their size class.
+   */
+  private final List<ArrayDeque<Long>> free = new ArrayList<>();
+
+  /**
+   * Parked serial threads in the order they have been parked.
+   */
+  private final ArrayDeque<Parked> queue = new ArrayDeque<>();
+
+  /**
+   * Time the serial threads have been parked at.
+   */
+  private final Map<ITransformedRunnable, Long> parked = new IdentityHashMap<>();
+
+  /**
+   * Hibernated serial threads.
+   */
+  private final Map<ITransformedRunnable, Swapped> hibernated = new IdentityHashMap<>();
+
+  /**
+   * Codec for object references: Keeps the references in memory.
+   */
+  private final ReferenceTable references = new ReferenceTable();
+
+  /**
+   * Buffer for encoding.
+   */
+  private ByteBuffer buffer = ByteBuffer.allocate(4096).order(StackCodec.ORDER);
+
+  /**
+   * Constructor.
+   *
+   * @param file swap file, gets replaced
+   * @param after time a serial thread has to be parked, before it gets hibernated
+   * @exception IOException if the swap file could not be created
+   */
+  public Hibernation(Path file, Duration after) throws IOException {
+    assert file != null : "Precondition: file != null";
+    assert !after.isNegative() : "Precondition: !after.isNegative()";
+
+    this.channel = FileChannel.open(file, CREATE, TRUNCATE_EXISTING, READ, WRITE, DELETE_ON_CLOSE);
+    this.after = after.toNanos();
+    for (int sizeClass = 0; sizeClass <= Integer.numberOfTrailingZeros(CHUNK_SIZE); sizeClass++) {
+      free.add(new ArrayDeque<>());
+    }
+  }
+
+  /**
+   * Number of hibernated serial threads.
+   */
+  public int getHibernated() {
+    return hibernated.size();
+  }
+
+  /**
+   * A serial thread has been parked.
+   *
+   * @param runnable serial thread
+   * @param now current time in nanoseconds, see {@link System#nanoTime()}
+   */
+  void parked(ITransformedRunnable runnable, long now) {
+    parked.put(runnable, now);
+    queue.add(new Parked(runnable, now));
+  }
+
+  /**
+   * A serial thread has been unparked and is about to be executed again: Restore its stack, if it has been hibernated.
+   *
+   * @param runnable serial thread
+   */
+  void unparked(ITransformedRunnable runnable) {
+    if (parked.remove(runnable) != null) {
+      restore(runnable);
+    }
+  }
+
+  /**
+   * A parked serial thread has been cancelled: Drop its hibernated stack, if any.
+   *
+   * @param runnable serial thread
+   */
+  void discard(ITransformedRunnable runnable) {
+    parked.remove(runnable);
+    var swapped = hibernated.remove(runnable);
+    if (swapped != null) {
+      release(swapped);
+    }
+  }
+
+  /**
+   * Hibernate all serial threads, which have been parked for longer than the hibernation time.
+   *
+   * @param now current time in nanoseconds, see {@link System#nanoTime()}
+   */
+  void hibernate(long now) {
+    for (Parked next; (next = queue.peek()) != null && now - next.since() >= after; ) {
+      queue.poll();
+      var since = parked.get(next.runnable());
+      // Skip serial threads which have been unparked since or parked again later.
+      if (since != null && since == next.since() && !hibernated.containsKey(next.runnable())) {
+        hibernate(next.runnable());
+      }
+    }
+  }
+
+  /**
+   * Restore the stacks of all hibernated serial threads, e.g. to write a checkpoint.
+   * They stay parked and get hibernated again by the next {@link #hibernate(long)}.
+   * Their frames keep the modification marks they had when they got hibernated,
+   * so incremental checkpoints contain just the serial threads which ran since the last checkpoint.
+   */
+  void restoreAll() {
+    for (var runnable : new ArrayList<>(hibernated.keySet())) {
+      restore(runnable);
+      queue.addFirst(new Parked(runnable, parked.get(runnable)));
+    }
+  }
+
+  /**
+   * Write the stack of a serial thread to the swap file and release its frames.
+   */
+  private void hibernate(ITransformedRunnable runnable) {
+    var stack = Stack.stack(runnable);
+    while (true) {
+      buffer.clear();
+      references.clear();
+      try {
+        stack.write(buffer, references);
+        break;
+      } catch (BufferOverflowException e) {
+        buffer = ByteBuffer.allocate(buffer.capacity() * 2).order(StackCodec.ORDER);
+      }
+    }
+    buffer.flip();
+
+    int length = buffer.remaining();
+    long address = allocate(sizeClass(length));
+    region(address, length).put(buffer);
+    hibernated.put(runnable, new Swapped(address, length, references.written(), stack.getModified()));
+    stack.release();
+  }
+
+  /**
+   * Restore the stack of a serial thread from the swap file, if it has been hibernated.
+   */
+  private void restore(ITransformedRunnable runnable) {
+    var swapped = hibernated.remove(runnable);
+    if (swapped == null) {
+      return;
+    }
+
+    var stack = Stack.stack(runnable);
+    references.use(swapped.references());
+    stack.read(region(swapped.address(), swapped.length()), references);
+    references.use(ReferenceTable.NONE);
+    // The content did not change while hibernated.
+    stack.setModified(swapped.modified());
+    release(swapped);
+  }
+
+  /**
+   * Size class of a region: Binary logarithm of the size of the smallest region the given number of bytes fit in.
+   */
+  private static int sizeClass(int length) {
+    int sizeClass = Math.max(MIN_SIZE_CLASS, 32 - Integer.numberOfLeadingZeros(length - 1));
+    if (1L << sizeClass > CHUNK_SIZE) {
+      throw new IllegalArgumentException("Stack too large: " + length + " bytes");
+    }
+    return sizeClass;
+  }
+
+  /**
+   * Allocate a region of the swap file.
+   *
+   * @param sizeClass size class of the region
+   * @return address of the region
+   */
+  private long allocate(int sizeClass) {
+    var address = free.get(sizeClass).poll();
+    if (address != null) {
+      return address;
+    }
+
+    int size = 1 << sizeClass;
+    if (top % CHUNK_SIZE + size > CHUNK_SIZE) {
+      // Regions do not span chunks.
+      top += CHUNK_SIZE - top % CHUNK_SIZE;
+    }
+    long result = top;
+    top += size;
+    return result;
+  }
+
+  /**
+   * Release the region of a hibernated stack for reuse.
+   */
+  private void release(Swapped swapped) {
+    free.get(sizeClass(swapped.length())).add(swapped.address());
+  }
+
+  /**
+   * Mapped region of the swap file.
+   *
+   * @param address address of the region
+   * @param length length of the region
+   */
+  private ByteBuffer region(long address, int length) {
+    int chunk = (int) (address / CHUNK_SIZE);
+    try {
+      while (chunks.size() <= chunk) {
+        // Mapping beyond the end extends the file.
+        chunks.add(channel.map(READ_WRITE, (long) chunks.size() * CHUNK_SIZE, CHUNK_SIZE));
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to map swap file", e);
+    }
+    return chunks.get(chunk).slice((int) (address % CHUNK_SIZE), length).order(StackCodec.ORDER);
+  }
+
+  /**
+   * Close and delete the swap file.
+   * The stacks of still hibernated serial threads get lost.
+   */
+  @Override
+  public void close() throws IOException {
+    hibernated.clear();
+    parked.clear();
+    queue.clear();
+    chunks.clear();
+    channel.close();
+  }
+
+  /**
+   * Parked serial thread.
+   *
+   * @param runnable serial thread
+   * @param since time the serial thread has been parked at
+   */
+  private record Parked(ITransformedRunnable runnable, long since) {
+  }
+
+  /**
+   * Hibernated stack.
+   *
+   * @param address address of the region of the swap file
+   * @param length length of the encoded stack
+   * @param references object references of the stack
+   * @param modified indexes of the frames modified before the stack got hibernated
+   */
+  private record Swapped(long address, int length, Object[] references, BitSet modified) {
+  }
+}
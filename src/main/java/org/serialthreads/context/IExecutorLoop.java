@@ -0,0 +1,20 @@
+package org.serialthreads.context;
+
+import org.serialthreads.Executor;
+
+/**
+ * Executor loop specialized for serial threads of one concrete class.
+ * Implementations are generated by {@link SpecializedSerialThreadManager}.
+ */
+public interface IExecutorLoop {
+  /**
+   * Execute a range of serial threads once, until one of them finishes.
+   *
+   * @param runnables serial threads, all of the concrete class this loop has been generated for
+   * @param from index of the first serial thread
+   * @param to end index (exclusive)
+   * @return index of the serial thread which finished, or -1 if none finished
+   */
+  @Executor
+  int run(ITransformedRunnable[] runnables, int from, int to);
+}
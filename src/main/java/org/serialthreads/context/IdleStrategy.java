@@ -0,0 +1,75 @@
+package org.serialthreads.context;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Strategy of a {@link ParkingSerialThreadManager} for waiting, if all serial threads are parked.
+ */
+public interface IdleStrategy {
+  /**
+   * Busy spin. Lowest latency, but burns a core.
+   */
+  IdleStrategy SPIN = () -> {
+    // nothing to do
+  };
+
+  /**
+   * Busy spin with {@link Thread#onSpinWait()}.
+   */
+  IdleStrategy ON_SPIN_WAIT = Thread::onSpinWait;
+
+  /**
+   * Yield to other threads via {@link Thread#yield()}.
+   */
+  IdleStrategy YIELD = Thread::yield;
+
+  /**
+   * Block until a serial thread gets unparked via {@link LockSupport#park()}.
+   */
+  IdleStrategy PARK = new IdleStrategy() {
+    @Override
+    public void idle() {
+      LockSupport.park(this);
+    }
+
+    @Override
+    public boolean blocks() {
+      return true;
+    }
+  };
+
+  /**
+   * Block until a serial thread gets unparked, but at most for the given time, via {@link LockSupport#parkNanos(long)}.
+   *
+   * @param nanos maximum time to block in nanoseconds
+   */
+  static IdleStrategy parkNanos(long nanos) {
+    assert nanos > 0 : "Precondition: nanos > 0";
+
+    return new IdleStrategy() {
+      @Override
+      public void idle() {
+        LockSupport.parkNanos(this, nanos);
+      }
+
+      @Override
+      public boolean blocks() {
+        return true;
+      }
+    };
+  }
+
+  /**
+   * Idle once, because all serial threads are parked.
+   * Called repeatedly until a serial thread gets unparked. May return spuriously.
+   */
+  void idle();
+
+  /**
+   * Does {@link #idle()} block the executing thread,
+   * so that it needs to be woken up via {@link LockSupport#unpark(Thread)} when a serial thread gets unparked?.
+   */
+  default boolean blocks() {
+    return false;
+  }
+}
@@ -0,0 +1,214 @@
+package org.serialthreads.context;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Incremental checkpoints of all serial threads of a manager.
+ * <p>
+ * The first checkpoint is a complete base, written to the given file.
+ * The following checkpoints are deltas, written to the file with the suffix ".1", ".2", ...
+ * They contain only the frames marked as modified by the capture code since the previous checkpoint,
+ * see {@link StackFrame#markDirty()},
+ * so their cost is proportional to the modified frames and not to the complete state.
+ * After the given number of deltas, a new base is written and the deltas are deleted (compaction).
+ * A new base is written too, if serial threads have been added or removed since the last base.
+ * <p>
+ * Each file is replaced atomically and deltas are only applied to the base they have been written for,
+ * so a crash keeps the last complete checkpoint.
+ * Checkpoints have to be written between rounds, e.g. between calls of {@link SerialThreadManager#execute(int)}.
+ * Other users of the modification marks, e.g. other incremental checkpoints, are not supported,
+ * but a {@link RoundHistory} may be used besides.
+ * The serial threads have to be transformed with {@link org.serialthreads.transformer.ITransformer#trackModifications()}.
+ */
+public class IncrementalCheckpoints {
+  /**
+   * Manager of the serial threads.
+   */
+  private final SerialThreadManager manager;
+
+  /**
+   * File of the base.
+   */
+  private final Path file;
+
+  /**
+   * Codec for object references, or null to use a {@link ReferenceCodec} for the managed runnables.
+   */
+  private final ObjectCodec codec;
+
+  /**
+   * Maximum number of deltas before a new base is written.
+   */
+  private final int maxDeltas;
+
+  /**
+   * Codec for the managed runnables, if no codec has been given.
+   */
+  private ObjectCodec referenceCodec;
+
+  /**
+   * Modifications of the managed serial threads, when {@link #referenceCodec} has been created.
+   */
+  private int referenceCodecModifications;
+
+  /**
+   * Id of the current base.
+   */
+  private long baseId;
+
+  /**
+   * Sequence number of the last delta, 0 for the base, -1 if no base has been written yet.
+   */
+  private int sequence = -1;
+
+  /**
+   * Modifications of the managed serial threads, when the base has been written.
+   */
+  private int baseModifications;
+
+  /**
+   * Constructor using a {@link ReferenceCodec} for the managed runnables.
+   *
+   * @param manager manager of the serial threads
+   * @param file file of the base
+   * @param maxDeltas maximum number of deltas before a new base is written
+   */
+  public IncrementalCheckpoints(SerialThreadManager manager, Path file, int maxDeltas) {
+    this(manager, file, null, maxDeltas);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param manager manager of the serial threads
+   * @param file file of the base
+   * @param codec codec for object references, has to be thread-safe for restoring, or null for a {@link ReferenceCodec}
+   * @param maxDeltas maximum number of deltas before a new base is written
+   */
+  public IncrementalCheckpoints(SerialThreadManager manager, Path file, ObjectCodec codec, int maxDeltas) {
+    assert manager != null : "Precondition: manager != null";
+    assert file != null : "Precondition: file != null";
+    assert maxDeltas >= 0 : "Precondition: maxDeltas >= 0";
+
+    this.manager = manager;
+    this.file = file;
+    this.codec = codec;
+    this.maxDeltas = maxDeltas;
+  }
+
+  /**
+   * Write a checkpoint: A delta, or a new base, if there is none, if the maximum number of deltas has been reached
+   * or if serial threads have been added or removed since the last base.
+   *
+   * @exception IOException if writing failed
+   */
+  public void checkpoint() throws IOException {
+    var stacks = manager.getManagedStacks();
+    if (sequence < 0 || sequence >= maxDeltas || baseModifications != manager.getModifications()) {
+      long id = ThreadLocalRandom.current().nextLong();
+      Checkpoint.write(file, stacks, StackLayout.describe(manager.getManagedRunnables(), false), codec(), id, 0);
+      baseId = id;
+      sequence = 0;
+      baseModifications = manager.getModifications();
+      deleteDeltas();
+    } else {
+      var layout = StackLayout.describe(manager.getManagedRunnables(), true);
+      Checkpoint.write(delta(sequence + 1), stacks, layout, codec(), baseId, sequence + 1);
+      sequence++;
+    }
+
+    for (var stack : stacks) {
+      stack.markClean();
+    }
+  }
+
+  /**
+   * Restore the last checkpoint: The base and all deltas written for it.
+   * The serial threads have to be managed in the same order as when the checkpoints have been written.
+   * Further checkpoints are written as deltas for the restored base.
+   * Checkpoints written by older builds get remapped to the current build, see {@link StackLayout}.
+   *
+   * @exception IOException if reading failed
+   * @exception IllegalArgumentException if the checkpoint cannot be remapped to the current build
+   */
+  public void restore() throws IOException {
+    var stacks = manager.getManagedStacks();
+    var base = Checkpoint.header(file);
+    if (base.sequence() != 0) {
+      throw new IOException("Not a complete checkpoint: " + file);
+    }
+
+    var files = new ArrayList<Path>();
+    files.add(file);
+    for (var delta = delta(1); Files.exists(delta); delta = delta(files.size())) {
+      var header = Checkpoint.header(delta);
+      if (header.baseId() != base.baseId() || header.sequence() != files.size()) {
+        // Stale delta of a previous base.
+        break;
+      }
+      files.add(delta);
+    }
+
+    var layout = new StackLayout(stacks.size());
+    for (var checkpoint : files) {
+      Checkpoint.readLayout(checkpoint, layout);
+    }
+    // Fail before modifying any stack.
+    layout.resolve(manager.getManagedRunnables());
+    manager.replacing(stacks);
+    for (var checkpoint : files) {
+      Checkpoint.read(checkpoint, stacks, codec());
+    }
+    layout.remap(stacks);
+    int restored = files.size() - 1;
+
+    for (var stack : stacks) {
+      stack.markClean();
+    }
+    baseId = base.baseId();
+    sequence = restored;
+    baseModifications = manager.getModifications();
+  }
+
+  /**
+   * Number of deltas written for the current base.
+   */
+  public int getDeltas() {
+    return Math.max(sequence, 0);
+  }
+
+  /**
+   * Codec for object references.
+   */
+  private ObjectCodec codec() {
+    if (codec != null) {
+      return codec;
+    }
+
+    if (referenceCodec == null || referenceCodecModifications != manager.getModifications()) {
+      referenceCodec = new ReferenceCodec(manager.getManagedRunnables());
+      referenceCodecModifications = manager.getModifications();
+    }
+    return referenceCodec;
+  }
+
+  /**
+   * File of the delta with the given sequence number.
+   */
+  private Path delta(int sequence) {
+    return file.resolveSibling(file.getFileName() + "." + sequence);
+  }
+
+  /**
+   * Delete all deltas.
+   */
+  private void deleteDeltas() throws IOException {
+    for (int i = 1; Files.deleteIfExists(delta(i)); i++) {
+      // Delete next delta.
+    }
+  }
+}
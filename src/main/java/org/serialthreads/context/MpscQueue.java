@@ -0,0 +1,97 @@
+package org.serialthreads.context;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Unbounded lock-free queue for multiple producers and a single consumer.
+ * Offering is wait-free: It needs a single atomic exchange.
+ * Polling is done by the consumer only and needs no atomic operations at all.
+ */
+public final class MpscQueue<E> {
+  /**
+   * Var handle for {@link #tail}.
+   */
+  private static final VarHandle TAIL;
+
+  static {
+    try {
+      TAIL = MethodHandles.lookup().findVarHandle(MpscQueue.class, "tail", Node.class);
+    } catch (ReflectiveOperationException e) {
+      throw new ExceptionInInitializerError(e);
+    }
+  }
+
+  /**
+   * Last polled node. Only accessed by the consumer.
+   */
+  private Node<E> head;
+
+  /**
+   * Last offered node. Updated by the producers.
+   */
+  @SuppressWarnings("unused")
+  private volatile Node<E> tail;
+
+  /**
+   * Constructor.
+   */
+  public MpscQueue() {
+    head = new Node<>(null);
+    tail = head;
+  }
+
+  /**
+   * Append an element.
+   * May be called by any thread.
+   *
+   * @param element element
+   */
+  public void offer(E element) {
+    assert element != null : "Precondition: element != null";
+
+    var node = new Node<>(element);
+    @SuppressWarnings("unchecked")
+    var previous = (Node<E>) TAIL.getAndSet(this, node);
+    previous.next = node;
+  }
+
+  /**
+   * Remove the first element.
+   * May only be called by the consumer.
+   *
+   * @return first element, or null if the queue is empty
+   */
+  public E poll() {
+    var next = head.next;
+    if (next == null) {
+      return null;
+    }
+
+    var element = next.element;
+    next.element = null;
+    head = next;
+    return element;
+  }
+
+  /**
+   * Is the queue empty?.
+   * May only be called by the consumer.
+   * Elements which are being offered concurrently may not be visible yet.
+   */
+  public boolean isEmpty() {
+    return head.next == null;
+  }
+
+  /**
+   * Node of the linked list.
+   */
+  private static final class Node<E> {
+    private E element;
+    private volatile Node<E> next;
+
+    private Node(E element) {
+      this.element = element;
+    }
+  }
+}
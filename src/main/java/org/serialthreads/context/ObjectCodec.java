@@ -0,0 +1,26 @@
+package org.serialthreads.context;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Codec for object references on the stacks of serial threads, used when writing checkpoints.
+ */
+public interface ObjectCodec {
+  /**
+   * Write an object reference.
+   *
+   * @param buffer buffer to write to
+   * @param object object, may be null
+   * @exception IllegalArgumentException if the object is not supported
+   */
+  void write(ByteBuffer buffer, Object object);
+
+  /**
+   * Read an object reference.
+   * May be called concurrently for different buffers.
+   *
+   * @param buffer buffer to read from
+   * @return object, may be null
+   */
+  Object read(ByteBuffer buffer);
+}
@@ -0,0 +1,186 @@
+package org.serialthreads.context;
+
+import org.serialthreads.Executor;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Thread manager which executes the serial threads in lock-step rounds in parallel.
+ * Each round executes every serial thread once. The serial threads are split into contiguous partitions,
+ * which are executed in parallel by a {@link ForkJoinPool}. A round ends, when all partitions have been executed.
+ * <p>
+ * If the serial threads only read the state of the last round and write just their own state,
+ * the resulting state is deterministic, regardless of the partitioning.
+ * Double-buffered state can be switched by the action executed after each round.
+ * <p>
+ * Execution stops after the round in which any serial thread finished.
+ */
+public class ParallelSerialThreadManager extends SerialThreadManager {
+  /**
+   * Pool executing the partitions.
+   */
+  private final ForkJoinPool pool;
+
+  /**
+   * Serial threads.
+   */
+  private final ChainedRunnable[] chains;
+
+  /**
+   * Start index of each partition, followed by the number of serial threads.
+   */
+  private final int[] partitions;
+
+  /**
+   * Action executed after each round, or null.
+   */
+  private final Runnable afterRound;
+
+  /**
+   * Did a serial thread finish in the current round?.
+   */
+  private volatile boolean finished;
+
+  /**
+   * Constructor using the common pool, with 4 partitions per core.
+   *
+   * @param afterRound action executed after each round, or null
+   * @param runnables runnables
+   */
+  public ParallelSerialThreadManager(Runnable afterRound, IRunnable... runnables) {
+    this(ForkJoinPool.commonPool(), 4 * ForkJoinPool.getCommonPoolParallelism(), afterRound, runnables);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param pool pool executing the partitions
+   * @param partitions number of partitions
+   * @param afterRound action executed after each round, or null
+   * @param runnables runnables
+   */
+  public ParallelSerialThreadManager(ForkJoinPool pool, int partitions, Runnable afterRound, IRunnable... runnables) {
+    assert pool != null : "Precondition: pool != null";
+    assert partitions > 0 : "Precondition: partitions > 0";
+    assert runnables.length > 0 : "Precondition: runnables.length > 0";
+
+    this.pool = pool;
+    this.chains = ChainedRunnable.chain(runnables);
+    this.afterRound = afterRound;
+    for (var chain : chains) {
+      manage(chain.runnable);
+    }
+
+    int count = Math.min(partitions, chains.length);
+    this.partitions = new int[count + 1];
+    for (int i = 0; i <= count; i++) {
+      this.partitions[i] = (int) ((long) chains.length * i / count);
+    }
+  }
+
+  /**
+   * Execute rounds until a serial thread finishes.
+   */
+  @Override
+  @Executor
+  public void execute() {
+    while (!finished) {
+      round();
+    }
+    close();
+  }
+
+  /**
+   * Execute the given number of rounds or until a serial thread finishes.
+   *
+   * @param interrupts number of rounds
+   */
+  @Override
+  @Executor
+  public void execute(int interrupts) {
+    assert interrupts > 0 : "Precondition: interrupts > 0";
+
+    for (int i = 0; i < interrupts && !finished; i++) {
+      round();
+    }
+    if (finished) {
+      close();
+    }
+  }
+
+  /**
+   * Execute one round: Execute all partitions in parallel and wait for all of them.
+   */
+  private void round() {
+    pool.invoke(new Round(0, partitions.length - 1));
+    if (afterRound != null) {
+      afterRound.run();
+    }
+  }
+
+  /**
+   * Execute all serial threads of one partition.
+   *
+   * @param partition partition
+   */
+  @Executor
+  private void executePartition(int partition) {
+    var chains = this.chains;
+    int end = partitions[partition + 1];
+    for (int i = partitions[partition]; i < end; i++) {
+      var runnable = chains[i].runnable;
+      try {
+        runnable.run();
+      } catch (ThreadFinishedException e) {
+        // expected: execution finished normally due to the end of a serial thread
+        Stack.stack(runnable).reset();
+        finished = true;
+      }
+    }
+  }
+
+  /**
+   * Number of partitions.
+   */
+  public int getPartitions() {
+    return partitions.length - 1;
+  }
+
+  /**
+   * Task executing a range of partitions, split recursively.
+   */
+  private final class Round extends RecursiveAction {
+    /**
+     * First partition.
+     */
+    private final int from;
+
+    /**
+     * End of partitions (exclusive).
+     */
+    private final int to;
+
+    /**
+     * Constructor.
+     *
+     * @param from first partition
+     * @param to end of partitions (exclusive)
+     */
+    private Round(int from, int to) {
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from == 1) {
+        executePartition(from);
+        return;
+      }
+
+      int middle = (from + to) >>> 1;
+      invokeAll(new Round(from, middle), new Round(middle, to));
+    }
+  }
+}
@@ -0,0 +1,690 @@
+package org.serialthreads.context;
+
+import org.serialthreads.Executor;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * Thread manager which supports parking of serial threads.
+ * Parked serial threads are not executed until they get unparked, possibly by another thread.
+ * <p>
+ * Serial threads are executed in rounds: Each round executes every runnable serial thread once.
+ * Finished serial threads are removed.
+ * If all serial threads are parked, the manager waits according to its {@link IdleStrategy}.
+ * Serial threads parked for a long time may be hibernated to disk, see {@link #setHibernation(Hibernation)}.
+ */
+public class ParkingSerialThreadManager extends SerialThreadManager {
+  /**
+   * Managers executing on the current thread.
+   */
+  private static final ThreadLocal<ParkingSerialThreadManager> managers = new ThreadLocal<>();
+
+  /**
+   * Runnable serial threads.
+   */
+  private ITransformedRunnable[] runnables;
+
+  /**
+   * Number of runnable serial threads.
+   */
+  private int count;
+
+  /**
+   * Number of parked serial threads.
+   */
+  private int parked;
+
+  /**
+   * Serial threads which have been unparked, but not yet been added to the runnable serial threads.
+   * Drained once per round.
+   */
+  private final MpscQueue<ITransformedRunnable> unparked = new MpscQueue<>();
+
+  /**
+   * Serial threads which have been unparked by the executing thread,
+   * but not yet been added to the runnable serial threads.
+   * Needs no synchronization at all.
+   */
+  private final ArrayDeque<ITransformedRunnable> localUnparked = new ArrayDeque<>();
+
+  /**
+   * Serial threads which have been cancelled, but not yet been removed.
+   * Processed once per round, so cancellation causes no overhead for running serial threads.
+   */
+  private final Set<ITransformedRunnable> cancelled = Collections.newSetFromMap(new IdentityHashMap<>());
+
+  /**
+   * Parked serial threads which have been cancelled.
+   * They are dropped instead of being executed again, when they get unparked.
+   * Removed when they get unparked, so serial threads which are never unparked again are kept.
+   */
+  private final Set<ITransformedRunnable> dropped = Collections.newSetFromMap(new IdentityHashMap<>());
+
+  /**
+   * Callbacks of serial threads which have been unparked by the executing thread in the last round,
+   * to be called if they get cancelled before they resume, see {@link #requestCancellablePark(Consumer, Runnable)}.
+   */
+  private final Map<ITransformedRunnable, Runnable> handovers = new IdentityHashMap<>();
+
+  /**
+   * Strategy for waiting, if all serial threads are parked.
+   */
+  private final IdleStrategy idleStrategy;
+
+  /**
+   * Is the executing thread blocked by the idle strategy?.
+   */
+  private volatile boolean sleeping;
+
+  /**
+   * Hibernation policy for parked serial threads, or null if they are kept in memory.
+   */
+  private Hibernation hibernation;
+
+  /**
+   * Callback for the serial thread which requested to be parked at its next interrupt.
+   */
+  private Consumer<? super Unpark> onParked;
+
+  /**
+   * Callback for the serial thread which requested to be parked, if it gets cancelled after it has been unparked.
+   */
+  private Runnable onCancelled;
+
+  /**
+   * Serial thread currently being executed.
+   */
+  private ITransformedRunnable current;
+
+  /**
+   * Did the current serial thread request an answer at its next interrupt?.
+   */
+  private boolean requesting;
+
+  /**
+   * Thread executing this manager.
+   */
+  private volatile Thread executor;
+
+  /**
+   * Constructor using {@link IdleStrategy#PARK}.
+   *
+   * @param runnables runnables
+   */
+  public ParkingSerialThreadManager(IRunnable... runnables) {
+    this(IdleStrategy.PARK, runnables);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param idleStrategy strategy for waiting, if all serial threads are parked
+   * @param runnables runnables
+   */
+  public ParkingSerialThreadManager(IdleStrategy idleStrategy, IRunnable... runnables) {
+    assert idleStrategy != null : "Precondition: idleStrategy != null";
+    assert runnables.length > 0 : "Precondition: runnables.length > 0";
+
+    this.idleStrategy = idleStrategy;
+
+    this.runnables = new ITransformedRunnable[runnables.length];
+    for (var runnable : runnables) {
+      var transformedRunnable = (ITransformedRunnable) runnable;
+      manage(transformedRunnable);
+      this.runnables[count++] = transformedRunnable;
+    }
+  }
+
+  /**
+   * The manager executing the current serial thread.
+   *
+   * @exception IllegalStateException if not called from a serial thread executed by a parking manager
+   */
+  public static ParkingSerialThreadManager current() {
+    var manager = managers.get();
+    if (manager == null) {
+      throw new IllegalStateException("Not executed by a parking serial thread manager");
+    }
+    return manager;
+  }
+
+  /**
+   * The serial thread currently being executed, e.g. to track which serial thread requests to be parked.
+   * Null, if no serial thread is being executed.
+   */
+  protected final IRunnable currentRunnable() {
+    return current;
+  }
+
+  /**
+   * Set the hibernation policy for parked serial threads.
+   * Serial threads parked via {@link #requestPark(Consumer)} for longer than the hibernation time
+   * get hibernated at the start of the next round.
+   * Serial threads waiting for an answer to {@link #request()} are not hibernated.
+   * Must not be called while executing and at most once.
+   *
+   * @param hibernation hibernation policy
+   */
+  public void setHibernation(Hibernation hibernation) {
+    assert hibernation != null : "Precondition: hibernation != null";
+    assert this.hibernation == null : "Precondition: no hibernation policy set yet";
+    assert executor == null : "Precondition: not executing";
+
+    this.hibernation = hibernation;
+  }
+
+  /**
+   * Request to park the current serial thread at its next interrupt, e.g. {@link org.serialthreads.SerialThreads#park()}.
+   * After the serial thread has been parked, the callback gets called with the runnable to unpark it again.
+   * Unparking may be done by any thread, but has to be done exactly once.
+   *
+   * @param onParked callback which will be called after the serial thread has been parked
+   */
+  public void requestPark(Consumer<Runnable> onParked) {
+    assert onParked != null : "Precondition: onParked != null";
+    assert this.onParked == null : "Precondition: no pending park request";
+
+    this.onParked = onParked;
+  }
+
+  /**
+   * Request to park the current serial thread at its next interrupt, like {@link #requestPark(Consumer)}.
+   * The unpark function reports whether it resumed the serial thread:
+   * It returns false, if the serial thread has been cancelled meanwhile,
+   * so e.g. a lock can be handed over to the next waiting serial thread instead.
+   * If called by another thread than the executing thread, it always returns true.
+   *
+   * @param onParked callback which will be called after the serial thread has been parked
+   */
+  public void requestCancellablePark(Consumer<BooleanSupplier> onParked) {
+    assert onParked != null : "Precondition: onParked != null";
+    assert this.onParked == null : "Precondition: no pending park request";
+
+    this.onParked = onParked;
+  }
+
+  /**
+   * Request to park the current serial thread at its next interrupt, like {@link #requestCancellablePark(Consumer)}.
+   * If the serial thread gets cancelled after the unpark function returned true, but before it resumed,
+   * the cancel callback gets called by the executing thread,
+   * so e.g. a lock which has been handed over to the serial thread can be handed over to the next waiting one.
+   *
+   * @param onParked callback which will be called after the serial thread has been parked
+   * @param onCancelled callback which will be called if the serial thread gets cancelled before it resumed
+   */
+  public void requestCancellablePark(Consumer<BooleanSupplier> onParked, Runnable onCancelled) {
+    assert onCancelled != null : "Precondition: onCancelled != null";
+
+    requestCancellablePark(onParked);
+    this.onCancelled = onCancelled;
+  }
+
+  /**
+   * Request an answer from this manager at the next interrupt of the current serial thread,
+   * e.g. {@link org.serialthreads.SerialThreads#park()}.
+   * The request and the answer are passed via the return registers of the returned stack, e.g. {@link Stack#returnInt},
+   * which are not used by the serial thread between interrupting and resuming.
+   * After the serial thread has been interrupted, it gets passed to {@link #onRequest(ITransformedRunnable, Stack)}.
+   * See {@link org.serialthreads.SerialRequests}.
+   *
+   * @return stack of the current serial thread
+   */
+  public Stack request() {
+    assert !requesting && onParked == null : "Precondition: no pending request";
+
+    requesting = true;
+    return Stack.stack(current);
+  }
+
+  /**
+   * Hook to answer a request of a serial thread, see {@link #request()}.
+   * The serial thread counts as parked, until it gets resumed via {@link #resume(IRunnable)}.
+   * Requests may be collected and be answered in bulk, e.g. in {@link #poll()}.
+   * Called by the executing thread.
+   * <p>
+   * By default, resumes the serial thread immediately without changing the return registers,
+   * so the answer is the request itself.
+   *
+   * @param runnable requesting serial thread
+   * @param stack stack of the requesting serial thread, containing the request in its return registers
+   */
+  protected void onRequest(ITransformedRunnable runnable, Stack stack) {
+    resume(runnable);
+  }
+
+  /**
+   * Resume a serial thread after its request has been answered.
+   * The answer has to be written into the return registers of its stack before.
+   * It will be executed starting with the next round.
+   * May only be called by the executing thread.
+   *
+   * @param runnable requesting serial thread
+   */
+  protected final void resume(IRunnable runnable) {
+    assert runnable != null : "Precondition: runnable != null";
+
+    localUnparked.add((ITransformedRunnable) runnable);
+  }
+
+  /**
+   * Start a new serial thread. It will be executed starting with the next round.
+   * May only be called by the executing thread, e.g. by a serial thread of this manager.
+   *
+   * @param runnable runnable
+   */
+  public void spawn(IRunnable runnable) {
+    assert runnable != null : "Precondition: runnable != null";
+    assert executor == null || executor == Thread.currentThread() : "Precondition: called by the executing thread";
+
+    var transformedRunnable = (ITransformedRunnable) runnable;
+    manage(transformedRunnable);
+    // Counts as parked until it has been added to the runnable serial threads.
+    parked++;
+    localUnparked.add(transformedRunnable);
+  }
+
+  /**
+   * Cancel a serial thread. It will not be executed again, starting with the next round,
+   * regardless of whether it is runnable or parked.
+   * May only be called by the executing thread, e.g. by a serial thread of this manager.
+   *
+   * @param runnable runnable
+   */
+  public void cancel(IRunnable runnable) {
+    assert runnable != null : "Precondition: runnable != null";
+    assert executor == null || executor == Thread.currentThread() : "Precondition: called by the executing thread";
+
+    cancelled.add((ITransformedRunnable) runnable);
+  }
+
+  /**
+   * Execute all serial threads until all of them finished.
+   */
+  @Override
+  @Executor
+  public void execute() {
+    var previous = enter();
+    try {
+      while (count > 0 || parked > 0) {
+        round();
+      }
+    } finally {
+      leave(previous);
+    }
+  }
+
+  /**
+   * Execute all serial threads for a given number of rounds or until all of them finished.
+   * If all serial threads are parked, waits for them to be unparked.
+   *
+   * @param interrupts number of rounds
+   */
+  @Override
+  @Executor
+  public void execute(int interrupts) {
+    assert interrupts > 0 : "Precondition: interrupts > 0";
+
+    var previous = enter();
+    try {
+      for (int i = 0; i < interrupts && (count > 0 || parked > 0); i++) {
+        round();
+      }
+    } finally {
+      leave(previous);
+    }
+  }
+
+  /**
+   * Register this manager as the manager executing on the current thread.
+   *
+   * @return the manager previously executing on the current thread
+   */
+  private ParkingSerialThreadManager enter() {
+    var previous = managers.get();
+    managers.set(this);
+    executor = Thread.currentThread();
+    return previous;
+  }
+
+  /**
+   * Restore the manager previously executing on the current thread.
+   *
+   * @param previous the manager previously executing on the current thread
+   */
+  private void leave(ParkingSerialThreadManager previous) {
+    executor = null;
+    managers.set(previous);
+  }
+
+  /**
+   * Execute one round: Execute each runnable serial thread once.
+   * If all serial threads are parked, waits for at least one of them to be unparked.
+   */
+  @Executor
+  private void round() {
+    poll();
+    addUnparked();
+    if (!cancelled.isEmpty()) {
+      removeCancelled();
+    } else if (!handovers.isEmpty()) {
+      // all serial threads unparked in the last round resume in this round
+      handovers.clear();
+    }
+    if (hibernation != null) {
+      hibernation.hibernate(System.nanoTime());
+    }
+    while (count == 0) {
+      if (parked == 0) {
+        // all serial threads finished
+        return;
+      }
+      idle();
+      addUnparked();
+      if (hibernation != null) {
+        hibernation.hibernate(System.nanoTime());
+      }
+    }
+
+    var runnables = this.runnables;
+    int count = this.count;
+    int running = 0;
+    for (int i = 0; i < count; i++) {
+      var runnable = runnables[i];
+      current = runnable;
+      try {
+        runnable.run();
+      } catch (ThreadFinishedException e) {
+        // expected: execution finished normally due to the end of a serial thread
+        Stack.stack(runnable).reset();
+        unmanage(runnable);
+        if (!cancelled.isEmpty()) {
+          cancelled.remove(runnable);
+        }
+        continue;
+      }
+
+      if (onParked != null) {
+        park(runnable);
+        continue;
+      }
+
+      if (requesting) {
+        requesting = false;
+        parked++;
+        onRequest(runnable, Stack.stack(runnable));
+        continue;
+      }
+
+      runnables[running++] = runnable;
+    }
+    current = null;
+
+    Arrays.fill(runnables, running, count, null);
+    this.count = running;
+  }
+
+  /**
+   * Remove all cancelled serial threads.
+   * Runnable ones are removed from the runnable serial threads, parked ones will be dropped when they get unparked.
+   * For runnable ones which have been unparked in the last round, but not resumed yet, their cancel callbacks get called.
+   */
+  private void removeCancelled() {
+    var runnables = this.runnables;
+    int count = this.count;
+    int running = 0;
+    List<Runnable> onCancelled = null;
+    for (int i = 0; i < count; i++) {
+      var runnable = runnables[i];
+      if (cancelled.remove(runnable)) {
+        Stack.stack(runnable).reset();
+        unmanage(runnable);
+        var handover = handovers.isEmpty() ? null : handovers.get(runnable);
+        if (handover != null) {
+          if (onCancelled == null) {
+            onCancelled = new ArrayList<>();
+          }
+          onCancelled.add(handover);
+        }
+        continue;
+      }
+      runnables[running++] = runnable;
+    }
+    Arrays.fill(runnables, running, count, null);
+    this.count = running;
+
+    // All remaining cancelled serial threads are parked.
+    for (var runnable : cancelled) {
+      discard(runnable);
+      dropped.add(runnable);
+    }
+    cancelled.clear();
+    handovers.clear();
+
+    // Called last, because they may unpark further serial threads which will resume in the next round.
+    if (onCancelled != null) {
+      onCancelled.forEach(Runnable::run);
+    }
+  }
+
+  /**
+   * Discard a parked serial thread which has been cancelled.
+   *
+   * @param runnable cancelled serial thread
+   */
+  private void discard(ITransformedRunnable runnable) {
+    if (hibernation != null) {
+      hibernation.discard(runnable);
+    }
+    Stack.stack(runnable).reset();
+    unmanage(runnable);
+    parked--;
+    discarded(runnable);
+  }
+
+  /**
+   * Hook for parked serial threads which have been cancelled and discarded,
+   * e.g. to stop waiting for the event they are parked for.
+   * Called by the executing thread.
+   *
+   * @param runnable discarded serial thread
+   */
+  protected void discarded(IRunnable runnable) {
+    // nothing to do by default
+  }
+
+  /**
+   * Park the serial thread which requested it.
+   *
+   * @param runnable serial thread which requested to be parked
+   */
+  private void park(ITransformedRunnable runnable) {
+    var onParked = this.onParked;
+    var onCancelled = this.onCancelled;
+    this.onParked = null;
+    this.onCancelled = null;
+    parked++;
+    if (hibernation != null) {
+      hibernation.parked(runnable, System.nanoTime());
+    }
+    onParked.accept(new Unpark(runnable, onCancelled));
+  }
+
+  /**
+   * Unpark a parked serial thread.
+   * May be called from any thread.
+   *
+   * @param runnable serial thread to unpark
+   * @param onCancelled callback if the serial thread gets cancelled before it resumed, or null
+   * @return false, if called by the executing thread and the serial thread has been cancelled
+   */
+  private boolean unpark(ITransformedRunnable runnable, Runnable onCancelled) {
+    if (!isExecutingThread()) {
+      // Cancelled serial threads get dropped by addRunnable().
+      unparked.offer(runnable);
+      wakeup();
+      return true;
+    }
+
+    if (!dropped.isEmpty() && dropped.remove(runnable)) {
+      // cancelled while parked: already discarded
+      return false;
+    }
+    if (!cancelled.isEmpty() && cancelled.remove(runnable)) {
+      // cancelled while parked in this round: discard now instead of in removeCancelled()
+      discard(runnable);
+      return false;
+    }
+    localUnparked.add(runnable);
+    if (onCancelled != null) {
+      handovers.put(runnable, onCancelled);
+    }
+    return true;
+  }
+
+  /**
+   * Add all unparked serial threads to the runnable serial threads.
+   */
+  private void addUnparked() {
+    for (ITransformedRunnable runnable; (runnable = localUnparked.poll()) != null; ) {
+      addRunnable(runnable);
+    }
+    for (ITransformedRunnable runnable; (runnable = unparked.poll()) != null; ) {
+      addRunnable(runnable);
+    }
+  }
+
+  /**
+   * Add an unparked serial thread to the runnable serial threads.
+   *
+   * @param runnable unparked serial thread
+   */
+  private void addRunnable(ITransformedRunnable runnable) {
+    if (!dropped.isEmpty() && dropped.remove(runnable)) {
+      // cancelled while parked: already no longer counted as parked
+      return;
+    }
+    if (hibernation != null) {
+      hibernation.unparked(runnable);
+    }
+    if (count == runnables.length) {
+      runnables = Arrays.copyOf(runnables, count * 2);
+    }
+    runnables[count++] = runnable;
+    parked--;
+  }
+
+  /**
+   * Is the current thread the thread executing this manager?.
+   */
+  public final boolean isExecutingThread() {
+    return Thread.currentThread() == executor;
+  }
+
+  /**
+   * Hook to unpark serial threads before each round, e.g. due to external events.
+   * Called by the executing thread.
+   */
+  protected void poll() {
+    // nothing to do by default
+  }
+
+  /**
+   * Wait for parked serial threads to be unparked, if there are no runnable serial threads.
+   * Called by the executing thread. May return spuriously.
+   */
+  protected void idle() {
+    if (!idleStrategy.blocks()) {
+      idleStrategy.idle();
+      return;
+    }
+
+    // Announce sleeping before checking the queue, so that no wakeup gets lost.
+    sleeping = true;
+    if (localUnparked.isEmpty() && unparked.isEmpty() && !hasPendingEvents()) {
+      idleStrategy.idle();
+    }
+    sleeping = false;
+  }
+
+  /**
+   * Hook to check for pending external events which have not been processed by {@link #poll()} yet.
+   * Checked by {@link #idle()} after announcing to sleep, so that no {@link #wakeup()} gets lost.
+   * Called by the executing thread.
+   */
+  protected boolean hasPendingEvents() {
+    return false;
+  }
+
+  /**
+   * Wake up the executing thread from {@link #idle()}, because a serial thread has been unparked.
+   * Called by the unparking thread.
+   */
+  protected void wakeup() {
+    if (sleeping) {
+      LockSupport.unpark(executor);
+    }
+  }
+
+  /**
+   * Stacks of the managed serial threads. Restores the stacks of hibernated serial threads before, e.g. for checkpoints.
+   */
+  @Override
+  List<Stack> getManagedStacks() {
+    if (hibernation != null) {
+      hibernation.restoreAll();
+    }
+    return super.getManagedStacks();
+  }
+
+  @Override
+  public void close() {
+    super.close();
+    managers.remove();
+  }
+
+  /**
+   * Function to unpark a parked serial thread, see {@link #requestPark(Consumer)} and {@link #requestCancellablePark(Consumer)}.
+   */
+  private final class Unpark implements Runnable, BooleanSupplier {
+    /**
+     * Parked serial thread.
+     */
+    private final ITransformedRunnable runnable;
+
+    /**
+     * Callback if the serial thread gets cancelled after it has been unparked, but before it resumed, or null.
+     */
+    private final Runnable onCancelled;
+
+    /**
+     * Constructor.
+     *
+     * @param runnable parked serial thread
+     * @param onCancelled callback if the serial thread gets cancelled before it resumed, or null
+     */
+    private Unpark(ITransformedRunnable runnable, Runnable onCancelled) {
+      this.runnable = runnable;
+      this.onCancelled = onCancelled;
+    }
+
+    @Override
+    public void run() {
+      unpark(runnable, onCancelled);
+    }
+
+    @Override
+    public boolean getAsBoolean() {
+      return unpark(runnable, onCancelled);
+    }
+  }
+}
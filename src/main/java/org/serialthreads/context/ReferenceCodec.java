@@ -0,0 +1,94 @@
+package org.serialthreads.context;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Codec which writes references to a fixed list of objects by their index.
+ * Besides them, null, strings and boxed primitives are supported, which are written by value.
+ */
+public class ReferenceCodec implements ObjectCodec {
+  private static final byte NULL = 0;
+  private static final byte REFERENCE = 1;
+  private static final byte STRING = 2;
+  private static final byte BOOLEAN = 3;
+  private static final byte INTEGER = 4;
+  private static final byte LONG = 5;
+  private static final byte FLOAT = 6;
+  private static final byte DOUBLE = 7;
+
+  /**
+   * Referenced objects.
+   */
+  private final List<?> references;
+
+  /**
+   * Indexes of the referenced objects.
+   */
+  private final Map<Object, Integer> indexes = new IdentityHashMap<>();
+
+  /**
+   * Constructor.
+   *
+   * @param references referenced objects, e.g. the runnables of the serial threads
+   */
+  public ReferenceCodec(List<?> references) {
+    assert references != null : "Precondition: references != null";
+
+    this.references = List.copyOf(references);
+    for (int i = 0; i < references.size(); i++) {
+      indexes.put(references.get(i), i);
+    }
+  }
+
+  @Override
+  public void write(ByteBuffer buffer, Object object) {
+    if (object == null) {
+      buffer.put(NULL);
+      return;
+    }
+
+    var index = indexes.get(object);
+    if (index != null) {
+      buffer.put(REFERENCE).putInt(index);
+    } else if (object instanceof String string) {
+      var bytes = string.getBytes(StandardCharsets.UTF_8);
+      buffer.put(STRING).putInt(bytes.length).put(bytes);
+    } else if (object instanceof Boolean value) {
+      buffer.put(BOOLEAN).put(value ? (byte) 1 : (byte) 0);
+    } else if (object instanceof Integer value) {
+      buffer.put(INTEGER).putInt(value);
+    } else if (object instanceof Long value) {
+      buffer.put(LONG).putLong(value);
+    } else if (object instanceof Float value) {
+      buffer.put(FLOAT).putFloat(value);
+    } else if (object instanceof Double value) {
+      buffer.put(DOUBLE).putDouble(value);
+    } else {
+      throw new IllegalArgumentException("Unsupported object of " + object.getClass().getName());
+    }
+  }
+
+  @Override
+  public Object read(ByteBuffer buffer) {
+    byte type = buffer.get();
+    return switch (type) {
+      case NULL -> null;
+      case REFERENCE -> references.get(buffer.getInt());
+      case STRING -> {
+        var bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        yield new String(bytes, StandardCharsets.UTF_8);
+      }
+      case BOOLEAN -> buffer.get() != 0;
+      case INTEGER -> buffer.getInt();
+      case LONG -> buffer.getLong();
+      case FLOAT -> buffer.getFloat();
+      case DOUBLE -> buffer.getDouble();
+      default -> throw new IllegalArgumentException("Unknown type " + type);
+    };
+  }
+}
@@ -0,0 +1,67 @@
+package org.serialthreads.context;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Codec which keeps object references in a table instead of encoding them,
+ * for encodings which do not leave the process, e.g. stacks encoded in memory or in a swap file.
+ */
+final class ReferenceTable implements ObjectCodec {
+  /**
+   * Empty table.
+   */
+  static final Object[] NONE = new Object[0];
+
+  /**
+   * References written since the last {@link #clear()}.
+   */
+  private final List<Object> written = new ArrayList<>();
+
+  /**
+   * References to read.
+   */
+  private Object[] table = NONE;
+
+  /**
+   * Start writing.
+   */
+  void clear() {
+    written.clear();
+  }
+
+  /**
+   * References written since the last {@link #clear()}.
+   */
+  Object[] written() {
+    return written.isEmpty() ? NONE : written.toArray();
+  }
+
+  /**
+   * Start reading with the given references, written before.
+   *
+   * @param table references
+   */
+  void use(Object[] table) {
+    assert table != null : "Precondition: table != null";
+
+    this.table = table;
+  }
+
+  @Override
+  public void write(ByteBuffer buffer, Object object) {
+    if (object == null) {
+      buffer.putInt(-1);
+    } else {
+      buffer.putInt(written.size());
+      written.add(object);
+    }
+  }
+
+  @Override
+  public Object read(ByteBuffer buffer) {
+    int index = buffer.getInt();
+    return index >= 0 ? table[index] : null;
+  }
+}
@@ -0,0 +1,68 @@
+package org.serialthreads.context;
+
+import java.lang.annotation.*;
+
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * Resume point of a transformed method: Identity of an interruptible method call and the layout of its captured frame.
+ * Part of {@link ResumePoints}.
+ * Do NOT use, except for transformers!
+ */
+@Documented
+@Retention(RUNTIME)
+@Target({})
+public @interface ResumePoint {
+  /**
+   * Called method: Internal name of the owner, "." and name and descriptor of the method.
+   */
+  String call();
+
+  /**
+   * Number of previous calls of the same method in the calling method.
+   */
+  int ordinal();
+
+  /**
+   * Is the called method dispatched by the runtime class of its owner?.
+   */
+  boolean virtual() default false;
+
+  /**
+   * Is the called method an interrupt?.
+   */
+  boolean interrupt() default false;
+
+  /**
+   * Types of the operand stack below the arguments of the call, bottom first:
+   * "L" for references, "I", "J", "F" or "D" for primitives.
+   * Lower case, if the value is not captured, because it is a constant or stored in a local too.
+   */
+  String stack() default "";
+
+  /**
+   * Names of the captured reference locals, ordered by their index in the frame.
+   * Locals without a name are named by "#" and their number.
+   */
+  String[] objects() default {};
+
+  /**
+   * Names of the captured int locals, see {@link #objects()}.
+   */
+  String[] ints() default {};
+
+  /**
+   * Names of the captured long locals, see {@link #objects()}.
+   */
+  String[] longs() default {};
+
+  /**
+   * Names of the captured float locals, see {@link #objects()}.
+   */
+  String[] floats() default {};
+
+  /**
+   * Names of the captured double locals, see {@link #objects()}.
+   */
+  String[] doubles() default {};
+}
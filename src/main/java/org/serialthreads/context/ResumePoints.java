@@ -0,0 +1,32 @@
+package org.serialthreads.context;
+
+import java.lang.annotation.*;
+
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * Resume points of a transformed method: One per interruptible method call, ordered by their method index.
+ * Added by the transformer, so that frames captured by another build can be remapped, see {@link StackLayout}.
+ * Do NOT use, except for transformers!
+ */
+@Documented
+@Retention(RUNTIME)
+@Target({METHOD})
+public @interface ResumePoints {
+  /**
+   * Descriptor of the method before the transformation.
+   */
+  String desc();
+
+  /**
+   * Does the method use an own frame?
+   * Otherwise, it uses the frame of its caller.
+   */
+  boolean frame();
+
+  /**
+   * Resume points ordered by their method index, see {@link StackFrame#method}.
+   */
+  ResumePoint[] value();
+}
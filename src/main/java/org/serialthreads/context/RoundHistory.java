@@ -0,0 +1,360 @@
+package org.serialthreads.context;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * History of the last rounds of all serial threads of a manager, to rewind them, e.g. to re-simulate after late input.
+ * <p>
+ * The history is an undo log: For each round it keeps the previous content of the frames,
+ * which have been modified during the round, see {@link StackFrame#markDirty()}.
+ * The content of a frame is captured just before its first modification in a round,
+ * so nothing is kept for unmodified frames and stacks.
+ * The content is stored compactly encoded, see {@link StackCodec}, object references are kept as they are.
+ * So memory and the time to record and to rewind are proportional to the modified frames
+ * and not to the number of serial threads.
+ * <p>
+ * {@link #record()} has to be called after each round, e.g. after each call of {@link SerialThreadManager#execute(int)}.
+ * If serial threads have been added, removed or restored from a checkpoint, the history gets cleared.
+ * The content of each frame is recorded just once per round, so {@link IncrementalCheckpoints} may be used besides.
+ * The serial threads have to be transformed with {@link org.serialthreads.transformer.ITransformer#trackModifications()}.
+ */
+public class RoundHistory {
+  /**
+   * Manager of the serial threads.
+   */
+  private final SerialThreadManager manager;
+
+  /**
+   * Maximum number of rounds to keep.
+   */
+  private final int capacity;
+
+  /**
+   * Undo entries of the recorded rounds, the last round last.
+   */
+  private final ArrayDeque<List<Undo>> rounds;
+
+  /**
+   * Undo entries of the stacks modified since the last record.
+   */
+  private final Map<Stack, Undo> modified = new IdentityHashMap<>();
+
+  /**
+   * Stacks reporting their modifications to this history.
+   */
+  private List<Stack> stacks = List.of();
+
+  /**
+   * Modifications of the managed serial threads at the last record, -1 if nothing has been recorded yet.
+   */
+  private int modifications = -1;
+
+  /**
+   * Number of the current round, to record the content of each frame just once per round,
+   * even if its dirty mark gets cleared during the round, e.g. by an incremental checkpoint.
+   */
+  private int round;
+
+  /**
+   * Are the stacks being rewound? Then their modifications are not recorded.
+   */
+  private boolean rewinding;
+
+  /**
+   * Codec for object references: Keeps the references in a table, because the encodings stay in memory.
+   */
+  private final ReferenceTable references = new ReferenceTable();
+
+  /**
+   * Buffer for encoding.
+   */
+  private ByteBuffer buffer = ByteBuffer.allocate(4096).order(StackCodec.ORDER);
+
+  /**
+   * Constructor.
+   *
+   * @param manager manager of the serial threads
+   * @param capacity maximum number of rounds to be able to rewind
+   */
+  public RoundHistory(SerialThreadManager manager, int capacity) {
+    assert manager != null : "Precondition: manager != null";
+    assert capacity >= 0 : "Precondition: capacity >= 0";
+
+    this.manager = manager;
+    this.capacity = capacity;
+    this.rounds = new ArrayDeque<>(capacity + 1);
+  }
+
+  /**
+   * Record the end of a round.
+   * Must not be called while serial threads are executing.
+   */
+  public void record() {
+    if (modifications != manager.getModifications()) {
+      // Serial threads have been added or removed: Start from scratch.
+      rounds.clear();
+      modified.clear();
+      for (var stack : stacks) {
+        stack.history = null;
+      }
+      stacks = manager.getManagedStacks();
+      for (var stack : stacks) {
+        for (var frame = stack.first; frame != null; frame = frame.next) {
+          // may have been recorded by another history
+          frame.recorded = 0;
+        }
+        stack.markRecorded();
+        stack.history = this;
+      }
+      modifications = manager.getModifications();
+      round++;
+      return;
+    }
+
+    var undos = new ArrayList<>(modified.values());
+    modified.clear();
+    for (var undo : undos) {
+      undo.stack.markRecorded();
+    }
+    round++;
+    if (capacity > 0) {
+      if (rounds.size() == capacity) {
+        rounds.removeFirst();
+      }
+      rounds.addLast(undos);
+    }
+  }
+
+  /**
+   * Rewind all serial threads to the state of the given number of rounds ago.
+   * Modifications since the last {@link #record()} are reverted too,
+   * so rewinding 0 rounds resets the serial threads to the state of the last record.
+   * The rewound rounds are removed from the history.
+   * Must not be called while serial threads are executing.
+   *
+   * @param rounds number of rounds to rewind
+   * @exception IllegalArgumentException if less rounds have been recorded
+   * @exception IllegalStateException if serial threads have been added or removed since the last record
+   */
+  public void rewind(int rounds) {
+    assert rounds >= 0 : "Precondition: rounds >= 0";
+
+    if (modifications != manager.getModifications()) {
+      throw new IllegalStateException("Serial threads have been added, removed or restored since the last record");
+    }
+    if (rounds > this.rounds.size()) {
+      throw new IllegalArgumentException("Only " + this.rounds.size() + " rounds have been recorded");
+    }
+
+    rewinding = true;
+    try {
+      // Revert modifications since the last record.
+      for (var undo : modified.values()) {
+        undo(undo);
+      }
+      modified.clear();
+
+      for (int i = 0; i < rounds; i++) {
+        var undos = this.rounds.removeLast();
+        for (int j = undos.size() - 1; j >= 0; j--) {
+          undo(undos.get(j));
+        }
+      }
+    } finally {
+      rewinding = false;
+    }
+    round++;
+  }
+
+  /**
+   * Number of rounds which can be rewound.
+   */
+  public int getRounds() {
+    return rounds.size();
+  }
+
+  /**
+   * A stack is about to be modified: Keep its previous header, if not done yet in this round.
+   */
+  void modified(Stack stack) {
+    if (rewinding) {
+      return;
+    }
+    undo(stack);
+  }
+
+  /**
+   * A clean frame is about to be modified: Keep its previous content.
+   */
+  void modified(StackFrame frame) {
+    if (rewinding || frame.recorded == round) {
+      return;
+    }
+    frame.recorded = round;
+    undo(frame.stack).add(frame.depth, encode(frame));
+  }
+
+  /**
+   * A frame has been added: It did not exist before.
+   */
+  void added(StackFrame frame) {
+    if (rewinding) {
+      return;
+    }
+    frame.recorded = round;
+    undo(frame.stack).add(frame.depth, null);
+  }
+
+  /**
+   * Undo entry of a stack for the current round. Keeps its previous header, when the entry gets created.
+   */
+  private Undo undo(Stack stack) {
+    var undo = modified.get(stack);
+    if (undo == null) {
+      undo = new Undo(stack, encodeHeader(stack));
+      modified.put(stack, undo);
+    }
+    return undo;
+  }
+
+  /**
+   * Apply an undo entry to its stack.
+   */
+  private void undo(Undo undo) {
+    var stack = undo.stack;
+    for (int i = 0; i < undo.size; i++) {
+      decode(undo.frames[i], stack.getFrame(undo.indexes[i]));
+    }
+    decodeHeader(undo.header, stack);
+    // The rewound frames stay modified for incremental checkpoints.
+    stack.markRecorded();
+  }
+
+  /**
+   * Encode a frame.
+   */
+  private Encoded encode(StackFrame frame) {
+    while (true) {
+      buffer.clear();
+      references.clear();
+      try {
+        frame.write(buffer, references);
+        return encoded(buffer.flip());
+      } catch (BufferOverflowException e) {
+        buffer = ByteBuffer.allocate(buffer.capacity() * 2).order(StackCodec.ORDER);
+      }
+    }
+  }
+
+  /**
+   * Encode the header of a stack.
+   */
+  private Encoded encodeHeader(Stack stack) {
+    buffer.clear();
+    references.clear();
+    stack.writeHeader(buffer, references);
+    return encoded(buffer.flip());
+  }
+
+  /**
+   * Copy the encoded content and the written references.
+   */
+  private Encoded encoded(ByteBuffer buffer) {
+    var bytes = new byte[buffer.remaining()];
+    buffer.get(bytes);
+    return new Encoded(bytes, references.written());
+  }
+
+  /**
+   * Decode a frame. A missing encoding resets the frame, because it did not exist.
+   */
+  private void decode(Encoded encoded, StackFrame frame) {
+    if (encoded == null) {
+      frame.reset();
+      return;
+    }
+    references.use(encoded.references());
+    frame.read(ByteBuffer.wrap(encoded.bytes()).order(StackCodec.ORDER), references);
+  }
+
+  /**
+   * Decode the header of a stack.
+   */
+  private void decodeHeader(Encoded encoded, Stack stack) {
+    references.use(encoded.references());
+    stack.readHeader(ByteBuffer.wrap(encoded.bytes()).order(StackCodec.ORDER), references);
+  }
+
+  /**
+   * Encoded content of a frame or the header of a stack.
+   *
+   * @param bytes encoded content
+   * @param references object references of the content
+   */
+  private record Encoded(byte[] bytes, Object[] references) {
+  }
+
+  /**
+   * Previous content of the modified frames of a stack in one round.
+   */
+  private static final class Undo {
+    /**
+     * Modified stack.
+     */
+    private final Stack stack;
+
+    /**
+     * Previous header.
+     */
+    private final Encoded header;
+
+    /**
+     * Indexes of the modified frames.
+     */
+    private int[] indexes = new int[2];
+
+    /**
+     * Previous content of the modified frames, null for frames which did not exist.
+     */
+    private Encoded[] frames = new Encoded[2];
+
+    /**
+     * Number of modified frames.
+     */
+    private int size;
+
+    /**
+     * Constructor.
+     *
+     * @param stack modified stack
+     * @param header previous header
+     */
+    private Undo(Stack stack, Encoded header) {
+      this.stack = stack;
+      this.header = header;
+    }
+
+    /**
+     * Add the previous content of a modified frame.
+     *
+     * @param index index of the frame
+     * @param frame previous content, null if the frame did not exist
+     */
+    private void add(int index, Encoded frame) {
+      if (size == indexes.length) {
+        indexes = Arrays.copyOf(indexes, size * 2);
+        frames = Arrays.copyOf(frames, size * 2);
+      }
+      indexes[size] = index;
+      frames[size] = frame;
+      size++;
+    }
+  }
+}
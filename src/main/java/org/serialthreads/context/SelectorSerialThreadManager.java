@@ -0,0 +1,248 @@
+package org.serialthreads.context;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * Thread manager which parks serial threads until their channels are ready for I/O.
+ * Each round polls the selector without blocking.
+ * If all serial threads are parked, it blocks in the selector.
+ * Several serial threads may wait for the same channel, even for different operations.
+ */
+public class SelectorSerialThreadManager extends ParkingSerialThreadManager {
+  /**
+   * Default timeout in milliseconds for blocking in the selector.
+   */
+  public static final long DEFAULT_TIMEOUT = 100;
+
+  /**
+   * Selector.
+   */
+  private final Selector selector;
+
+  /**
+   * Timeout in milliseconds for blocking in the selector.
+   */
+  private final long timeout;
+
+  /**
+   * Serial threads waiting for their channel.
+   */
+  private final Map<IRunnable, Waiter> waiters = new IdentityHashMap<>();
+
+  /**
+   * Constructor.
+   *
+   * @param runnables runnables
+   * @exception IOException if the selector could not be opened
+   */
+  public SelectorSerialThreadManager(IRunnable... runnables) throws IOException {
+    this(DEFAULT_TIMEOUT, runnables);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param timeout timeout in milliseconds for blocking in the selector
+   * @param runnables runnables
+   * @exception IOException if the selector could not be opened
+   */
+  public SelectorSerialThreadManager(long timeout, IRunnable... runnables) throws IOException {
+    super(runnables);
+
+    assert timeout > 0 : "Precondition: timeout > 0";
+
+    this.selector = Selector.open();
+    this.timeout = timeout;
+  }
+
+  /**
+   * The manager executing the current serial thread.
+   *
+   * @exception IllegalStateException if not called from a serial thread executed by a selector manager
+   */
+  public static SelectorSerialThreadManager current() {
+    if (!(ParkingSerialThreadManager.current() instanceof SelectorSerialThreadManager manager)) {
+      throw new IllegalStateException("Not executed by a selector serial thread manager");
+    }
+    return manager;
+  }
+
+  /**
+   * Request to park the current serial thread at its next interrupt, until the channel is ready.
+   *
+   * @param channel non-blocking channel
+   * @param ops operations to wait for, see {@link SelectionKey}
+   * @exception IOException if the channel could not be registered
+   */
+  public void requestPark(SelectableChannel channel, int ops) throws IOException {
+    assert channel != null : "Precondition: channel != null";
+    assert ops != 0 : "Precondition: ops != 0";
+
+    var key = channel.keyFor(selector);
+    if (key == null) {
+      key = channel.register(selector, ops, new ArrayList<Waiter>());
+    } else {
+      key.interestOps(key.interestOps() | ops);
+    }
+    var waiter = new Waiter(currentRunnable(), key, ops);
+    waiters(key).add(waiter);
+    waiters.put(waiter.runnable, waiter);
+    requestCancellablePark(waiter);
+  }
+
+  /**
+   * Number of serial threads waiting for their channel.
+   */
+  int getWaiting() {
+    return waiters.size();
+  }
+
+  @Override
+  protected void poll() {
+    if (waiters.isEmpty()) {
+      return;
+    }
+
+    try {
+      selector.selectNow(this::ready);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to select", e);
+    }
+  }
+
+  @Override
+  protected void idle() {
+    try {
+      selector.select(this::ready, timeout);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to select", e);
+    }
+  }
+
+  @Override
+  protected void wakeup() {
+    selector.wakeup();
+  }
+
+  /**
+   * Unpark the serial threads waiting for the ready operations of the channel.
+   * The channel stays registered for the operations the remaining serial threads are waiting for.
+   *
+   * @param key key of the ready channel
+   */
+  private void ready(SelectionKey key) {
+    int readyOps = key.readyOps();
+    var ready = new ArrayList<Waiter>();
+    int interestOps = 0;
+    for (var iterator = waiters(key).iterator(); iterator.hasNext(); ) {
+      var waiter = iterator.next();
+      if ((waiter.ops & readyOps) != 0) {
+        iterator.remove();
+        waiters.remove(waiter.runnable);
+        ready.add(waiter);
+      } else {
+        interestOps |= waiter.ops;
+      }
+    }
+    key.interestOps(interestOps);
+
+    for (var waiter : ready) {
+      // Unparking a cancelled serial thread just discards it.
+      waiter.unpark.getAsBoolean();
+    }
+  }
+
+  /**
+   * Stop waiting for the channel of a cancelled serial thread.
+   */
+  @Override
+  protected void discarded(IRunnable runnable) {
+    var waiter = waiters.remove(runnable);
+    if (waiter == null) {
+      return;
+    }
+
+    var channelWaiters = waiters(waiter.key);
+    channelWaiters.remove(waiter);
+    if (waiter.key.isValid()) {
+      int interestOps = 0;
+      for (var remaining : channelWaiters) {
+        interestOps |= remaining.ops;
+      }
+      waiter.key.interestOps(interestOps);
+    }
+  }
+
+  /**
+   * Serial threads waiting for the channel of the given key.
+   *
+   * @param key key of the channel
+   */
+  @SuppressWarnings("unchecked")
+  private static List<Waiter> waiters(SelectionKey key) {
+    return (List<Waiter>) key.attachment();
+  }
+
+  @Override
+  public void close() {
+    super.close();
+    try {
+      selector.close();
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to close selector", e);
+    }
+  }
+
+  /**
+   * Serial thread waiting for its channel.
+   */
+  private static final class Waiter implements Consumer<BooleanSupplier> {
+    /**
+     * Waiting serial thread.
+     */
+    private final IRunnable runnable;
+
+    /**
+     * Key of the channel.
+     */
+    private final SelectionKey key;
+
+    /**
+     * Operations to wait for.
+     */
+    private final int ops;
+
+    /**
+     * Function to unpark the serial thread, set after it has been parked.
+     */
+    private BooleanSupplier unpark;
+
+    /**
+     * Constructor.
+     *
+     * @param runnable waiting serial thread
+     * @param key key of the channel
+     * @param ops operations to wait for
+     */
+    private Waiter(IRunnable runnable, SelectionKey key, int ops) {
+      this.runnable = runnable;
+      this.key = key;
+      this.ops = ops;
+    }
+
+    @Override
+    public void accept(BooleanSupplier unpark) {
+      this.unpark = unpark;
+    }
+  }
+}
@@ -38,8 +38,7 @@ public class SerialThreadExecutor {
       }
     } catch (ThreadFinishedException e) {
       // expected: execution finished normally due to the end of a serial thread
-      // TODO 2009-12-09 mh: Avoid cast
-      ((Stack) chain.runnable.getThread()).reset();
+      Stack.stack(chain.runnable).reset();
     }
 
     lastExecuted = chain;
@@ -65,8 +64,7 @@ public class SerialThreadExecutor {
       // execution finished, because the given number of interrupts have been processed
     } catch (ThreadFinishedException e) {
       // expected: execution finished normally due to the end of a serial thread
-      // TODO 2009-12-09 mh: Avoid cast
-      ((Stack) chain.runnable.getThread()).reset();
+      Stack.stack(chain.runnable).reset();
     }
 
     lastExecuted = chain;
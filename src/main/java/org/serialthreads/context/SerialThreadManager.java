@@ -2,6 +2,14 @@ package org.serialthreads.context;
 
 import org.serialthreads.Executor;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
 /**
  * Manages the access to serial threads for transformed classes.
  */
@@ -11,6 +19,22 @@ public abstract class SerialThreadManager implements AutoCloseable {
    */
   private static final ThreadLocal<SerialThread> threads = new ThreadLocal<>();
 
+  /**
+   * Requests the currently executing serial thread to yield.
+   * Shared by all serial threads of this manager.
+   */
+  protected final YieldRequest yieldRequest = new YieldRequest();
+
+  /**
+   * Runnables of the managed serial threads by their stacks, in the order they have been added.
+   */
+  private final Map<Stack, ITransformedRunnable> managed = new LinkedHashMap<>();
+
+  /**
+   * Number of changes of the managed serial threads.
+   */
+  private int modifications;
+
   /**
    * Set the current thread.
    */
@@ -39,6 +63,140 @@ public abstract class SerialThreadManager implements AutoCloseable {
   @Executor
   public abstract void execute(int interrupts);
 
+  /**
+   * Request the currently executing serial thread to yield at its next safepoint.
+   * May be called from any thread, e.g. by a watchdog to preempt a long running serial thread.
+   * The request is consumed by the first serial thread of this manager reaching a safepoint.
+   * If no serial thread is executing, that is the next one resumed.
+   * Has only an effect on code polling for yield requests,
+   * see {@link org.serialthreads.Interrupt#onYieldRequest()}.
+   */
+  public void requestYield() {
+    yieldRequest.request();
+  }
+
+  /**
+   * Let the given serial thread share the yield request of this manager.
+   *
+   * @param runnable Runnable of the serial thread
+   */
+  protected void manage(ITransformedRunnable runnable) {
+    var stack = Stack.stack(runnable);
+    stack.yieldRequest = yieldRequest;
+    managed.put(stack, runnable);
+    modifications++;
+  }
+
+  /**
+   * Stop managing the given serial thread, e.g. because it finished.
+   * It will no longer be included in checkpoints.
+   *
+   * @param runnable Runnable of the serial thread
+   */
+  protected void unmanage(ITransformedRunnable runnable) {
+    managed.remove(runnable.getThread());
+    modifications++;
+  }
+
+  /**
+   * Stacks of the managed serial threads, in the order they have been added.
+   */
+  List<Stack> getManagedStacks() {
+    return new ArrayList<>(managed.keySet());
+  }
+
+  /**
+   * Runnables of the managed serial threads, in the order they have been added.
+   */
+  List<ITransformedRunnable> getManagedRunnables() {
+    return new ArrayList<>(managed.values());
+  }
+
+  /**
+   * Number of changes of the managed serial threads, to detect added or removed serial threads.
+   */
+  int getModifications() {
+    return modifications;
+  }
+
+  /**
+   * The state of the managed serial threads is about to be replaced, e.g. by restoring a checkpoint in parallel.
+   * Detaches their stacks from their {@link RoundHistory}, which starts from scratch with its next record.
+   *
+   * @param stacks stacks of the managed serial threads
+   */
+  void replacing(List<Stack> stacks) {
+    for (var stack : stacks) {
+      stack.history = null;
+    }
+    modifications++;
+  }
+
+  /**
+   * Write the state of all managed serial threads to a checkpoint file.
+   * Object references on the stacks may refer to the managed runnables only,
+   * besides strings and boxed primitives, see {@link ReferenceCodec}.
+   *
+   * @param file checkpoint file
+   * @exception IOException if writing failed
+   */
+  public void checkpoint(Path file) throws IOException {
+    checkpoint(file, new ReferenceCodec(getManagedRunnables()));
+  }
+
+  /**
+   * Write the state of all managed serial threads to a checkpoint file.
+   * Must not be called while serial threads are executing, e.g. call it between calls of {@link #execute(int)}.
+   * The checkpoint file is replaced atomically, so a crash while writing keeps the previous checkpoint.
+   *
+   * @param file checkpoint file
+   * @param codec codec for object references on the stacks
+   * @exception IOException if writing failed
+   */
+  public void checkpoint(Path file, ObjectCodec codec) throws IOException {
+    var stacks = getManagedStacks();
+    var layout = StackLayout.describe(getManagedRunnables(), false);
+    Checkpoint.write(file, stacks, layout, codec, ThreadLocalRandom.current().nextLong(), 0);
+  }
+
+  /**
+   * Restore the state of all managed serial threads from a checkpoint file, written by {@link #checkpoint(Path)}.
+   * The serial threads have to be managed in the same order as when the checkpoint has been written.
+   *
+   * @param file checkpoint file
+   * @exception IOException if reading failed
+   */
+  public void restore(Path file) throws IOException {
+    restore(file, new ReferenceCodec(getManagedRunnables()));
+  }
+
+  /**
+   * Restore the state of all managed serial threads from a checkpoint file,
+   * written by {@link #checkpoint(Path, ObjectCodec)}.
+   * The serial threads have to be managed in the same order as when the checkpoint has been written.
+   * Must not be called while serial threads are executing.
+   * The stacks get restored in parallel, so the codec has to be thread-safe.
+   * Checkpoints written by older builds get remapped to the current build, see {@link StackLayout}.
+   *
+   * @param file checkpoint file
+   * @param codec codec for object references on the stacks
+   * @exception IOException if reading failed
+   * @exception IllegalArgumentException if the checkpoint cannot be remapped to the current build
+   */
+  public void restore(Path file, ObjectCodec codec) throws IOException {
+    if (Checkpoint.header(file).sequence() != 0) {
+      throw new IOException("Not a complete checkpoint: " + file);
+    }
+    var stacks = getManagedStacks();
+    var layout = new StackLayout(stacks.size());
+    Checkpoint.readLayout(file, layout);
+    // Fail before modifying any stack.
+    layout.resolve(getManagedRunnables());
+    replacing(stacks);
+    Checkpoint.read(file, stacks, codec);
+    layout.remap(stacks);
+  }
+
   @Override
   public void close() {
     threads.remove();
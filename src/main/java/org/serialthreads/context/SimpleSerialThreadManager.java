@@ -19,6 +19,9 @@ public class SimpleSerialThreadManager extends SerialThreadManager {
 
     chains = ChainedRunnable.chain(runnables);
     lastExecuted = chains[chains.length - 1];
+    for (var chain : chains) {
+      manage(chain.runnable);
+    }
   }
 
   @Override
@@ -34,8 +37,7 @@ public class SimpleSerialThreadManager extends SerialThreadManager {
       }
     } catch (ThreadFinishedException e) {
       // expected: execution finished normally due to the end of a serial thread
-      // TODO 2009-12-09 mh: Avoid cast
-      ((Stack) chain.runnable.getThread()).reset();
+      Stack.stack(chain.runnable).reset();
       close();
     }
 
@@ -60,8 +62,7 @@ public class SimpleSerialThreadManager extends SerialThreadManager {
       // execution finished, because the given number of interrupts have been processed
     } catch (ThreadFinishedException e) {
       // expected: execution finished normally due to the end of a serial thread
-      // TODO 2009-12-09 mh: Avoid cast
-      ((Stack) chain.runnable.getThread()).reset();
+      Stack.stack(chain.runnable).reset();
       close();
     }
 
@@ -0,0 +1,194 @@
+package org.serialthreads.context;
+
+import org.serialthreads.Executor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Thread manager which executes the serial threads in batches of the same concrete class,
+ * each batch by an executor loop generated for its class.
+ * Each round executes every serial thread once, batch by batch in the order the classes appeared.
+ * <p>
+ * In contrast to {@link BatchSerialThreadManager}, the number of monomorphic call sites of {@link IRunnable#run()}
+ * is not limited: Each generated loop contains a direct call of the transformed run() of its class,
+ * so the JIT is able to inline the restore dispatch of the serial threads into the loop.
+ * The loops are generated as hidden classes, see {@link ExecutorLoopGenerator}.
+ * <p>
+ * Further serial threads may be added via {@link #spawn(IRunnable)}.
+ * If they are of a new class, a loop gets generated for it.
+ * Serial threads which finished get removed, together with their batch if it got empty.
+ * Execution stops when all serial threads finished.
+ */
+public class SpecializedSerialThreadManager extends SerialThreadManager {
+  /**
+   * Batches in the order their classes appeared.
+   */
+  private final List<Batch> batches = new ArrayList<>();
+
+  /**
+   * Batches by the concrete class of their serial threads.
+   */
+  private final Map<Class<?>, Batch> batchesByClass = new IdentityHashMap<>();
+
+  /**
+   * Number of serial threads.
+   */
+  private int size;
+
+  /**
+   * Constructor.
+   *
+   * @param runnables runnables
+   */
+  public SpecializedSerialThreadManager(IRunnable... runnables) {
+    assert runnables.length > 0 : "Precondition: runnables.length > 0";
+
+    for (var runnable : runnables) {
+      spawn(runnable);
+    }
+  }
+
+  /**
+   * Add a serial thread. It gets executed from the next round on.
+   *
+   * @param runnable runnable
+   */
+  public void spawn(IRunnable runnable) {
+    assert runnable != null : "Precondition: runnable != null";
+
+    var transformedRunnable = (ITransformedRunnable) runnable;
+    manage(transformedRunnable);
+    var batch = batchesByClass.get(runnable.getClass());
+    if (batch == null) {
+      batch = new Batch(ExecutorLoopGenerator.loop(runnable.getClass()));
+      batchesByClass.put(runnable.getClass(), batch);
+      batches.add(batch);
+    }
+    batch.add(transformedRunnable);
+    size++;
+  }
+
+  /**
+   * Execute rounds until all serial threads finished.
+   */
+  @Override
+  @Executor
+  public void execute() {
+    while (size > 0) {
+      round();
+    }
+    close();
+  }
+
+  /**
+   * Execute the given number of rounds or until all serial threads finished.
+   *
+   * @param interrupts number of rounds
+   */
+  @Override
+  @Executor
+  public void execute(int interrupts) {
+    assert interrupts > 0 : "Precondition: interrupts > 0";
+
+    for (int i = 0; i < interrupts && size > 0; i++) {
+      round();
+    }
+    if (size == 0) {
+      close();
+    }
+  }
+
+  /**
+   * Execute one round: Execute all batches by their loops.
+   */
+  @Executor
+  private void round() {
+    var batches = this.batches;
+    // Batches added during this round get executed from the next round on.
+    int count = batches.size();
+    boolean removed = false;
+    for (int b = 0; b < count; b++) {
+      var batch = batches.get(b);
+      var loop = batch.loop;
+      int to = batch.size;
+      for (int i = 0; i < to; ) {
+        int finished = loop.run(batch.runnables, i, to);
+        if (finished < 0) {
+          break;
+        }
+
+        // expected: execution finished normally due to the end of a serial thread
+        Stack.stack(batch.runnables[finished]).reset();
+        unmanage(batch.runnables[finished]);
+        batch.remove(finished);
+        size--;
+        to--;
+        i = finished;
+      }
+      removed |= batch.size == 0;
+    }
+
+    if (removed) {
+      batches.removeIf(batch -> batch.size == 0);
+      batchesByClass.values().removeIf(batch -> batch.size == 0);
+    }
+  }
+
+  /**
+   * Number of batches, which is the number of concrete classes of the serial threads.
+   */
+  public int getBatches() {
+    return batches.size();
+  }
+
+  /**
+   * Serial threads of one concrete class.
+   */
+  private static final class Batch {
+    /**
+     * Loop generated for the concrete class.
+     */
+    private final IExecutorLoop loop;
+
+    /**
+     * Serial threads.
+     */
+    private ITransformedRunnable[] runnables = new ITransformedRunnable[16];
+
+    /**
+     * Number of serial threads.
+     */
+    private int size;
+
+    /**
+     * Constructor.
+     *
+     * @param loop loop generated for the concrete class
+     */
+    private Batch(IExecutorLoop loop) {
+      this.loop = loop;
+    }
+
+    /**
+     * Add a serial thread.
+     */
+    private void add(ITransformedRunnable runnable) {
+      if (size == runnables.length) {
+        runnables = Arrays.copyOf(runnables, size * 2);
+      }
+      runnables[size++] = runnable;
+    }
+
+    /**
+     * Remove the serial thread at the given index, keeping the order of the others.
+     */
+    private void remove(int index) {
+      System.arraycopy(runnables, index + 1, runnables, index, --size - index);
+      runnables[size] = null;
+    }
+  }
+}
@@ -1,9 +1,19 @@
 package org.serialthreads.context;
 
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.function.UnaryOperator;
+
 /**
  * Stack for all frames of a thread.
  */
 public final class Stack implements SerialThread {
+  /**
+   * Countdowns of stacks which have not executed any counted interrupt yet.
+   */
+  private static final int[] NO_COUNTDOWNS = new int[0];
+
   /**
    * Name.
    */
@@ -29,6 +39,24 @@ public final class Stack implements SerialThread {
    */
   public boolean serializing;
 
+  /**
+   * Countdowns for counted interrupts, see {@link org.serialthreads.Interrupt#every()}.
+   * One per call site of a counted interrupt, indexed by the number assigned to the call site at transform time.
+   * Grown on demand via {@link #countdowns(int)}.
+   */
+  public int[] countdowns;
+
+  /**
+   * Yield request polled by this thread, see {@link org.serialthreads.Interrupt#onYieldRequest()}.
+   * Replaced by the one of the managing {@link SerialThreadManager}.
+   */
+  public YieldRequest yieldRequest;
+
+  /**
+   * History the modifications of this stack get reported to, or null.
+   */
+  transient RoundHistory history;
+
   /**
    * Return value of the last executed method: Object.
    */
@@ -67,6 +95,8 @@ public final class Stack implements SerialThread {
     this.frame = first;
 
     serializing = false;
+    countdowns = NO_COUNTDOWNS;
+    yieldRequest = new YieldRequest();
     returnObject = null;
     returnInt = 0;
     returnLong = 0;
@@ -74,6 +104,423 @@ public final class Stack implements SerialThread {
     returnDouble = 0;
   }
 
+  /**
+   * Constructor for snapshots.
+   *
+   * @param name Name
+   * @param frameSize Default size of frames
+   */
+  private Stack(String name, int frameSize) {
+    this.name = name;
+    this.frameSize = frameSize;
+    this.first = new StackFrame(this, null, frameSize);
+    this.frame = first;
+    this.countdowns = NO_COUNTDOWNS;
+    this.yieldRequest = new YieldRequest();
+  }
+
+  /**
+   * Constructor for forks.
+   *
+   * @param source Stack to fork
+   */
+  private Stack(Stack source) {
+    this.name = source.name;
+    this.frameSize = source.frameSize;
+    this.first = new StackFrame(this, null, source.first);
+    this.frame = first;
+    this.countdowns = NO_COUNTDOWNS;
+    this.yieldRequest = new YieldRequest();
+  }
+
+  /**
+   * Stack of a transformed runnable.
+   *
+   * @param runnable Transformed runnable
+   */
+  public static Stack stack(ITransformedRunnable runnable) {
+    // TODO 2009-12-09 mh: Avoid cast
+    return (Stack) runnable.getThread();
+  }
+
+  /**
+   * Take a snapshot of this stack, e.g. to roll back to it later via {@link #copyFrom(Stack)}.
+   * Should be taken only while the serial thread is interrupted.
+   * Values on the stack are copied shallowly.
+   */
+  public Stack snapshot() {
+    var result = new Stack(name, frameSize);
+    result.copyFrom(this);
+    return result;
+  }
+
+  /**
+   * Copy the content of another stack, e.g. of a snapshot, into this stack.
+   * Frames deeper than the ones of the source get reset, so no stale frames are left, if this stack grew meanwhile.
+   * The yield request flag is not copied.
+   * Should be called only while the serial thread is interrupted.
+   *
+   * @param source Stack to copy
+   */
+  public void copyFrom(Stack source) {
+    var target = first;
+    for (var frame = source.first; frame != null; frame = frame.next) {
+      target.copyFrom(frame);
+      if (frame == source.frame) {
+        this.frame = target;
+      }
+      if (frame.next != null && target.next == null) {
+        addFrame(target);
+      }
+      target = target.next;
+    }
+    for (; target != null; target = target.next) {
+      target.reset();
+    }
+
+    serializing = source.serializing;
+    countdowns = source.countdowns.clone();
+    returnObject = source.returnObject;
+    returnInt = source.returnInt;
+    returnLong = source.returnLong;
+    returnFloat = source.returnFloat;
+    returnDouble = source.returnDouble;
+  }
+
+  /**
+   * Fork this stack: Take a snapshot, which shares the arrays of the frames copy-on-write.
+   * Only the frames themselves are copied, their arrays get copied not until either stack writes to them.
+   * The serial thread has to be transformed with {@link org.serialthreads.transformer.ITransformer#trackModifications()},
+   * so that its capture and restore code copies the shared arrays before writing.
+   * Should be taken only while the serial thread is interrupted.
+   * Values on the stack are copied shallowly.
+   */
+  public Stack fork() {
+    var result = new Stack(this);
+    result.forkFrom(this);
+    return result;
+  }
+
+  /**
+   * Fork another stack into this stack, e.g. to let a second serial thread continue from the state of the source.
+   * Like {@link #forkFrom(Stack, UnaryOperator)}, but without mapping any references.
+   *
+   * @param source Stack to fork
+   */
+  public void forkFrom(Stack source) {
+    forkFrom(source, null);
+  }
+
+  /**
+   * Fork another stack into this stack, e.g. to let a second serial thread continue from the state of the source.
+   * The arrays of the frames are shared copy-on-write, see {@link #fork()}.
+   * The frames of this stack are kept, because the transformed code may hold references to them.
+   * All references in the frames, the owners as well as the locals and stack values, are mapped,
+   * e.g. to redirect the references to the runnable of the source to the runnable of this stack.
+   * Arrays of references are copied only, if the mapping changes one of their elements.
+   * The yield request flag is not copied.
+   * Should be called only while both serial threads are interrupted.
+   *
+   * @param source Stack to fork
+   * @param references Mapping of non-null references in the frames, or null to keep them
+   */
+  public void forkFrom(Stack source, UnaryOperator<Object> references) {
+    assert source != this : "Precondition: source != this";
+
+    var target = first;
+    StackFrame last = null;
+    for (var frame = source.first; frame != null; frame = frame.next) {
+      if (target == null) {
+        target = new StackFrame(this, last, frame);
+      } else {
+        target.shareFrom(frame);
+      }
+      if (references != null) {
+        target.mapReferences(references);
+      }
+      if (frame == source.frame) {
+        this.frame = target;
+      }
+      last = target;
+      target = target.next;
+    }
+    for (; target != null; target = target.next) {
+      target.reset();
+    }
+
+    serializing = source.serializing;
+    countdowns = source.countdowns.clone();
+    returnObject = source.returnObject;
+    returnInt = source.returnInt;
+    returnLong = source.returnLong;
+    returnFloat = source.returnFloat;
+    returnDouble = source.returnDouble;
+  }
+
+  /**
+   * Write the content of this stack to a buffer.
+   * The yield request flag is not written.
+   * Should be called only while the serial thread is interrupted.
+   *
+   * @param buffer buffer to write to
+   * @param codec codec for object references
+   * @exception java.nio.BufferOverflowException if the buffer is too small
+   */
+  void write(ByteBuffer buffer, ObjectCodec codec) {
+    writeHeader(buffer, codec);
+    for (var frame = first; frame != null; frame = frame.next) {
+      frame.write(buffer, codec);
+    }
+  }
+
+  /**
+   * Write the modified content of this stack to a buffer:
+   * Like {@link #write(ByteBuffer, ObjectCodec)}, but only the frames modified since the last {@link #markClean()}.
+   * Should be called only while the serial thread is interrupted.
+   *
+   * @param buffer buffer to write to
+   * @param codec codec for object references
+   * @exception java.nio.BufferOverflowException if the buffer is too small
+   */
+  void writeDelta(ByteBuffer buffer, ObjectCodec codec) {
+    writeHeader(buffer, codec);
+    int index = 0;
+    for (var frame = first; frame != null; frame = frame.next, index++) {
+      if (frame.modified) {
+        buffer.putInt(index);
+        frame.write(buffer, codec);
+      }
+    }
+    buffer.putInt(-1);
+  }
+
+  /**
+   * Write the state of this stack, excluding the frames.
+   */
+  void writeHeader(ByteBuffer buffer, ObjectCodec codec) {
+    int frames = 0;
+    int current = 0;
+    for (var frame = first; frame != null; frame = frame.next) {
+      if (frame == this.frame) {
+        current = frames;
+      }
+      frames++;
+    }
+
+    buffer.putInt(frames);
+    buffer.putInt(current);
+    buffer.put(serializing ? (byte) 1 : (byte) 0);
+    buffer.putInt(countdowns.length);
+    for (int countdown : countdowns) {
+      buffer.putInt(countdown);
+    }
+    codec.write(buffer, returnObject);
+    buffer.putInt(returnInt);
+    buffer.putLong(returnLong);
+    buffer.putFloat(returnFloat);
+    buffer.putDouble(returnDouble);
+  }
+
+  /**
+   * Read the content of this stack from a buffer, written by {@link #write(ByteBuffer, ObjectCodec)}.
+   * Missing frames are added, superfluous frames are reset.
+   * Should be called only while the serial thread is interrupted.
+   *
+   * @param buffer buffer to read from
+   * @param codec codec for object references
+   */
+  void read(ByteBuffer buffer, ObjectCodec codec) {
+    modifying();
+    int frames = buffer.getInt();
+    int current = buffer.getInt();
+    readState(buffer, codec);
+
+    var frame = first;
+    for (int i = 0; i < frames; i++) {
+      frame.read(buffer, codec);
+      if (i < frames - 1 && frame.next == null) {
+        addFrame(frame);
+      }
+      frame = frame.next;
+    }
+    resetFrames(frames, current);
+  }
+
+  /**
+   * Apply modified content to this stack, written by {@link #writeDelta(ByteBuffer, ObjectCodec)}.
+   * Should be called only while the serial thread is interrupted.
+   *
+   * @param buffer buffer to read from
+   * @param codec codec for object references
+   */
+  void readDelta(ByteBuffer buffer, ObjectCodec codec) {
+    modifying();
+    int frames = buffer.getInt();
+    int current = buffer.getInt();
+    readState(buffer, codec);
+
+    var frame = first;
+    int index = 0;
+    for (int next = buffer.getInt(); next >= 0; next = buffer.getInt()) {
+      for (; index < next; index++) {
+        frame = frame.next != null ? frame.next : addFrame(frame);
+      }
+      frame.read(buffer, codec);
+    }
+    resetFrames(frames, current);
+  }
+
+  /**
+   * Read the state of this stack, excluding the frames, written by {@link #writeHeader(ByteBuffer, ObjectCodec)}.
+   * Has to be called after the frames have been read, because superfluous frames are reset.
+   *
+   * @param buffer buffer to read from
+   * @param codec codec for object references
+   */
+  void readHeader(ByteBuffer buffer, ObjectCodec codec) {
+    modifying();
+    int frames = buffer.getInt();
+    int current = buffer.getInt();
+    readState(buffer, codec);
+    getFrame(frames - 1);
+    resetFrames(frames, current);
+  }
+
+  /**
+   * Read the state of this stack, excluding the frames.
+   */
+  private void readState(ByteBuffer buffer, ObjectCodec codec) {
+    serializing = buffer.get() != 0;
+    countdowns = new int[buffer.getInt()];
+    for (int i = 0; i < countdowns.length; i++) {
+      countdowns[i] = buffer.getInt();
+    }
+    returnObject = codec.read(buffer);
+    returnInt = buffer.getInt();
+    returnLong = buffer.getLong();
+    returnFloat = buffer.getFloat();
+    returnDouble = buffer.getDouble();
+  }
+
+  /**
+   * Set the current frame and reset all frames after the given number of frames.
+   *
+   * @param frames number of used frames
+   * @param current index of the current frame
+   */
+  private void resetFrames(int frames, int current) {
+    var frame = first;
+    for (int i = 0; frame != null; i++, frame = frame.next) {
+      if (i == current) {
+        this.frame = frame;
+      }
+      if (i >= frames) {
+        frame.reset();
+      }
+    }
+  }
+
+  /**
+   * Get the frame with the given index. Missing frames are added.
+   *
+   * @param index index of the frame, 0 for the first frame
+   */
+  StackFrame getFrame(int index) {
+    var result = first;
+    for (int i = 0; i < index; i++) {
+      result = result.next != null ? result.next : addFrame(result);
+    }
+    return result;
+  }
+
+  /**
+   * Grow the countdowns for counted interrupts to the given number of call sites.
+   * Called by the transformed code, if a call site has no countdown yet.
+   * New countdowns start at 0, so the first call of a counted interrupt interrupts.
+   *
+   * @param sites number of call sites
+   * @return the grown countdowns
+   */
+  public int[] countdowns(int sites) {
+    if (countdowns.length < sites) {
+      countdowns = Arrays.copyOf(countdowns, Math.max(sites, 2 * countdowns.length));
+    }
+    return countdowns;
+  }
+
+  /**
+   * Release the content of this stack to reduce its memory footprint, e.g. while it is hibernated.
+   * Only the first frame is kept, because the transformed code holds a reference to it.
+   * The content has to be restored by {@link #read(ByteBuffer, ObjectCodec)} before the serial thread is resumed.
+   */
+  void release() {
+    if (history != null) {
+      // The frames after the first one get dropped.
+      for (var frame = first; frame != null; frame = frame.next) {
+        frame.markDirty();
+      }
+    }
+    first.release();
+    first.next = null;
+    frame = first;
+    returnObject = null;
+  }
+
+  /**
+   * Report the state of this stack before it gets modified to its {@link RoundHistory}, if any.
+   */
+  private void modifying() {
+    if (history != null) {
+      history.modified(this);
+    }
+  }
+
+  /**
+   * Mark all frames as not modified, e.g. after an incremental checkpoint.
+   */
+  public void markClean() {
+    for (var frame = first; frame != null; frame = frame.next) {
+      frame.dirty = false;
+      frame.modified = false;
+    }
+  }
+
+  /**
+   * Mark all frames as not {@link StackFrame#dirty}, after the end of a round has been recorded by the {@link RoundHistory},
+   * so that their next modification gets reported again. Keeps the modifications for incremental checkpoints.
+   */
+  void markRecorded() {
+    for (var frame = first; frame != null; frame = frame.next) {
+      frame.dirty = false;
+    }
+  }
+
+  /**
+   * Indexes of the frames modified since the last {@link #markClean()}.
+   */
+  BitSet getModified() {
+    var result = new BitSet();
+    int index = 0;
+    for (var frame = first; frame != null; frame = frame.next, index++) {
+      result.set(index, frame.modified);
+    }
+    return result;
+  }
+
+  /**
+   * Mark just the given frames as modified, e.g. after {@link #read(ByteBuffer, ObjectCodec)} marked all frames,
+   * when restoring unchanged content from hibernation.
+   *
+   * @param modified indexes of the modified frames, see {@link #getModified()}
+   */
+  void setModified(BitSet modified) {
+    int index = 0;
+    for (var frame = first; frame != null; frame = frame.next, index++) {
+      frame.dirty = modified.get(index);
+      frame.modified = modified.get(index);
+    }
+  }
+
   @Override
   public String getName() {
     return name;
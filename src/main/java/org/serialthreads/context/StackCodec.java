@@ -0,0 +1,149 @@
+package org.serialthreads.context;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Binary codec for the stacks of serial threads, e.g. to move serial threads or to persist them.
+ * Much faster and more compact than Java serialization:
+ * Only the used part of the frames is written, primitive arrays are copied in bulk and no reflection is used.
+ * Object references on the stacks are written by an {@link ObjectCodec}.
+ * <p>
+ * Buffers have to use the byte order {@link #ORDER}.
+ * {@link #encode(Stack)} is not thread-safe, because it reuses the buffer of the codec.
+ */
+public final class StackCodec {
+  /**
+   * Byte order of encoded stacks.
+   */
+  public static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+
+  /**
+   * Codec for object references.
+   */
+  private final ObjectCodec codec;
+
+  /**
+   * Buffer for encoding, reused for all stacks.
+   */
+  private ByteBuffer buffer;
+
+  /**
+   * Constructor.
+   *
+   * @param codec codec for object references
+   */
+  public StackCodec(ObjectCodec codec) {
+    this(codec, 4096);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param codec codec for object references
+   * @param capacity initial capacity of the buffer for encoding
+   */
+  public StackCodec(ObjectCodec codec, int capacity) {
+    assert codec != null : "Precondition: codec != null";
+    assert capacity > 0 : "Precondition: capacity > 0";
+
+    this.codec = codec;
+    this.buffer = ByteBuffer.allocate(capacity).order(ORDER);
+  }
+
+  /**
+   * Encode a stack into the buffer of this codec, which gets enlarged if needed.
+   * Should be called only while the serial thread is interrupted.
+   *
+   * @param stack stack
+   * @return buffer of this codec containing the encoded stack, valid until the next call
+   */
+  public ByteBuffer encode(Stack stack) {
+    while (true) {
+      buffer.clear();
+      try {
+        stack.write(buffer, codec);
+        return buffer.flip();
+      } catch (BufferOverflowException e) {
+        buffer = ByteBuffer.allocate(buffer.capacity() * 2).order(ORDER);
+      }
+    }
+  }
+
+  /**
+   * Encode the frames of a stack modified since the last {@link Stack#markClean()} into the buffer of this codec,
+   * which gets enlarged if needed. The modification marks are not cleared.
+   * Should be called only while the serial thread is interrupted.
+   *
+   * @param stack stack
+   * @return buffer of this codec containing the encoded delta, valid until the next call
+   */
+  public ByteBuffer encodeDelta(Stack stack) {
+    while (true) {
+      buffer.clear();
+      try {
+        stack.writeDelta(buffer, codec);
+        return buffer.flip();
+      } catch (BufferOverflowException e) {
+        buffer = ByteBuffer.allocate(buffer.capacity() * 2).order(ORDER);
+      }
+    }
+  }
+
+  /**
+   * Encode a stack into the given buffer, starting at its position.
+   * Should be called only while the serial thread is interrupted.
+   *
+   * @param stack stack
+   * @param buffer buffer to write to
+   * @exception BufferOverflowException if the buffer is too small
+   */
+  public void encode(Stack stack, ByteBuffer buffer) {
+    assert buffer.order() == ORDER : "Precondition: buffer.order() == ORDER";
+
+    stack.write(buffer, codec);
+  }
+
+  /**
+   * Encode the frames of a stack modified since the last {@link Stack#markClean()} into the given buffer,
+   * starting at its position. The modification marks are not cleared.
+   * Should be called only while the serial thread is interrupted.
+   *
+   * @param stack stack
+   * @param buffer buffer to write to
+   * @exception BufferOverflowException if the buffer is too small
+   */
+  public void encodeDelta(Stack stack, ByteBuffer buffer) {
+    assert buffer.order() == ORDER : "Precondition: buffer.order() == ORDER";
+
+    stack.writeDelta(buffer, codec);
+  }
+
+  /**
+   * Decode a stack from the given buffer, starting at its position, into an existing stack.
+   * Should be called only while the serial thread is interrupted.
+   *
+   * @param buffer buffer to read from
+   * @param stack stack to restore
+   */
+  public void decode(ByteBuffer buffer, Stack stack) {
+    assert buffer.order() == ORDER : "Precondition: buffer.order() == ORDER";
+
+    stack.read(buffer, codec);
+  }
+
+  /**
+   * Apply a delta from the given buffer, starting at its position, to an existing stack.
+   * The stack has to be in the state the delta has been encoded relative to.
+   * Should be called only while the serial thread is interrupted.
+   *
+   * @param buffer buffer to read from
+   * @param stack stack to update
+   */
+  public void decodeDelta(ByteBuffer buffer, Stack stack) {
+    assert buffer.order() == ORDER : "Precondition: buffer.order() == ORDER";
+
+    stack.readDelta(buffer, codec);
+  }
+}
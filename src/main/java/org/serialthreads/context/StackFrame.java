@@ -6,7 +6,9 @@ import org.slf4j.LoggerFactory;
 import java.io.Serializable;
 import java.lang.invoke.MethodHandle;
 import java.lang.invoke.MethodType;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
+import java.util.function.UnaryOperator;
 
 /**
  * Used to store the content of a stack frame.
@@ -21,6 +23,13 @@ public final class StackFrame implements Serializable {
   public static int DEFAULT_FRAME_SIZE = 64;
   public static final int FAST_FRAME_SIZE = 8;
 
+  // empty arrays of released frames
+  private static final Object[] NO_OBJECTS = new Object[0];
+  private static final int[] NO_INTS = new int[0];
+  private static final long[] NO_LONGS = new long[0];
+  private static final float[] NO_FLOATS = new float[0];
+  private static final double[] NO_DOUBLES = new double[0];
+
   public static final MethodType METHOD_TYPE =
           MethodType.methodType(void.class, Stack.class, StackFrame.class);
 
@@ -29,12 +38,23 @@ public final class StackFrame implements Serializable {
   public final StackFrame previous;
   public StackFrame next;
   public StackFrame last;
+  // index in the stack, 0 for the first frame
+  final int depth;
 
   // Method owner and index of restore code
   public Object owner;
   public int method;
   public MethodHandle methodHandle;
 
+  // modified since the last incremental checkpoint or round? set by capture code via markDirty()
+  public boolean dirty;
+  // modified since the last incremental checkpoint? set via markDirty()
+  boolean modified;
+  // round of the round history, in which the content before the first modification has been recorded
+  int recorded;
+  // arrays shared with a fork? copied by capture and restore code before writing
+  public boolean shared;
+
   // size of frame
   private int size;
 
@@ -161,11 +181,14 @@ public final class StackFrame implements Serializable {
 
     this.previous = previous;
     this.next = null;
+    this.depth = previous != null ? previous.depth + 1 : 0;
 
     owner = null;
     // has to be -1 for dummy startup restore!
     method = -1;
     methodHandle = null;
+    added();
+    shared = false;
 
     this.size = size;
 
@@ -201,6 +224,877 @@ public final class StackFrame implements Serializable {
     return new StackFrame(stack, this, size);
   }
 
+  /**
+   * Constructor for forks: Creates a frame sharing the arrays of the given frame, see {@link #shareFrom(StackFrame)}.
+   *
+   * @param stack stack
+   * @param previous previous stack frame for a linked list
+   * @param source frame to share the arrays of
+   */
+  StackFrame(Stack stack, StackFrame previous, StackFrame source) {
+    this.stack = stack;
+
+    if (previous != null) {
+      previous.next = this;
+    }
+
+    this.previous = previous;
+    this.next = null;
+    this.depth = previous != null ? previous.depth + 1 : 0;
+
+    added();
+    shareFrom(source);
+  }
+
+  /**
+   * Mark this frame as modified, before it gets modified.
+   * Reports the content before the first modification to the {@link RoundHistory} of the stack, if any.
+   * Called by the capture and restore code, if the frame is not {@link #dirty} yet
+   * and modifications are tracked, see {@link org.serialthreads.transformer.ITransformer#trackModifications()}.
+   */
+  public void markDirty() {
+    if (dirty) {
+      return;
+    }
+    var history = stack.history;
+    if (history != null) {
+      history.modified(this);
+    }
+    dirty = true;
+    modified = true;
+  }
+
+  /**
+   * Mark this frame as modified, because it has just been added.
+   * Reports it to the {@link RoundHistory} of the stack, if any.
+   */
+  private void added() {
+    dirty = true;
+    modified = true;
+    var history = stack.history;
+    if (history != null) {
+      history.added(this);
+    }
+  }
+
+  /**
+   * Copy the content of another frame into this frame, e.g. to take or to restore a snapshot.
+   * The links to other frames are not copied.
+   *
+   * @param source frame to copy
+   */
+  public void copyFrom(StackFrame source) {
+    markDirty();
+    if (shared) {
+      unshare();
+    }
+    owner = source.owner;
+    method = source.method;
+    methodHandle = source.methodHandle;
+    size = source.size;
+    stackObjectPtr = source.stackObjectPtr;
+    stackObjects = copy(source.stackObjects, stackObjects);
+    stackIntPtr = source.stackIntPtr;
+    stackInts = copy(source.stackInts, stackInts);
+    stackLongPtr = source.stackLongPtr;
+    stackLongs = copy(source.stackLongs, stackLongs);
+    stackFloatPtr = source.stackFloatPtr;
+    stackFloats = copy(source.stackFloats, stackFloats);
+    stackDoublePtr = source.stackDoublePtr;
+    stackDoubles = copy(source.stackDoubles, stackDoubles);
+    localObjectPtr = source.localObjectPtr;
+    localObjects = copy(source.localObjects, localObjects);
+    localIntPtr = source.localIntPtr;
+    localInts = copy(source.localInts, localInts);
+    localLongPtr = source.localLongPtr;
+    localLongs = copy(source.localLongs, localLongs);
+    localFloatPtr = source.localFloatPtr;
+    localFloats = copy(source.localFloats, localFloats);
+    localDoublePtr = source.localDoublePtr;
+    localDoubles = copy(source.localDoubles, localDoubles);
+    copyFastFields(source);
+  }
+
+  /**
+   * Copy the content of another frame into this frame, sharing the arrays copy-on-write, e.g. to fork a stack.
+   * The arrays are copied by {@link #unshare()} before either frame writes to them again.
+   * The links to other frames are not copied.
+   *
+   * @param source frame to share
+   */
+  void shareFrom(StackFrame source) {
+    markDirty();
+    owner = source.owner;
+    method = source.method;
+    methodHandle = source.methodHandle;
+    shared = true;
+    source.shared = true;
+    size = source.size;
+    stackObjectPtr = source.stackObjectPtr;
+    stackObjects = source.stackObjects;
+    stackIntPtr = source.stackIntPtr;
+    stackInts = source.stackInts;
+    stackLongPtr = source.stackLongPtr;
+    stackLongs = source.stackLongs;
+    stackFloatPtr = source.stackFloatPtr;
+    stackFloats = source.stackFloats;
+    stackDoublePtr = source.stackDoublePtr;
+    stackDoubles = source.stackDoubles;
+    localObjectPtr = source.localObjectPtr;
+    localObjects = source.localObjects;
+    localIntPtr = source.localIntPtr;
+    localInts = source.localInts;
+    localLongPtr = source.localLongPtr;
+    localLongs = source.localLongs;
+    localFloatPtr = source.localFloatPtr;
+    localFloats = source.localFloats;
+    localDoublePtr = source.localDoublePtr;
+    localDoubles = source.localDoubles;
+    copyFastFields(source);
+  }
+
+  /**
+   * Copy the arrays of this frame, because they are {@link #shared} with a fork.
+   * Called by the capture and restore code before writing to the arrays.
+   * The frame sharing the arrays copies them too when it writes next, even if it is the last one using them.
+   */
+  public void unshare() {
+    shared = false;
+    stackObjects = stackObjects.clone();
+    stackInts = stackInts.clone();
+    stackLongs = stackLongs.clone();
+    stackFloats = stackFloats.clone();
+    stackDoubles = stackDoubles.clone();
+    localObjects = localObjects.clone();
+    localInts = localInts.clone();
+    localLongs = localLongs.clone();
+    localFloats = localFloats.clone();
+    localDoubles = localDoubles.clone();
+  }
+
+  /**
+   * Map all non-null references of this frame: The owner, the stack and the locals, e.g. for forks.
+   * Shared arrays are copied only, if the mapping changes one of their elements.
+   *
+   * @param references mapping of references
+   */
+  void mapReferences(UnaryOperator<Object> references) {
+    owner = map(owner, references);
+    stackObjects = map(stackObjects, references);
+    localObjects = map(localObjects, references);
+    stackObject0 = map(stackObject0, references);
+    stackObject1 = map(stackObject1, references);
+    stackObject2 = map(stackObject2, references);
+    stackObject3 = map(stackObject3, references);
+    stackObject4 = map(stackObject4, references);
+    stackObject5 = map(stackObject5, references);
+    stackObject6 = map(stackObject6, references);
+    stackObject7 = map(stackObject7, references);
+    localObject0 = map(localObject0, references);
+    localObject1 = map(localObject1, references);
+    localObject2 = map(localObject2, references);
+    localObject3 = map(localObject3, references);
+    localObject4 = map(localObject4, references);
+    localObject5 = map(localObject5, references);
+    localObject6 = map(localObject6, references);
+    localObject7 = map(localObject7, references);
+  }
+
+  /**
+   * Map a reference, if it is not null.
+   */
+  private static Object map(Object reference, UnaryOperator<Object> references) {
+    return reference != null ? references.apply(reference) : null;
+  }
+
+  /**
+   * Map all non-null references of an array. Copies the array, if the mapping changes one of its elements.
+   */
+  private static Object[] map(Object[] array, UnaryOperator<Object> references) {
+    var result = array;
+    for (int i = 0; i < array.length; i++) {
+      var mapped = map(array[i], references);
+      if (mapped != array[i]) {
+        if (result == array) {
+          result = array.clone();
+        }
+        result[i] = mapped;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Copy the fast stack and the fast locals of another frame into this frame.
+   *
+   * @param source frame to copy
+   */
+  private void copyFastFields(StackFrame source) {
+    stackObject0 = source.stackObject0;
+    stackObject1 = source.stackObject1;
+    stackObject2 = source.stackObject2;
+    stackObject3 = source.stackObject3;
+    stackObject4 = source.stackObject4;
+    stackObject5 = source.stackObject5;
+    stackObject6 = source.stackObject6;
+    stackObject7 = source.stackObject7;
+    stackInt0 = source.stackInt0;
+    stackInt1 = source.stackInt1;
+    stackInt2 = source.stackInt2;
+    stackInt3 = source.stackInt3;
+    stackInt4 = source.stackInt4;
+    stackInt5 = source.stackInt5;
+    stackInt6 = source.stackInt6;
+    stackInt7 = source.stackInt7;
+    stackLong0 = source.stackLong0;
+    stackLong1 = source.stackLong1;
+    stackLong2 = source.stackLong2;
+    stackLong3 = source.stackLong3;
+    stackLong4 = source.stackLong4;
+    stackLong5 = source.stackLong5;
+    stackLong6 = source.stackLong6;
+    stackLong7 = source.stackLong7;
+    stackFloat0 = source.stackFloat0;
+    stackFloat1 = source.stackFloat1;
+    stackFloat2 = source.stackFloat2;
+    stackFloat3 = source.stackFloat3;
+    stackFloat4 = source.stackFloat4;
+    stackFloat5 = source.stackFloat5;
+    stackFloat6 = source.stackFloat6;
+    stackFloat7 = source.stackFloat7;
+    stackDouble0 = source.stackDouble0;
+    stackDouble1 = source.stackDouble1;
+    stackDouble2 = source.stackDouble2;
+    stackDouble3 = source.stackDouble3;
+    stackDouble4 = source.stackDouble4;
+    stackDouble5 = source.stackDouble5;
+    stackDouble6 = source.stackDouble6;
+    stackDouble7 = source.stackDouble7;
+    localObject0 = source.localObject0;
+    localObject1 = source.localObject1;
+    localObject2 = source.localObject2;
+    localObject3 = source.localObject3;
+    localObject4 = source.localObject4;
+    localObject5 = source.localObject5;
+    localObject6 = source.localObject6;
+    localObject7 = source.localObject7;
+    localInt0 = source.localInt0;
+    localInt1 = source.localInt1;
+    localInt2 = source.localInt2;
+    localInt3 = source.localInt3;
+    localInt4 = source.localInt4;
+    localInt5 = source.localInt5;
+    localInt6 = source.localInt6;
+    localInt7 = source.localInt7;
+    localLong0 = source.localLong0;
+    localLong1 = source.localLong1;
+    localLong2 = source.localLong2;
+    localLong3 = source.localLong3;
+    localLong4 = source.localLong4;
+    localLong5 = source.localLong5;
+    localLong6 = source.localLong6;
+    localLong7 = source.localLong7;
+    localFloat0 = source.localFloat0;
+    localFloat1 = source.localFloat1;
+    localFloat2 = source.localFloat2;
+    localFloat3 = source.localFloat3;
+    localFloat4 = source.localFloat4;
+    localFloat5 = source.localFloat5;
+    localFloat6 = source.localFloat6;
+    localFloat7 = source.localFloat7;
+    localDouble0 = source.localDouble0;
+    localDouble1 = source.localDouble1;
+    localDouble2 = source.localDouble2;
+    localDouble3 = source.localDouble3;
+    localDouble4 = source.localDouble4;
+    localDouble5 = source.localDouble5;
+    localDouble6 = source.localDouble6;
+    localDouble7 = source.localDouble7;
+  }
+
+  /**
+   * Copy an array, reusing the target array, if it has the same length.
+   */
+  private static Object[] copy(Object[] source, Object[] target) {
+    if (target.length != source.length) {
+      return source.clone();
+    }
+    System.arraycopy(source, 0, target, 0, source.length);
+    return target;
+  }
+
+  /**
+   * Copy an array, reusing the target array, if it has the same length.
+   */
+  private static int[] copy(int[] source, int[] target) {
+    if (target.length != source.length) {
+      return source.clone();
+    }
+    System.arraycopy(source, 0, target, 0, source.length);
+    return target;
+  }
+
+  /**
+   * Copy an array, reusing the target array, if it has the same length.
+   */
+  private static long[] copy(long[] source, long[] target) {
+    if (target.length != source.length) {
+      return source.clone();
+    }
+    System.arraycopy(source, 0, target, 0, source.length);
+    return target;
+  }
+
+  /**
+   * Copy an array, reusing the target array, if it has the same length.
+   */
+  private static float[] copy(float[] source, float[] target) {
+    if (target.length != source.length) {
+      return source.clone();
+    }
+    System.arraycopy(source, 0, target, 0, source.length);
+    return target;
+  }
+
+  /**
+   * Copy an array, reusing the target array, if it has the same length.
+   */
+  private static double[] copy(double[] source, double[] target) {
+    if (target.length != source.length) {
+      return source.clone();
+    }
+    System.arraycopy(source, 0, target, 0, source.length);
+    return target;
+  }
+
+  /**
+   * Write the content of this frame to a buffer.
+   * Arrays are written up to their last non-default element only,
+   * fast fields are written only if they do not contain the default value.
+   * The links to other frames and the method handle are not written.
+   *
+   * @param buffer buffer to write to
+   * @param codec codec for object references
+   * @exception java.nio.BufferOverflowException if the buffer is too small
+   */
+  void write(ByteBuffer buffer, ObjectCodec codec) {
+    codec.write(buffer, owner);
+    buffer.putInt(method);
+    buffer.putInt(size);
+    buffer.putInt(stackObjectPtr);
+    write(buffer, stackObjects, codec);
+    buffer.putInt(stackIntPtr);
+    write(buffer, stackInts);
+    buffer.putInt(stackLongPtr);
+    write(buffer, stackLongs);
+    buffer.putInt(stackFloatPtr);
+    write(buffer, stackFloats);
+    buffer.putInt(stackDoublePtr);
+    write(buffer, stackDoubles);
+    buffer.putInt(localObjectPtr);
+    write(buffer, localObjects, codec);
+    buffer.putInt(localIntPtr);
+    write(buffer, localInts);
+    buffer.putInt(localLongPtr);
+    write(buffer, localLongs);
+    buffer.putInt(localFloatPtr);
+    write(buffer, localFloats);
+    buffer.putInt(localDoublePtr);
+    write(buffer, localDoubles);
+    int mask;
+    mask = bit(stackObject0, 0) | bit(stackObject1, 1) | bit(stackObject2, 2) | bit(stackObject3, 3) |
+      bit(stackObject4, 4) | bit(stackObject5, 5) | bit(stackObject6, 6) | bit(stackObject7, 7);
+    buffer.put((byte) mask);
+    putObject(buffer, mask, 0, stackObject0, codec);
+    putObject(buffer, mask, 1, stackObject1, codec);
+    putObject(buffer, mask, 2, stackObject2, codec);
+    putObject(buffer, mask, 3, stackObject3, codec);
+    putObject(buffer, mask, 4, stackObject4, codec);
+    putObject(buffer, mask, 5, stackObject5, codec);
+    putObject(buffer, mask, 6, stackObject6, codec);
+    putObject(buffer, mask, 7, stackObject7, codec);
+    mask = bit(stackInt0, 0) | bit(stackInt1, 1) | bit(stackInt2, 2) | bit(stackInt3, 3) |
+      bit(stackInt4, 4) | bit(stackInt5, 5) | bit(stackInt6, 6) | bit(stackInt7, 7);
+    buffer.put((byte) mask);
+    putInt(buffer, mask, 0, stackInt0);
+    putInt(buffer, mask, 1, stackInt1);
+    putInt(buffer, mask, 2, stackInt2);
+    putInt(buffer, mask, 3, stackInt3);
+    putInt(buffer, mask, 4, stackInt4);
+    putInt(buffer, mask, 5, stackInt5);
+    putInt(buffer, mask, 6, stackInt6);
+    putInt(buffer, mask, 7, stackInt7);
+    mask = bit(stackLong0, 0) | bit(stackLong1, 1) | bit(stackLong2, 2) | bit(stackLong3, 3) |
+      bit(stackLong4, 4) | bit(stackLong5, 5) | bit(stackLong6, 6) | bit(stackLong7, 7);
+    buffer.put((byte) mask);
+    putLong(buffer, mask, 0, stackLong0);
+    putLong(buffer, mask, 1, stackLong1);
+    putLong(buffer, mask, 2, stackLong2);
+    putLong(buffer, mask, 3, stackLong3);
+    putLong(buffer, mask, 4, stackLong4);
+    putLong(buffer, mask, 5, stackLong5);
+    putLong(buffer, mask, 6, stackLong6);
+    putLong(buffer, mask, 7, stackLong7);
+    mask = bit(stackFloat0, 0) | bit(stackFloat1, 1) | bit(stackFloat2, 2) | bit(stackFloat3, 3) |
+      bit(stackFloat4, 4) | bit(stackFloat5, 5) | bit(stackFloat6, 6) | bit(stackFloat7, 7);
+    buffer.put((byte) mask);
+    putFloat(buffer, mask, 0, stackFloat0);
+    putFloat(buffer, mask, 1, stackFloat1);
+    putFloat(buffer, mask, 2, stackFloat2);
+    putFloat(buffer, mask, 3, stackFloat3);
+    putFloat(buffer, mask, 4, stackFloat4);
+    putFloat(buffer, mask, 5, stackFloat5);
+    putFloat(buffer, mask, 6, stackFloat6);
+    putFloat(buffer, mask, 7, stackFloat7);
+    mask = bit(stackDouble0, 0) | bit(stackDouble1, 1) | bit(stackDouble2, 2) | bit(stackDouble3, 3) |
+      bit(stackDouble4, 4) | bit(stackDouble5, 5) | bit(stackDouble6, 6) | bit(stackDouble7, 7);
+    buffer.put((byte) mask);
+    putDouble(buffer, mask, 0, stackDouble0);
+    putDouble(buffer, mask, 1, stackDouble1);
+    putDouble(buffer, mask, 2, stackDouble2);
+    putDouble(buffer, mask, 3, stackDouble3);
+    putDouble(buffer, mask, 4, stackDouble4);
+    putDouble(buffer, mask, 5, stackDouble5);
+    putDouble(buffer, mask, 6, stackDouble6);
+    putDouble(buffer, mask, 7, stackDouble7);
+    mask = bit(localObject0, 0) | bit(localObject1, 1) | bit(localObject2, 2) | bit(localObject3, 3) |
+      bit(localObject4, 4) | bit(localObject5, 5) | bit(localObject6, 6) | bit(localObject7, 7);
+    buffer.put((byte) mask);
+    putObject(buffer, mask, 0, localObject0, codec);
+    putObject(buffer, mask, 1, localObject1, codec);
+    putObject(buffer, mask, 2, localObject2, codec);
+    putObject(buffer, mask, 3, localObject3, codec);
+    putObject(buffer, mask, 4, localObject4, codec);
+    putObject(buffer, mask, 5, localObject5, codec);
+    putObject(buffer, mask, 6, localObject6, codec);
+    putObject(buffer, mask, 7, localObject7, codec);
+    mask = bit(localInt0, 0) | bit(localInt1, 1) | bit(localInt2, 2) | bit(localInt3, 3) |
+      bit(localInt4, 4) | bit(localInt5, 5) | bit(localInt6, 6) | bit(localInt7, 7);
+    buffer.put((byte) mask);
+    putInt(buffer, mask, 0, localInt0);
+    putInt(buffer, mask, 1, localInt1);
+    putInt(buffer, mask, 2, localInt2);
+    putInt(buffer, mask, 3, localInt3);
+    putInt(buffer, mask, 4, localInt4);
+    putInt(buffer, mask, 5, localInt5);
+    putInt(buffer, mask, 6, localInt6);
+    putInt(buffer, mask, 7, localInt7);
+    mask = bit(localLong0, 0) | bit(localLong1, 1) | bit(localLong2, 2) | bit(localLong3, 3) |
+      bit(localLong4, 4) | bit(localLong5, 5) | bit(localLong6, 6) | bit(localLong7, 7);
+    buffer.put((byte) mask);
+    putLong(buffer, mask, 0, localLong0);
+    putLong(buffer, mask, 1, localLong1);
+    putLong(buffer, mask, 2, localLong2);
+    putLong(buffer, mask, 3, localLong3);
+    putLong(buffer, mask, 4, localLong4);
+    putLong(buffer, mask, 5, localLong5);
+    putLong(buffer, mask, 6, localLong6);
+    putLong(buffer, mask, 7, localLong7);
+    mask = bit(localFloat0, 0) | bit(localFloat1, 1) | bit(localFloat2, 2) | bit(localFloat3, 3) |
+      bit(localFloat4, 4) | bit(localFloat5, 5) | bit(localFloat6, 6) | bit(localFloat7, 7);
+    buffer.put((byte) mask);
+    putFloat(buffer, mask, 0, localFloat0);
+    putFloat(buffer, mask, 1, localFloat1);
+    putFloat(buffer, mask, 2, localFloat2);
+    putFloat(buffer, mask, 3, localFloat3);
+    putFloat(buffer, mask, 4, localFloat4);
+    putFloat(buffer, mask, 5, localFloat5);
+    putFloat(buffer, mask, 6, localFloat6);
+    putFloat(buffer, mask, 7, localFloat7);
+    mask = bit(localDouble0, 0) | bit(localDouble1, 1) | bit(localDouble2, 2) | bit(localDouble3, 3) |
+      bit(localDouble4, 4) | bit(localDouble5, 5) | bit(localDouble6, 6) | bit(localDouble7, 7);
+    buffer.put((byte) mask);
+    putDouble(buffer, mask, 0, localDouble0);
+    putDouble(buffer, mask, 1, localDouble1);
+    putDouble(buffer, mask, 2, localDouble2);
+    putDouble(buffer, mask, 3, localDouble3);
+    putDouble(buffer, mask, 4, localDouble4);
+    putDouble(buffer, mask, 5, localDouble5);
+    putDouble(buffer, mask, 6, localDouble6);
+    putDouble(buffer, mask, 7, localDouble7);
+  }
+
+  /**
+   * Read the content of this frame from a buffer, written by {@link #write(ByteBuffer, ObjectCodec)}.
+   * The links to other frames are kept.
+   *
+   * @param buffer buffer to read from
+   * @param codec codec for object references
+   */
+  void read(ByteBuffer buffer, ObjectCodec codec) {
+    markDirty();
+    if (shared) {
+      unshare();
+    }
+    owner = codec.read(buffer);
+    method = buffer.getInt();
+    methodHandle = null;
+    size = buffer.getInt();
+    stackObjectPtr = buffer.getInt();
+    stackObjects = read(buffer, stackObjects, codec);
+    stackIntPtr = buffer.getInt();
+    stackInts = read(buffer, stackInts);
+    stackLongPtr = buffer.getInt();
+    stackLongs = read(buffer, stackLongs);
+    stackFloatPtr = buffer.getInt();
+    stackFloats = read(buffer, stackFloats);
+    stackDoublePtr = buffer.getInt();
+    stackDoubles = read(buffer, stackDoubles);
+    localObjectPtr = buffer.getInt();
+    localObjects = read(buffer, localObjects, codec);
+    localIntPtr = buffer.getInt();
+    localInts = read(buffer, localInts);
+    localLongPtr = buffer.getInt();
+    localLongs = read(buffer, localLongs);
+    localFloatPtr = buffer.getInt();
+    localFloats = read(buffer, localFloats);
+    localDoublePtr = buffer.getInt();
+    localDoubles = read(buffer, localDoubles);
+    int mask;
+    mask = buffer.get();
+    stackObject0 = getObject(buffer, mask, 0, codec);
+    stackObject1 = getObject(buffer, mask, 1, codec);
+    stackObject2 = getObject(buffer, mask, 2, codec);
+    stackObject3 = getObject(buffer, mask, 3, codec);
+    stackObject4 = getObject(buffer, mask, 4, codec);
+    stackObject5 = getObject(buffer, mask, 5, codec);
+    stackObject6 = getObject(buffer, mask, 6, codec);
+    stackObject7 = getObject(buffer, mask, 7, codec);
+    mask = buffer.get();
+    stackInt0 = getInt(buffer, mask, 0);
+    stackInt1 = getInt(buffer, mask, 1);
+    stackInt2 = getInt(buffer, mask, 2);
+    stackInt3 = getInt(buffer, mask, 3);
+    stackInt4 = getInt(buffer, mask, 4);
+    stackInt5 = getInt(buffer, mask, 5);
+    stackInt6 = getInt(buffer, mask, 6);
+    stackInt7 = getInt(buffer, mask, 7);
+    mask = buffer.get();
+    stackLong0 = getLong(buffer, mask, 0);
+    stackLong1 = getLong(buffer, mask, 1);
+    stackLong2 = getLong(buffer, mask, 2);
+    stackLong3 = getLong(buffer, mask, 3);
+    stackLong4 = getLong(buffer, mask, 4);
+    stackLong5 = getLong(buffer, mask, 5);
+    stackLong6 = getLong(buffer, mask, 6);
+    stackLong7 = getLong(buffer, mask, 7);
+    mask = buffer.get();
+    stackFloat0 = getFloat(buffer, mask, 0);
+    stackFloat1 = getFloat(buffer, mask, 1);
+    stackFloat2 = getFloat(buffer, mask, 2);
+    stackFloat3 = getFloat(buffer, mask, 3);
+    stackFloat4 = getFloat(buffer, mask, 4);
+    stackFloat5 = getFloat(buffer, mask, 5);
+    stackFloat6 = getFloat(buffer, mask, 6);
+    stackFloat7 = getFloat(buffer, mask, 7);
+    mask = buffer.get();
+    stackDouble0 = getDouble(buffer, mask, 0);
+    stackDouble1 = getDouble(buffer, mask, 1);
+    stackDouble2 = getDouble(buffer, mask, 2);
+    stackDouble3 = getDouble(buffer, mask, 3);
+    stackDouble4 = getDouble(buffer, mask, 4);
+    stackDouble5 = getDouble(buffer, mask, 5);
+    stackDouble6 = getDouble(buffer, mask, 6);
+    stackDouble7 = getDouble(buffer, mask, 7);
+    mask = buffer.get();
+    localObject0 = getObject(buffer, mask, 0, codec);
+    localObject1 = getObject(buffer, mask, 1, codec);
+    localObject2 = getObject(buffer, mask, 2, codec);
+    localObject3 = getObject(buffer, mask, 3, codec);
+    localObject4 = getObject(buffer, mask, 4, codec);
+    localObject5 = getObject(buffer, mask, 5, codec);
+    localObject6 = getObject(buffer, mask, 6, codec);
+    localObject7 = getObject(buffer, mask, 7, codec);
+    mask = buffer.get();
+    localInt0 = getInt(buffer, mask, 0);
+    localInt1 = getInt(buffer, mask, 1);
+    localInt2 = getInt(buffer, mask, 2);
+    localInt3 = getInt(buffer, mask, 3);
+    localInt4 = getInt(buffer, mask, 4);
+    localInt5 = getInt(buffer, mask, 5);
+    localInt6 = getInt(buffer, mask, 6);
+    localInt7 = getInt(buffer, mask, 7);
+    mask = buffer.get();
+    localLong0 = getLong(buffer, mask, 0);
+    localLong1 = getLong(buffer, mask, 1);
+    localLong2 = getLong(buffer, mask, 2);
+    localLong3 = getLong(buffer, mask, 3);
+    localLong4 = getLong(buffer, mask, 4);
+    localLong5 = getLong(buffer, mask, 5);
+    localLong6 = getLong(buffer, mask, 6);
+    localLong7 = getLong(buffer, mask, 7);
+    mask = buffer.get();
+    localFloat0 = getFloat(buffer, mask, 0);
+    localFloat1 = getFloat(buffer, mask, 1);
+    localFloat2 = getFloat(buffer, mask, 2);
+    localFloat3 = getFloat(buffer, mask, 3);
+    localFloat4 = getFloat(buffer, mask, 4);
+    localFloat5 = getFloat(buffer, mask, 5);
+    localFloat6 = getFloat(buffer, mask, 6);
+    localFloat7 = getFloat(buffer, mask, 7);
+    mask = buffer.get();
+    localDouble0 = getDouble(buffer, mask, 0);
+    localDouble1 = getDouble(buffer, mask, 1);
+    localDouble2 = getDouble(buffer, mask, 2);
+    localDouble3 = getDouble(buffer, mask, 3);
+    localDouble4 = getDouble(buffer, mask, 4);
+    localDouble5 = getDouble(buffer, mask, 5);
+    localDouble6 = getDouble(buffer, mask, 6);
+    localDouble7 = getDouble(buffer, mask, 7);
+  }
+
+  /**
+   * Write an array: Its length, the number of used elements and the used elements.
+   */
+  private static void write(ByteBuffer buffer, Object[] array, ObjectCodec codec) {
+    int used = array.length;
+    while (used > 0 && array[used - 1] == null) {
+      used--;
+    }
+    buffer.putInt(array.length);
+    buffer.putInt(used);
+    for (int i = 0; i < used; i++) {
+      codec.write(buffer, array[i]);
+    }
+  }
+
+  /**
+   * Read an array, reusing the given array, if it has the same length.
+   */
+  private static Object[] read(ByteBuffer buffer, Object[] array, ObjectCodec codec) {
+    int length = buffer.getInt();
+    int used = buffer.getInt();
+    var result = array.length == length ? array : new Object[length];
+    for (int i = 0; i < used; i++) {
+      result[i] = codec.read(buffer);
+    }
+    Arrays.fill(result, used, length, null);
+    return result;
+  }
+
+  /**
+   * Write an array: Its length, the number of used elements and the used elements, copied in bulk.
+   */
+  private static void write(ByteBuffer buffer, int[] array) {
+    int used = array.length;
+    while (used > 0 && array[used - 1] == 0) {
+      used--;
+    }
+    buffer.putInt(array.length);
+    buffer.putInt(used);
+    buffer.asIntBuffer().put(array, 0, used);
+    buffer.position(buffer.position() + used * 4);
+  }
+
+  /**
+   * Read an array, reusing the given array, if it has the same length.
+   */
+  private static int[] read(ByteBuffer buffer, int[] array) {
+    int length = buffer.getInt();
+    int used = buffer.getInt();
+    var result = array.length == length ? array : new int[length];
+    buffer.asIntBuffer().get(result, 0, used);
+    buffer.position(buffer.position() + used * 4);
+    Arrays.fill(result, used, length, 0);
+    return result;
+  }
+
+  /**
+   * Write an array: Its length, the number of used elements and the used elements, copied in bulk.
+   */
+  private static void write(ByteBuffer buffer, long[] array) {
+    int used = array.length;
+    while (used > 0 && array[used - 1] == 0) {
+      used--;
+    }
+    buffer.putInt(array.length);
+    buffer.putInt(used);
+    buffer.asLongBuffer().put(array, 0, used);
+    buffer.position(buffer.position() + used * 8);
+  }
+
+  /**
+   * Read an array, reusing the given array, if it has the same length.
+   */
+  private static long[] read(ByteBuffer buffer, long[] array) {
+    int length = buffer.getInt();
+    int used = buffer.getInt();
+    var result = array.length == length ? array : new long[length];
+    buffer.asLongBuffer().get(result, 0, used);
+    buffer.position(buffer.position() + used * 8);
+    Arrays.fill(result, used, length, 0);
+    return result;
+  }
+
+  /**
+   * Write an array: Its length, the number of used elements and the used elements, copied in bulk.
+   */
+  private static void write(ByteBuffer buffer, float[] array) {
+    int used = array.length;
+    while (used > 0 && Float.floatToRawIntBits(array[used - 1]) == 0) {
+      used--;
+    }
+    buffer.putInt(array.length);
+    buffer.putInt(used);
+    buffer.asFloatBuffer().put(array, 0, used);
+    buffer.position(buffer.position() + used * 4);
+  }
+
+  /**
+   * Read an array, reusing the given array, if it has the same length.
+   */
+  private static float[] read(ByteBuffer buffer, float[] array) {
+    int length = buffer.getInt();
+    int used = buffer.getInt();
+    var result = array.length == length ? array : new float[length];
+    buffer.asFloatBuffer().get(result, 0, used);
+    buffer.position(buffer.position() + used * 4);
+    Arrays.fill(result, used, length, 0);
+    return result;
+  }
+
+  /**
+   * Write an array: Its length, the number of used elements and the used elements, copied in bulk.
+   */
+  private static void write(ByteBuffer buffer, double[] array) {
+    int used = array.length;
+    while (used > 0 && Double.doubleToRawLongBits(array[used - 1]) == 0) {
+      used--;
+    }
+    buffer.putInt(array.length);
+    buffer.putInt(used);
+    buffer.asDoubleBuffer().put(array, 0, used);
+    buffer.position(buffer.position() + used * 8);
+  }
+
+  /**
+   * Read an array, reusing the given array, if it has the same length.
+   */
+  private static double[] read(ByteBuffer buffer, double[] array) {
+    int length = buffer.getInt();
+    int used = buffer.getInt();
+    var result = array.length == length ? array : new double[length];
+    buffer.asDoubleBuffer().get(result, 0, used);
+    buffer.position(buffer.position() + used * 8);
+    Arrays.fill(result, used, length, 0);
+    return result;
+  }
+
+  /**
+   * Bit for a fast field in the mask of its group, if it does not contain the default value.
+   */
+  private static int bit(Object value, int bit) {
+    return value != null ? 1 << bit : 0;
+  }
+
+  /**
+   * Bit for a fast field in the mask of its group, if it does not contain the default value.
+   */
+  private static int bit(int value, int bit) {
+    return value != 0 ? 1 << bit : 0;
+  }
+
+  /**
+   * Bit for a fast field in the mask of its group, if it does not contain the default value.
+   */
+  private static int bit(long value, int bit) {
+    return value != 0 ? 1 << bit : 0;
+  }
+
+  /**
+   * Bit for a fast field in the mask of its group, if it does not contain the default value.
+   */
+  private static int bit(float value, int bit) {
+    return Float.floatToRawIntBits(value) != 0 ? 1 << bit : 0;
+  }
+
+  /**
+   * Bit for a fast field in the mask of its group, if it does not contain the default value.
+   */
+  private static int bit(double value, int bit) {
+    return Double.doubleToRawLongBits(value) != 0 ? 1 << bit : 0;
+  }
+
+  /**
+   * Write a fast field, if its bit is set in the mask.
+   */
+  private static void putObject(ByteBuffer buffer, int mask, int bit, Object value, ObjectCodec codec) {
+    if ((mask & 1 << bit) != 0) {
+      codec.write(buffer, value);
+    }
+  }
+
+  /**
+   * Read a fast field, if its bit is set in the mask.
+   */
+  private static Object getObject(ByteBuffer buffer, int mask, int bit, ObjectCodec codec) {
+    return (mask & 1 << bit) != 0 ? codec.read(buffer) : null;
+  }
+
+  /**
+   * Write a fast field, if its bit is set in the mask.
+   */
+  private static void putInt(ByteBuffer buffer, int mask, int bit, int value) {
+    if ((mask & 1 << bit) != 0) {
+      buffer.putInt(value);
+    }
+  }
+
+  /**
+   * Read a fast field, if its bit is set in the mask.
+   */
+  private static int getInt(ByteBuffer buffer, int mask, int bit) {
+    return (mask & 1 << bit) != 0 ? buffer.getInt() : 0;
+  }
+
+  /**
+   * Write a fast field, if its bit is set in the mask.
+   */
+  private static void putLong(ByteBuffer buffer, int mask, int bit, long value) {
+    if ((mask & 1 << bit) != 0) {
+      buffer.putLong(value);
+    }
+  }
+
+  /**
+   * Read a fast field, if its bit is set in the mask.
+   */
+  private static long getLong(ByteBuffer buffer, int mask, int bit) {
+    return (mask & 1 << bit) != 0 ? buffer.getLong() : 0;
+  }
+
+  /**
+   * Write a fast field, if its bit is set in the mask.
+   */
+  private static void putFloat(ByteBuffer buffer, int mask, int bit, float value) {
+    if ((mask & 1 << bit) != 0) {
+      buffer.putFloat(value);
+    }
+  }
+
+  /**
+   * Read a fast field, if its bit is set in the mask.
+   */
+  private static float getFloat(ByteBuffer buffer, int mask, int bit) {
+    return (mask & 1 << bit) != 0 ? buffer.getFloat() : 0;
+  }
+
+  /**
+   * Write a fast field, if its bit is set in the mask.
+   */
+  private static void putDouble(ByteBuffer buffer, int mask, int bit, double value) {
+    if ((mask & 1 << bit) != 0) {
+      buffer.putDouble(value);
+    }
+  }
+
+  /**
+   * Read a fast field, if its bit is set in the mask.
+   */
+  private static double getDouble(ByteBuffer buffer, int mask, int bit) {
+    return (mask & 1 << bit) != 0 ? buffer.getDouble() : 0;
+  }
+
   //
   //
   //
@@ -227,6 +1121,10 @@ public final class StackFrame implements Serializable {
    * Reset frame to empty state.
    */
   public void reset() {
+    markDirty();
+    if (shared) {
+      unshare();
+    }
     owner = null;
     method = -1;
     methodHandle = null;
@@ -248,6 +1146,57 @@ public final class StackFrame implements Serializable {
     localDoublePtr = 0;
   }
 
+  /**
+   * Release the content of this frame to reduce its memory footprint, see {@link Stack#release()}.
+   * The frame cannot be used until its content gets restored by {@link #read(ByteBuffer, ObjectCodec)}.
+   */
+  void release() {
+    markDirty();
+    owner = null;
+    method = -1;
+    methodHandle = null;
+    shared = false;
+
+    stackObjectPtr = 0;
+    stackObjects = NO_OBJECTS;
+    stackIntPtr = 0;
+    stackInts = NO_INTS;
+    stackLongPtr = 0;
+    stackLongs = NO_LONGS;
+    stackFloatPtr = 0;
+    stackFloats = NO_FLOATS;
+    stackDoublePtr = 0;
+    stackDoubles = NO_DOUBLES;
+
+    localObjectPtr = 0;
+    localObjects = NO_OBJECTS;
+    localIntPtr = 0;
+    localInts = NO_INTS;
+    localLongPtr = 0;
+    localLongs = NO_LONGS;
+    localFloatPtr = 0;
+    localFloats = NO_FLOATS;
+    localDoublePtr = 0;
+    localDoubles = NO_DOUBLES;
+
+    stackObject0 = null;
+    stackObject1 = null;
+    stackObject2 = null;
+    stackObject3 = null;
+    stackObject4 = null;
+    stackObject5 = null;
+    stackObject6 = null;
+    stackObject7 = null;
+    localObject0 = null;
+    localObject1 = null;
+    localObject2 = null;
+    localObject3 = null;
+    localObject4 = null;
+    localObject5 = null;
+    localObject6 = null;
+    localObject7 = null;
+  }
+
   //
   // standard interface for capture / restore
   //
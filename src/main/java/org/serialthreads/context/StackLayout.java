@@ -0,0 +1,728 @@
+package org.serialthreads.context;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Layout of the stacks of serial threads: The method and the resume point of each method activation,
+ * described by the {@link ResumePoints} the transformer adds to the transformed methods.
+ * <p>
+ * The layout gets written to checkpoints, so that checkpoints of older builds can be restored ("warm restart"):
+ * The method indexes and the captured locals of the frames get remapped by the identity of their call sites
+ * and by the names of the locals. Restoring fails fast, if a call site or a captured local does not exist anymore,
+ * or if the frame usage of a method or the operand stack at a call site has changed.
+ * Locals are named by the local variable table, so classes should be compiled with debug information.
+ * <p>
+ * Only stacks of serial threads with resume points for all of their activations are described,
+ * e.g. transformed by {@link org.serialthreads.transformer.strategies.frequent4.FrequentInterruptsTransformer4}.
+ * Other stacks are restored as they are.
+ */
+final class StackLayout {
+  /**
+   * Names of the value types in the fields of {@link StackFrame}, in the order of {@link Site#locals()}.
+   */
+  private static final String[] TYPES = {"Object", "Int", "Long", "Float", "Double"};
+
+  /**
+   * Fast fields for the locals of {@link StackFrame} by type.
+   */
+  private static final Field[][] FAST_LOCALS = new Field[TYPES.length][StackFrame.FAST_FRAME_SIZE];
+
+  /**
+   * Arrays for the locals of {@link StackFrame} by type.
+   */
+  private static final Field[] LOCALS = new Field[TYPES.length];
+
+  static {
+    try {
+      for (int type = 0; type < TYPES.length; type++) {
+        for (int i = 0; i < StackFrame.FAST_FRAME_SIZE; i++) {
+          FAST_LOCALS[type][i] = StackFrame.class.getField("local" + TYPES[type] + i);
+        }
+        LOCALS[type] = StackFrame.class.getField("local" + TYPES[type] + "s");
+      }
+    } catch (NoSuchFieldException e) {
+      throw new IllegalStateException("Fields of frames not found", e);
+    }
+  }
+
+  /**
+   * Resume points of the declared methods of classes by method name and descriptor.
+   */
+  private static final ClassValue<Map<String, MethodLayout>> METHODS = new ClassValue<>() {
+    @Override
+    protected Map<String, MethodLayout> computeValue(Class<?> type) {
+      var result = new HashMap<String, MethodLayout>();
+      for (var method : type.getDeclaredMethods()) {
+        var resumePoints = method.getAnnotation(ResumePoints.class);
+        if (resumePoints != null) {
+          var layout = MethodLayout.of(type, method.getName(), resumePoints);
+          result.put(layout.method(), layout);
+        }
+      }
+      return result;
+    }
+  };
+
+  /**
+   * Methods referenced by the activations.
+   */
+  private final List<MethodLayout> methods = new ArrayList<>();
+
+  /**
+   * Ids of the methods.
+   */
+  private final Map<MethodLayout, Integer> ids = new HashMap<>();
+
+  /**
+   * Activations of the stacks by their index, from run() on: Pairs of method id and index of the resume point.
+   * Null for stacks which are not described.
+   */
+  private final int[][] stacks;
+
+  /**
+   * Stacks to write.
+   */
+  private final boolean[] written;
+
+  /**
+   * Remappings of the resume points by method id and index of the resume point, see {@link #resolve(List)}.
+   */
+  private Remapping[][] remappings;
+
+  /**
+   * Constructor.
+   *
+   * @param count number of stacks
+   */
+  StackLayout(int count) {
+    this.stacks = new int[count][];
+    this.written = new boolean[count];
+  }
+
+  /**
+   * Number of stacks.
+   */
+  int getStacks() {
+    return stacks.length;
+  }
+
+  /**
+   * Describe the stacks of serial threads.
+   * Must not be called while serial threads are executing.
+   *
+   * @param runnables runnables of the serial threads
+   * @param dirtyOnly describe only stacks with frames modified since they have been marked as clean?
+   */
+  static StackLayout describe(List<ITransformedRunnable> runnables, boolean dirtyOnly) {
+    var result = new StackLayout(runnables.size());
+    var known = new IdentityHashMap<MethodLayout, Integer>();
+    var classes = new HashMap<String, Class<?>>();
+    for (int i = 0; i < runnables.size(); i++) {
+      var runnable = runnables.get(i);
+      var stack = Stack.stack(runnable);
+      if (dirtyOnly && !isDirty(stack)) {
+        continue;
+      }
+
+      var activations = result.describe(runnable, stack, known, classes);
+      result.stacks[i] = activations;
+      result.written[i] = true;
+    }
+    return result;
+  }
+
+  /**
+   * Does the stack contain frames modified since they have been marked as clean?.
+   */
+  private static boolean isDirty(Stack stack) {
+    for (var frame = stack.first; frame != null; frame = frame.next) {
+      if (frame.modified) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Describe the activations of a stack by following the resume points from run() on.
+   *
+   * @param runnable runnable of the serial thread
+   * @param stack stack of the serial thread
+   * @param known ids of the already known methods
+   * @param classes already loaded classes by name
+   * @return activations, or null, if the stack cannot be described
+   */
+  private int[] describe(
+    ITransformedRunnable runnable, Stack stack, Map<MethodLayout, Integer> known, Map<String, Class<?>> classes) {
+
+    var frame = stack.first;
+    if (frame.method < 0) {
+      // Not started yet.
+      return new int[0];
+    }
+
+    var result = new int[16];
+    int count = 0;
+    var loader = runnable.getClass().getClassLoader();
+    for (var method = find(runnable.getClass(), "run()V"); method != null; ) {
+      var resumePoints = method.sites();
+      // The method index is not captured for methods with just one resume point.
+      int site = resumePoints.size() == 1 ? 0 : frame.method;
+      if (site < 0 || site >= resumePoints.size()) {
+        return null;
+      }
+
+      if (count == result.length) {
+        result = Arrays.copyOf(result, count * 2);
+      }
+      result[count++] = known.computeIfAbsent(method, this::id);
+      result[count++] = site;
+
+      var resumePoint = resumePoints.get(site);
+      if (resumePoint.interrupt()) {
+        return Arrays.copyOf(result, count);
+      }
+
+      method = callee(resumePoint, frame, loader, classes);
+      if (method != null && method.frame()) {
+        frame = frame.next;
+        if (frame == null) {
+          return null;
+        }
+      }
+    }
+
+    return null;
+  }
+
+  /**
+   * Method called at a resume point.
+   *
+   * @param resumePoint resume point
+   * @param frame frame in which the caller captured its state, contains the owner of the called method
+   * @param loader class loader of the serial thread
+   * @param classes already loaded classes by name
+   * @return called method, or null, if it has no resume points
+   */
+  private static MethodLayout callee(Site resumePoint, StackFrame frame, ClassLoader loader, Map<String, Class<?>> classes) {
+    int dot = resumePoint.call().indexOf('.');
+    Class<?> type;
+    if (resumePoint.virtual()) {
+      if (frame.owner == null) {
+        return null;
+      }
+      type = frame.owner.getClass();
+    } else {
+      var className = resumePoint.call().substring(0, dot).replace('/', '.');
+      type = classes.computeIfAbsent(className, name -> load(name, loader));
+      if (type == null) {
+        return null;
+      }
+    }
+
+    return find(type, resumePoint.call().substring(dot + 1));
+  }
+
+  /**
+   * Find the resume points of a method declared by the given type or its super types.
+   *
+   * @param type type
+   * @param method method name and descriptor
+   * @return resume points, or null, if none have been found
+   */
+  private static MethodLayout find(Class<?> type, String method) {
+    for (var c = type; c != null; c = c.getSuperclass()) {
+      var result = METHODS.get(c).get(method);
+      if (result != null) {
+        return result;
+      }
+    }
+    // Default methods.
+    for (var c = type; c != null; c = c.getSuperclass()) {
+      for (var i : c.getInterfaces()) {
+        var result = find(i, method);
+        if (result != null) {
+          return result;
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Load a class without initializing it.
+   *
+   * @return class, or null, if it does not exist
+   */
+  private static Class<?> load(String name, ClassLoader loader) {
+    try {
+      return Class.forName(name, false, loader);
+    } catch (ClassNotFoundException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Id of a method.
+   */
+  private int id(MethodLayout method) {
+    return ids.computeIfAbsent(method, m -> {
+      methods.add(m);
+      return methods.size() - 1;
+    });
+  }
+
+  /**
+   * Activations of a stack: Pairs of method name and index of the resume point, from run() on.
+   * For tests.
+   *
+   * @param stack index of the stack
+   * @return activations, or null, if the stack is not described
+   */
+  List<String> getActivations(int stack) {
+    var activations = stacks[stack];
+    if (activations == null) {
+      return null;
+    }
+
+    var result = new ArrayList<String>();
+    for (int i = 0; i < activations.length; i += 2) {
+      var method = methods.get(activations[i]);
+      result.add(method.method().substring(0, method.method().indexOf('(')) + ":" + activations[i + 1]);
+    }
+    return result;
+  }
+
+  /**
+   * Replace the resume points of a method by the given ones, e.g. to simulate another build.
+   * For tests.
+   *
+   * @param method method name and descriptor
+   * @param sites resume points
+   * @param siteMapping index of the old resume point by the index of the new one
+   */
+  void replace(String method, List<Site> sites, int[] siteMapping) {
+    for (int id = 0; id < methods.size(); id++) {
+      var old = methods.get(id);
+      if (old.method().equals(method)) {
+        var replaced = new MethodLayout(old.className(), old.method(), old.frame(), sites);
+        methods.set(id, replaced);
+        ids.remove(old);
+        ids.put(replaced, id);
+        for (var activations : stacks) {
+          for (int i = 0; activations != null && i < activations.length; i += 2) {
+            if (activations[i] == id) {
+              activations[i + 1] = siteMapping[activations[i + 1]];
+            }
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Resume points of a method, by name and descriptor.
+   * For tests.
+   */
+  List<Site> getSites(String method) {
+    for (var layout : methods) {
+      if (layout.method().equals(method)) {
+        return layout.sites();
+      }
+    }
+    return null;
+  }
+
+  //
+  // Encoding.
+  //
+
+  /**
+   * Write the layout to a buffer.
+   *
+   * @param buffer buffer to write to
+   * @exception java.nio.BufferOverflowException if the buffer is too small
+   */
+  void write(ByteBuffer buffer) {
+    buffer.putInt(methods.size());
+    for (var method : methods) {
+      method.write(buffer);
+    }
+
+    int count = 0;
+    for (boolean w : written) {
+      count += w ? 1 : 0;
+    }
+    buffer.putInt(count);
+    for (int i = 0; i < stacks.length; i++) {
+      if (written[i]) {
+        buffer.putInt(i);
+        var activations = stacks[i];
+        if (activations == null) {
+          buffer.putInt(-1);
+        } else {
+          buffer.putInt(activations.length / 2);
+          for (int activation : activations) {
+            buffer.putInt(activation);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Read a layout from a buffer, written by {@link #write(ByteBuffer)}.
+   * The layouts of the stacks contained in the buffer replace the current ones,
+   * so the layouts of deltas can be applied to the layout of their base.
+   *
+   * @param buffer buffer to read from
+   */
+  void read(ByteBuffer buffer) {
+    var methodIds = new int[buffer.getInt()];
+    for (int i = 0; i < methodIds.length; i++) {
+      methodIds[i] = id(MethodLayout.read(buffer));
+    }
+
+    for (int count = buffer.getInt(); count > 0; count--) {
+      int index = buffer.getInt();
+      int activations = buffer.getInt();
+      if (index < 0 || index >= stacks.length) {
+        throw new IllegalArgumentException("Invalid stack index " + index);
+      }
+      if (activations < 0) {
+        stacks[index] = null;
+        continue;
+      }
+      var stack = new int[2 * activations];
+      for (int i = 0; i < stack.length; i += 2) {
+        stack[i] = methodIds[buffer.getInt()];
+        stack[i + 1] = buffer.getInt();
+      }
+      stacks[index] = stack;
+    }
+  }
+
+  private static void putString(ByteBuffer buffer, String string) {
+    var bytes = string.getBytes(UTF_8);
+    buffer.putInt(bytes.length);
+    buffer.put(bytes);
+  }
+
+  private static String getString(ByteBuffer buffer) {
+    var bytes = new byte[buffer.getInt()];
+    buffer.get(bytes);
+    return new String(bytes, UTF_8);
+  }
+
+  //
+  // Remapping.
+  //
+
+  /**
+   * Resolve the resume points of all activations against the resume points of the current build.
+   * Does not modify any stack, so it can be called before the stacks get restored.
+   *
+   * @param runnables runnables of the serial threads, to load the classes of the current build with
+   * @exception IllegalArgumentException if a call site or a captured local of an activation does not exist anymore,
+   *   or if the frame usage of a method or the operand stack at a call site has changed
+   */
+  void resolve(List<ITransformedRunnable> runnables) {
+    assert runnables.size() == stacks.length : "Precondition: runnables.size() == stacks.length";
+
+    remappings = new Remapping[methods.size()][];
+    var classes = new HashMap<String, Class<?>>();
+    for (int i = 0; i < stacks.length; i++) {
+      var activations = stacks[i];
+      if (activations == null) {
+        continue;
+      }
+
+      var loader = runnables.get(i).getClass().getClassLoader();
+      for (int j = 0; j < activations.length; j += 2) {
+        var method = methods.get(activations[j]);
+        int site = activations[j + 1];
+        var sites = remappings[activations[j]];
+        if (sites == null) {
+          sites = remappings[activations[j]] = new Remapping[method.sites().size()];
+        }
+        if (site < 0 || site >= sites.length) {
+          throw new IllegalArgumentException("Invalid resume point " + site + " of " + method);
+        }
+        if (sites[site] == null) {
+          var type = classes.computeIfAbsent(method.className(), name -> load(name, loader));
+          var current = type != null ? METHODS.get(type).get(method.method()) : null;
+          sites[site] = remapping(method, site, current);
+        }
+      }
+    }
+  }
+
+  /**
+   * Remapping of a resume point of an older build to the current build.
+   *
+   * @param old method of the older build
+   * @param site index of the resume point
+   * @param current method of the current build, or null, if it does not exist
+   */
+  private static Remapping remapping(MethodLayout old, int site, MethodLayout current) {
+    if (current == null) {
+      throw new IllegalArgumentException("Method " + old + " does not exist anymore or is not transformed");
+    }
+    if (old.frame() != current.frame()) {
+      throw new IllegalArgumentException("Frame usage of method " + old + " changed");
+    }
+
+    var oldSite = old.sites().get(site);
+    for (int index = 0; index < current.sites().size(); index++) {
+      var newSite = current.sites().get(index);
+      if (!newSite.call().equals(oldSite.call()) || newSite.ordinal() != oldSite.ordinal()) {
+        continue;
+      }
+
+      if (!newSite.stack().equals(oldSite.stack())) {
+        throw new IllegalArgumentException("Operand stack at call site " + oldSite + " of " + old + " changed");
+      }
+      boolean sameLocals = newSite.locals().equals(oldSite.locals());
+      if (old.sites().size() > 1 && current.sites().size() > 1 && index == site && sameLocals) {
+        return Remapping.NONE;
+      }
+      if (sameLocals) {
+        // The method index is not captured for methods with just one resume point, so it may be stale.
+        return new Remapping(index, null, null);
+      }
+
+      var counts = new int[TYPES.length];
+      var moves = new int[TYPES.length][];
+      for (int type = 0; type < TYPES.length; type++) {
+        var oldNames = oldSite.locals().get(type);
+        var newNames = newSite.locals().get(type);
+        counts[type] = oldNames.size();
+        moves[type] = new int[newNames.size()];
+        for (int i = 0; i < newNames.size(); i++) {
+          moves[type][i] = oldNames.indexOf(newNames.get(i));
+          if (moves[type][i] < 0) {
+            throw new IllegalArgumentException(
+              "Local " + newNames.get(i) + " at call site " + oldSite + " of " + old + " has not been captured");
+          }
+        }
+      }
+      return new Remapping(index, counts, moves);
+    }
+
+    throw new IllegalArgumentException("Call site " + oldSite + " of " + old + " does not exist anymore");
+  }
+
+  /**
+   * Remap the frames of the stacks to the current build, see {@link #resolve(List)}.
+   * Must not be called while serial threads are executing.
+   *
+   * @param stacks stacks, in the state described by this layout
+   */
+  void remap(List<Stack> stacks) {
+    assert remappings != null : "Precondition: resolve() has been called";
+    assert stacks.size() == this.stacks.length : "Precondition: stacks.size() == this.stacks.length";
+
+    for (int i = 0; i < this.stacks.length; i++) {
+      var activations = this.stacks[i];
+      if (activations == null) {
+        continue;
+      }
+
+      var frame = stacks.get(i).first;
+      for (int j = 0; j < activations.length; j += 2) {
+        if (!methods.get(activations[j]).frame()) {
+          // Activations without an own frame capture nothing.
+          continue;
+        }
+        if (j > 0) {
+          frame = frame.next;
+        }
+        remappings[activations[j]][activations[j + 1]].apply(frame);
+      }
+    }
+  }
+
+  /**
+   * Value of a local of a frame.
+   */
+  private static Object getLocal(StackFrame frame, int type, int index) {
+    try {
+      if (index < StackFrame.FAST_FRAME_SIZE) {
+        return FAST_LOCALS[type][index].get(frame);
+      }
+      return Array.get(LOCALS[type].get(frame), index - StackFrame.FAST_FRAME_SIZE);
+    } catch (IllegalAccessException e) {
+      throw new IllegalStateException("Fields of frames not accessible", e);
+    }
+  }
+
+  /**
+   * Set the value of a local of a frame.
+   */
+  private static void setLocal(StackFrame frame, int type, int index, Object value) {
+    try {
+      if (index < StackFrame.FAST_FRAME_SIZE) {
+        FAST_LOCALS[type][index].set(frame, value);
+      } else {
+        Array.set(LOCALS[type].get(frame), index - StackFrame.FAST_FRAME_SIZE, value);
+      }
+    } catch (IllegalAccessException e) {
+      throw new IllegalStateException("Fields of frames not accessible", e);
+    }
+  }
+
+  /**
+   * Resume points of a method.
+   *
+   * @param className name of the declaring class
+   * @param method method name and descriptor
+   * @param frame does the method use an own frame?
+   * @param sites resume points ordered by their method index
+   */
+  record MethodLayout(String className, String method, boolean frame, List<Site> sites) {
+    /**
+     * Create from the annotation of a method.
+     */
+    private static MethodLayout of(Class<?> type, String name, ResumePoints resumePoints) {
+      var sites = new ArrayList<Site>();
+      for (var resumePoint : resumePoints.value()) {
+        sites.add(new Site(
+          resumePoint.call(), resumePoint.ordinal(), resumePoint.virtual(), resumePoint.interrupt(), resumePoint.stack(),
+          List.of(
+            List.of(resumePoint.objects()), List.of(resumePoint.ints()), List.of(resumePoint.longs()),
+            List.of(resumePoint.floats()), List.of(resumePoint.doubles()))));
+      }
+      return new MethodLayout(type.getName(), name + resumePoints.desc(), resumePoints.frame(), List.copyOf(sites));
+    }
+
+    private void write(ByteBuffer buffer) {
+      putString(buffer, className);
+      putString(buffer, method);
+      buffer.put((byte) (frame ? 1 : 0));
+      buffer.putInt(sites.size());
+      for (var site : sites) {
+        site.write(buffer);
+      }
+    }
+
+    private static MethodLayout read(ByteBuffer buffer) {
+      var className = getString(buffer);
+      var method = getString(buffer);
+      boolean frame = buffer.get() != 0;
+      var sites = new Site[buffer.getInt()];
+      for (int i = 0; i < sites.length; i++) {
+        sites[i] = Site.read(buffer);
+      }
+      return new MethodLayout(className, method, frame, List.of(sites));
+    }
+
+    @Override
+    public String toString() {
+      return className + "." + method;
+    }
+  }
+
+  /**
+   * Resume point, see {@link ResumePoint}.
+   *
+   * @param call called method
+   * @param ordinal number of previous calls of the same method
+   * @param virtual is the called method dispatched by the runtime class of its owner?
+   * @param interrupt is the called method an interrupt?
+   * @param stack types of the operand stack
+   * @param locals names of the captured locals by type
+   */
+  record Site(String call, int ordinal, boolean virtual, boolean interrupt, String stack, List<List<String>> locals) {
+    private void write(ByteBuffer buffer) {
+      putString(buffer, call);
+      buffer.putInt(ordinal);
+      buffer.put((byte) ((virtual ? 1 : 0) | (interrupt ? 2 : 0)));
+      putString(buffer, stack);
+      for (var names : locals) {
+        buffer.putInt(names.size());
+        for (var name : names) {
+          putString(buffer, name);
+        }
+      }
+    }
+
+    private static Site read(ByteBuffer buffer) {
+      var call = getString(buffer);
+      int ordinal = buffer.getInt();
+      int flags = buffer.get();
+      var stack = getString(buffer);
+      var locals = new ArrayList<List<String>>(TYPES.length);
+      for (int type = 0; type < TYPES.length; type++) {
+        var names = new String[buffer.getInt()];
+        for (int i = 0; i < names.length; i++) {
+          names[i] = getString(buffer);
+        }
+        locals.add(List.of(names));
+      }
+      return new Site(call, ordinal, (flags & 1) != 0, (flags & 2) != 0, stack, List.copyOf(locals));
+    }
+
+    @Override
+    public String toString() {
+      return call + "#" + ordinal;
+    }
+  }
+
+  /**
+   * Remapping of a resume point.
+   *
+   * @param method new method index, -1 if nothing needs to be changed
+   * @param counts number of the captured locals of the older build by type
+   * @param moves index of the local of the older build by type and index of the local of the current build,
+   *   null, if the locals need not to be changed
+   */
+  private record Remapping(int method, int[] counts, int[][] moves) {
+    /**
+     * Unchanged resume point.
+     */
+    private static final Remapping NONE = new Remapping(-1, null, null);
+
+    /**
+     * Remap a frame.
+     */
+    private void apply(StackFrame frame) {
+      if (method < 0) {
+        return;
+      }
+
+      frame.markDirty();
+      if (frame.shared) {
+        frame.unshare();
+      }
+      frame.method = method;
+      if (moves == null) {
+        return;
+      }
+      for (int type = 0; type < TYPES.length; type++) {
+        var values = new Object[counts[type]];
+        for (int i = 0; i < values.length; i++) {
+          values[i] = getLocal(frame, type, i);
+        }
+        for (int i = 0; i < moves[type].length; i++) {
+          setLocal(frame, type, i, values[moves[type][i]]);
+        }
+        if (type == 0) {
+          // Do not keep references, which are not needed anymore.
+          for (int i = moves[type].length; i < values.length; i++) {
+            setLocal(frame, type, i, null);
+          }
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,53 @@
+package org.serialthreads.context;
+
+import java.io.Serializable;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Flag requesting the serial threads of a {@link SerialThreadManager} to yield at their next safepoint.
+ * Shared by all serial threads of a {@link SerialThreadManager}, so that a request does not depend on
+ * which serial thread is executing at the moment.
+ */
+public final class YieldRequest implements Serializable {
+  /**
+   * Var handle for {@link #requested}.
+   */
+  private static final VarHandle REQUESTED;
+
+  static {
+    try {
+      REQUESTED = MethodHandles.lookup().findVarHandle(YieldRequest.class, "requested", boolean.class);
+    } catch (ReflectiveOperationException e) {
+      throw new ExceptionInInitializerError(e);
+    }
+  }
+
+  /**
+   * Has a yield been requested?.
+   * Set by any thread, reset by the serial thread which yields.
+   * Accessed opaquely only, so that polling it can not be hoisted out of loops,
+   * but costs just a plain load on most platforms.
+   */
+  private transient boolean requested;
+
+  /**
+   * Request a yield.
+   * May be called from any thread.
+   */
+  public void request() {
+    REQUESTED.setOpaque(this, true);
+  }
+
+  /**
+   * Poll for a yield request and consume it.
+   * Called by the transformed code at each safepoint, see {@link org.serialthreads.Interrupt#onYieldRequest()}.
+   * Each request is consumed by just one serial thread, even if several serial threads poll concurrently.
+   *
+   * @param request Yield request of the executing serial thread
+   * @return Should the executing serial thread yield?
+   */
+  public static boolean poll(YieldRequest request) {
+    return (boolean) REQUESTED.getOpaque(request) && REQUESTED.compareAndSet(request, true, false);
+  }
+}
@@ -0,0 +1,169 @@
+package org.serialthreads.simulation;
+
+import org.serialthreads.context.ITransformedRunnable;
+
+import java.util.Arrays;
+
+/**
+ * Binary min heap of pending events, ordered by time and by insertion order for events of the same time.
+ * Stores the events in parallel arrays, so no objects are allocated per event.
+ */
+final class EventHeap {
+  /**
+   * Times of the events.
+   */
+  private long[] times;
+
+  /**
+   * Insertion order of the events.
+   */
+  private long[] sequences;
+
+  /**
+   * Serial threads to resume.
+   */
+  private ITransformedRunnable[] runnables;
+
+  /**
+   * Number of events.
+   */
+  private int size;
+
+  /**
+   * Next insertion order.
+   */
+  private long sequence;
+
+  /**
+   * Constructor.
+   *
+   * @param capacity initial capacity
+   */
+  EventHeap(int capacity) {
+    assert capacity > 0 : "Precondition: capacity > 0";
+
+    times = new long[capacity];
+    sequences = new long[capacity];
+    runnables = new ITransformedRunnable[capacity];
+  }
+
+  /**
+   * Add an event.
+   *
+   * @param time time of the event
+   * @param runnable serial thread to resume
+   */
+  void add(long time, ITransformedRunnable runnable) {
+    if (size == times.length) {
+      int capacity = size * 2;
+      times = Arrays.copyOf(times, capacity);
+      sequences = Arrays.copyOf(sequences, capacity);
+      runnables = Arrays.copyOf(runnables, capacity);
+    }
+
+    // Sift up.
+    long seq = sequence++;
+    int i = size++;
+    while (i > 0) {
+      int parent = (i - 1) >>> 1;
+      if (!before(time, seq, parent)) {
+        break;
+      }
+      move(parent, i);
+      i = parent;
+    }
+    set(i, time, seq, runnable);
+  }
+
+  /**
+   * Time of the earliest event.
+   * The heap may not be empty.
+   */
+  long firstTime() {
+    assert size > 0 : "Precondition: size > 0";
+
+    return times[0];
+  }
+
+  /**
+   * Remove the earliest event.
+   * The heap may not be empty.
+   *
+   * @return serial thread to resume
+   */
+  ITransformedRunnable poll() {
+    assert size > 0 : "Precondition: size > 0";
+
+    var result = runnables[0];
+    int last = --size;
+    long time = times[last];
+    long seq = sequences[last];
+    var runnable = runnables[last];
+    runnables[last] = null;
+    if (last == 0) {
+      return result;
+    }
+
+    // Sift down.
+    int i = 0;
+    int half = last >>> 1;
+    while (i < half) {
+      int child = 2 * i + 1;
+      int right = child + 1;
+      if (right < last && before(times[right], sequences[right], child)) {
+        child = right;
+      }
+      if (!before(times[child], sequences[child], time, seq)) {
+        break;
+      }
+      move(child, i);
+      i = child;
+    }
+    set(i, time, seq, runnable);
+    return result;
+  }
+
+  /**
+   * Number of events.
+   */
+  int size() {
+    return size;
+  }
+
+  /**
+   * Is the heap empty?.
+   */
+  boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * Is the given event before the event at the given index?.
+   */
+  private boolean before(long time, long seq, int index) {
+    return before(time, seq, times[index], sequences[index]);
+  }
+
+  /**
+   * Is the first event before the second one?.
+   */
+  private static boolean before(long time1, long seq1, long time2, long seq2) {
+    return time1 < time2 || time1 == time2 && seq1 < seq2;
+  }
+
+  /**
+   * Move the event at index from to index to.
+   */
+  private void move(int from, int to) {
+    set(to, times[from], sequences[from], runnables[from]);
+  }
+
+  /**
+   * Set the event at the given index.
+   */
+  private void set(int index, long time, long seq, ITransformedRunnable runnable) {
+    times[index] = time;
+    sequences[index] = seq;
+    runnables[index] = runnable;
+  }
+}
@@ -0,0 +1,140 @@
+package org.serialthreads.simulation;
+
+import org.serialthreads.Interruptible;
+import org.serialthreads.context.IRunnable;
+import org.serialthreads.context.ITransformedRunnable;
+import org.serialthreads.context.IdleStrategy;
+import org.serialthreads.context.ParkingSerialThreadManager;
+import org.serialthreads.context.Stack;
+
+import static org.serialthreads.SerialThreads.park;
+
+/**
+ * Discrete-event simulation kernel with a virtual clock.
+ * Serial threads wait for points in virtual time via {@link #advance(long)} and {@link #waitUntil(long)}.
+ * Waiting serial threads are kept in a pending event heap and are resumed in timestamp order,
+ * serial threads waiting for the same time in the order they started waiting.
+ * When no serial thread is runnable at the current time, the clock jumps instantly to the next pending event.
+ * <p>
+ * Uses {@link #request()}: The time to wait for is passed in {@link Stack#returnLong},
+ * so other requests may not be used by the simulated serial threads.
+ */
+public class Simulation extends ParkingSerialThreadManager {
+  /**
+   * Pending events.
+   */
+  private final EventHeap events;
+
+  /**
+   * Current virtual time.
+   */
+  private long now;
+
+  /**
+   * Constructor using {@link IdleStrategy#PARK}.
+   *
+   * @param runnables runnables
+   */
+  public Simulation(IRunnable... runnables) {
+    this(IdleStrategy.PARK, runnables);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param idleStrategy strategy for waiting, if all serial threads are parked without pending events
+   * @param runnables runnables
+   */
+  public Simulation(IdleStrategy idleStrategy, IRunnable... runnables) {
+    super(idleStrategy, runnables);
+    this.events = new EventHeap(runnables.length);
+  }
+
+  /**
+   * The simulation executing the current serial thread.
+   *
+   * @exception IllegalStateException if not called from a serial thread executed by a simulation
+   */
+  public static Simulation currentSimulation() {
+    if (!(current() instanceof Simulation simulation)) {
+      throw new IllegalStateException("Not executed by a simulation");
+    }
+    return simulation;
+  }
+
+  /**
+   * Current virtual time of the simulation executing the current serial thread.
+   */
+  public static long now() {
+    return currentSimulation().now;
+  }
+
+  /**
+   * Wait for the given amount of virtual time.
+   *
+   * @param delta amount of virtual time, at least 0
+   */
+  @Interruptible
+  public static void advance(long delta) {
+    assert delta >= 0 : "Precondition: delta >= 0";
+
+    var simulation = currentSimulation();
+    var stack = simulation.request();
+    stack.returnLong = simulation.now + delta;
+    park();
+  }
+
+  /**
+   * Wait until the given point in virtual time.
+   *
+   * @param time point in virtual time, not before the current time
+   */
+  @Interruptible
+  public static void waitUntil(long time) {
+    var simulation = currentSimulation();
+    assert time >= simulation.now : "Precondition: time >= now";
+
+    var stack = simulation.request();
+    stack.returnLong = time;
+    park();
+  }
+
+  /**
+   * Current virtual time.
+   */
+  public long getTime() {
+    return now;
+  }
+
+  /**
+   * Number of pending events.
+   */
+  public int getPendingEvents() {
+    return events.size();
+  }
+
+  @Override
+  protected void onRequest(ITransformedRunnable runnable, Stack stack) {
+    events.add(stack.returnLong, runnable);
+  }
+
+  /**
+   * No serial thread is runnable at the current time:
+   * Jump to the time of the next pending event and resume all serial threads waiting for it.
+   * Without pending events, waits for serial threads being unparked otherwise.
+   */
+  @Override
+  protected void idle() {
+    if (events.isEmpty()) {
+      super.idle();
+      return;
+    }
+
+    var events = this.events;
+    long time = events.firstTime();
+    now = time;
+    do {
+      resume(events.poll());
+    } while (!events.isEmpty() && events.firstTime() == time);
+  }
+}
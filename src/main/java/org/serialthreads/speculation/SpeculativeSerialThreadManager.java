@@ -0,0 +1,251 @@
+package org.serialthreads.speculation;
+
+import org.serialthreads.Executor;
+import org.serialthreads.context.ChainedRunnable;
+import org.serialthreads.context.IRunnable;
+import org.serialthreads.context.SerialThreadManager;
+import org.serialthreads.context.Stack;
+import org.serialthreads.context.ThreadFinishedException;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Thread manager which executes the serial threads of each round speculatively in parallel,
+ * but keeps the semantics of executing them serially in their given order.
+ * <p>
+ * Shared state has to be accessed via {@link TxRef}s. During the parallel phase of a round,
+ * each serial thread reads the state committed by the previous round and buffers its writes.
+ * Afterwards, the transactions get validated and committed in the order of the serial threads.
+ * If a serial thread read a reference which has been written by a preceding serial thread in the same round,
+ * it gets rolled back to the snapshot of its {@link Stack} taken before the round and is executed again serially.
+ * Snapshots are forks of the stacks, so the arrays of the frames get copied just if they are written during the round.
+ * So the serial threads have to be transformed with {@link org.serialthreads.transformer.ITransformer#trackModifications()}.
+ * <p>
+ * All other state which is modified by the serial threads has to be kept in local variables,
+ * because only the stacks get rolled back. Other side effects may be executed twice.
+ * <p>
+ * Execution stops after the round in which any serial thread finished.
+ */
+public class SpeculativeSerialThreadManager extends SerialThreadManager {
+  /**
+   * Pool executing the partitions.
+   */
+  private final ForkJoinPool pool;
+
+  /**
+   * Serial threads.
+   */
+  private final ChainedRunnable[] chains;
+
+  /**
+   * Start index of each partition, followed by the number of serial threads.
+   */
+  private final int[] partitions;
+
+  /**
+   * Snapshots of the stacks of the serial threads before the current round.
+   */
+  private final Stack[] snapshots;
+
+  /**
+   * Transactions of the serial threads in the current round.
+   */
+  private final Transaction[] transactions;
+
+  /**
+   * Which serial threads finished speculatively in the current round?.
+   */
+  private final boolean[] finishedSpeculatively;
+
+  /**
+   * Did a serial thread finish?.
+   */
+  private boolean finished;
+
+  /**
+   * Number of serial threads, which have been rolled back due to conflicts.
+   */
+  private long conflicts;
+
+  /**
+   * Constructor using the common pool, with 4 partitions per core.
+   *
+   * @param runnables runnables
+   */
+  public SpeculativeSerialThreadManager(IRunnable... runnables) {
+    this(ForkJoinPool.commonPool(), 4 * ForkJoinPool.getCommonPoolParallelism(), runnables);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param pool pool executing the partitions
+   * @param partitions number of partitions
+   * @param runnables runnables
+   */
+  public SpeculativeSerialThreadManager(ForkJoinPool pool, int partitions, IRunnable... runnables) {
+    assert pool != null : "Precondition: pool != null";
+    assert partitions > 0 : "Precondition: partitions > 0";
+    assert runnables.length > 0 : "Precondition: runnables.length > 0";
+
+    this.pool = pool;
+    this.chains = ChainedRunnable.chain(runnables);
+    this.snapshots = new Stack[chains.length];
+    this.transactions = new Transaction[chains.length];
+    this.finishedSpeculatively = new boolean[chains.length];
+    for (int i = 0; i < chains.length; i++) {
+      manage(chains[i].runnable);
+      snapshots[i] = Stack.stack(chains[i].runnable).fork();
+      transactions[i] = new Transaction();
+    }
+
+    int count = Math.min(partitions, chains.length);
+    this.partitions = new int[count + 1];
+    for (int i = 0; i <= count; i++) {
+      this.partitions[i] = (int) ((long) chains.length * i / count);
+    }
+  }
+
+  /**
+   * Execute rounds until a serial thread finishes.
+   */
+  @Override
+  @Executor
+  public void execute() {
+    while (!finished) {
+      round();
+    }
+    close();
+  }
+
+  /**
+   * Execute the given number of rounds or until a serial thread finishes.
+   *
+   * @param interrupts number of rounds
+   */
+  @Override
+  @Executor
+  public void execute(int interrupts) {
+    assert interrupts > 0 : "Precondition: interrupts > 0";
+
+    for (int i = 0; i < interrupts && !finished; i++) {
+      round();
+    }
+    if (finished) {
+      close();
+    }
+  }
+
+  /**
+   * Execute one round: Execute all serial threads speculatively in parallel,
+   * then validate and commit them in order, re-executing conflicting ones serially.
+   */
+  @Executor
+  private void round() {
+    pool.invoke(new Round(0, partitions.length - 1));
+
+    for (int i = 0; i < chains.length; i++) {
+      var transaction = transactions[i];
+      if (transaction.validate()) {
+        transaction.commit();
+        finished |= finishedSpeculatively[i];
+        continue;
+      }
+
+      // Conflict: Roll back and execute again serially, accessing the shared state directly.
+      conflicts++;
+      transaction.rollback();
+      var runnable = chains[i].runnable;
+      var stack = Stack.stack(chains[i].runnable);
+      // Resets the frames the serial thread added speculatively too.
+      stack.forkFrom(snapshots[i]);
+      try {
+        runnable.run();
+      } catch (ThreadFinishedException e) {
+        // expected: execution finished normally due to the end of a serial thread
+        stack.reset();
+        finished = true;
+      }
+    }
+  }
+
+  /**
+   * Execute all serial threads of one partition speculatively.
+   *
+   * @param partition partition
+   */
+  @Executor
+  private void executePartition(int partition) {
+    var chains = this.chains;
+    int end = partitions[partition + 1];
+    for (int i = partitions[partition]; i < end; i++) {
+      var runnable = chains[i].runnable;
+      var stack = Stack.stack(chains[i].runnable);
+      snapshots[i].forkFrom(stack);
+      var transaction = transactions[i];
+      transaction.begin();
+      try {
+        runnable.run();
+        finishedSpeculatively[i] = false;
+      } catch (ThreadFinishedException e) {
+        // expected: execution finished normally due to the end of a serial thread
+        stack.reset();
+        finishedSpeculatively[i] = true;
+      } finally {
+        transaction.end();
+      }
+    }
+  }
+
+  /**
+   * Number of partitions.
+   */
+  public int getPartitions() {
+    return partitions.length - 1;
+  }
+
+  /**
+   * Number of serial threads, which have been rolled back due to conflicts.
+   */
+  public long getConflicts() {
+    return conflicts;
+  }
+
+  /**
+   * Task executing a range of partitions, split recursively.
+   */
+  private final class Round extends RecursiveAction {
+    /**
+     * First partition.
+     */
+    private final int from;
+
+    /**
+     * End of partitions (exclusive).
+     */
+    private final int to;
+
+    /**
+     * Constructor.
+     *
+     * @param from first partition
+     * @param to end of partitions (exclusive)
+     */
+    private Round(int from, int to) {
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from == 1) {
+        executePartition(from);
+        return;
+      }
+
+      int middle = (from + to) >>> 1;
+      invokeAll(new Round(from, middle), new Round(middle, to));
+    }
+  }
+}
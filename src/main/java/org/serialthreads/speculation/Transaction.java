@@ -0,0 +1,117 @@
+package org.serialthreads.speculation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+
+/**
+ * Transaction of a serial thread during one speculative round.
+ * Tracks the versions of all read references and buffers all writes until they get committed.
+ */
+final class Transaction {
+  /**
+   * Transaction of the serial thread currently executed speculatively by the current thread.
+   */
+  private static final ThreadLocal<Transaction> transactions = new ThreadLocal<>();
+
+  /**
+   * Read references.
+   */
+  private final ArrayList<TxRef<?>> reads = new ArrayList<>();
+
+  /**
+   * Versions of the read references.
+   */
+  private long[] versions = new long[16];
+
+  /**
+   * Buffered writes.
+   */
+  private final IdentityHashMap<TxRef<?>, Object> writes = new IdentityHashMap<>();
+
+  /**
+   * Transaction of the serial thread currently executed speculatively by the current thread, or null.
+   */
+  static Transaction current() {
+    return transactions.get();
+  }
+
+  /**
+   * Start speculative execution with this transaction on the current thread.
+   */
+  void begin() {
+    reads.clear();
+    writes.clear();
+    transactions.set(this);
+  }
+
+  /**
+   * End speculative execution on the current thread. The transaction stays pending until it gets validated.
+   */
+  void end() {
+    transactions.remove();
+  }
+
+  /**
+   * Read a reference.
+   *
+   * @param ref reference
+   * @return buffered write, if any, otherwise the committed value
+   */
+  @SuppressWarnings("unchecked")
+  <T> T read(TxRef<T> ref) {
+    if (writes.containsKey(ref)) {
+      return (T) writes.get(ref);
+    }
+
+    int index = reads.size();
+    if (index == versions.length) {
+      versions = Arrays.copyOf(versions, index * 2);
+    }
+    reads.add(ref);
+    versions[index] = ref.version();
+    return ref.committedValue();
+  }
+
+  /**
+   * Buffer a write to a reference.
+   *
+   * @param ref reference
+   * @param value value
+   */
+  <T> void write(TxRef<T> ref, T value) {
+    writes.put(ref, value);
+  }
+
+  /**
+   * Are all read references still unchanged?.
+   */
+  boolean validate() {
+    for (int i = 0; i < reads.size(); i++) {
+      if (reads.get(i).version() != versions[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Commit all buffered writes.
+   */
+  @SuppressWarnings("unchecked")
+  void commit() {
+    for (var write : writes.entrySet()) {
+      ((TxRef<Object>) write.getKey()).commit(write.getValue());
+    }
+    reads.clear();
+    writes.clear();
+  }
+
+  /**
+   * Discard the transaction.
+   */
+  void rollback() {
+    reads.clear();
+    writes.clear();
+  }
+}
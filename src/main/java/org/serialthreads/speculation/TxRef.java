@@ -0,0 +1,83 @@
+package org.serialthreads.speculation;
+
+/**
+ * Transactional reference to a value shared by serial threads of a {@link SpeculativeSerialThreadManager}.
+ * During speculative execution, reads get tracked and writes get buffered by the transaction of the serial thread.
+ * Outside of speculative execution, values are accessed directly.
+ *
+ * @param <T> type of the value
+ */
+public final class TxRef<T> {
+  /**
+   * Committed value.
+   */
+  private T value;
+
+  /**
+   * Version of the committed value. Incremented by each committed write.
+   */
+  private long version;
+
+  /**
+   * Constructor.
+   *
+   * @param value initial value
+   */
+  public TxRef(T value) {
+    this.value = value;
+  }
+
+  /**
+   * Get the value.
+   */
+  public T get() {
+    var transaction = Transaction.current();
+    if (transaction == null) {
+      return value;
+    }
+    return transaction.read(this);
+  }
+
+  /**
+   * Set the value.
+   *
+   * @param value value
+   */
+  public void set(T value) {
+    var transaction = Transaction.current();
+    if (transaction == null) {
+      commit(value);
+      return;
+    }
+    transaction.write(this, value);
+  }
+
+  /**
+   * Committed value.
+   */
+  T committedValue() {
+    return value;
+  }
+
+  /**
+   * Version of the committed value.
+   */
+  long version() {
+    return version;
+  }
+
+  /**
+   * Commit a value.
+   *
+   * @param value value
+   */
+  void commit(T value) {
+    this.value = value;
+    version++;
+  }
+
+  @Override
+  public String toString() {
+    return "TxRef " + value;
+  }
+}
@@ -9,6 +9,33 @@ public interface ITransformer {
    */
   void check();
 
+  /**
+   * Insert counted interrupts at the loop back edges of all interruptible methods.
+   * Bounds the time a serial thread runs without interrupt, even if its loops contain no interrupts.
+   * Has to be called before transforming any class.
+   *
+   * @param every interrupt every n-th loop iteration, see {@link org.serialthreads.Interrupt#every()}
+   */
+  void interruptBackEdges(int every);
+
+  /**
+   * Poll for yield requests at the start and at the loop back edges of all interruptible methods.
+   * Enables preemption of serial threads via {@link org.serialthreads.context.SerialThreadManager#requestYield()}.
+   * Has to be called before transforming any class.
+   */
+  void pollYieldRequests();
+
+  /**
+   * Track modifications of frames in the capture and restore code of all interruptible methods:
+   * Mark modified frames as dirty, see {@link org.serialthreads.context.StackFrame#markDirty()},
+   * and copy the arrays of frames shared with a fork before writing to them,
+   * see {@link org.serialthreads.context.StackFrame#unshare()}.
+   * Needed for {@link org.serialthreads.context.IncrementalCheckpoints}, {@link org.serialthreads.context.RoundHistory}
+   * and {@link org.serialthreads.context.Stack#fork() forks}.
+   * Has to be called before transforming any class.
+   */
+  void trackModifications();
+
   /**
    * Execute byte code transformation on a class.
    *
@@ -12,6 +12,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.util.Deque;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.Map;
 import java.util.TreeMap;
@@ -38,11 +39,19 @@ public abstract class AbstractClassInfoCache implements IClassInfoCache {
    */
   private final Map<String, ClassInfo> classes;
 
+  /**
+   * Interrupt intervals overriding the ones of the annotations.
+   * Key is the method name, see {@link org.serialthreads.transformer.code.MethodCode#methodName(String, String, String)},
+   * prefixed by the name of the calling method for overrides of just the calls within that method.
+   */
+  private final Map<String, Integer> interruptEvery;
+
   /**
    * Constructor.
    */
   public AbstractClassInfoCache() {
     this.classes = new TreeMap<>();
+    this.interruptEvery = new HashMap<>();
   }
 
   @Override
@@ -136,6 +145,10 @@ public abstract class AbstractClassInfoCache implements IClassInfoCache {
       // Arrays are not interruptible
       return false;
     }
+    if (owner.equals("java/lang/invoke/MethodHandle") || owner.equals("java/lang/invoke/VarHandle")) {
+      // Signature polymorphic methods are not interruptible and are not declared with the descriptor of the call
+      return false;
+    }
 
     var classInfo = getClassInfo(owner);
     boolean result = classInfo.isInterruptible(name + desc) || classInfo.isInterrupt(name + desc);
@@ -149,6 +162,11 @@ public abstract class AbstractClassInfoCache implements IClassInfoCache {
     return isInterrupt(method.owner, method.name, method.desc);
   }
 
+  @Override
+  public boolean isInterrupt(ClassNode owner, MethodNode method) {
+    return isInterrupt(owner.name, method.name, method.desc);
+  }
+
   public boolean isInterrupt(String owner, String name, String desc) {
     if (owner.startsWith("[")) {
       // Arrays are not interruptible
@@ -162,6 +180,64 @@ public abstract class AbstractClassInfoCache implements IClassInfoCache {
     return result;
   }
 
+  @Override
+  public int getInterruptEvery(MethodInsnNode method) {
+    assert isInterrupt(method) : "Precondition: isInterrupt(method)";
+
+    var every = interruptEvery.get(methodName(method));
+    if (every != null) {
+      return every;
+    }
+
+    return getClassInfo(method.owner).getInterruptEvery(method.name + method.desc);
+  }
+
+  @Override
+  public void setInterruptEvery(String owner, String name, String desc, int every) {
+    assert owner != null : "Precondition: owner != null";
+    assert name != null : "Precondition: name != null";
+    assert desc != null : "Precondition: desc != null";
+
+    if (every < 1) {
+      throw new IllegalArgumentException("Interrupts have to interrupt at least every call");
+    }
+
+    interruptEvery.put(methodName(owner, name, desc), every);
+  }
+
+  @Override
+  public int getInterruptEvery(String caller, MethodInsnNode method) {
+    assert caller != null : "Precondition: caller != null";
+
+    var every = interruptEvery.get(caller + " " + methodName(method));
+    if (every != null) {
+      return every;
+    }
+
+    return getInterruptEvery(method);
+  }
+
+  @Override
+  public void setInterruptEvery(String caller, String owner, String name, String desc, int every) {
+    assert caller != null : "Precondition: caller != null";
+    assert owner != null : "Precondition: owner != null";
+    assert name != null : "Precondition: name != null";
+    assert desc != null : "Precondition: desc != null";
+
+    if (every < 1) {
+      throw new IllegalArgumentException("Interrupts have to interrupt at least every call");
+    }
+
+    interruptEvery.put(caller + " " + methodName(owner, name, desc), every);
+  }
+
+  @Override
+  public boolean isInterruptOnYieldRequest(MethodInsnNode method) {
+    assert isInterrupt(method) : "Precondition: isInterrupt(method)";
+
+    return getClassInfo(method.owner).isInterruptOnYieldRequest(method.name + method.desc);
+  }
+
   @Override
   public boolean isInterruptible(Type type) {
     return getClassInfo(type.getInternalName()).isInterruptible();
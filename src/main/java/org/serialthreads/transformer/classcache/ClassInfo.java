@@ -60,6 +60,16 @@ public class ClassInfo {
           "Interrupt method " + method.getId() + " in class " + className +
             " must not have parameters nor a return value");
       }
+      if (method.hasAnnotation(TYPE_INTERRUPT) && getInterruptEvery(method) < 1) {
+        throw new NotTransformableException(
+          "Interrupt method " + method.getId() + " in class " + className +
+            " must interrupt at least every call");
+      }
+      if (method.hasAnnotation(TYPE_INTERRUPT) && isInterruptOnYieldRequest(method) && getInterruptEvery(method) != 1) {
+        throw new NotTransformableException(
+          "Interrupt method " + method.getId() + " in class " + className +
+            " must not be counted and on yield request at the same time");
+      }
     }
   }
 
@@ -120,6 +130,43 @@ public class ClassInfo {
     return getMethodInfo(methodId).hasAnnotation(TYPE_INTERRUPT);
   }
 
+  /**
+   * Interval of the given interrupt method of this class, see {@link Interrupt#every()}.
+   *
+   * @param methodId method ID = name + desc
+   */
+  public int getInterruptEvery(String methodId) {
+    return getInterruptEvery(getMethodInfo(methodId));
+  }
+
+  /**
+   * Interval of the given interrupt method, see {@link Interrupt#every()}.
+   *
+   * @param method interrupt method
+   */
+  private static int getInterruptEvery(MethodInfo method) {
+    return method.getAnnotationValue(TYPE_INTERRUPT, "every", 1);
+  }
+
+  /**
+   * Does the given interrupt method of this class interrupt only on yield requests?,
+   * see {@link Interrupt#onYieldRequest()}.
+   *
+   * @param methodId method ID = name + desc
+   */
+  public boolean isInterruptOnYieldRequest(String methodId) {
+    return isInterruptOnYieldRequest(getMethodInfo(methodId));
+  }
+
+  /**
+   * Does the given interrupt method interrupt only on yield requests?, see {@link Interrupt#onYieldRequest()}.
+   *
+   * @param method interrupt method
+   */
+  private static boolean isInterruptOnYieldRequest(MethodInfo method) {
+    return method.getAnnotationValue(TYPE_INTERRUPT, "onYieldRequest", false);
+  }
+
   /**
    * Info for the given method.
    *
@@ -82,6 +82,60 @@ public interface IClassInfoCache {
    */
   boolean isInterrupt(MethodInsnNode method);
 
+  /**
+   * Check if the method is an interrupt.
+   *
+   * @param owner owner of method
+   * @param method method
+   */
+  boolean isInterrupt(ClassNode owner, MethodNode method);
+
+  /**
+   * Interval of the called interrupt, see {@link org.serialthreads.Interrupt#every()}.
+   *
+   * @param method method call of an interrupt
+   */
+  int getInterruptEvery(MethodInsnNode method);
+
+  /**
+   * Override the interval of an interrupt at transform time.
+   * Applies to all calls referencing the interrupt method via the given owner.
+   *
+   * @param owner owner of interrupt method, as referenced by the calls
+   * @param name name of interrupt method
+   * @param desc descriptor of interrupt method
+   * @param every interrupt every n-th call
+   */
+  void setInterruptEvery(String owner, String name, String desc, int every);
+
+  /**
+   * Interval of the interrupt called by the given method, see {@link org.serialthreads.Interrupt#every()}.
+   * Overrides for the calling method take precedence over the ones for all calls.
+   *
+   * @param caller calling method, see {@link org.serialthreads.transformer.code.MethodCode#methodName(String, String, String)}
+   * @param method method call of an interrupt
+   */
+  int getInterruptEvery(String caller, MethodInsnNode method);
+
+  /**
+   * Override the interval of an interrupt at transform time just for the calls within the given method.
+   *
+   * @param caller calling method, see {@link org.serialthreads.transformer.code.MethodCode#methodName(String, String, String)}
+   * @param owner owner of interrupt method, as referenced by the calls
+   * @param name name of interrupt method
+   * @param desc descriptor of interrupt method
+   * @param every interrupt every n-th call
+   */
+  void setInterruptEvery(String caller, String owner, String name, String desc, int every);
+
+  /**
+   * Does the called interrupt interrupt only on yield requests?,
+   * see {@link org.serialthreads.Interrupt#onYieldRequest()}.
+   *
+   * @param method method call of an interrupt
+   */
+  boolean isInterruptOnYieldRequest(MethodInsnNode method);
+
   /**
    * Has the class at least one interruptible method?.
    */
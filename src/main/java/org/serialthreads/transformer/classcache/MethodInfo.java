@@ -2,8 +2,11 @@ package org.serialthreads.transformer.classcache;
 
 import org.objectweb.asm.Type;
 
+import java.util.Map;
 import java.util.Set;
 
+import static java.util.Collections.emptyMap;
+
 /**
  * Method info for methods of scanned classes.
  */
@@ -12,6 +15,7 @@ public class MethodInfo {
   private final String name;
   private final String desc;
   private final Set<Type> annotations;
+  private final Map<Type, Map<String, Object>> annotationValues;
 
   /**
    * Constructor.
@@ -21,14 +25,28 @@ public class MethodInfo {
    * @param annotations descriptors of the type of the annotations of this method
    */
   public MethodInfo(String name, String desc, Set<Type> annotations) {
+    this(name, desc, annotations, emptyMap());
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param name name of method
+   * @param desc method descriptor
+   * @param annotations descriptors of the type of the annotations of this method
+   * @param annotationValues explicitly set values of the annotations of this method
+   */
+  public MethodInfo(String name, String desc, Set<Type> annotations, Map<Type, Map<String, Object>> annotationValues) {
     assert name != null : "Precondition: name != null";
     assert desc != null : "Precondition: desc != null";
     assert annotations != null : "Precondition: annotations != null";
+    assert annotationValues != null : "Precondition: annotationValues != null";
 
     this.id = name + desc;
     this.name = name;
     this.desc = desc;
     this.annotations = Set.copyOf(annotations);
+    this.annotationValues = Map.copyOf(annotationValues);
   }
 
   /**
@@ -70,11 +88,32 @@ public class MethodInfo {
     return annotations.contains(annotationType);
   }
 
+  /**
+   * Value of an annotation of this method.
+   *
+   * @param annotationType type of annotation
+   * @param name name of the annotation value
+   * @param defaultValue value to use if the annotation value has not been set explicitly
+   */
+  @SuppressWarnings("unchecked")
+  public <T> T getAnnotationValue(Type annotationType, String name, T defaultValue) {
+    assert annotationType != null : "Precondition: annotationType != null";
+    assert name != null : "Precondition: name != null";
+
+    var values = annotationValues.get(annotationType);
+    if (values == null) {
+      return defaultValue;
+    }
+
+    var value = (T) values.get(name);
+    return value != null ? value : defaultValue;
+  }
+
   /**
    * Copy this method info.
    */
   public MethodInfo copy() {
-    var result = new MethodInfo(name, desc, annotations);
+    var result = new MethodInfo(name, desc, annotations, annotationValues);
 
     assert result != null : "Postcondition: result != null";
     assert getId().equals(result.getId()) : "Postcondition: getID().equals(result.getID())";
@@ -1,5 +1,6 @@
 package org.serialthreads.transformer.classcache;
 
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
@@ -17,6 +18,7 @@ public class MethodInfoVisitor extends MethodVisitor {
   private final String methodName;
   private final String methodDesc;
   private final Set<Type> methodAnnotations = new HashSet<>();
+  private final Map<Type, Map<String, Object>> methodAnnotationValues = new HashMap<>();
 
   private final Map<String, MethodInfo> methods;
 
@@ -30,13 +32,21 @@ public class MethodInfoVisitor extends MethodVisitor {
 
   @Override
   public AnnotationVisitor visitAnnotation(String desc, boolean visible) {
-    methodAnnotations.add(Type.getType(desc));
-    return null;
+    var annotationType = Type.getType(desc);
+    methodAnnotations.add(annotationType);
+
+    // Collect simple values, e.g. Interrupt.every().
+    return new AnnotationVisitor(ASM9) {
+      @Override
+      public void visit(String name, Object value) {
+        methodAnnotationValues.computeIfAbsent(annotationType, type -> new HashMap<>()).put(name, value);
+      }
+    };
   }
 
   @Override
   public void visitEnd() {
-    var method = new MethodInfo(methodName, methodDesc, methodAnnotations);
+    var method = new MethodInfo(methodName, methodDesc, methodAnnotations, methodAnnotationValues);
     methods.put(method.getId(), method);
   }
 }
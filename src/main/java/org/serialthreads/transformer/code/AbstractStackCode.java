@@ -6,6 +6,7 @@ import org.serialthreads.context.SerialThread;
 import org.serialthreads.context.SerialThreadManager;
 import org.serialthreads.context.Stack;
 import org.serialthreads.context.StackFrame;
+import org.serialthreads.context.YieldRequest;
 
 import static org.objectweb.asm.Opcodes.*;
 import static org.serialthreads.transformer.code.IntValueCode.push;
@@ -23,6 +24,23 @@ public abstract class AbstractStackCode implements ThreadCode {
   private static final String FRAME = "$$frame$$";
   private static final String FRAME_IMPL_NAME = Type.getType(StackFrame.class).getInternalName();
   private static final String FRAME_IMPL_DESC = Type.getType(StackFrame.class).getDescriptor();
+  private static final String YIELD_REQUEST_NAME = Type.getType(YieldRequest.class).getInternalName();
+  private static final String YIELD_REQUEST_DESC = Type.getType(YieldRequest.class).getDescriptor();
+
+  /**
+   * Track modifications of frames by the capture and restore code?.
+   */
+  protected final boolean trackModifications;
+
+  /**
+   * Constructor.
+   *
+   * @param trackModifications track modifications of frames by the capture and restore code?,
+   *   see {@link org.serialthreads.transformer.ITransformer#trackModifications()}
+   */
+  protected AbstractStackCode(boolean trackModifications) {
+    this.trackModifications = trackModifications;
+  }
 
   //
   // Constructors.
@@ -168,6 +186,34 @@ public abstract class AbstractStackCode implements ThreadCode {
     return instructions;
   }
 
+  @Override
+  public InsnList markDirty(int localFrame) {
+    var instructions = new InsnList();
+    // if (!frame.dirty) frame.markDirty();
+    var dirty = new LabelNode();
+    instructions.add(new VarInsnNode(ALOAD, localFrame));
+    instructions.add(new FieldInsnNode(GETFIELD, FRAME_IMPL_NAME, "dirty", "Z"));
+    instructions.add(new JumpInsnNode(IFNE, dirty));
+    instructions.add(new VarInsnNode(ALOAD, localFrame));
+    instructions.add(new MethodInsnNode(INVOKEVIRTUAL, FRAME_IMPL_NAME, "markDirty", "()V", false));
+    instructions.add(dirty);
+    return instructions;
+  }
+
+  @Override
+  public InsnList unshareFrame(int localFrame) {
+    var instructions = new InsnList();
+    // if (frame.shared) frame.unshare();
+    var unshared = new LabelNode();
+    instructions.add(new VarInsnNode(ALOAD, localFrame));
+    instructions.add(new FieldInsnNode(GETFIELD, FRAME_IMPL_NAME, "shared", "Z"));
+    instructions.add(new JumpInsnNode(IFEQ, unshared));
+    instructions.add(new VarInsnNode(ALOAD, localFrame));
+    instructions.add(new MethodInsnNode(INVOKEVIRTUAL, FRAME_IMPL_NAME, "unshare", "()V", false));
+    instructions.add(unshared);
+    return instructions;
+  }
+
   @Override
   public InsnList setMethod(int localFrame, int position) {
     var instructions = new InsnList();
@@ -188,6 +234,56 @@ public abstract class AbstractStackCode implements ThreadCode {
     return instructions;
   }
 
+  @Override
+  public InsnList countdown(int localFrame, int site, int every, LabelNode skip) {
+    var instructions = new InsnList();
+    // int[] countdowns = frame.stack.countdowns;
+    instructions.add(new VarInsnNode(ALOAD, localFrame));
+    instructions.add(new FieldInsnNode(GETFIELD, FRAME_IMPL_NAME, "stack", THREAD_IMPL_DESC));
+    instructions.add(new FieldInsnNode(GETFIELD, THREAD_IMPL_NAME, "countdowns", "[I"));
+    // if (countdowns.length <= site) countdowns = frame.stack.countdowns(site + 1);
+    var grown = new LabelNode();
+    instructions.add(new InsnNode(DUP));
+    instructions.add(new InsnNode(ARRAYLENGTH));
+    instructions.add(push(site));
+    instructions.add(new JumpInsnNode(IF_ICMPGT, grown));
+    instructions.add(new InsnNode(POP));
+    instructions.add(new VarInsnNode(ALOAD, localFrame));
+    instructions.add(new FieldInsnNode(GETFIELD, FRAME_IMPL_NAME, "stack", THREAD_IMPL_DESC));
+    instructions.add(push(site + 1));
+    instructions.add(new MethodInsnNode(INVOKEVIRTUAL, THREAD_IMPL_NAME, "countdowns", "(I)[I", false));
+    instructions.add(grown);
+    // if (--countdowns[site] > 0) goto skip;
+    instructions.add(push(site));
+    instructions.add(new InsnNode(DUP2));
+    instructions.add(new InsnNode(IALOAD));
+    instructions.add(new InsnNode(ICONST_1));
+    instructions.add(new InsnNode(ISUB));
+    instructions.add(new InsnNode(DUP_X2));
+    instructions.add(new InsnNode(IASTORE));
+    instructions.add(new JumpInsnNode(IFGT, skip));
+    // frame.stack.countdowns[site] = every;
+    instructions.add(new VarInsnNode(ALOAD, localFrame));
+    instructions.add(new FieldInsnNode(GETFIELD, FRAME_IMPL_NAME, "stack", THREAD_IMPL_DESC));
+    instructions.add(new FieldInsnNode(GETFIELD, THREAD_IMPL_NAME, "countdowns", "[I"));
+    instructions.add(push(site));
+    instructions.add(push(every));
+    instructions.add(new InsnNode(IASTORE));
+    return instructions;
+  }
+
+  @Override
+  public InsnList pollYieldRequest(int localFrame, LabelNode skip) {
+    var instructions = new InsnList();
+    // if (!YieldRequest.poll(frame.stack.yieldRequest)) goto skip;
+    instructions.add(new VarInsnNode(ALOAD, localFrame));
+    instructions.add(new FieldInsnNode(GETFIELD, FRAME_IMPL_NAME, "stack", THREAD_IMPL_DESC));
+    instructions.add(new FieldInsnNode(GETFIELD, THREAD_IMPL_NAME, "yieldRequest", YIELD_REQUEST_DESC));
+    instructions.add(new MethodInsnNode(INVOKESTATIC, YIELD_REQUEST_NAME, "poll", "(" + YIELD_REQUEST_DESC + ")Z", false));
+    instructions.add(new JumpInsnNode(IFEQ, skip));
+    return instructions;
+  }
+
   //
   // Restore.
   //
@@ -362,12 +362,14 @@ public abstract class AbstractValueCode implements IValueCode {
     }
     // stack = thread.returnXXX;
     instructions.add(new FieldInsnNode(GETFIELD, THREAD_IMPL_NAME, "return" + methodName, baseType.getDescriptor()));
-    instructions.add(cast());
     if (clear) {
+      // Put thread before return value onto stack.
+      instructions.add(new InsnNode(SWAP));
       // thread.returnXXX = null;
       instructions.add(pushNull());
-      instructions.add(new FieldInsnNode(PUTFIELD, THREAD_IMPL_NAME, "return" + methodName, type.getDescriptor()));
+      instructions.add(new FieldInsnNode(PUTFIELD, THREAD_IMPL_NAME, "return" + methodName, baseType.getDescriptor()));
     }
+    instructions.add(cast());
     return instructions;
   }
 
@@ -1,5 +1,6 @@
 package org.serialthreads.transformer.code;
 
+import org.objectweb.asm.AnnotationVisitor;
 import org.objectweb.asm.tree.InsnList;
 import org.objectweb.asm.tree.MethodInsnNode;
 import org.objectweb.asm.tree.analysis.BasicValue;
@@ -14,6 +15,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
+import java.util.function.IntFunction;
 
 import static org.serialthreads.transformer.code.MethodCode.isNotStatic;
 import static org.serialthreads.transformer.code.MethodCode.isNotVoid;
@@ -30,6 +32,26 @@ public class CompactingStackCode extends AbstractStackCode {
     */
    private static final Logger logger = LoggerFactory.getLogger(CompactingStackCode.class);
 
+   /**
+    * Types of stack values in {@link org.serialthreads.context.ResumePoint#stack()} by value code.
+    */
+   private static final String TYPES = "LIJFD";
+
+   /**
+    * Attributes of {@link org.serialthreads.context.ResumePoint} for the names of locals by value code.
+    */
+   private static final String[] LOCALS = {"objects", "ints", "longs", "floats", "doubles"};
+
+   /**
+    * Constructor.
+    *
+    * @param trackModifications track modifications of frames by the capture and restore code?,
+    *   see {@link org.serialthreads.transformer.ITransformer#trackModifications()}
+    */
+   public CompactingStackCode(boolean trackModifications) {
+      super(trackModifications);
+   }
+
    @Override
    public InsnList captureFrame(MethodInsnNode methodCall, MetaInfo metaInfo, int localFrame) {
       var instructions = new InsnList();
@@ -38,8 +60,14 @@ public class CompactingStackCode extends AbstractStackCode {
          return instructions;
       }
 
+      if (trackModifications) {
+         // if (frame.shared) frame.unshare();
+         instructions.add(unshareFrame(localFrame));
+         // if (!frame.dirty) frame.markDirty();
+         instructions.add(markDirty(localFrame));
+      }
+
       var frameAfter = metaInfo.frameAfter;
-      final boolean isMethodNotStatic = isNotStatic(methodCall);
       final boolean isCallNotVoid = isNotVoid(methodCall);
 
       // save stack
@@ -58,22 +86,7 @@ public class CompactingStackCode extends AbstractStackCode {
 
       // save locals separated by type
       for (var code : ValueCodeFactory.CODES) {
-         var pushLocals = new ArrayList<Integer>(frameAfter.getLocals());
-
-         // Do not store local 0 for non-static methods, because it always contains "this".
-         for (int local = isMethodNotStatic ? 1 : 0, end = frameAfter.getLocals() - 1; local <= end; local++) {
-            var value = frameAfter.getLocal(local);
-            if (code.isResponsibleFor(value.getType())) {
-               var extendedValue = (ExtendedValue) value;
-               int lowestLocal = frameAfter.getLowestNeededLocal(extendedValue);
-               if (local == lowestLocal) {
-                  // Only store value, if it is not stored in a lower needed local.
-                  pushLocals.add(local);
-               }
-            }
-         }
-
-         var iter = pushLocals.iterator();
+         var iter = capturedLocals(code, methodCall, frameAfter).iterator();
          for (int i = 0; iter.hasNext(); i++) {
             int local = iter.next();
             var localCode = code(frameAfter.getLocal(local));
@@ -84,6 +97,81 @@ public class CompactingStackCode extends AbstractStackCode {
       return instructions;
    }
 
+   /**
+    * Locals of the given type to capture, in the order they get stored in the frame.
+    *
+    * @param code
+    *           Value code of the type.
+    * @param methodCall
+    *           method call to process.
+    * @param frameAfter
+    *           Frame after the method call.
+    * @return Numbers of the locals.
+    */
+   private List<Integer> capturedLocals(IValueCode code, MethodInsnNode methodCall, ExtendedFrame frameAfter) {
+      var result = new ArrayList<Integer>(frameAfter.getLocals());
+
+      // Do not store local 0 for non-static methods, because it always contains "this".
+      for (int local = isNotStatic(methodCall) ? 1 : 0, end = frameAfter.getLocals() - 1; local <= end; local++) {
+         var value = frameAfter.getLocal(local);
+         if (code.isResponsibleFor(value.getType())) {
+            var extendedValue = (ExtendedValue) value;
+            int lowestLocal = frameAfter.getLowestNeededLocal(extendedValue);
+            if (local == lowestLocal) {
+               // Only store value, if it is not stored in a lower needed local.
+               result.add(local);
+            }
+         }
+      }
+
+      return result;
+   }
+
+   @Override
+   public void describeFrame(MethodInsnNode methodCall, MetaInfo metaInfo, IntFunction<String> names, AnnotationVisitor resumePoint) {
+      if (metaInfo.tags.contains(TAG_TAIL_CALL)) {
+         // Nothing gets captured.
+         return;
+      }
+
+      var frameAfter = metaInfo.frameAfter;
+      final boolean isCallNotVoid = isNotVoid(methodCall);
+
+      // types of the stack, the topmost element is a dummy return value, if the called method returns one
+      var stack = new StringBuilder();
+      for (int i = 0, end = isCallNotVoid ? frameAfter.getStackSize() - 1 : frameAfter.getStackSize(); i < end; i++) {
+         var value = (ExtendedValue) frameAfter.getStack(i);
+         var type = TYPES.charAt(codeIndex(value));
+         if (value.isConstant() || frameAfter.getLowestNeededLocal(value) >= 0) {
+            // not captured, see captureFrame()
+            type = Character.toLowerCase(type);
+         }
+         stack.append(type);
+      }
+      resumePoint.visit("stack", stack.toString());
+
+      // names of the locals separated by type
+      for (int i = 0; i < ValueCodeFactory.CODES.length; i++) {
+         var locals = resumePoint.visitArray(LOCALS[i]);
+         for (int local : capturedLocals(ValueCodeFactory.CODES[i], methodCall, frameAfter)) {
+            locals.visit(null, names.apply(local));
+         }
+         locals.visitEnd();
+      }
+   }
+
+   /**
+    * Index of the value code responsible for the given value in {@link ValueCodeFactory#CODES}.
+    */
+   private int codeIndex(BasicValue value) {
+      for (int i = 0; i < ValueCodeFactory.CODES.length; i++) {
+         if (ValueCodeFactory.CODES[i].isResponsibleFor(value.getType())) {
+            return i;
+         }
+      }
+      throw new IllegalArgumentException("Wrong type " + value.getType());
+   }
+
    @Override
    public InsnList restoreFrame(MethodInsnNode methodCall, MetaInfo metaInfo, int localFrame) {
       var instructions = new InsnList();
@@ -92,6 +180,13 @@ public class CompactingStackCode extends AbstractStackCode {
          return instructions;
       }
 
+      if (trackModifications) {
+         // if (frame.shared) frame.unshare();
+         instructions.add(unshareFrame(localFrame));
+         // if (!frame.dirty) frame.markDirty(), because references get cleared.
+         instructions.add(markDirty(localFrame));
+      }
+
       var frameAfter = metaInfo.frameAfter;
       final boolean isMethodNotStatic = isNotStatic(methodCall);
       final boolean isCallNotVoid = isNotVoid(methodCall);
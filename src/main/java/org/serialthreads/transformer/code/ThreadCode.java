@@ -1,12 +1,16 @@
 package org.serialthreads.transformer.code;
 
+import org.objectweb.asm.AnnotationVisitor;
 import org.objectweb.asm.tree.FieldNode;
 import org.objectweb.asm.tree.InsnList;
+import org.objectweb.asm.tree.LabelNode;
 import org.objectweb.asm.tree.MethodInsnNode;
 import org.serialthreads.context.Stack;
 import org.serialthreads.context.StackFrame;
 import org.serialthreads.transformer.strategies.MetaInfo;
 
+import java.util.function.IntFunction;
+
 /**
  * Capture and restore of stack frames.
  */
@@ -134,6 +138,29 @@ public interface ThreadCode {
    */
   InsnList setOwner(int localPreviousFrame);
 
+  /**
+   * Mark a frame as modified via {@link StackFrame#dirty}, e.g. for incremental checkpoints.
+   * Has to be executed before modifying the frame, see {@link StackFrame#markDirty()}.
+   * Used only if modifications are tracked, see {@link org.serialthreads.transformer.ITransformer#trackModifications()}.
+   * "if (!frame.dirty) frame.markDirty();".
+   *
+   * @param localFrame
+   *           Number of local containing the frame.
+   * @return Generated code.
+   */
+  InsnList markDirty(int localFrame);
+
+  /**
+   * Copy the arrays of a frame, if they are {@link StackFrame#shared} with a fork.
+   * Has to be called before writing to the arrays of the frame.
+   * Used only if modifications are tracked, see {@link org.serialthreads.transformer.ITransformer#trackModifications()}.
+   *
+   * @param localFrame
+   *           Number of local containing the frame.
+   * @return Generated code.
+   */
+  InsnList unshareFrame(int localFrame);
+
   /**
    * Save current frameAfter after returning from a method call.
    *
@@ -147,6 +174,21 @@ public interface ThreadCode {
    */
   InsnList captureFrame(MethodInsnNode methodCall, MetaInfo metaInfo, int localFrame);
 
+  /**
+   * Describe the layout of the frame captured by {@link #captureFrame(MethodInsnNode, MetaInfo, int)},
+   * see {@link org.serialthreads.context.ResumePoint}.
+   *
+   * @param methodCall
+   *           method call to process.
+   * @param metaInfo
+   *           Meta information about method call.
+   * @param names
+   *           Names of locals.
+   * @param resumePoint
+   *           Visitor for the resume point annotation.
+   */
+  void describeFrame(MethodInsnNode methodCall, MetaInfo metaInfo, IntFunction<String> names, AnnotationVisitor resumePoint);
+
   /**
    * Set position as {@link StackFrame#method}.
    *
@@ -170,6 +212,35 @@ public interface ThreadCode {
    */
   InsnList setSerializing(int localThread, boolean serializing);
 
+  /**
+   * Countdown of the call site's entry of {@link Stack#countdowns} for counted interrupts.
+   * "if (--frame.stack.countdowns[site] > 0) goto skip; frame.stack.countdowns[site] = every;".
+   * The countdowns get grown via {@link Stack#countdowns(int)}, if they do not contain the call site yet.
+   *
+   * @param localFrame
+   *           Number of local containing the current frame.
+   * @param site
+   *           Number of the call site.
+   * @param every
+   *           Interval of the interrupt.
+   * @param skip
+   *           Label to jump to, if the interrupt should be skipped.
+   * @return Generated code.
+   */
+  InsnList countdown(int localFrame, int site, int every, LabelNode skip);
+
+  /**
+   * Poll {@link Stack#yieldRequest} for interrupts on yield requests.
+   * "if (!YieldRequest.poll(frame.stack.yieldRequest)) goto skip;".
+   *
+   * @param localFrame
+   *           Number of local containing the current frame.
+   * @param skip
+   *           Label to jump to, if the interrupt should be skipped.
+   * @return Generated code.
+   */
+  InsnList pollYieldRequest(int localFrame, LabelNode skip);
+
   //
   // Restore.
   //
@@ -4,18 +4,20 @@ import org.objectweb.asm.Type;
 import org.objectweb.asm.tree.*;
 import org.objectweb.asm.tree.analysis.AnalyzerException;
 import org.objectweb.asm.tree.analysis.Frame;
+import org.serialthreads.context.ResumePoint;
+import org.serialthreads.context.ResumePoints;
 import org.serialthreads.context.Stack;
 import org.serialthreads.context.StackFrame;
 import org.serialthreads.context.ThreadFinishedException;
 import org.serialthreads.transformer.analyzer.ExtendedAnalyzer;
 import org.serialthreads.transformer.analyzer.ExtendedFrame;
 import org.serialthreads.transformer.classcache.IClassInfoCache;
-import org.serialthreads.transformer.code.CompactingStackCode;
 import org.serialthreads.transformer.code.ThreadCode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 
 import static org.objectweb.asm.Opcodes.*;
@@ -40,12 +42,20 @@ public abstract class AbstractMethodTransformer {
 
   protected static final String THREAD_IMPL_DESC = Type.getType(Stack.class).getDescriptor();
   protected static final String FRAME_IMPL_DESC = Type.getType(StackFrame.class).getDescriptor();
+  private static final String RESUME_POINTS_DESC = Type.getType(ResumePoints.class).getDescriptor();
+  private static final String RESUME_POINT_DESC = Type.getType(ResumePoint.class).getDescriptor();
+
+  /**
+   * Number of call sites of counted interrupts, see {@link Stack#countdowns}.
+   * Global, so that each call site gets its own countdown.
+   */
+  private static final AtomicInteger COUNTDOWN_SITES = new AtomicInteger();
 
   protected final ClassNode clazz;
   protected final MethodNode method;
   protected final IClassInfoCache classInfoCache;
 
-  protected final ThreadCode threadCode = new CompactingStackCode();
+  protected final ThreadCode threadCode;
 
   /**
    * Meta information about instructions.
@@ -63,11 +73,13 @@ public abstract class AbstractMethodTransformer {
    * @param clazz class to transform
    * @param method method to transform
    * @param classInfoCache class cache to use
+   * @param threadCode code generation for the stacks of the serial threads
    */
-  protected AbstractMethodTransformer(ClassNode clazz, MethodNode method, IClassInfoCache classInfoCache) {
+  protected AbstractMethodTransformer(ClassNode clazz, MethodNode method, IClassInfoCache classInfoCache, ThreadCode threadCode) {
     this.clazz = clazz;
     this.method = method;
     this.classInfoCache = classInfoCache;
+    this.threadCode = threadCode;
   }
 
   /**
@@ -138,6 +150,64 @@ public abstract class AbstractMethodTransformer {
     metaInfos.get(instruction).tags.add(tag);
   }
 
+  /**
+   * Annotate the method with its resume points, see {@link ResumePoints}.
+   * Has to be called after {@link #analyze()}, before the method calls get changed.
+   *
+   * @param frame Does the method use an own frame?.
+   */
+  protected void describeResumePoints(boolean frame) {
+    if (interruptibleMethodCalls.isEmpty()) {
+      return;
+    }
+
+    var resumePoints = new AnnotationNode(RESUME_POINTS_DESC);
+    resumePoints.visit("desc", method.desc);
+    resumePoints.visit("frame", frame);
+    var values = resumePoints.visitArray("value");
+    var ordinals = new HashMap<String, Integer>();
+    for (var methodCall : interruptibleMethodCalls) {
+      var metaInfo = metaInfos.get(methodCall);
+      var call = methodCall.owner + "." + methodCall.name + methodCall.desc;
+      var resumePoint = values.visitAnnotation(null, RESUME_POINT_DESC);
+      resumePoint.visit("call", call);
+      resumePoint.visit("ordinal", ordinals.merge(call, 1, Integer::sum) - 1);
+      resumePoint.visit("virtual", methodCall.getOpcode() == INVOKEVIRTUAL || methodCall.getOpcode() == INVOKEINTERFACE);
+      resumePoint.visit("interrupt", metaInfo.tags.contains(TAG_INTERRUPT));
+      threadCode.describeFrame(methodCall, metaInfo, local -> localName(local, methodCall), resumePoint);
+      resumePoint.visitEnd();
+    }
+    values.visitEnd();
+    resumePoints.visitEnd();
+
+    if (method.visibleAnnotations == null) {
+      method.visibleAnnotations = new ArrayList<>();
+    }
+    method.visibleAnnotations.add(resumePoints);
+  }
+
+  /**
+   * Name of a local at an instruction.
+   *
+   * @param local Number of local.
+   * @param instruction Instruction.
+   * @return Name from the local variable table, or "#" and the number of the local, if there is none.
+   */
+  private String localName(int local, AbstractInsnNode instruction) {
+    if (method.localVariables != null) {
+      var instructions = method.instructions;
+      int index = instructions.indexOf(instruction);
+      for (var variable : method.localVariables) {
+        if (variable.index == local &&
+          instructions.indexOf(variable.start) <= index && index < instructions.indexOf(variable.end)) {
+          return variable.name;
+        }
+      }
+    }
+
+    return "#" + local;
+  }
+
   /**
    * Create restore code dispatcher.
    *
@@ -221,6 +291,41 @@ public abstract class AbstractMethodTransformer {
    */
   protected abstract LabelNode createCaptureAndRestoreCode(MethodInsnNode methodCall, MetaInfo metaInfo, int position, boolean suppressOwner, boolean restore);
 
+  /**
+   * Countdown check for counted interrupts, see {@link org.serialthreads.Interrupt#every()},
+   * or poll for interrupts on yield requests, see {@link org.serialthreads.Interrupt#onYieldRequest()}.
+   * Jumps to skip, if the interrupt should not interrupt this time.
+   * Generates no code for interrupts which interrupt at every call.
+   *
+   * @param methodCall Interrupt method call.
+   * @param localFrame Number of local containing the current frame.
+   * @param skip Label after the capture and restore code of the interrupt.
+   * @return Generated code.
+   */
+  protected InsnList countInterrupt(MethodInsnNode methodCall, int localFrame, LabelNode skip) {
+    var instructions = new InsnList();
+
+    boolean onYieldRequest = classInfoCache.isInterruptOnYieldRequest(methodCall);
+    int every = classInfoCache.getInterruptEvery(methodName(clazz, method), methodCall);
+    if (!onYieldRequest && every <= 1) {
+      return instructions;
+    }
+
+    if (isNotStatic(methodCall)) {
+      // Remove owner of the dummy call, so that skipping and restoring leads to the same stack.
+      instructions.add(new InsnNode(POP));
+    }
+    if (onYieldRequest) {
+      logger.debug("        Polling interrupt: on yield request");
+      instructions.add(threadCode.pollYieldRequest(localFrame, skip));
+    } else {
+      logger.debug("        Counting interrupt: every {} calls", every);
+      instructions.add(threadCode.countdown(localFrame, COUNTDOWN_SITES.getAndIncrement(), every, skip));
+    }
+
+    return instructions;
+  }
+
   /**
    * Replace all return instructions by ThreadFinishedException.
    * Needed for transformation of IRunnable.run().
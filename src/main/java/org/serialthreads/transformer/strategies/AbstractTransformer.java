@@ -8,6 +8,7 @@ import org.objectweb.asm.tree.analysis.AnalyzerException;
 import org.objectweb.asm.tree.analysis.BasicValue;
 import org.objectweb.asm.tree.analysis.Frame;
 import org.objectweb.asm.util.CheckClassAdapter;
+import org.serialthreads.SerialThreads;
 import org.serialthreads.context.IRunnable;
 import org.serialthreads.context.ITransformedRunnable;
 import org.serialthreads.context.SerialThread;
@@ -23,7 +24,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 import static java.util.Collections.singletonList;
 import static org.objectweb.asm.ClassReader.SKIP_FRAMES;
@@ -31,6 +34,7 @@ import static org.objectweb.asm.ClassWriter.COMPUTE_FRAMES;
 import static org.objectweb.asm.Opcodes.ACC_PUBLIC;
 import static org.objectweb.asm.Opcodes.ALOAD;
 import static org.objectweb.asm.Opcodes.ARETURN;
+import static org.objectweb.asm.Opcodes.INVOKESTATIC;
 import static org.objectweb.asm.Opcodes.RETURN;
 import static org.serialthreads.transformer.code.MethodCode.isRun;
 import static org.serialthreads.transformer.code.MethodCode.methodName;
@@ -49,17 +53,28 @@ public abstract class AbstractTransformer implements ITransformer {
   protected static final String IRUNNABLE_NAME = Type.getType(IRunnable.class).getInternalName();
   protected static final String ITRANSFORMED_RUNNABLE_NAME = Type.getType(ITransformedRunnable.class).getInternalName();
   protected static final String THREAD_DESC = Type.getType(SerialThread.class).getDescriptor();
+  protected static final String SERIAL_THREADS_NAME = Type.getType(SerialThreads.class).getInternalName();
 
   protected final int defaultFrameSize;
   protected final IClassInfoCache classInfoCache;
 
-  protected final ThreadCode threadCode = new CompactingStackCode();
+  protected ThreadCode threadCode = new CompactingStackCode(false);
 
   /**
    * Check generated byte code?.
    */
   private boolean check = logger.isDebugEnabled();
 
+  /**
+   * Insert interrupts at loop back edges?.
+   */
+  private boolean interruptBackEdges = false;
+
+  /**
+   * Poll for yield requests at method starts and loop back edges?.
+   */
+  private boolean pollYieldRequests = false;
+
   /**
    * Constructor.
    *
@@ -79,6 +94,50 @@ public abstract class AbstractTransformer implements ITransformer {
     this.check = true;
   }
 
+  @Override
+  public void interruptBackEdges(int every) {
+    setInterruptEvery(SERIAL_THREADS_NAME, "backEdge", "()V", every);
+    this.interruptBackEdges = true;
+  }
+
+  @Override
+  public void pollYieldRequests() {
+    this.pollYieldRequests = true;
+  }
+
+  @Override
+  public void trackModifications() {
+    this.threadCode = new CompactingStackCode(true);
+  }
+
+  /**
+   * Override the interval of an interrupt, see {@link org.serialthreads.Interrupt#every()}.
+   * Has to be called before transforming any class calling the interrupt.
+   *
+   * @param owner owner of interrupt method, as referenced by the calls
+   * @param name name of interrupt method
+   * @param desc descriptor of interrupt method
+   * @param every interrupt every n-th call
+   */
+  public void setInterruptEvery(String owner, String name, String desc, int every) {
+    classInfoCache.setInterruptEvery(owner, name, desc, every);
+  }
+
+  /**
+   * Override the interval of an interrupt just for the calls within the given method,
+   * see {@link org.serialthreads.Interrupt#every()}.
+   * Has to be called before transforming the class of the calling method.
+   *
+   * @param caller calling method, see {@link org.serialthreads.transformer.code.MethodCode#methodName(String, String, String)}
+   * @param owner owner of interrupt method, as referenced by the calls
+   * @param name name of interrupt method
+   * @param desc descriptor of interrupt method
+   * @param every interrupt every n-th call
+   */
+  public void setInterruptEvery(String caller, String owner, String name, String desc, int every) {
+    classInfoCache.setInterruptEvery(caller, owner, name, desc, every);
+  }
+
   @Override
   public byte[] transform(byte[] byteCode) throws NotTransformableException {
     // Read class.
@@ -226,6 +285,13 @@ public abstract class AbstractTransformer implements ITransformer {
       return null;
     }
 
+    if (interruptBackEdges && !classInfoCache.isInterrupt(clazz, method)) {
+      insertBackEdgeInterrupts(method);
+    }
+    if (pollYieldRequests && !classInfoCache.isInterrupt(clazz, method)) {
+      insertSafepoints(method);
+    }
+
     try {
       if (logger.isDebugEnabled()) {
         logDebug(method);
@@ -247,6 +313,64 @@ public abstract class AbstractTransformer implements ITransformer {
    */
   protected abstract List<MethodNode> doTransformMethod(ClassNode clazz, MethodNode method) throws AnalyzerException;
 
+  /**
+   * Insert a call of {@link SerialThreads#backEdge()} at the start of each loop.
+   * The loop start is the target of a backward jump, so the interrupt is executed at each iteration.
+   * The calls will be transformed like any other interrupt afterward.
+   *
+   * @param method method node to transform
+   */
+  private void insertBackEdgeInterrupts(MethodNode method) {
+    var instructions = method.instructions;
+
+    var loopStarts = loopStarts(method);
+    for (var loopStart : loopStarts) {
+      instructions.insert(loopStart, new MethodInsnNode(INVOKESTATIC, SERIAL_THREADS_NAME, "backEdge", "()V", false));
+    }
+
+    logger.debug("    Inserted {} interrupts at loop back edges", loopStarts.size());
+  }
+
+  /**
+   * Insert a call of {@link SerialThreads#safepoint()} at the start of the method and at the start of each loop.
+   * The calls will be transformed like any other interrupt afterward.
+   *
+   * @param method method node to transform
+   */
+  private void insertSafepoints(MethodNode method) {
+    var instructions = method.instructions;
+    if (instructions.size() == 0) {
+      // abstract method
+      return;
+    }
+
+    var loopStarts = loopStarts(method);
+    for (var loopStart : loopStarts) {
+      instructions.insert(loopStart, new MethodInsnNode(INVOKESTATIC, SERIAL_THREADS_NAME, "safepoint", "()V", false));
+    }
+    instructions.insert(new MethodInsnNode(INVOKESTATIC, SERIAL_THREADS_NAME, "safepoint", "()V", false));
+
+    logger.debug("    Inserted {} safepoints", loopStarts.size() + 1);
+  }
+
+  /**
+   * Start of all loops of a method: The targets of backward jumps.
+   *
+   * @param method method node
+   */
+  private static Set<LabelNode> loopStarts(MethodNode method) {
+    var instructions = method.instructions;
+
+    var loopStarts = new LinkedHashSet<LabelNode>();
+    for (var instruction : instructions) {
+      if (instruction instanceof JumpInsnNode jump && instructions.indexOf(jump.label) < instructions.indexOf(jump)) {
+        loopStarts.add(jump.label);
+      }
+    }
+
+    return loopStarts;
+  }
+
   /**
    * Are there no interruptible method calls?.
    *
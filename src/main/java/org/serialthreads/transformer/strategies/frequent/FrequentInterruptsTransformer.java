@@ -45,7 +45,7 @@ public class FrequentInterruptsTransformer extends AbstractTransformer {
     if (isRun(clazz, method, classInfoCache)) {
       // take special care of run method
       return singletonList(
-        new RunMethodTransformer(clazz, method, classInfoCache).transform());
+        new RunMethodTransformer(clazz, method, classInfoCache, threadCode).transform());
     }
 
     if (hasNoInterruptibleMethodCalls(method)) {
@@ -55,7 +55,7 @@ public class FrequentInterruptsTransformer extends AbstractTransformer {
 
     // "standard" transformation of interruptible methods
     return singletonList(
-      new OriginalMethodTransformer(clazz, method, classInfoCache).transform());
+      new OriginalMethodTransformer(clazz, method, classInfoCache, threadCode).transform());
   }
 
   @Override
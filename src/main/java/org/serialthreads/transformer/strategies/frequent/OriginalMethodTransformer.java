@@ -3,6 +3,7 @@ package org.serialthreads.transformer.strategies.frequent;
 import org.objectweb.asm.tree.*;
 import org.objectweb.asm.tree.analysis.AnalyzerException;
 import org.serialthreads.transformer.classcache.IClassInfoCache;
+import org.serialthreads.transformer.code.ThreadCode;
 
 import java.util.List;
 
@@ -22,9 +23,10 @@ class OriginalMethodTransformer extends MethodTransformer {
    * @param clazz class to transform
    * @param method method to transform
    * @param classInfoCache class cache to use
+   * @param threadCode code generation for the stacks of the serial threads
    */
-  protected OriginalMethodTransformer(ClassNode clazz, MethodNode method, IClassInfoCache classInfoCache) {
-    super(clazz, method, classInfoCache);
+  protected OriginalMethodTransformer(ClassNode clazz, MethodNode method, IClassInfoCache classInfoCache, ThreadCode threadCode) {
+    super(clazz, method, classInfoCache, threadCode);
   }
 
   /**
@@ -4,6 +4,7 @@ import org.objectweb.asm.tree.*;
 import org.objectweb.asm.tree.analysis.AnalyzerException;
 import org.serialthreads.transformer.classcache.IClassInfoCache;
 import org.serialthreads.transformer.code.MethodNodeCopier;
+import org.serialthreads.transformer.code.ThreadCode;
 
 import java.util.List;
 
@@ -34,10 +35,11 @@ class CopyMethodTransformer extends MethodTransformer {
    * @param clazz class to transform
    * @param method method to transform
    * @param classInfoCache class cache to use
+   * @param threadCode code generation for the stacks of the serial threads
    */
-  protected CopyMethodTransformer(ClassNode clazz, MethodNode method, IClassInfoCache classInfoCache) {
+  protected CopyMethodTransformer(ClassNode clazz, MethodNode method, IClassInfoCache classInfoCache, ThreadCode threadCode) {
     // create copy of method with shortened signature
-    super(clazz, MethodNodeCopier.copy(method), classInfoCache);
+    super(clazz, MethodNodeCopier.copy(method), classInfoCache, threadCode);
 
     this.paramThread = param(0);
     this.paramPreviousFrame = param(1);
@@ -42,13 +42,13 @@ public class FrequentInterruptsTransformer2 extends AbstractTransformer {
     if (isAbstract(method)) {
       // change signature of abstract methods
       return singletonList(
-        new CopyMethodTransformer(clazz, method, classInfoCache).transform());
+        new CopyMethodTransformer(clazz, method, classInfoCache, threadCode).transform());
     }
 
     if (isRun(clazz, method, classInfoCache)) {
       // take special care of run method
       return singletonList(
-        new RunMethodTransformer(clazz, method, classInfoCache).transform());
+        new RunMethodTransformer(clazz, method, classInfoCache, threadCode).transform());
     }
 
     if (hasNoInterruptibleMethodCalls(method)) {
@@ -58,8 +58,8 @@ public class FrequentInterruptsTransformer2 extends AbstractTransformer {
 
     // "standard" transformation of interruptible methods
     return asList(
-      new CopyMethodTransformer(clazz, method, classInfoCache).transform(),
-      new OriginalMethodTransformer(clazz, method, classInfoCache).transform());
+      new CopyMethodTransformer(clazz, method, classInfoCache, threadCode).transform(),
+      new OriginalMethodTransformer(clazz, method, classInfoCache, threadCode).transform());
   }
 
   @Override
@@ -4,6 +4,7 @@ import org.objectweb.asm.tree.*;
 import org.objectweb.asm.tree.analysis.AnalyzerException;
 import org.serialthreads.transformer.classcache.IClassInfoCache;
 import org.serialthreads.transformer.code.MethodNodeCopier;
+import org.serialthreads.transformer.code.ThreadCode;
 
 import java.util.List;
 
@@ -34,9 +35,10 @@ class CopyMethodTransformer extends MethodTransformer {
    * @param clazz class to transform
    * @param method method to transform
    * @param classInfoCache class cache to use
+   * @param threadCode code generation for the stacks of the serial threads
    */
-  protected CopyMethodTransformer(ClassNode clazz, MethodNode method, IClassInfoCache classInfoCache) {
-    super(clazz, MethodNodeCopier.copy(method), classInfoCache);
+  protected CopyMethodTransformer(ClassNode clazz, MethodNode method, IClassInfoCache classInfoCache, ThreadCode threadCode) {
+    super(clazz, MethodNodeCopier.copy(method), classInfoCache, threadCode);
 
     this.paramThread = param(0);
     this.paramPreviousFrame = param(1);
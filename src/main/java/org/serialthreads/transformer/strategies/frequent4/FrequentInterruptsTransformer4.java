@@ -48,13 +48,13 @@ public class FrequentInterruptsTransformer4 extends AbstractTransformer {
       // Copied method not needed, because it will be called never.
       // Original method needs to be transformed though, because callers don't known about this fact.
       return singletonList(
-        new OriginalMethodTransformer(clazz, method, classInfoCache).transform());
+        new OriginalMethodTransformer(clazz, method, classInfoCache, threadCode).transform());
     }
 
     // "Standard" transformation of interruptible methods.
     return asList(
-      new CopyMethodTransformer(clazz, method, classInfoCache).transform(),
-      new OriginalMethodTransformer(clazz, method, classInfoCache).transform());
+      new CopyMethodTransformer(clazz, method, classInfoCache, threadCode).transform(),
+      new OriginalMethodTransformer(clazz, method, classInfoCache, threadCode).transform());
   }
 
   /**
@@ -72,7 +72,7 @@ public class FrequentInterruptsTransformer4 extends AbstractTransformer {
 
     // Take special care of run method.
     return singletonList(
-      new RunMethodTransformer(clazz, method, classInfoCache).transform());
+      new RunMethodTransformer(clazz, method, classInfoCache, threadCode).transform());
   }
 
   @Override
@@ -4,6 +4,7 @@ import org.objectweb.asm.Type;
 import org.objectweb.asm.tree.*;
 import org.serialthreads.transformer.classcache.IClassInfoCache;
 import org.serialthreads.transformer.code.LocalVariablesShifter;
+import org.serialthreads.transformer.code.ThreadCode;
 import org.serialthreads.transformer.strategies.AbstractMethodTransformer;
 import org.serialthreads.transformer.strategies.MetaInfo;
 
@@ -36,9 +37,10 @@ abstract class MethodTransformer extends AbstractMethodTransformer {
    * @param clazz class to transform
    * @param method method to transform
    * @param classInfoCache class cache to use
+   * @param threadCode code generation for the stacks of the serial threads
    */
-  protected MethodTransformer(ClassNode clazz, MethodNode method, IClassInfoCache classInfoCache) {
-    super(clazz, method, classInfoCache);
+  protected MethodTransformer(ClassNode clazz, MethodNode method, IClassInfoCache classInfoCache, ThreadCode threadCode) {
+    super(clazz, method, classInfoCache, threadCode);
 
     this.localPreviousFrame = local(0);
     this.localFrame = local(1);
@@ -169,6 +171,10 @@ abstract class MethodTransformer extends AbstractMethodTransformer {
 
     var instructions = new InsnList();
 
+    // Skip interrupt, if it is a counted interrupt and the countdown has not yet been reached.
+    var skip = new LabelNode();
+    instructions.add(countInterrupt(methodCall, localFrame, skip));
+
     // Capture frame and return early.
     instructions.add(threadCode.captureFrame(methodCall, metaInfo, localFrame));
     // frame.method = position;
@@ -186,6 +192,9 @@ abstract class MethodTransformer extends AbstractMethodTransformer {
       // Continue.
     }
 
+    // Continue here, if the interrupt has been skipped.
+    instructions.add(skip);
+
     // Replace dummy call of interrupt method by capture and restore code.
     replace(methodCall, instructions);
 
@@ -6,6 +6,7 @@ import org.objectweb.asm.tree.LabelNode;
 import org.objectweb.asm.tree.MethodNode;
 import org.objectweb.asm.tree.analysis.AnalyzerException;
 import org.serialthreads.transformer.classcache.IClassInfoCache;
+import org.serialthreads.transformer.code.ThreadCode;
 
 import java.util.List;
 
@@ -20,9 +21,10 @@ class RunMethodTransformer extends MethodTransformer {
    * @param clazz class to transform
    * @param method method to transform
    * @param classInfoCache class cache to use
+   * @param threadCode code generation for the stacks of the serial threads
    */
-  protected RunMethodTransformer(ClassNode clazz, MethodNode method, IClassInfoCache classInfoCache) {
-    super(clazz, method, classInfoCache);
+  protected RunMethodTransformer(ClassNode clazz, MethodNode method, IClassInfoCache classInfoCache, ThreadCode threadCode) {
+    super(clazz, method, classInfoCache, threadCode);
   }
 
   /**
@@ -34,6 +36,7 @@ class RunMethodTransformer extends MethodTransformer {
   public MethodNode transform() throws AnalyzerException {
     shiftLocals();
     analyze();
+    describeResumePoints(true);
 
     replaceRunReturns();
     var restores = insertCaptureAndRestoreCode(true);
@@ -0,0 +1,185 @@
+package org.serialthreads;
+
+import org.junit.jupiter.api.Test;
+import org.serialthreads.agent.Transform;
+import org.serialthreads.transformer.strategies.frequent4.FrequentInterruptsTransformer4;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test for {@link Generator} and {@link IntGenerator}.
+ */
+@Transform(transformer = FrequentInterruptsTransformer4.class)
+class GeneratorTest {
+  /**
+   * Test iterating the values.
+   */
+  @Test
+  void testIterator() {
+    var generator = new Words("a b  c");
+    assertTrue(generator.hasNext());
+    assertTrue(generator.hasNext());
+    assertEquals("a", generator.next());
+    assertEquals("b", generator.next());
+    assertEquals("c", generator.next());
+    assertFalse(generator.hasNext());
+    assertThrows(NoSuchElementException.class, generator::next);
+  }
+
+  /**
+   * Test that nothing is generated for an empty body.
+   */
+  @Test
+  void testIterator_empty() {
+    var generator = new Words("");
+    assertFalse(generator.hasNext());
+  }
+
+  /**
+   * Test yielding from recursive methods.
+   */
+  @Test
+  void testIterator_recursive() {
+    var values = new ArrayList<Integer>();
+    new Tree(3).forEachRemaining(values::add);
+    assertEquals(List.of(1, 2, 3, 4, 5, 6, 7), values);
+  }
+
+  /**
+   * Test streaming the values.
+   */
+  @Test
+  void testStream() {
+    assertEquals("A,B,C", new Words("a b c").stream().map(String::toUpperCase).collect(Collectors.joining(",")));
+  }
+
+  /**
+   * Test that exceptions of the body are thrown to the consumer.
+   */
+  @Test
+  void testIterator_exception() {
+    var generator = new Failing();
+    assertEquals("first", generator.next());
+    assertThrows(IllegalStateException.class, generator::hasNext);
+    assertFalse(generator.hasNext());
+  }
+
+  /**
+   * Test int generators.
+   */
+  @Test
+  void testIntGenerator() {
+    var generator = new Range(3, 7);
+    assertEquals(3, generator.nextInt());
+    assertArrayEquals(new int[]{4, 5, 6}, generator.stream().toArray());
+    assertFalse(generator.hasNext());
+    assertThrows(NoSuchElementException.class, generator::nextInt);
+  }
+
+  /**
+   * Test that generators can be nested.
+   */
+  @Test
+  void testIntGenerator_nested() {
+    assertEquals(2 * (3 + 4 + 5 + 6), new Doubled(new Range(3, 7)).stream().sum());
+  }
+
+  public static class Words extends Generator<String> {
+    private final String text;
+
+    public Words(String text) {
+      this.text = text;
+    }
+
+    @Override
+    @Interruptible
+    protected void generate() {
+      int start = 0;
+      for (int i = 0; i <= text.length(); i++) {
+        if (i == text.length() || text.charAt(i) == ' ') {
+          if (i > start) {
+            this.yield(text.substring(start, i));
+          }
+          start = i + 1;
+        }
+      }
+    }
+  }
+
+  public static class Tree extends Generator<Integer> {
+    private final int depth;
+
+    public Tree(int depth) {
+      this.depth = depth;
+    }
+
+    @Override
+    @Interruptible
+    protected void generate() {
+      visit(1 << (depth - 1), depth);
+    }
+
+    @Interruptible
+    private void visit(int value, int depth) {
+      if (depth > 1) {
+        visit(value - (1 << (depth - 2)), depth - 1);
+      }
+      this.yield(value);
+      if (depth > 1) {
+        visit(value + (1 << (depth - 2)), depth - 1);
+      }
+    }
+  }
+
+  public static class Failing extends Generator<String> {
+    @Override
+    @Interruptible
+    protected void generate() {
+      this.yield("first");
+      throw new IllegalStateException("failed");
+    }
+  }
+
+  public static class Range extends IntGenerator {
+    private final int from;
+    private final int to;
+
+    public Range(int from, int to) {
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    @Interruptible
+    protected void generate() {
+      for (int i = from; i < to; i++) {
+        this.yield(i);
+      }
+    }
+  }
+
+  public static class Doubled extends IntGenerator {
+    private final IntGenerator generator;
+
+    public Doubled(IntGenerator generator) {
+      this.generator = generator;
+    }
+
+    @Override
+    @Interruptible
+    protected void generate() {
+      while (generator.hasNext()) {
+        this.yield(2 * generator.nextInt());
+      }
+    }
+  }
+}
@@ -0,0 +1,149 @@
+package org.serialthreads;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.serialthreads.agent.Transform;
+import org.serialthreads.context.IRunnable;
+import org.serialthreads.context.ParkingSerialThreadManager;
+import org.serialthreads.context.SerialThreadManager;
+import org.serialthreads.transformer.strategies.frequent4.FrequentInterruptsTransformer4;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+
+import static java.util.concurrent.CompletableFuture.delayedExecutor;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.serialthreads.SerialFutures.await;
+import static org.serialthreads.SerialFutures.awaitInt;
+import static org.serialthreads.SerialThreads.park;
+
+/**
+ * Test for {@link SerialFutures}.
+ */
+@Transform(transformer = FrequentInterruptsTransformer4.class)
+class SerialFuturesTest {
+  private SerialThreadManager manager;
+
+  @AfterEach
+  void tearDown() {
+    if (manager != null) {
+      manager.close();
+    }
+  }
+
+  /**
+   * Test waiting for a future completed by another thread.
+   */
+  @Test
+  @Timeout(10)
+  void testAwait() {
+    var future = new CompletableFuture<String>();
+    var awaiting = new Awaiting(future);
+    var counter = new Counter(future);
+    manager = new ParkingSerialThreadManager(awaiting, counter);
+    manager.execute();
+
+    assertEquals("done", awaiting.result);
+    assertEquals(10, counter.count);
+  }
+
+  /**
+   * Test waiting for an already completed future.
+   */
+  @Test
+  void testAwait_completed() {
+    var awaiting = new Awaiting(CompletableFuture.completedFuture("done"));
+    manager = new ParkingSerialThreadManager(awaiting);
+    manager.execute(1);
+
+    assertEquals("done", awaiting.result);
+  }
+
+  /**
+   * Test waiting for a future which completes exceptionally.
+   */
+  @Test
+  @Timeout(10)
+  void testAwait_exception() {
+    var future = new CompletableFuture<String>();
+    delayedExecutor(10, MILLISECONDS).execute(() -> future.completeExceptionally(new IOException("failed")));
+    var awaiting = new Awaiting(future);
+    manager = new ParkingSerialThreadManager(awaiting);
+    manager.execute();
+
+    assertEquals("java.io.IOException: failed", awaiting.result);
+  }
+
+  /**
+   * Test waiting for a future with an int result.
+   */
+  @Test
+  @Timeout(10)
+  void testAwaitInt() {
+    var future = CompletableFuture.supplyAsync(() -> 42, delayedExecutor(10, MILLISECONDS));
+    var awaiting = new AwaitingInt(future);
+    manager = new ParkingSerialThreadManager(awaiting);
+    manager.execute();
+
+    assertEquals(43, awaiting.result);
+  }
+
+  public static class Awaiting implements IRunnable {
+    private final CompletionStage<String> stage;
+    public String result;
+
+    public Awaiting(CompletionStage<String> stage) {
+      this.stage = stage;
+    }
+
+    @Override
+    @Interruptible
+    public void run() {
+      try {
+        result = await(stage);
+      } catch (CompletionException e) {
+        result = e.getMessage();
+      }
+    }
+  }
+
+  public static class AwaitingInt implements IRunnable {
+    private final CompletionStage<Integer> stage;
+    public int result;
+
+    public AwaitingInt(CompletionStage<Integer> stage) {
+      this.stage = stage;
+    }
+
+    @Override
+    @Interruptible
+    public void run() {
+      result = awaitInt(stage) + 1;
+    }
+  }
+
+  /**
+   * Completes the future asynchronously after 10 rounds.
+   */
+  public static class Counter implements IRunnable {
+    private final CompletableFuture<String> future;
+    public int count;
+
+    public Counter(CompletableFuture<String> future) {
+      this.future = future;
+    }
+
+    @Override
+    @Interruptible
+    public void run() {
+      while (++count < 10) {
+        park();
+      }
+      CompletableFuture.runAsync(() -> future.complete("done"));
+    }
+  }
+}
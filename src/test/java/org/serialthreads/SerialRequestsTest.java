@@ -0,0 +1,133 @@
+package org.serialthreads;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.serialthreads.agent.Transform;
+import org.serialthreads.context.IRunnable;
+import org.serialthreads.context.ITransformedRunnable;
+import org.serialthreads.context.ParkingSerialThreadManager;
+import org.serialthreads.context.SerialThreadManager;
+import org.serialthreads.context.Stack;
+import org.serialthreads.transformer.strategies.frequent4.FrequentInterruptsTransformer4;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.serialthreads.SerialRequests.request;
+
+/**
+ * Test for {@link SerialRequests}.
+ */
+@Transform(transformer = FrequentInterruptsTransformer4.class)
+class SerialRequestsTest {
+  private SerialThreadManager manager;
+
+  @AfterEach
+  void tearDown() {
+    if (manager != null) {
+      manager.close();
+    }
+  }
+
+  /**
+   * Test that requests are answered in bulk via the return registers.
+   */
+  @Test
+  void testRequest() {
+    var requesters = new Requester[3];
+    for (int i = 0; i < requesters.length; i++) {
+      requesters[i] = new Requester(10 * i);
+    }
+    var answering = new AnsweringManager(requesters);
+    manager = answering;
+    manager.execute();
+
+    for (int i = 0; i < requesters.length; i++) {
+      var requester = requesters[i];
+      assertEquals(Integer.valueOf(10 * i + 1), Integer.valueOf(requester.intAnswer));
+      assertEquals(Long.valueOf(10L * i + 2), Long.valueOf(requester.longAnswer));
+      assertEquals(Double.valueOf(20 * i + 1), Double.valueOf(requester.doubleAnswer));
+      assertEquals("answer " + 10 * i, requester.objectAnswer);
+    }
+    // All serial threads request in the same rounds, so each batch contains all of them.
+    assertEquals(List.of(3, 3, 3, 3), answering.batches);
+  }
+
+  /**
+   * Test that requests are echoed by default.
+   */
+  @Test
+  void testRequest_default() {
+    var requester = new Requester(5);
+    manager = new ParkingSerialThreadManager(requester);
+    manager.execute();
+
+    assertEquals(Integer.valueOf(5), Integer.valueOf(requester.intAnswer));
+    assertEquals(Long.valueOf(6), Long.valueOf(requester.longAnswer));
+    assertEquals(Double.valueOf(5.5), Double.valueOf(requester.doubleAnswer));
+    assertEquals("request 5", requester.objectAnswer);
+  }
+
+  public static class Requester implements IRunnable {
+    private final int value;
+    public int intAnswer;
+    public long longAnswer;
+    public double doubleAnswer;
+    public String objectAnswer;
+
+    public Requester(int value) {
+      this.value = value;
+    }
+
+    @Override
+    @Interruptible
+    public void run() {
+      intAnswer = request(value);
+      longAnswer = request(value + 1L);
+      doubleAnswer = request(value + 0.5);
+      objectAnswer = request("request " + value);
+    }
+  }
+
+  /**
+   * Manager which collects the requests of each round and answers them before the next round.
+   */
+  private static class AnsweringManager extends ParkingSerialThreadManager {
+    private final List<ITransformedRunnable> requesting = new ArrayList<>();
+    private final List<Stack> stacks = new ArrayList<>();
+    private final List<Integer> batches = new ArrayList<>();
+
+    private AnsweringManager(IRunnable... runnables) {
+      super(runnables);
+    }
+
+    @Override
+    protected void onRequest(ITransformedRunnable runnable, Stack stack) {
+      requesting.add(runnable);
+      stacks.add(stack);
+    }
+
+    @Override
+    protected void poll() {
+      if (requesting.isEmpty()) {
+        return;
+      }
+
+      batches.add(requesting.size());
+      for (int i = 0; i < requesting.size(); i++) {
+        var stack = stacks.get(i);
+        // The protocol is known: Answer each type of request.
+        stack.returnInt += 1;
+        stack.returnLong += 1;
+        stack.returnDouble *= 2;
+        if (stack.returnObject instanceof String request) {
+          stack.returnObject = request.replace("request", "answer");
+        }
+        resume(requesting.get(i));
+      }
+      requesting.clear();
+      stacks.clear();
+    }
+  }
+}
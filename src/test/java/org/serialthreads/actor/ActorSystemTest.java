@@ -0,0 +1,268 @@
+package org.serialthreads.actor;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.serialthreads.Interruptible;
+import org.serialthreads.agent.Transform;
+import org.serialthreads.transformer.strategies.frequent4.FrequentInterruptsTransformer4;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test for {@link ActorSystem} and {@link Actor}.
+ */
+@Transform(transformer = FrequentInterruptsTransformer4.class)
+class ActorSystemTest {
+  private ActorSystem system;
+
+  @AfterEach
+  void tearDown() {
+    if (system != null) {
+      system.close();
+    }
+  }
+
+  /**
+   * Test exchanging messages between actors of the same actor system.
+   */
+  @Test
+  @Timeout(10)
+  void testPingPong() {
+    var ping = new Ping(100);
+    var pong = new Pong();
+    ping.pong = pong;
+    pong.ping = ping;
+    system = new ActorSystem(ping, pong);
+    system.execute();
+
+    assertEquals(100, ping.received);
+    assertEquals(100, pong.received);
+  }
+
+  /**
+   * Test that senders get parked while the mailbox is full.
+   */
+  @Test
+  @Timeout(10)
+  void testSend_bounded() {
+    var consumer = new Consumer(2, 20);
+    var producer = new Producer(consumer, 20);
+    system = new ActorSystem(consumer, producer);
+    system.execute();
+
+    assertEquals(IntStream.range(0, 20).boxed().toList(), consumer.messages);
+  }
+
+  /**
+   * Test that tell does not wait for a full mailbox.
+   */
+  @Test
+  @Timeout(10)
+  void testTell_full() {
+    var consumer = new Consumer(1, 1);
+    var teller = new Teller(consumer);
+    system = new ActorSystem(consumer, teller);
+    system.execute();
+
+    assertTrue(teller.first);
+    assertFalse(teller.second);
+    assertEquals(List.of(0), consumer.messages);
+  }
+
+  /**
+   * Test sending messages from other threads, even more than the mailbox can hold.
+   */
+  @Test
+  @Timeout(10)
+  void testTell_remote() throws Exception {
+    var consumer = new Consumer(2, 20);
+    system = new ActorSystem(consumer);
+    consumer.tell(0);
+    var sender = new Thread(() -> {
+      for (int i = 1; i < 20; i++) {
+        consumer.tell(i);
+      }
+    });
+    sender.start();
+    system.execute();
+    sender.join();
+
+    assertEquals(IntStream.range(0, 20).boxed().toList(), consumer.messages);
+  }
+
+  /**
+   * Test exchanging messages between actors of different actor systems.
+   */
+  @Test
+  @Timeout(10)
+  void testPingPong_remote() throws Exception {
+    var ping = new Ping(100);
+    var pong = new Pong();
+    ping.pong = pong;
+    pong.ping = ping;
+    system = new ActorSystem(ping);
+    var other = new ActorSystem(pong);
+    var thread = new Thread(other::execute);
+    thread.start();
+    system.execute();
+    thread.join();
+    other.close();
+
+    assertEquals(100, ping.received);
+    assertEquals(100, pong.received);
+  }
+
+  /**
+   * Test spawning actors by an actor.
+   */
+  @Test
+  @Timeout(10)
+  void testSpawn() {
+    var parent = new Parent(10);
+    system = new ActorSystem(parent);
+    system.execute();
+
+    assertEquals(Integer.valueOf(10 * 11 / 2), Integer.valueOf(parent.sum));
+  }
+
+  public static class Ping extends Actor<Integer> {
+    private final int count;
+    public Actor<Integer> pong;
+    public int received;
+
+    public Ping(int count) {
+      super(1);
+      this.count = count;
+    }
+
+    @Override
+    @Interruptible
+    protected void act() {
+      for (int i = 0; i < count; i++) {
+        pong.send(i);
+        int reply = receive();
+        assertEquals(i, reply);
+        received++;
+      }
+      pong.send(-1);
+    }
+  }
+
+  public static class Pong extends Actor<Integer> {
+    public Actor<Integer> ping;
+    public int received;
+
+    public Pong() {
+      super(1);
+    }
+
+    @Override
+    @Interruptible
+    protected void act() {
+      for (int message; (message = receive()) >= 0; ) {
+        received++;
+        ping.send(message);
+      }
+    }
+  }
+
+  public static class Consumer extends Actor<Integer> {
+    private final int count;
+    public final List<Integer> messages = new ArrayList<>();
+
+    public Consumer(int capacity, int count) {
+      super(capacity);
+      this.count = count;
+    }
+
+    @Override
+    @Interruptible
+    protected void act() {
+      while (messages.size() < count) {
+        messages.add(receive());
+      }
+    }
+  }
+
+  public static class Producer extends Actor<Void> {
+    private final Actor<Integer> consumer;
+    private final int count;
+
+    public Producer(Actor<Integer> consumer, int count) {
+      super(1);
+      this.consumer = consumer;
+      this.count = count;
+    }
+
+    @Override
+    @Interruptible
+    protected void act() {
+      for (int i = 0; i < count; i++) {
+        consumer.send(i);
+      }
+    }
+  }
+
+  public static class Teller extends Actor<Void> {
+    private final Actor<Integer> consumer;
+    public boolean first;
+    public boolean second;
+
+    public Teller(Actor<Integer> consumer) {
+      super(1);
+      this.consumer = consumer;
+    }
+
+    @Override
+    @Interruptible
+    protected void act() {
+      first = consumer.tell(0);
+      second = consumer.tell(1);
+    }
+  }
+
+  public static class Parent extends Actor<Integer> {
+    private final int children;
+    public int sum;
+
+    public Parent(int children) {
+      super(children);
+      this.children = children;
+    }
+
+    @Override
+    @Interruptible
+    protected void act() {
+      for (int i = 1; i <= children; i++) {
+        getSystem().spawn(new Child(this, i));
+      }
+      for (int i = 0; i < children; i++) {
+        sum += receive();
+      }
+    }
+  }
+
+  public static class Child extends Actor<Void> {
+    private final Actor<Integer> parent;
+    private final int value;
+
+    public Child(Actor<Integer> parent, int value) {
+      super(1);
+      this.parent = parent;
+      this.value = value;
+    }
+
+    @Override
+    @Interruptible
+    protected void act() {
+      parent.send(value);
+    }
+  }
+}
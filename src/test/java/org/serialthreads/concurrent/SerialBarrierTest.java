@@ -0,0 +1,91 @@
+package org.serialthreads.concurrent;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.serialthreads.Interruptible;
+import org.serialthreads.agent.Transform;
+import org.serialthreads.context.IRunnable;
+import org.serialthreads.context.ParkingSerialThreadManager;
+import org.serialthreads.context.SerialThreadManager;
+import org.serialthreads.transformer.strategies.frequent4.FrequentInterruptsTransformer4;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.serialthreads.SerialThreads.park;
+
+/**
+ * Test for {@link SerialBarrier}.
+ */
+@Transform(transformer = FrequentInterruptsTransformer4.class)
+class SerialBarrierTest {
+  private SerialThreadManager manager;
+
+  @AfterEach
+  void tearDown() {
+    if (manager != null) {
+      manager.close();
+    }
+  }
+
+  /**
+   * Test that all parties execute in lock-step, even if they need a different number of rounds per step.
+   */
+  @Test
+  void testAwait() {
+    var generations = new int[1];
+    var barrier = new SerialBarrier(3, () -> generations[0]++);
+    var log = new ArrayList<Integer>();
+    manager = new ParkingSerialThreadManager(new Party(barrier, log, 0), new Party(barrier, log, 1), new Party(barrier, log, 2));
+    manager.execute();
+
+    assertEquals(4, generations[0]);
+    assertEquals(0, barrier.getNumberWaiting());
+    assertEquals(12, log.size());
+    for (int i = 0; i < log.size(); i++) {
+      // all parties log the same generation, before any party logs the next generation
+      assertEquals(Integer.valueOf(i / 3), log.get(i));
+    }
+  }
+
+  /**
+   * Test that all parties get released in one step.
+   */
+  @Test
+  void testAwait_sameRound() {
+    var barrier = new SerialBarrier(2);
+    var first = new Party(barrier, new ArrayList<>(), 0);
+    var second = new Party(barrier, new ArrayList<>(), 3);
+    manager = new ParkingSerialThreadManager(first, second);
+    // the second party needs 4 rounds to reach the barrier, 1 more round to be released
+    manager.execute(5);
+    assertEquals(1, first.generation);
+    assertEquals(1, second.generation);
+  }
+
+  public static class Party implements IRunnable {
+    private final SerialBarrier barrier;
+    private final List<Integer> log;
+    private final int rounds;
+    public int generation;
+
+    public Party(SerialBarrier barrier, List<Integer> log, int rounds) {
+      this.barrier = barrier;
+      this.log = log;
+      this.rounds = rounds;
+    }
+
+    @Override
+    @Interruptible
+    public void run() {
+      for (; generation < 4; generation++) {
+        log.add(generation);
+        for (int i = 0; i < rounds; i++) {
+          park();
+        }
+        barrier.await();
+      }
+    }
+  }
+}
@@ -0,0 +1,102 @@
+package org.serialthreads.concurrent;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.serialthreads.Interruptible;
+import org.serialthreads.agent.Transform;
+import org.serialthreads.context.IRunnable;
+import org.serialthreads.context.ParkingSerialThreadManager;
+import org.serialthreads.context.SerialThreadManager;
+import org.serialthreads.transformer.strategies.frequent4.FrequentInterruptsTransformer4;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test for {@link SerialBlockingQueue}.
+ */
+@Transform(transformer = FrequentInterruptsTransformer4.class)
+class SerialBlockingQueueTest {
+  private SerialThreadManager manager;
+
+  @AfterEach
+  void tearDown() {
+    if (manager != null) {
+      manager.close();
+    }
+  }
+
+  /**
+   * Test transferring elements through a queue with a small capacity.
+   */
+  @Test
+  void testPutTake() {
+    var queue = new SerialBlockingQueue<Integer>(2);
+    var consumer = new Consumer(queue, 100);
+    manager = new ParkingSerialThreadManager(consumer, new Producer(queue, 0, 50), new Producer(queue, 1000, 50));
+    manager.execute();
+
+    assertEquals(100, consumer.received.size());
+    var first = consumer.received.stream().filter(i -> i < 1000).toList();
+    var second = consumer.received.stream().filter(i -> i >= 1000).toList();
+    for (int i = 0; i < 50; i++) {
+      assertEquals(Integer.valueOf(i), first.get(i));
+      assertEquals(Integer.valueOf(1000 + i), second.get(i));
+    }
+    assertTrue(queue.isEmpty());
+  }
+
+  @Test
+  void testOfferPoll() {
+    var queue = new SerialBlockingQueue<String>(1);
+    assertTrue(queue.offer("a"));
+    assertFalse(queue.offer("b"));
+    assertEquals(1, queue.size());
+    assertEquals("a", queue.poll());
+    assertNull(queue.poll());
+  }
+
+  public static class Producer implements IRunnable {
+    private final SerialBlockingQueue<Integer> queue;
+    private final int start;
+    private final int count;
+
+    public Producer(SerialBlockingQueue<Integer> queue, int start, int count) {
+      this.queue = queue;
+      this.start = start;
+      this.count = count;
+    }
+
+    @Override
+    @Interruptible
+    public void run() {
+      for (int i = 0; i < count; i++) {
+        queue.put(start + i);
+      }
+    }
+  }
+
+  public static class Consumer implements IRunnable {
+    private final SerialBlockingQueue<Integer> queue;
+    private final int count;
+    public final List<Integer> received = new ArrayList<>();
+
+    public Consumer(SerialBlockingQueue<Integer> queue, int count) {
+      this.queue = queue;
+      this.count = count;
+    }
+
+    @Override
+    @Interruptible
+    public void run() {
+      for (int i = 0; i < count; i++) {
+        received.add(queue.take());
+      }
+    }
+  }
+}
@@ -0,0 +1,82 @@
+package org.serialthreads.concurrent;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.serialthreads.Interruptible;
+import org.serialthreads.agent.Transform;
+import org.serialthreads.context.IRunnable;
+import org.serialthreads.context.ParkingSerialThreadManager;
+import org.serialthreads.context.SerialThreadManager;
+import org.serialthreads.transformer.strategies.frequent4.FrequentInterruptsTransformer4;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.serialthreads.SerialThreads.park;
+
+/**
+ * Test for {@link SerialCountDownLatch}.
+ */
+@Transform(transformer = FrequentInterruptsTransformer4.class)
+class SerialCountDownLatchTest {
+  private SerialThreadManager manager;
+
+  @AfterEach
+  void tearDown() {
+    if (manager != null) {
+      manager.close();
+    }
+  }
+
+  /**
+   * Test that waiting serial threads continue only after the count reached zero.
+   */
+  @Test
+  void testAwait() {
+    var latch = new SerialCountDownLatch(3);
+    var log = new ArrayList<String>();
+    manager = new ParkingSerialThreadManager(new Waiter(latch, log), new Waiter(latch, log), new CountingDown(latch, log));
+    manager.execute();
+
+    assertEquals(List.of("down", "down", "down", "continued", "continued"), log);
+    assertEquals(0, latch.getCount());
+  }
+
+  public static class Waiter implements IRunnable {
+    private final SerialCountDownLatch latch;
+    private final List<String> log;
+
+    public Waiter(SerialCountDownLatch latch, List<String> log) {
+      this.latch = latch;
+      this.log = log;
+    }
+
+    @Override
+    @Interruptible
+    public void run() {
+      latch.await();
+      log.add("continued");
+    }
+  }
+
+  public static class CountingDown implements IRunnable {
+    private final SerialCountDownLatch latch;
+    private final List<String> log;
+
+    public CountingDown(SerialCountDownLatch latch, List<String> log) {
+      this.latch = latch;
+      this.log = log;
+    }
+
+    @Override
+    @Interruptible
+    public void run() {
+      for (int i = 0; i < 3; i++) {
+        log.add("down");
+        latch.countDown();
+        park();
+      }
+    }
+  }
+}
@@ -0,0 +1,213 @@
+package org.serialthreads.concurrent;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.serialthreads.Interruptible;
+import org.serialthreads.agent.Transform;
+import org.serialthreads.context.IRunnable;
+import org.serialthreads.context.ParkingSerialThreadManager;
+import org.serialthreads.context.SerialThreadManager;
+import org.serialthreads.transformer.strategies.frequent4.FrequentInterruptsTransformer4;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.serialthreads.SerialThreads.park;
+
+/**
+ * Test for {@link SerialLock}.
+ */
+@Transform(transformer = FrequentInterruptsTransformer4.class)
+class SerialLockTest {
+  private SerialThreadManager manager;
+
+  @AfterEach
+  void tearDown() {
+    if (manager != null) {
+      manager.close();
+    }
+  }
+
+  /**
+   * Test that critical sections do not overlap, even if interrupted, and that the lock is fair.
+   */
+  @Test
+  void testLock() {
+    var lock = new SerialLock();
+    var log = new ArrayList<String>();
+    manager = new ParkingSerialThreadManager(new Locker(lock, log, "a"), new Locker(lock, log, "b"), new Locker(lock, log, "c"));
+    manager.execute();
+
+    assertEquals(List.of("a+", "a-", "b+", "b-", "c+", "c-", "a+", "a-", "b+", "b-", "c+", "c-"), log);
+    assertFalse(lock.isLocked());
+  }
+
+  /**
+   * Test that the lock is handed over to the next waiting serial thread, if a waiting one has been cancelled.
+   */
+  @Test
+  @Timeout(10)
+  void testLock_cancelledWaiter() {
+    var lock = new SerialLock();
+    var log = new ArrayList<String>();
+    var cancelled = new Waiter(lock, log, "a");
+    manager = new ParkingSerialThreadManager(new Holder(lock, log, cancelled, true), cancelled, new Waiter(lock, log, "b"));
+    manager.execute();
+
+    assertEquals(List.of("h+", "h-", "b+"), log);
+    assertFalse(lock.isLocked());
+  }
+
+  /**
+   * Test that the lock is handed over to the next waiting serial thread,
+   * if a waiting one has been cancelled in the same round.
+   */
+  @Test
+  @Timeout(10)
+  void testLock_cancelledWaiterSameRound() {
+    var lock = new SerialLock();
+    var log = new ArrayList<String>();
+    var cancelled = new Waiter(lock, log, "a");
+    manager = new ParkingSerialThreadManager(new Holder(lock, log, cancelled, false), cancelled, new Waiter(lock, log, "b"));
+    manager.execute();
+
+    assertEquals(List.of("h+", "h-", "b+"), log);
+    assertFalse(lock.isLocked());
+  }
+
+  /**
+   * Test that the lock is passed on to the next waiting serial thread,
+   * if a waiting one has been cancelled in the same round after the lock has been handed over to it.
+   */
+  @Test
+  @Timeout(10)
+  void testLock_signalledWaiterCancelledSameRound() {
+    var lock = new SerialLock();
+    var log = new ArrayList<String>();
+    var cancelled = new Waiter(lock, log, "a");
+    manager = new ParkingSerialThreadManager(new Releaser(lock, log, cancelled), cancelled, new Waiter(lock, log, "b"));
+    manager.execute();
+
+    assertEquals(List.of("h+", "h-", "b+"), log);
+    assertFalse(lock.isLocked());
+  }
+
+  @Test
+  void testTryLock() {
+    var lock = new SerialLock();
+    assertTrue(lock.tryLock());
+    assertFalse(lock.tryLock());
+    lock.unlock();
+    assertFalse(lock.isLocked());
+    assertThrows(IllegalMonitorStateException.class, lock::unlock);
+  }
+
+  public static class Locker implements IRunnable {
+    private final SerialLock lock;
+    private final List<String> log;
+    private final String name;
+
+    public Locker(SerialLock lock, List<String> log, String name) {
+      this.lock = lock;
+      this.log = log;
+      this.name = name;
+    }
+
+    @Override
+    @Interruptible
+    public void run() {
+      for (int i = 0; i < 2; i++) {
+        lock.lock();
+        log.add(name + "+");
+        park();
+        log.add(name + "-");
+        lock.unlock();
+      }
+    }
+  }
+
+  /**
+   * Holds the lock and cancels a waiting serial thread before releasing it.
+   */
+  public static class Holder implements IRunnable {
+    private final SerialLock lock;
+    private final List<String> log;
+    private final IRunnable cancel;
+    private final boolean parkAfterCancel;
+
+    public Holder(SerialLock lock, List<String> log, IRunnable cancel, boolean parkAfterCancel) {
+      this.lock = lock;
+      this.log = log;
+      this.cancel = cancel;
+      this.parkAfterCancel = parkAfterCancel;
+    }
+
+    @Override
+    @Interruptible
+    public void run() {
+      lock.lock();
+      log.add("h+");
+      park();
+      ParkingSerialThreadManager.current().cancel(cancel);
+      if (parkAfterCancel) {
+        park();
+      }
+      log.add("h-");
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Holds the lock and cancels a waiting serial thread after releasing it, so the lock has been handed over to it.
+   */
+  public static class Releaser implements IRunnable {
+    private final SerialLock lock;
+    private final List<String> log;
+    private final IRunnable cancel;
+
+    public Releaser(SerialLock lock, List<String> log, IRunnable cancel) {
+      this.lock = lock;
+      this.log = log;
+      this.cancel = cancel;
+    }
+
+    @Override
+    @Interruptible
+    public void run() {
+      lock.lock();
+      log.add("h+");
+      park();
+      log.add("h-");
+      lock.unlock();
+      ParkingSerialThreadManager.current().cancel(cancel);
+    }
+  }
+
+  /**
+   * Acquires the lock once.
+   */
+  public static class Waiter implements IRunnable {
+    private final SerialLock lock;
+    private final List<String> log;
+    private final String name;
+
+    public Waiter(SerialLock lock, List<String> log, String name) {
+      this.lock = lock;
+      this.log = log;
+      this.name = name;
+    }
+
+    @Override
+    @Interruptible
+    public void run() {
+      lock.lock();
+      log.add(name + "+");
+      lock.unlock();
+    }
+  }
+}
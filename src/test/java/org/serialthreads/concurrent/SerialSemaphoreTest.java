@@ -0,0 +1,147 @@
+package org.serialthreads.concurrent;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.serialthreads.Interruptible;
+import org.serialthreads.agent.Transform;
+import org.serialthreads.context.IRunnable;
+import org.serialthreads.context.ParkingSerialThreadManager;
+import org.serialthreads.context.SerialThreadManager;
+import org.serialthreads.transformer.strategies.frequent4.FrequentInterruptsTransformer4;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.serialthreads.SerialThreads.park;
+
+/**
+ * Test for {@link SerialSemaphore}.
+ */
+@Transform(transformer = FrequentInterruptsTransformer4.class)
+class SerialSemaphoreTest {
+  private SerialThreadManager manager;
+
+  @AfterEach
+  void tearDown() {
+    if (manager != null) {
+      manager.close();
+    }
+  }
+
+  /**
+   * Test that no more serial threads than permits are inside the guarded section.
+   */
+  @Test
+  void testAcquire() {
+    var semaphore = new SerialSemaphore(2);
+    var section = new Section();
+    var runnables = new IRunnable[5];
+    for (int i = 0; i < runnables.length; i++) {
+      runnables[i] = new Acquirer(semaphore, section);
+    }
+    manager = new ParkingSerialThreadManager(runnables);
+    manager.execute();
+
+    assertEquals(2, section.max);
+    assertEquals(0, section.inside);
+    assertEquals(2, semaphore.availablePermits());
+  }
+
+  /**
+   * Test that the permit is passed on to the next waiting serial thread,
+   * if a waiting one has been cancelled in the same round after the permit has been handed over to it.
+   */
+  @Test
+  @Timeout(10)
+  void testAcquire_signalledWaiterCancelledSameRound() {
+    var semaphore = new SerialSemaphore(1);
+    var section = new Section();
+    var cancelled = new Acquirer(semaphore, section);
+    var waiter = new Acquirer(semaphore, section);
+    manager = new ParkingSerialThreadManager(new Releaser(semaphore, cancelled), cancelled, waiter);
+    manager.execute();
+
+    // Just the remaining waiter entered the guarded section.
+    assertEquals(3, section.entered);
+    assertEquals(0, section.inside);
+    assertEquals(1, semaphore.availablePermits());
+  }
+
+  /**
+   * Test that the permit is returned, if the only waiting serial thread has been cancelled in the same round
+   * after the permit has been handed over to it.
+   */
+  @Test
+  @Timeout(10)
+  void testAcquire_signalledLastWaiterCancelledSameRound() {
+    var semaphore = new SerialSemaphore(1);
+    var section = new Section();
+    var cancelled = new Acquirer(semaphore, section);
+    manager = new ParkingSerialThreadManager(new Releaser(semaphore, cancelled), cancelled);
+    manager.execute();
+
+    assertEquals(0, section.entered);
+    assertEquals(1, semaphore.availablePermits());
+  }
+
+  @Test
+  void testTryAcquire() {
+    var semaphore = new SerialSemaphore(1);
+    assertTrue(semaphore.tryAcquire());
+    assertFalse(semaphore.tryAcquire());
+    semaphore.release();
+    assertEquals(1, semaphore.availablePermits());
+  }
+
+  public static class Section {
+    public int inside;
+    public int max;
+    public int entered;
+  }
+
+  public static class Acquirer implements IRunnable {
+    private final SerialSemaphore semaphore;
+    private final Section section;
+
+    public Acquirer(SerialSemaphore semaphore, Section section) {
+      this.semaphore = semaphore;
+      this.section = section;
+    }
+
+    @Override
+    @Interruptible
+    public void run() {
+      for (int i = 0; i < 3; i++) {
+        semaphore.acquire();
+        section.entered++;
+        section.max = Math.max(section.max, ++section.inside);
+        park();
+        section.inside--;
+        semaphore.release();
+      }
+    }
+  }
+
+  /**
+   * Holds a permit and cancels a waiting serial thread after releasing it, so the permit has been handed over to it.
+   */
+  public static class Releaser implements IRunnable {
+    private final SerialSemaphore semaphore;
+    private final IRunnable cancel;
+
+    public Releaser(SerialSemaphore semaphore, IRunnable cancel) {
+      this.semaphore = semaphore;
+      this.cancel = cancel;
+    }
+
+    @Override
+    @Interruptible
+    public void run() {
+      semaphore.acquire();
+      park();
+      semaphore.release();
+      ParkingSerialThreadManager.current().cancel(cancel);
+    }
+  }
+}
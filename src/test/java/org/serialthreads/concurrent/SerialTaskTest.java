@@ -0,0 +1,276 @@
+package org.serialthreads.concurrent;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.serialthreads.Interruptible;
+import org.serialthreads.agent.Transform;
+import org.serialthreads.context.ParkingSerialThreadManager;
+import org.serialthreads.context.SerialThreadManager;
+import org.serialthreads.transformer.strategies.frequent4.FrequentInterruptsTransformer4;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.serialthreads.SerialThreads.park;
+
+/**
+ * Test for {@link SerialTask}.
+ */
+@Transform(transformer = FrequentInterruptsTransformer4.class)
+class SerialTaskTest {
+  private SerialThreadManager manager;
+
+  @AfterEach
+  void tearDown() {
+    if (manager != null) {
+      manager.close();
+    }
+  }
+
+  /**
+   * Test recursive fork/join with typed results.
+   */
+  @Test
+  @Timeout(10)
+  void testForkJoin() {
+    var fibonacci = new Fibonacci(15);
+    manager = new ParkingSerialThreadManager(fibonacci);
+    manager.execute();
+
+    assertTrue(fibonacci.isDone());
+    assertEquals(610, fibonacci.getReturnInt());
+  }
+
+  /**
+   * Test that the parent gets resumed exactly once, after all children finished.
+   */
+  @Test
+  @Timeout(10)
+  void testJoin_resumedOnce() {
+    var parent = new Parent(3, 5, 7);
+    manager = new ParkingSerialThreadManager(parent);
+    manager.execute();
+
+    assertEquals(1, parent.resumed);
+    assertEquals(15L, parent.getReturnLong());
+  }
+
+  /**
+   * Test that exceptions of children are available after joining.
+   */
+  @Test
+  @Timeout(10)
+  void testJoin_exception() {
+    var parent = new FailingParent();
+    manager = new ParkingSerialThreadManager(parent);
+    manager.execute();
+
+    assertEquals("failed", parent.getReturnObject());
+  }
+
+  /**
+   * Test that cancelling the parent cancels its children, runnable and parked ones.
+   */
+  @Test
+  @Timeout(10)
+  void testCancel() {
+    var latch = new SerialCountDownLatch(1);
+    var parent = new Forever(latch);
+    var canceller = new Canceller(parent);
+    manager = new ParkingSerialThreadManager(parent, canceller);
+    manager.execute();
+
+    assertTrue(parent.isCancelled());
+    assertFalse(parent.resumed);
+    assertTrue(parent.spinning.isCancelled());
+    assertTrue(parent.waiting.isCancelled());
+    assertTrue(parent.spinning.rounds > 0);
+    assertNull(parent.spinning.getException());
+  }
+
+  /**
+   * Test that children which have not been joined get cancelled, when their parent finishes.
+   */
+  @Test
+  @Timeout(10)
+  void testFork_notJoined() {
+    var latch = new SerialCountDownLatch(1);
+    var parent = new NotJoining(latch);
+    manager = new ParkingSerialThreadManager(parent);
+    manager.execute();
+
+    assertTrue(parent.isDone());
+    assertSame(parent.child, parent.getReturnObject());
+    assertTrue(parent.child.isCancelled());
+  }
+
+  public static class Fibonacci extends SerialTask {
+    private final int n;
+
+    public Fibonacci(int n) {
+      this.n = n;
+    }
+
+    @Override
+    @Interruptible
+    protected void compute() {
+      if (n < 2) {
+        returnInt(n);
+        return;
+      }
+
+      var a = fork(new Fibonacci(n - 1));
+      var b = fork(new Fibonacci(n - 2));
+      join();
+      returnInt(a.getReturnInt() + b.getReturnInt());
+    }
+  }
+
+  public static class Parent extends SerialTask {
+    private final int[] rounds;
+    public int resumed;
+
+    public Parent(int... rounds) {
+      this.rounds = rounds;
+    }
+
+    @Override
+    @Interruptible
+    protected void compute() {
+      var children = new Child[rounds.length];
+      for (int i = 0; i < rounds.length; i++) {
+        children[i] = fork(new Child(rounds[i]));
+      }
+      join();
+      resumed++;
+      long sum = 0;
+      for (var child : children) {
+        assertTrue(child.isDone());
+        sum += child.getReturnLong();
+      }
+      returnLong(sum);
+    }
+  }
+
+  public static class Child extends SerialTask {
+    private final int rounds;
+
+    public Child(int rounds) {
+      this.rounds = rounds;
+    }
+
+    @Override
+    @Interruptible
+    protected void compute() {
+      long count = 0;
+      for (int i = 0; i < rounds; i++) {
+        count++;
+        park();
+      }
+      returnLong(count);
+    }
+  }
+
+  public static class FailingParent extends SerialTask {
+    @Override
+    @Interruptible
+    protected void compute() {
+      var child = fork(new Failing());
+      join();
+      returnObject(child.getException().getMessage());
+    }
+  }
+
+  public static class Failing extends SerialTask {
+    @Override
+    @Interruptible
+    protected void compute() {
+      park();
+      throw new IllegalStateException("failed");
+    }
+  }
+
+  public static class Forever extends SerialTask {
+    private final SerialCountDownLatch latch;
+    public Spinning spinning;
+    public Waiting waiting;
+    public boolean resumed;
+
+    public Forever(SerialCountDownLatch latch) {
+      this.latch = latch;
+    }
+
+    @Override
+    @Interruptible
+    protected void compute() {
+      spinning = fork(new Spinning());
+      waiting = fork(new Waiting(latch));
+      join();
+      resumed = true;
+    }
+  }
+
+  public static class Spinning extends SerialTask {
+    public int rounds;
+
+    @Override
+    @Interruptible
+    protected void compute() {
+      while (true) {
+        rounds++;
+        park();
+      }
+    }
+  }
+
+  public static class Waiting extends SerialTask {
+    private final SerialCountDownLatch latch;
+
+    public Waiting(SerialCountDownLatch latch) {
+      this.latch = latch;
+    }
+
+    @Override
+    @Interruptible
+    protected void compute() {
+      latch.await();
+    }
+  }
+
+  public static class Canceller extends SerialTask {
+    private final SerialTask task;
+
+    public Canceller(SerialTask task) {
+      this.task = task;
+    }
+
+    @Override
+    @Interruptible
+    protected void compute() {
+      for (int i = 0; i < 10; i++) {
+        park();
+      }
+      task.cancel();
+    }
+  }
+
+  public static class NotJoining extends SerialTask {
+    private final SerialCountDownLatch latch;
+    public Waiting child;
+
+    public NotJoining(SerialCountDownLatch latch) {
+      this.latch = latch;
+    }
+
+    @Override
+    @Interruptible
+    protected void compute() {
+      child = fork(new Waiting(latch));
+      park();
+      returnObject(child);
+    }
+  }
+}
@@ -0,0 +1,140 @@
+package org.serialthreads.context;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.serialthreads.Interruptible;
+import org.serialthreads.agent.Transform;
+import org.serialthreads.transformer.strategies.frequent4.FrequentInterruptsTransformer4;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.serialthreads.SerialThreads.park;
+
+/**
+ * Test for {@link BatchSerialThreadManager}.
+ */
+@Transform(transformer = FrequentInterruptsTransformer4.class)
+class BatchSerialThreadManagerTest {
+  /**
+   * Test that serial threads are executed batch by batch, largest batches first.
+   */
+  @Test
+  @Timeout(10)
+  void testExecute() {
+    var log = new ArrayList<String>();
+    var manager = new BatchSerialThreadManager(
+      new A("a1", log), new B("b1", log), new A("a2", log), new C("c1", log), new B("b2", log), new B("b3", log));
+    assertEquals(3, manager.getBatches());
+
+    manager.execute(2);
+    assertEquals(List.of(
+      "b1", "b2", "b3", "a1", "a2", "c1",
+      "b1", "b2", "b3", "a1", "a2", "c1"), log);
+  }
+
+  /**
+   * Test that execution stops after the round in which a serial thread finished.
+   */
+  @Test
+  @Timeout(10)
+  void testExecute_finished() {
+    var log = new ArrayList<String>();
+    var manager = new BatchSerialThreadManager(new A("a", log), new Finishing(log), new B("b", log));
+    manager.execute();
+
+    assertEquals(List.of("a", "finishing", "b", "a", "b"), log);
+  }
+
+  /**
+   * Test that more types than lanes are supported.
+   */
+  @Test
+  @Timeout(10)
+  void testExecute_lanes() {
+    var log = new ArrayList<String>();
+    var runnables = new ArrayList<IRunnable>();
+    for (int i = 0; i < BatchSerialThreadManager.LANES; i++) {
+      runnables.add(new A("a" + i, log));
+    }
+    runnables.add(new B("b", log));
+    runnables.add(new C("c", log));
+    var manager = new BatchSerialThreadManager(runnables.toArray(new IRunnable[0]));
+    manager.execute(1);
+
+    assertEquals(BatchSerialThreadManager.LANES + 2, log.size());
+  }
+
+  public static class A implements IRunnable {
+    private final String name;
+    private final List<String> log;
+
+    public A(String name, List<String> log) {
+      this.name = name;
+      this.log = log;
+    }
+
+    @Override
+    @Interruptible
+    public void run() {
+      while (true) {
+        log.add(name);
+        park();
+      }
+    }
+  }
+
+  public static class B implements IRunnable {
+    private final String name;
+    private final List<String> log;
+
+    public B(String name, List<String> log) {
+      this.name = name;
+      this.log = log;
+    }
+
+    @Override
+    @Interruptible
+    public void run() {
+      while (true) {
+        log.add(name);
+        park();
+      }
+    }
+  }
+
+  public static class C implements IRunnable {
+    private final String name;
+    private final List<String> log;
+
+    public C(String name, List<String> log) {
+      this.name = name;
+      this.log = log;
+    }
+
+    @Override
+    @Interruptible
+    public void run() {
+      while (true) {
+        log.add(name);
+        park();
+      }
+    }
+  }
+
+  public static class Finishing implements IRunnable {
+    private final List<String> log;
+
+    public Finishing(List<String> log) {
+      this.log = log;
+    }
+
+    @Override
+    @Interruptible
+    public void run() {
+      log.add("finishing");
+      park();
+    }
+  }
+}
@@ -0,0 +1,138 @@
+package org.serialthreads.context;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.serialthreads.Interruptible;
+import org.serialthreads.agent.Transform;
+import org.serialthreads.transformer.strategies.frequent4.FrequentInterruptsTransformer4;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.serialthreads.SerialThreads.park;
+
+/**
+ * Test for {@link SerialThreadManager#checkpoint(Path)} and {@link SerialThreadManager#restore(Path)}.
+ */
+@Transform(transformer = FrequentInterruptsTransformer4.class)
+class CheckpointTest {
+  private Path file;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    file = Files.createTempFile("checkpoint", ".bin");
+  }
+
+  @AfterEach
+  void tearDown() throws IOException {
+    Files.deleteIfExists(file);
+  }
+
+  /**
+   * Test restoring a checkpoint into new serial threads, e.g. after a crash.
+   */
+  @Test
+  @Timeout(10)
+  void testRestore_newThreads() throws IOException {
+    var log = new ArrayList<String>();
+    var manager = new SimpleSerialThreadManager(new Counter("a", log), new Counter("b", log));
+    manager.execute(3);
+    manager.checkpoint(file);
+    assertEquals(List.of("a:0:0.0", "b:0:0.0", "a:10:0.5", "b:10:0.5"), log);
+    assertFalse(Files.exists(file.resolveSibling(file.getFileName() + ".tmp")));
+
+    var restoredLog = new ArrayList<String>();
+    var restored = new SimpleSerialThreadManager(new Counter("a", restoredLog), new Counter("b", restoredLog));
+    restored.restore(file);
+    restored.execute(2);
+    assertEquals(List.of("a:20:1.0", "b:20:1.0", "a:30:1.5", "b:30:1.5"), restoredLog);
+  }
+
+  /**
+   * Test rolling serial threads back to a checkpoint.
+   */
+  @Test
+  @Timeout(10)
+  void testRestore_rollback() throws IOException {
+    var log = new ArrayList<String>();
+    var manager = new SimpleSerialThreadManager(new Counter("a", log));
+    manager.execute(2);
+    manager.checkpoint(file);
+    manager.execute(2);
+    manager.restore(file);
+    manager.execute(1);
+
+    assertEquals(List.of("a:0:0.0", "a:10:0.5", "a:20:1.0", "a:10:0.5"), log);
+  }
+
+  /**
+   * Test that a checkpoint can only be restored into the same number of serial threads.
+   */
+  @Test
+  @Timeout(10)
+  void testRestore_mismatch() throws IOException {
+    var log = new ArrayList<String>();
+    var manager = new SimpleSerialThreadManager(new Counter("a", log), new Counter("b", log));
+    manager.execute(1);
+    manager.checkpoint(file);
+
+    var restored = new SimpleSerialThreadManager(new Counter("a", log));
+    assertThrows(IllegalArgumentException.class, () -> restored.restore(file));
+  }
+
+  /**
+   * Test that unsupported objects on the stack are rejected.
+   */
+  @Test
+  @Timeout(10)
+  void testCheckpoint_unsupported() {
+    var manager = new SimpleSerialThreadManager(new Holder());
+    manager.execute(1);
+
+    assertThrows(IllegalArgumentException.class, () -> manager.checkpoint(file));
+  }
+
+  public static class Counter implements IRunnable {
+    private final String name;
+    private final List<String> log;
+
+    public Counter(String name, List<String> log) {
+      this.name = name;
+      this.log = log;
+    }
+
+    @Override
+    @Interruptible
+    public void run() {
+      for (int i = 0; true; i++) {
+        step(name, i * 10L, i / 2.0);
+      }
+    }
+
+    @Interruptible
+    private void step(String prefix, long value, double half) {
+      park();
+      log.add(prefix + ":" + value + ":" + half);
+    }
+  }
+
+  public static class Holder implements IRunnable {
+    @Override
+    @Interruptible
+    public void run() {
+      var object = new Object();
+      while (true) {
+        park();
+        object.hashCode();
+      }
+    }
+  }
+}
@@ -0,0 +1,181 @@
+package org.serialthreads.context;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.serialthreads.Interruptible;
+import org.serialthreads.agent.Transform;
+import org.serialthreads.transformer.strategies.frequent4.FrequentInterruptsTransformer4;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.serialthreads.SerialThreads.park;
+
+/**
+ * Test for {@link Hibernation}.
+ */
+@Transform(transformer = FrequentInterruptsTransformer4.class)
+class HibernationTest {
+  private Path directory;
+  private Hibernation hibernation;
+  private ParkingSerialThreadManager manager;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    directory = Files.createTempDirectory("hibernation");
+    hibernation = new Hibernation(directory.resolve("swap"), Duration.ZERO);
+  }
+
+  @AfterEach
+  void tearDown() throws IOException {
+    if (manager != null) {
+      manager.close();
+    }
+    hibernation.close();
+    try (var files = Files.list(directory)) {
+      for (var path : files.toList()) {
+        Files.delete(path);
+      }
+    }
+    Files.delete(directory);
+  }
+
+  /**
+   * Test that parked serial threads get hibernated and continue correctly after being unparked.
+   */
+  @Test
+  @Timeout(10)
+  void testHibernate() {
+    var log = new ArrayList<String>();
+    var a = new Session("a", log);
+    var b = new Session("b", log);
+    manager = new ParkingSerialThreadManager(a, b);
+    manager.setHibernation(hibernation);
+    manager.execute(1);
+    assertEquals(List.of("a:0:start", "b:0:start"), log);
+
+    // b gets hibernated, while a runs.
+    a.unpark.run();
+    manager.execute(1);
+    assertEquals(1, hibernation.getHibernated());
+    var stack = Stack.stack((ITransformedRunnable) b);
+    assertNull(stack.first.next);
+    assertEquals(0, stack.first.localInts.length);
+
+    // b gets restored, while a gets hibernated.
+    b.unpark.run();
+    manager.execute(1);
+    assertEquals(1, hibernation.getHibernated());
+    a.unpark.run();
+    manager.execute(1);
+    assertEquals(List.of(
+      "a:0:start", "b:0:start",
+      "a:0:end:6", "a:1:start",
+      "b:0:end:6", "b:1:start",
+      "a:1:end:7", "a:2:start"), log);
+  }
+
+  /**
+   * Test that cancelled hibernated serial threads are dropped.
+   */
+  @Test
+  @Timeout(10)
+  void testCancel() {
+    var log = new ArrayList<String>();
+    var a = new Session("a", log);
+    var b = new Session("b", log);
+    manager = new ParkingSerialThreadManager(a, b);
+    manager.setHibernation(hibernation);
+    manager.execute(1);
+    a.unpark.run();
+    manager.execute(1);
+    assertEquals(1, hibernation.getHibernated());
+
+    manager.cancel(b);
+    a.unpark.run();
+    manager.execute(1);
+    assertEquals(0, hibernation.getHibernated());
+    b.unpark.run();
+    a.unpark.run();
+    manager.execute(1);
+    assertEquals(List.of(
+      "a:0:start", "b:0:start",
+      "a:0:end:6", "a:1:start",
+      "a:1:end:7", "a:2:start",
+      "a:2:end:8", "a:3:start"), log);
+  }
+
+  /**
+   * Test that checkpoints contain the hibernated serial threads.
+   */
+  @Test
+  @Timeout(10)
+  void testCheckpoint() throws IOException {
+    var log = new ArrayList<String>();
+    var a = new Session("a", log);
+    var b = new Session("b", log);
+    manager = new ParkingSerialThreadManager(a, b);
+    manager.setHibernation(hibernation);
+    manager.execute(1);
+    a.unpark.run();
+    manager.execute(1);
+    assertEquals(1, hibernation.getHibernated());
+
+    var file = directory.resolve("checkpoint");
+    manager.checkpoint(file);
+    assertEquals(0, hibernation.getHibernated());
+
+    var restoredLog = new ArrayList<String>();
+    var restoredA = new Session("a", restoredLog);
+    var restoredB = new Session("b", restoredLog);
+    try (var restored = new ParkingSerialThreadManager(restoredA, restoredB)) {
+      restored.restore(file);
+      restored.execute(1);
+    }
+    assertEquals(List.of("a:1:end:7", "a:2:start", "b:0:end:6", "b:1:start"), restoredLog);
+  }
+
+  /**
+   * Serial thread parking with nested frames.
+   */
+  public static class Session implements IRunnable {
+    private final String name;
+    private final List<String> log;
+    private Runnable unpark;
+
+    public Session(String name, List<String> log) {
+      this.name = name;
+      this.log = log;
+    }
+
+    @Override
+    @Interruptible
+    public void run() {
+      for (int i = 0; true; i++) {
+        visit(i, name + ":" + i);
+      }
+    }
+
+    @Interruptible
+    private void visit(int i, String prefix) {
+      int visits = i + 6;
+      log.add(prefix + ":start");
+      await();
+      log.add(prefix + ":end:" + visits);
+    }
+
+    @Interruptible
+    private void await() {
+      ParkingSerialThreadManager.current().requestPark(unpark -> this.unpark = unpark);
+      park();
+    }
+  }
+}
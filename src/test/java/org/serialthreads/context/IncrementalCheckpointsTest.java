@@ -0,0 +1,261 @@
+package org.serialthreads.context;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.serialthreads.Interruptible;
+import org.serialthreads.agent.Transform;
+import org.serialthreads.transformer.classcache.IClassInfoCache;
+import org.serialthreads.transformer.strategies.frequent4.FrequentInterruptsTransformer4;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.serialthreads.SerialThreads.park;
+
+/**
+ * Test for {@link IncrementalCheckpoints}.
+ */
+@Transform(transformer = IncrementalCheckpointsTest.TrackingTransformer.class)
+class IncrementalCheckpointsTest {
+  private Path directory;
+  private Path file;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    directory = Files.createTempDirectory("checkpoints");
+    file = directory.resolve("checkpoint");
+  }
+
+  @AfterEach
+  void tearDown() throws IOException {
+    try (var files = Files.list(directory)) {
+      for (var path : files.toList()) {
+        Files.delete(path);
+      }
+    }
+    Files.delete(directory);
+  }
+
+  /**
+   * Test that the capture code marks only the modified frames as dirty.
+   */
+  @Test
+  @Timeout(10)
+  void testDirty() {
+    var log = new ArrayList<String>();
+    var nested = new Nested("a", log);
+    var manager = new SimpleSerialThreadManager(nested);
+    manager.execute(2);
+    var stack = Stack.stack((ITransformedRunnable) nested);
+    assertEquals(3, dirtyFrames(stack));
+
+    stack.markClean();
+    manager.execute(1);
+    assertEquals(1, dirtyFrames(stack));
+  }
+
+  /**
+   * Test restoring the base and the deltas into new serial threads.
+   */
+  @Test
+  @Timeout(10)
+  void testRestore() throws IOException {
+    var log = new ArrayList<String>();
+    var manager = new SimpleSerialThreadManager(new Nested("a", log), new Nested("b", log));
+    var checkpoints = new IncrementalCheckpoints(manager, file, 10);
+    manager.execute(2);
+    checkpoints.checkpoint();
+    long baseSize = Files.size(file);
+    manager.execute(1);
+    checkpoints.checkpoint();
+    manager.execute(3);
+    checkpoints.checkpoint();
+    assertEquals(2, checkpoints.getDeltas());
+    assertTrue(Files.size(delta(1)) < baseSize, "Delta " + Files.size(delta(1)) + " vs base " + baseSize);
+    int checkpointed = log.size();
+    manager.execute(4);
+    var expected = log.subList(checkpointed, log.size());
+
+    var restoredLog = new ArrayList<String>();
+    var restored = new SimpleSerialThreadManager(new Nested("a", restoredLog), new Nested("b", restoredLog));
+    var restoredCheckpoints = new IncrementalCheckpoints(restored, file, 10);
+    restoredCheckpoints.restore();
+    assertEquals(2, restoredCheckpoints.getDeltas());
+    restored.execute(4);
+    assertEquals(expected, restoredLog);
+  }
+
+  /**
+   * Test that a new base is written after the maximum number of deltas.
+   */
+  @Test
+  @Timeout(10)
+  void testCompaction() throws IOException {
+    var log = new ArrayList<String>();
+    var manager = new SimpleSerialThreadManager(new Nested("a", log));
+    var checkpoints = new IncrementalCheckpoints(manager, file, 2);
+    for (int i = 0; i < 3; i++) {
+      manager.execute(1);
+      checkpoints.checkpoint();
+    }
+    assertEquals(2, checkpoints.getDeltas());
+    assertTrue(Files.exists(delta(2)));
+
+    manager.execute(1);
+    checkpoints.checkpoint();
+    assertEquals(0, checkpoints.getDeltas());
+    assertFalse(Files.exists(delta(1)));
+    assertFalse(Files.exists(delta(2)));
+  }
+
+  /**
+   * Test that deltas of a previous base are ignored, e.g. after a crash during compaction.
+   */
+  @Test
+  @Timeout(10)
+  void testRestore_staleDelta() throws IOException {
+    var log = new ArrayList<String>();
+    var manager = new SimpleSerialThreadManager(new Nested("a", log));
+    var checkpoints = new IncrementalCheckpoints(manager, file, 1);
+    manager.execute(2);
+    checkpoints.checkpoint();
+    manager.execute(1);
+    checkpoints.checkpoint();
+    var stale = directory.resolve("stale");
+    Files.copy(delta(1), stale);
+    manager.execute(1);
+    checkpoints.checkpoint();
+    Files.move(stale, delta(1), REPLACE_EXISTING);
+
+    var restoredLog = new ArrayList<String>();
+    var restored = new SimpleSerialThreadManager(new Nested("a", restoredLog));
+    var restoredCheckpoints = new IncrementalCheckpoints(restored, file, 1);
+    restoredCheckpoints.restore();
+    assertEquals(0, restoredCheckpoints.getDeltas());
+    restored.execute(1);
+    assertEquals(List.of("a:1:1"), restoredLog);
+  }
+
+  /**
+   * Test that deltas contain just the serial threads which ran, even if the others are hibernated.
+   */
+  @Test
+  @Timeout(10)
+  void testDelta_hibernated() throws IOException {
+    var log = new ArrayList<String>();
+    var a = new Parking("a", log);
+    var b = new Parking("b", log);
+    try (var hibernation = new Hibernation(directory.resolve("swap"), Duration.ZERO);
+         var manager = new ParkingSerialThreadManager(a, b)) {
+      manager.setHibernation(hibernation);
+      var checkpoints = new IncrementalCheckpoints(manager, file, 10);
+      manager.execute(1);
+      checkpoints.checkpoint();
+
+      // b gets hibernated, while a runs.
+      a.unpark.run();
+      manager.execute(1);
+      assertEquals(1, hibernation.getHibernated());
+      checkpoints.checkpoint();
+
+      var layout = new StackLayout(2);
+      Checkpoint.readLayout(delta(1), layout);
+      assertNotNull(layout.getActivations(0));
+      assertNull(layout.getActivations(1));
+    }
+  }
+
+  private Path delta(int sequence) {
+    return directory.resolve("checkpoint." + sequence);
+  }
+
+  private static int dirtyFrames(Stack stack) {
+    int result = 0;
+    for (var frame = stack.first; frame != null; frame = frame.next) {
+      if (frame.modified) {
+        result++;
+      }
+    }
+    return result;
+  }
+
+  public static class Nested implements IRunnable {
+    private final String name;
+    private final List<String> log;
+
+    public Nested(String name, List<String> log) {
+      this.name = name;
+      this.log = log;
+    }
+
+    @Override
+    @Interruptible
+    public void run() {
+      for (int i = 0; true; i++) {
+        outer(name + ":" + i);
+      }
+    }
+
+    @Interruptible
+    private void outer(String prefix) {
+      inner(prefix, 3);
+      log.add(prefix + ":done");
+    }
+
+    @Interruptible
+    private void inner(String prefix, int steps) {
+      for (int j = 0; j < steps; j++) {
+        log.add(prefix + ":" + j);
+        park();
+      }
+    }
+  }
+
+  public static class Parking implements IRunnable {
+    private final String name;
+    private final List<String> log;
+    private Runnable unpark;
+
+    public Parking(String name, List<String> log) {
+      this.name = name;
+      this.log = log;
+    }
+
+    @Override
+    @Interruptible
+    public void run() {
+      for (int i = 0; true; i++) {
+        log.add(name + ":" + i);
+        await();
+      }
+    }
+
+    @Interruptible
+    private void await() {
+      ParkingSerialThreadManager.current().requestPark(unpark -> this.unpark = unpark);
+      park();
+    }
+  }
+
+  /**
+   * {@link FrequentInterruptsTransformer4} tracking modifications of frames.
+   */
+  public static class TrackingTransformer extends FrequentInterruptsTransformer4 {
+    public TrackingTransformer(IClassInfoCache classInfoCache) {
+      super(classInfoCache);
+      trackModifications();
+    }
+  }
+}
@@ -0,0 +1,70 @@
+package org.serialthreads.context;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test for {@link MpscQueue}.
+ */
+class MpscQueueTest {
+  @Test
+  void testOfferPoll() {
+    var queue = new MpscQueue<String>();
+    assertTrue(queue.isEmpty());
+    assertNull(queue.poll());
+
+    queue.offer("a");
+    queue.offer("b");
+    assertFalse(queue.isEmpty());
+    assertEquals("a", queue.poll());
+    assertEquals("b", queue.poll());
+    assertTrue(queue.isEmpty());
+    assertNull(queue.poll());
+  }
+
+  /**
+   * Test that no elements get lost and that the order of each producer is kept.
+   */
+  @Test
+  @Timeout(10)
+  void testConcurrentProducers() throws Exception {
+    var queue = new MpscQueue<int[]>();
+    int producers = 4;
+    int elements = 100_000;
+
+    var threads = new ArrayList<Thread>();
+    for (int p = 0; p < producers; p++) {
+      int producer = p;
+      var thread = new Thread(() -> {
+        for (int i = 0; i < elements; i++) {
+          queue.offer(new int[]{producer, i});
+        }
+      });
+      threads.add(thread);
+      thread.start();
+    }
+
+    var next = new int[producers];
+    for (int polled = 0; polled < producers * elements; ) {
+      var element = queue.poll();
+      if (element == null) {
+        Thread.onSpinWait();
+        continue;
+      }
+      assertEquals(next[element[0]]++, element[1]);
+      polled++;
+    }
+    for (var thread : threads) {
+      thread.join();
+    }
+
+    assertTrue(queue.isEmpty());
+  }
+}
@@ -0,0 +1,150 @@
+package org.serialthreads.context;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.serialthreads.Interruptible;
+import org.serialthreads.agent.Transform;
+import org.serialthreads.transformer.strategies.frequent4.FrequentInterruptsTransformer4;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.serialthreads.SerialThreads.park;
+
+/**
+ * Test for {@link ParallelSerialThreadManager}.
+ */
+@Transform(transformer = FrequentInterruptsTransformer4.class)
+class ParallelSerialThreadManagerTest {
+  private static final int AGENTS = 100;
+  private static final int ROUNDS = 50;
+
+  /**
+   * Test that the result is deterministic regardless of the partitioning.
+   */
+  @Test
+  @Timeout(10)
+  void testExecute_deterministic() {
+    var expected = simulateSequentially();
+    var pool = new ForkJoinPool(4);
+    try {
+      for (int partitions : new int[]{1, 3, 8, AGENTS, 2 * AGENTS}) {
+        var world = new World();
+        var manager = new ParallelSerialThreadManager(pool, partitions, world::swap, world.agents());
+        manager.execute(ROUNDS);
+        assertArrayEquals(expected, world.current, "partitions " + partitions);
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  /**
+   * Test that execution stops after the round in which a serial thread finished.
+   */
+  @Test
+  @Timeout(10)
+  void testExecute_finished() {
+    var counters = new Counter[]{new Counter(Integer.MAX_VALUE), new Counter(5), new Counter(Integer.MAX_VALUE)};
+    var manager = new ParallelSerialThreadManager(null, counters);
+    manager.execute();
+
+    // The second counter finishes in the 6th round, which gets completed by all counters.
+    assertEquals(6, counters[0].count);
+    assertEquals(5, counters[1].count);
+    assertEquals(6, counters[2].count);
+  }
+
+  /**
+   * Compute the expected result sequentially.
+   */
+  private static double[] simulateSequentially() {
+    var current = World.initial();
+    for (int round = 0; round < ROUNDS; round++) {
+      var next = new double[AGENTS];
+      for (int i = 0; i < AGENTS; i++) {
+        next[i] = World.step(current, i);
+      }
+      current = next;
+    }
+    return current;
+  }
+
+  /**
+   * Double-buffered state of all agents.
+   */
+  private static class World {
+    private double[] current = initial();
+    private double[] next = new double[AGENTS];
+
+    private static double[] initial() {
+      var result = new double[AGENTS];
+      for (int i = 0; i < AGENTS; i++) {
+        result[i] = i % 7;
+      }
+      return result;
+    }
+
+    /**
+     * Next state of an agent, depending on the last state of it and its neighbours.
+     */
+    private static double step(double[] state, int i) {
+      double left = state[(i + AGENTS - 1) % AGENTS];
+      double right = state[(i + 1) % AGENTS];
+      return Math.sin(state[i]) + 0.5 * (left - right);
+    }
+
+    private void swap() {
+      var swap = current;
+      current = next;
+      next = swap;
+    }
+
+    private IRunnable[] agents() {
+      var result = new IRunnable[AGENTS];
+      for (int i = 0; i < AGENTS; i++) {
+        result[i] = new Agent(this, i);
+      }
+      return result;
+    }
+  }
+
+  public static class Agent implements IRunnable {
+    private final World world;
+    private final int index;
+
+    private Agent(World world, int index) {
+      this.world = world;
+      this.index = index;
+    }
+
+    @Override
+    @Interruptible
+    public void run() {
+      while (true) {
+        var world = this.world;
+        world.next[index] = World.step(world.current, index);
+        park();
+      }
+    }
+  }
+
+  public static class Counter implements IRunnable {
+    private final int rounds;
+    public int count;
+
+    public Counter(int rounds) {
+      this.rounds = rounds;
+    }
+
+    @Override
+    @Interruptible
+    public void run() {
+      while (count < rounds) {
+        count++;
+        park();
+      }
+    }
+  }
+}
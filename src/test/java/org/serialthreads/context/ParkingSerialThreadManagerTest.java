@@ -0,0 +1,157 @@
+package org.serialthreads.context;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.serialthreads.Interruptible;
+import org.serialthreads.agent.Transform;
+import org.serialthreads.transformer.strategies.frequent4.FrequentInterruptsTransformer4;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.serialthreads.SerialThreads.offload;
+import static org.serialthreads.SerialThreads.park;
+
+/**
+ * Test for {@link ParkingSerialThreadManager}.
+ */
+@Transform(transformer = FrequentInterruptsTransformer4.class)
+class ParkingSerialThreadManagerTest {
+  private SerialThreadManager manager;
+
+  @AfterEach
+  void tearDown() {
+    if (manager != null) {
+      manager.close();
+    }
+  }
+
+  /**
+   * Test that other serial threads keep running while a blocking call is offloaded.
+   */
+  @Test
+  @Timeout(10)
+  void testOffload() {
+    var sleeper = new Sleeper();
+    var counter = new Counter();
+    manager = new ParkingSerialThreadManager(sleeper, counter);
+    manager.execute();
+
+    assertEquals("done", sleeper.result);
+    assertTrue(counter.countWhileSleeping > 0);
+  }
+
+  /**
+   * Test that all idle strategies wait for parked serial threads to be unparked.
+   */
+  @Test
+  @Timeout(10)
+  void testIdleStrategies() {
+    for (var idleStrategy : List.of(IdleStrategy.SPIN, IdleStrategy.ON_SPIN_WAIT, IdleStrategy.YIELD, IdleStrategy.PARK, IdleStrategy.parkNanos(1000))) {
+      var sleeper = new Sleeper();
+      manager = new ParkingSerialThreadManager(idleStrategy, sleeper);
+      manager.execute();
+
+      assertEquals("done", sleeper.result);
+    }
+  }
+
+  /**
+   * Test that failures of offloaded calls are thrown in the serial thread.
+   */
+  @Test
+  @Timeout(10)
+  void testOffload_exception() {
+    var failing = new Failing();
+    manager = new ParkingSerialThreadManager(failing);
+    manager.execute();
+
+    assertEquals("failed", failing.message);
+  }
+
+  /**
+   * Test that the plain park interrupt just yields.
+   */
+  @Test
+  void testPark_notRequested() {
+    var yielding = new Yielding();
+    manager = new ParkingSerialThreadManager(yielding);
+    manager.execute(1);
+    assertEquals(1, yielding.value);
+    manager.execute(1);
+    assertEquals(2, yielding.value);
+    manager.execute();
+    assertEquals(3, yielding.value);
+  }
+
+  private static volatile boolean sleeping;
+
+  public static class Sleeper implements IRunnable {
+    public String result;
+
+    @Override
+    @Interruptible
+    public void run() {
+      try {
+        result = offload(() -> {
+          sleeping = true;
+          Thread.sleep(100);
+          sleeping = false;
+          return "done";
+        });
+      } catch (Exception e) {
+        result = e.getMessage();
+      }
+    }
+  }
+
+  public static class Counter implements IRunnable {
+    public int countWhileSleeping;
+
+    @Override
+    @Interruptible
+    public void run() {
+      // yield until sleeper has been started
+      while (!sleeping) {
+        park();
+      }
+      while (sleeping) {
+        countWhileSleeping++;
+        park();
+      }
+    }
+  }
+
+  public static class Failing implements IRunnable {
+    public String message;
+
+    @Override
+    @Interruptible
+    public void run() {
+      try {
+        offload(() -> {
+          throw new IOException("failed");
+        });
+      } catch (Exception e) {
+        message = e.getMessage();
+      }
+    }
+  }
+
+  public static class Yielding implements IRunnable {
+    public int value;
+
+    @Override
+    @Interruptible
+    public void run() {
+      value++;
+      park();
+      value++;
+      park();
+      value++;
+    }
+  }
+}
@@ -0,0 +1,186 @@
+package org.serialthreads.context;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.serialthreads.Interruptible;
+import org.serialthreads.agent.Transform;
+import org.serialthreads.transformer.classcache.IClassInfoCache;
+import org.serialthreads.transformer.strategies.frequent4.FrequentInterruptsTransformer4;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.serialthreads.SerialThreads.park;
+
+/**
+ * Test for {@link RoundHistory}.
+ */
+@Transform(transformer = RoundHistoryTest.TrackingTransformer.class)
+class RoundHistoryTest {
+  /**
+   * Test rewinding rounds and re-simulating them, while the stacks grow and shrink.
+   */
+  @Test
+  @Timeout(10)
+  void testRewind() {
+    var log = new ArrayList<String>();
+    var manager = new SimpleSerialThreadManager(new Climber("a", log), new Climber("b", log));
+    var history = new RoundHistory(manager, 10);
+    var sizes = new ArrayList<Integer>();
+    for (int i = 0; i < 7; i++) {
+      manager.execute(1);
+      history.record();
+      sizes.add(log.size());
+    }
+    assertEquals(6, history.getRounds());
+
+    var expected = new ArrayList<>(log.subList(sizes.get(3), sizes.get(6)));
+    history.rewind(3);
+    assertEquals(3, history.getRounds());
+    log.clear();
+    manager.execute(3);
+    assertEquals(expected, log);
+  }
+
+  /**
+   * Test that modifications since the last record are reverted.
+   */
+  @Test
+  @Timeout(10)
+  void testRewind_unrecorded() {
+    var log = new ArrayList<String>();
+    var manager = new SimpleSerialThreadManager(new Climber("a", log));
+    var history = new RoundHistory(manager, 10);
+    manager.execute(2);
+    history.record();
+    int recorded = log.size();
+    manager.execute(1);
+    var expected = new ArrayList<>(log.subList(recorded, log.size()));
+
+    history.rewind(0);
+    log.clear();
+    manager.execute(1);
+    assertEquals(expected, log);
+  }
+
+  /**
+   * Test that only the given number of rounds is kept.
+   */
+  @Test
+  @Timeout(10)
+  void testRewind_capacity() {
+    var log = new ArrayList<String>();
+    var manager = new SimpleSerialThreadManager(new Climber("a", log));
+    var history = new RoundHistory(manager, 3);
+    for (int i = 0; i < 6; i++) {
+      manager.execute(1);
+      history.record();
+    }
+    assertEquals(3, history.getRounds());
+    assertThrows(IllegalArgumentException.class, () -> history.rewind(4));
+  }
+
+  /**
+   * Test that frames are recorded just once per round, even if their dirty marks get cleared during the round,
+   * e.g. by incremental checkpoints.
+   */
+  @Test
+  @Timeout(10)
+  void testRewind_markedClean() {
+    var log = new ArrayList<String>();
+    var manager = new SimpleSerialThreadManager(new Climber("a", log));
+    var history = new RoundHistory(manager, 10);
+    manager.execute(2);
+    history.record();
+    int recorded = log.size();
+    manager.execute(1);
+    for (var stack : manager.getManagedStacks()) {
+      stack.markClean();
+    }
+    manager.execute(1);
+    history.record();
+    var expected = new ArrayList<>(log.subList(recorded, log.size()));
+
+    history.rewind(1);
+    log.clear();
+    manager.execute(2);
+    assertEquals(expected, log);
+  }
+
+  /**
+   * Test that restoring a checkpoint detaches the history, so it starts from scratch.
+   */
+  @Test
+  @Timeout(10)
+  void testRewind_restored() throws IOException {
+    var file = Files.createTempFile("checkpoint", ".bin");
+    try {
+      var log = new ArrayList<String>();
+      var manager = new SimpleSerialThreadManager(new Climber("a", log), new Climber("b", log));
+      var history = new RoundHistory(manager, 10);
+      history.record();
+      manager.execute(1);
+      history.record();
+      manager.checkpoint(file);
+      manager.execute(1);
+      history.record();
+
+      manager.restore(file);
+      for (var stack : manager.getManagedStacks()) {
+        assertNull(stack.history);
+      }
+      assertThrows(IllegalStateException.class, () -> history.rewind(0));
+      history.record();
+      assertEquals(0, history.getRounds());
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  /**
+   * Serial thread with a varying number of frames.
+   */
+  public static class Climber implements IRunnable {
+    private final String name;
+    private final List<String> log;
+
+    public Climber(String name, List<String> log) {
+      this.name = name;
+      this.log = log;
+    }
+
+    @Override
+    @Interruptible
+    public void run() {
+      for (int i = 0; true; i++) {
+        climb(i % 4, name + ":" + i);
+      }
+    }
+
+    @Interruptible
+    private void climb(int depth, String prefix) {
+      if (depth > 0) {
+        climb(depth - 1, prefix);
+        log.add(prefix + ":" + depth);
+      } else {
+        park();
+        log.add(prefix);
+      }
+    }
+  }
+
+  /**
+   * {@link FrequentInterruptsTransformer4} tracking modifications of frames.
+   */
+  public static class TrackingTransformer extends FrequentInterruptsTransformer4 {
+    public TrackingTransformer(IClassInfoCache classInfoCache) {
+      super(classInfoCache);
+      trackModifications();
+    }
+  }
+}
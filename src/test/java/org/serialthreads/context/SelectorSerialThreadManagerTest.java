@@ -0,0 +1,248 @@
+package org.serialthreads.context;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.serialthreads.Interruptible;
+import org.serialthreads.agent.Transform;
+import org.serialthreads.transformer.strategies.frequent4.FrequentInterruptsTransformer4;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Pipe;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.serialthreads.SerialChannels.accept;
+import static org.serialthreads.SerialChannels.awaitReadable;
+import static org.serialthreads.SerialChannels.connect;
+import static org.serialthreads.SerialChannels.read;
+import static org.serialthreads.SerialChannels.write;
+
+/**
+ * Test for {@link SelectorSerialThreadManager}.
+ */
+@Transform(transformer = FrequentInterruptsTransformer4.class)
+class SelectorSerialThreadManagerTest {
+  private SerialThreadManager manager;
+  private ServerSocketChannel serverChannel;
+  private Pipe pipe;
+
+  @AfterEach
+  void tearDown() throws Exception {
+    if (manager != null) {
+      manager.close();
+    }
+    if (serverChannel != null) {
+      serverChannel.close();
+    }
+    if (pipe != null) {
+      pipe.source().close();
+      pipe.sink().close();
+    }
+  }
+
+  /**
+   * Test echoing messages between serial threads via loopback.
+   */
+  @Test
+  @Timeout(10)
+  void testEcho() throws Exception {
+    serverChannel = ServerSocketChannel.open();
+    serverChannel.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+    serverChannel.configureBlocking(false);
+
+    var server = new EchoServer(serverChannel, 3);
+    var clients = new EchoClient[3];
+    for (int i = 0; i < clients.length; i++) {
+      clients[i] = new EchoClient(serverChannel.getLocalAddress(), "message " + i);
+    }
+    var runnables = new IRunnable[1 + clients.length];
+    runnables[0] = server;
+    System.arraycopy(clients, 0, runnables, 1, clients.length);
+
+    manager = new SelectorSerialThreadManager(runnables);
+    manager.execute();
+
+    for (int i = 0; i < clients.length; i++) {
+      assertEquals("message " + i, clients[i].reply);
+    }
+  }
+
+  /**
+   * Test that several serial threads may wait for the same channel.
+   */
+  @Test
+  @Timeout(10)
+  void testSameChannel() throws Exception {
+    pipe = Pipe.open();
+    pipe.source().configureBlocking(false);
+
+    var first = new PipeReader(pipe.source());
+    var second = new PipeReader(pipe.source());
+    var writer = new PipeWriter(pipe.sink(), "ab");
+    var manager = new SelectorSerialThreadManager(first, second, writer);
+    this.manager = manager;
+    manager.execute();
+
+    assertEquals("a", first.read);
+    assertEquals("b", second.read);
+    assertEquals(0, manager.getWaiting());
+  }
+
+  /**
+   * Test that cancelled serial threads stop waiting for their channel.
+   */
+  @Test
+  @Timeout(10)
+  void testCancel() throws Exception {
+    pipe = Pipe.open();
+    pipe.source().configureBlocking(false);
+
+    var reader = new PipeReader(pipe.source());
+    var manager = new SelectorSerialThreadManager(reader, new Canceller(reader));
+    this.manager = manager;
+    manager.execute();
+
+    assertNull(reader.read);
+    assertEquals(0, manager.getWaiting());
+  }
+
+  /**
+   * Accepts the given number of connections and echoes one message per connection.
+   */
+  public static class EchoServer implements IRunnable {
+    private final ServerSocketChannel serverChannel;
+    private final int connections;
+
+    public EchoServer(ServerSocketChannel serverChannel, int connections) {
+      this.serverChannel = serverChannel;
+      this.connections = connections;
+    }
+
+    @Override
+    @Interruptible
+    public void run() {
+      try {
+        for (int i = 0; i < connections; i++) {
+          var channel = accept(serverChannel);
+          var buffer = ByteBuffer.allocate(256);
+          while (read(channel, buffer) >= 0 && buffer.get(buffer.position() - 1) != '\n') {
+            // read until end of line
+          }
+          buffer.flip();
+          write(channel, buffer);
+          channel.close();
+        }
+      } catch (IOException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+  }
+
+  /**
+   * Sends one message and receives the echo.
+   */
+  public static class EchoClient implements IRunnable {
+    private final SocketAddress address;
+    private final String message;
+    public String reply;
+
+    public EchoClient(SocketAddress address, String message) {
+      this.address = address;
+      this.message = message;
+    }
+
+    @Override
+    @Interruptible
+    public void run() {
+      try {
+        var channel = SocketChannel.open();
+        channel.configureBlocking(false);
+        connect(channel, address);
+        write(channel, ByteBuffer.wrap((message + "\n").getBytes(UTF_8)));
+        var buffer = ByteBuffer.allocate(256);
+        while (read(channel, buffer) >= 0 && buffer.get(buffer.position() - 1) != '\n') {
+          // read until end of line
+        }
+        buffer.flip();
+        reply = UTF_8.decode(buffer).toString().trim();
+        channel.close();
+      } catch (IOException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+  }
+
+  /**
+   * Reads one byte from a pipe.
+   */
+  public static class PipeReader implements IRunnable {
+    private final Pipe.SourceChannel source;
+    public String read;
+
+    public PipeReader(Pipe.SourceChannel source) {
+      this.source = source;
+    }
+
+    @Override
+    @Interruptible
+    public void run() {
+      try {
+        var buffer = ByteBuffer.allocate(1);
+        while (source.read(buffer) == 0) {
+          awaitReadable(source);
+        }
+        read = UTF_8.decode(buffer.flip()).toString();
+      } catch (IOException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+  }
+
+  /**
+   * Writes a message to a pipe.
+   */
+  public static class PipeWriter implements IRunnable {
+    private final Pipe.SinkChannel sink;
+    private final String message;
+
+    public PipeWriter(Pipe.SinkChannel sink, String message) {
+      this.sink = sink;
+      this.message = message;
+    }
+
+    @Override
+    @Interruptible
+    public void run() {
+      try {
+        sink.write(ByteBuffer.wrap(message.getBytes(UTF_8)));
+      } catch (IOException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+  }
+
+  /**
+   * Cancels another serial thread.
+   */
+  public static class Canceller implements IRunnable {
+    private final IRunnable runnable;
+
+    public Canceller(IRunnable runnable) {
+      this.runnable = runnable;
+    }
+
+    @Override
+    @Interruptible
+    public void run() {
+      ParkingSerialThreadManager.current().cancel(runnable);
+    }
+  }
+}
@@ -0,0 +1,150 @@
+package org.serialthreads.context;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.serialthreads.Interruptible;
+import org.serialthreads.agent.Transform;
+import org.serialthreads.transformer.strategies.frequent4.FrequentInterruptsTransformer4;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.serialthreads.SerialThreads.park;
+
+/**
+ * Test for {@link SpecializedSerialThreadManager}.
+ */
+@Transform(transformer = FrequentInterruptsTransformer4.class)
+class SpecializedSerialThreadManagerTest {
+  /**
+   * Test that serial threads are executed batch by batch, in the order their classes appeared.
+   */
+  @Test
+  @Timeout(10)
+  void testExecute() {
+    var log = new ArrayList<String>();
+    var manager = new SpecializedSerialThreadManager(
+      new A("a1", log), new B("b1", log), new A("a2", log), new Counting("c1", 3, log), new B("b2", log));
+    assertEquals(3, manager.getBatches());
+
+    manager.execute(2);
+    assertEquals(List.of(
+      "a1", "a2", "b1", "b2", "c1",
+      "a1", "a2", "b1", "b2", "c1"), log);
+  }
+
+  /**
+   * Test that finished serial threads get removed and execution stops, when all serial threads finished.
+   */
+  @Test
+  @Timeout(10)
+  void testExecute_finished() {
+    var log = new ArrayList<String>();
+    var manager = new SpecializedSerialThreadManager(
+      new Counting("c1", 1, log), new Counting("c2", 3, log), new Counting("c3", 1, log), new Counting("c4", 2, log));
+    manager.execute();
+
+    assertEquals(List.of(
+      "c1", "c2", "c3", "c4",
+      "c2", "c4",
+      "c2"), log);
+    assertEquals(0, manager.getBatches());
+  }
+
+  /**
+   * Test that serial threads of new classes can be added and that batches of finished classes get removed.
+   */
+  @Test
+  @Timeout(10)
+  void testSpawn() {
+    var log = new ArrayList<String>();
+    var manager = new SpecializedSerialThreadManager(new Counting("c1", 1, log), new A("a1", log));
+    manager.execute(2);
+    assertEquals(1, manager.getBatches());
+
+    manager.spawn(new B("b1", log));
+    manager.spawn(new A("a2", log));
+    assertEquals(2, manager.getBatches());
+
+    manager.execute(1);
+    assertEquals(List.of(
+      "c1", "a1",
+      "a1",
+      "a1", "a2", "b1"), log);
+  }
+
+  /**
+   * Test that the loops are hidden classes, shared per concrete class.
+   */
+  @Test
+  void testLoop() {
+    var loop = ExecutorLoopGenerator.loop(A.class);
+    assertTrue(loop.getClass().isHidden());
+    assertSame(A.class.getPackage(), loop.getClass().getPackage());
+    assertSame(loop, ExecutorLoopGenerator.loop(A.class));
+    assertNotSame(loop, ExecutorLoopGenerator.loop(B.class));
+  }
+
+  public static class A implements IRunnable {
+    private final String name;
+    private final List<String> log;
+
+    public A(String name, List<String> log) {
+      this.name = name;
+      this.log = log;
+    }
+
+    @Override
+    @Interruptible
+    public void run() {
+      while (true) {
+        log.add(name);
+        park();
+      }
+    }
+  }
+
+  public static class B implements IRunnable {
+    private final String name;
+    private final List<String> log;
+
+    public B(String name, List<String> log) {
+      this.name = name;
+      this.log = log;
+    }
+
+    @Override
+    @Interruptible
+    public void run() {
+      while (true) {
+        log.add(name);
+        park();
+      }
+    }
+  }
+
+  public static class Counting implements IRunnable {
+    private final String name;
+    private final int rounds;
+    private final List<String> log;
+
+    public Counting(String name, int rounds, List<String> log) {
+      this.name = name;
+      this.rounds = rounds;
+      this.log = log;
+    }
+
+    @Override
+    @Interruptible
+    public void run() {
+      for (int i = 0; i < rounds; i++) {
+        log.add(name);
+        park();
+      }
+    }
+  }
+}
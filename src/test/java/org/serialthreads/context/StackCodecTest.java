@@ -0,0 +1,80 @@
+package org.serialthreads.context;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test for {@link StackCodec}.
+ */
+class StackCodecTest {
+  /**
+   * Test encoding and decoding of all kinds of values.
+   */
+  @Test
+  void testEncodeDecode() {
+    var owner = new Object();
+    var codec = new StackCodec(new ReferenceCodec(List.of(owner)));
+
+    var stack = new Stack("source", 8);
+    var first = stack.first;
+    first.owner = owner;
+    first.method = 3;
+    first.stackInts[2] = 5;
+    first.stackObjects[1] = "object";
+    first.stackObject3 = 42L;
+    first.localDoubles[7] = -0.0;
+    first.localFloat7 = 1.5f;
+    var second = stack.addFrame(first);
+    second.method = 1;
+    second.localLongs[0] = 7;
+    second.localInts = new int[16];
+    second.localInts[15] = 11;
+    stack.frame = second;
+    stack.returnInt = 9;
+    stack.returnObject = "return";
+
+    var target = new Stack("target", 8);
+    target.first.stackInts[5] = 99;
+    target.first.localObject0 = "stale";
+    codec.decode(codec.encode(stack), target);
+
+    var decoded = target.first;
+    assertSame(owner, decoded.owner);
+    assertEquals(3, decoded.method);
+    assertEquals(5, decoded.stackInts[2]);
+    assertEquals(0, decoded.stackInts[5]);
+    assertEquals("object", decoded.stackObjects[1]);
+    assertEquals(Long.valueOf(42), decoded.stackObject3);
+    assertNull(decoded.localObject0);
+    assertEquals(Double.doubleToRawLongBits(-0.0), Double.doubleToRawLongBits(decoded.localDoubles[7]));
+    assertEquals(1.5f, decoded.localFloat7);
+    var decodedSecond = decoded.next;
+    assertSame(decodedSecond, target.frame);
+    assertEquals(1, decodedSecond.method);
+    assertEquals(7L, decodedSecond.localLongs[0]);
+    assertEquals(16, decodedSecond.localInts.length);
+    assertEquals(11, decodedSecond.localInts[15]);
+    assertEquals(9, target.returnInt);
+    assertEquals("return", target.returnObject);
+  }
+
+  /**
+   * Test that only the used part of the frames is written and that the buffer gets reused.
+   */
+  @Test
+  void testEncode_compact() {
+    var codec = new StackCodec(new ReferenceCodec(List.of()), 16);
+    var stack = new Stack("stack", 64);
+    stack.addFrame(stack.first);
+
+    var buffer = codec.encode(stack);
+    assertTrue(buffer.remaining() < 400, "Encoded size " + buffer.remaining());
+    assertSame(buffer, codec.encode(stack));
+  }
+}
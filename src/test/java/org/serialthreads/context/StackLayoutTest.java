@@ -0,0 +1,193 @@
+package org.serialthreads.context;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.serialthreads.Interruptible;
+import org.serialthreads.agent.Transform;
+import org.serialthreads.context.StackLayout.Site;
+import org.serialthreads.transformer.strategies.frequent4.FrequentInterruptsTransformer4;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.serialthreads.SerialThreads.park;
+
+/**
+ * Test for {@link StackLayout}.
+ */
+@Transform(transformer = FrequentInterruptsTransformer4.class)
+class StackLayoutTest {
+  /**
+   * Method with two resume points.
+   */
+  private static final String VISIT = "visit(ILjava/lang/String;)V";
+
+  /**
+   * Test that the activations get described by their resume points.
+   */
+  @Test
+  @Timeout(10)
+  void testDescribe() {
+    var log = new ArrayList<String>();
+    var manager = new SimpleSerialThreadManager(new Visitor("a", log), new Visitor("b", log));
+    manager.execute(1);
+    manager.execute(1);
+
+    var layout = StackLayout.describe(manager.getManagedRunnables(), false);
+    assertEquals(List.of("run:0", "visit:1", "await:0"), layout.getActivations(0));
+    assertEquals(List.of("run:0", "visit:1", "await:0"), layout.getActivations(1));
+    assertEquals(2, layout.getSites(VISIT).size());
+  }
+
+  /**
+   * Test that frames of an older build with other method indexes and another order of the locals get remapped.
+   */
+  @Test
+  @Timeout(10)
+  void testRemap() {
+    var log = new ArrayList<String>();
+    var a = new Visitor("a", log);
+    var manager = new SimpleSerialThreadManager(a);
+    manager.execute(1);
+
+    // Simulate an older build with the resume points and the int locals of visit() in reverse order.
+    var layout = StackLayout.describe(manager.getManagedRunnables(), false);
+    var sites = layout.getSites(VISIT);
+    assertEquals(2, sites.get(0).locals().get(1).size());
+    var older = new ArrayList<Site>();
+    for (var site : sites.reversed()) {
+      var locals = new ArrayList<>(site.locals());
+      locals.set(1, locals.get(1).reversed());
+      older.add(new Site(site.call(), site.ordinal(), site.virtual(), site.interrupt(), site.stack(), locals));
+    }
+    layout.replace(VISIT, older, new int[]{1, 0});
+    var stack = Stack.stack((ITransformedRunnable) a);
+    var frame = stack.first.next;
+    frame.method = 1;
+    int localInt0 = frame.localInt0;
+    frame.localInt0 = frame.localInt1;
+    frame.localInt1 = localInt0;
+
+    // Encode like in a checkpoint.
+    var buffer = ByteBuffer.allocate(4096).order(StackCodec.ORDER);
+    layout.write(buffer);
+    var restored = new StackLayout(1);
+    restored.read(buffer.flip());
+    restored.resolve(manager.getManagedRunnables());
+    restored.remap(manager.getManagedStacks());
+    assertEquals(0, frame.method);
+
+    manager.execute(2);
+    assertEquals(List.of("a:0:start", "a:0:middle:6", "a:0:end:6:100", "a:1:start"), log);
+  }
+
+  /**
+   * Test that the method index gets set for frames of an older build with just one resume point in the method,
+   * because the method index is not captured for such methods and may be stale.
+   */
+  @Test
+  @Timeout(10)
+  void testRemap_singleResumePoint() {
+    var log = new ArrayList<String>();
+    var a = new Visitor("a", log);
+    var manager = new SimpleSerialThreadManager(a);
+    manager.execute(1);
+
+    // Simulate an older build with just the first resume point in visit().
+    var layout = StackLayout.describe(manager.getManagedRunnables(), false);
+    assertEquals(List.of("run:0", "visit:0", "await:0"), layout.getActivations(0));
+    layout.replace(VISIT, List.of(layout.getSites(VISIT).getFirst()), new int[]{0, 0});
+    var stack = Stack.stack((ITransformedRunnable) a);
+    var frame = stack.first.next;
+    frame.method = 1;
+
+    var buffer = ByteBuffer.allocate(4096).order(StackCodec.ORDER);
+    layout.write(buffer);
+    var restored = new StackLayout(1);
+    restored.read(buffer.flip());
+    restored.resolve(manager.getManagedRunnables());
+    restored.remap(manager.getManagedStacks());
+    assertEquals(0, frame.method);
+
+    manager.execute(2);
+    assertEquals(List.of("a:0:start", "a:0:middle:6", "a:0:end:6:100", "a:1:start"), log);
+  }
+
+  /**
+   * Test that remapping fails fast, if a call site does not exist anymore.
+   */
+  @Test
+  @Timeout(10)
+  void testResolve_missingCallSite() {
+    var manager = new SimpleSerialThreadManager(new Visitor("a", new ArrayList<>()));
+    manager.execute(1);
+
+    var layout = StackLayout.describe(manager.getManagedRunnables(), false);
+    var older = new ArrayList<>(layout.getSites(VISIT));
+    var site = older.getFirst();
+    older.set(0, new Site("org/serialthreads/Gone.gone()V", 0, false, false, site.stack(), site.locals()));
+    layout.replace(VISIT, older, new int[]{0, 1});
+
+    assertThrows(IllegalArgumentException.class, () -> layout.resolve(manager.getManagedRunnables()));
+  }
+
+  /**
+   * Test that remapping fails fast, if a local has not been captured by the older build.
+   */
+  @Test
+  @Timeout(10)
+  void testResolve_missingLocal() {
+    var manager = new SimpleSerialThreadManager(new Visitor("a", new ArrayList<>()));
+    manager.execute(1);
+
+    var layout = StackLayout.describe(manager.getManagedRunnables(), false);
+    var older = new ArrayList<>(layout.getSites(VISIT));
+    var site = older.getFirst();
+    var locals = new ArrayList<>(site.locals());
+    locals.set(1, locals.get(1).subList(1, locals.get(1).size()));
+    older.set(0, new Site(site.call(), site.ordinal(), site.virtual(), site.interrupt(), site.stack(), locals));
+    layout.replace(VISIT, older, new int[]{0, 1});
+
+    assertThrows(IllegalArgumentException.class, () -> layout.resolve(manager.getManagedRunnables()));
+  }
+
+  /**
+   * Serial thread with several resume points in one method.
+   */
+  public static class Visitor implements IRunnable {
+    private final String name;
+    private final List<String> log;
+
+    public Visitor(String name, List<String> log) {
+      this.name = name;
+      this.log = log;
+    }
+
+    @Override
+    @Interruptible
+    public void run() {
+      for (int i = 0; true; i++) {
+        visit(i, name + ":" + i);
+      }
+    }
+
+    @Interruptible
+    private void visit(int i, String prefix) {
+      int visits = i + 6;
+      int rounds = i + 100;
+      log.add(prefix + ":start");
+      await();
+      log.add(prefix + ":middle:" + visits);
+      await();
+      log.add(prefix + ":end:" + visits + ":" + rounds);
+    }
+
+    @Interruptible
+    private void await() {
+      park();
+    }
+  }
+}
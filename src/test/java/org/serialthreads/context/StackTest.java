@@ -0,0 +1,143 @@
+package org.serialthreads.context;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.serialthreads.Interruptible;
+import org.serialthreads.agent.Transform;
+import org.serialthreads.transformer.classcache.IClassInfoCache;
+import org.serialthreads.transformer.strategies.frequent4.FrequentInterruptsTransformer4;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.serialthreads.SerialThreads.park;
+
+/**
+ * Test for {@link Stack}.
+ */
+@Transform(transformer = StackTest.TrackingTransformer.class)
+class StackTest {
+  /**
+   * Test that a forked serial thread and its source continue independently.
+   */
+  @Test
+  @Timeout(10)
+  void testForkFrom() {
+    var log = new ArrayList<String>();
+    var source = new Walker("a", log);
+    var sourceManager = new SimpleSerialThreadManager(source);
+    sourceManager.execute(3);
+    var fork = new Walker("b", log);
+    var forkManager = new SimpleSerialThreadManager(fork);
+    var sourceStack = Stack.stack((ITransformedRunnable) source);
+    var forkStack = Stack.stack((ITransformedRunnable) fork);
+    forkStack.forkFrom(sourceStack, reference -> reference == source ? fork : reference);
+
+    // The arrays are shared until the next capture or restore.
+    var sourceFrame = sourceStack.first.next;
+    var forkFrame = forkStack.first.next;
+    assertSame(sourceFrame.localInts, forkFrame.localInts);
+    assertSame(sourceFrame.localObjects, forkFrame.localObjects);
+    assertSame(fork, forkStack.first.owner);
+
+    log.clear();
+    sourceManager.execute(3);
+    assertFalse(sourceFrame.shared);
+    assertNotSame(sourceFrame.localInts, forkFrame.localInts);
+    assertTrue(forkFrame.shared);
+    forkManager.execute(3);
+    assertFalse(forkFrame.shared);
+
+    assertEquals(6, log.size());
+    for (int i = 0; i < 3; i++) {
+      assertEquals(log.get(i).replace("a:", "b:"), log.get(i + 3));
+    }
+  }
+
+  /**
+   * Test that a fork shares the arrays and copies them before writing to them.
+   */
+  @Test
+  void testFork() {
+    var stack = new Stack("stack", 8);
+    stack.first.localInts[0] = 1;
+    var second = stack.addFrame(stack.first);
+    second.localObjects[0] = "second";
+    stack.frame = second;
+
+    var fork = stack.fork();
+    assertSame(fork.first.next, fork.frame);
+    assertSame(stack.first.localInts, fork.first.localInts);
+    assertSame(second.localObjects, fork.frame.localObjects);
+
+    fork.frame.reset();
+    assertEquals("second", second.localObjects[0]);
+    assertEquals(null, fork.frame.localObjects[0]);
+    stack.first.unshare();
+    stack.first.localInts[0] = 2;
+    assertEquals(1, fork.first.localInts[0]);
+  }
+
+  /**
+   * Test that restoring a snapshot resets the frames which have been added after it has been taken.
+   */
+  @Test
+  void testCopyFrom_grown() {
+    var stack = new Stack("stack", 8);
+    stack.first.localInts[0] = 1;
+    var snapshot = stack.snapshot();
+
+    var second = stack.addFrame(stack.first);
+    second.owner = this;
+    second.localObjects[0] = "second";
+    stack.frame = second;
+
+    stack.copyFrom(snapshot);
+    assertSame(stack.first, stack.frame);
+    assertEquals(1, stack.first.localInts[0]);
+    assertNull(second.owner);
+    assertNull(second.localObjects[0]);
+  }
+
+  public static class Walker implements IRunnable {
+    private final String name;
+    private final List<String> log;
+
+    public Walker(String name, List<String> log) {
+      this.name = name;
+      this.log = log;
+    }
+
+    @Override
+    @Interruptible
+    public void run() {
+      for (int i = 0; true; i++) {
+        walk(i);
+      }
+    }
+
+    @Interruptible
+    private void walk(int i) {
+      int i1 = i + 1, i2 = i + 2, i3 = i + 3, i4 = i + 4, i5 = i + 5, i6 = i + 6, i7 = i + 7, i8 = i + 8, i9 = i + 9;
+      String s1 = "s" + i1, s2 = "s" + i2, s3 = "s" + i3, s4 = "s" + i4, s5 = "s" + i5, s6 = "s" + i6, s7 = "s" + i7, s8 = "s" + i8, s9 = "s" + i9;
+      park();
+      log.add(name + ":" + (i1 + i2 + i3 + i4 + i5 + i6 + i7 + i8 + i9) + ":" + s1 + s2 + s3 + s4 + s5 + s6 + s7 + s8 + s9);
+    }
+  }
+
+  /**
+   * {@link FrequentInterruptsTransformer4} tracking modifications of frames, needed for forks.
+   */
+  public static class TrackingTransformer extends FrequentInterruptsTransformer4 {
+    public TrackingTransformer(IClassInfoCache classInfoCache) {
+      super(classInfoCache);
+      trackModifications();
+    }
+  }
+}
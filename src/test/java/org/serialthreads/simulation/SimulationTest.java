@@ -0,0 +1,144 @@
+package org.serialthreads.simulation;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.serialthreads.Interruptible;
+import org.serialthreads.agent.Transform;
+import org.serialthreads.context.IRunnable;
+import org.serialthreads.transformer.strategies.frequent4.FrequentInterruptsTransformer4;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.serialthreads.SerialThreads.park;
+import static org.serialthreads.simulation.Simulation.advance;
+import static org.serialthreads.simulation.Simulation.now;
+import static org.serialthreads.simulation.Simulation.waitUntil;
+
+/**
+ * Test for {@link Simulation}.
+ */
+@Transform(transformer = FrequentInterruptsTransformer4.class)
+class SimulationTest {
+  private Simulation simulation;
+
+  @AfterEach
+  void tearDown() {
+    if (simulation != null) {
+      simulation.close();
+    }
+  }
+
+  /**
+   * Test that serial threads are resumed in timestamp order and idle time is skipped.
+   */
+  @Test
+  @Timeout(10)
+  void testAdvance() {
+    var log = new ArrayList<String>();
+    simulation = new Simulation(
+      new Ticker("a", 3, 1000000000L, log),
+      new Ticker("b", 2, 1500000000L, log),
+      new Ticker("c", 1, 1000000000L, log));
+    simulation.execute();
+
+    assertEquals(List.of(
+      "a@0", "b@0", "c@0",
+      "a@1000000000",
+      "b@1500000000",
+      "a@2000000000"), log);
+    assertEquals(3000000000L, simulation.getTime());
+    assertEquals(0, simulation.getPendingEvents());
+  }
+
+  /**
+   * Test waiting for absolute points in time, in another order than they have been requested.
+   */
+  @Test
+  @Timeout(10)
+  void testWaitUntil() {
+    var log = new ArrayList<String>();
+    simulation = new Simulation(
+      new Waiting("late", 30, log),
+      new Waiting("early", 10, log),
+      new Waiting("now", 0, log));
+    simulation.execute();
+
+    assertEquals(List.of("now@0", "early@10", "late@30"), log);
+  }
+
+  /**
+   * Test that serial threads which just yield stay at the current time.
+   */
+  @Test
+  @Timeout(10)
+  void testPark() {
+    var log = new ArrayList<String>();
+    simulation = new Simulation(new Yielding(log), new Waiting("waiting", 5, log));
+    simulation.execute();
+
+    assertEquals(List.of("yield@0", "yield@0", "waiting@5", "yield@5"), log);
+  }
+
+  public static class Ticker implements IRunnable {
+    private final String name;
+    private final int ticks;
+    private final long delta;
+    private final List<String> log;
+
+    public Ticker(String name, int ticks, long delta, List<String> log) {
+      this.name = name;
+      this.ticks = ticks;
+      this.delta = delta;
+      this.log = log;
+    }
+
+    @Override
+    @Interruptible
+    public void run() {
+      for (int i = 0; i < ticks; i++) {
+        log.add(name + "@" + now());
+        advance(delta);
+      }
+    }
+  }
+
+  public static class Waiting implements IRunnable {
+    private final String name;
+    private final long time;
+    private final List<String> log;
+
+    public Waiting(String name, long time, List<String> log) {
+      this.name = name;
+      this.time = time;
+      this.log = log;
+    }
+
+    @Override
+    @Interruptible
+    public void run() {
+      waitUntil(time);
+      log.add(name + "@" + now());
+    }
+  }
+
+  public static class Yielding implements IRunnable {
+    private final List<String> log;
+
+    public Yielding(List<String> log) {
+      this.log = log;
+    }
+
+    @Override
+    @Interruptible
+    public void run() {
+      log.add("yield@" + now());
+      park();
+      log.add("yield@" + now());
+      advance(5);
+      log.add("yield@" + now());
+    }
+  }
+}
@@ -0,0 +1,132 @@
+package org.serialthreads.speculation;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.serialthreads.Interruptible;
+import org.serialthreads.agent.Transform;
+import org.serialthreads.context.IRunnable;
+import org.serialthreads.context.SimpleSerialThreadManager;
+import org.serialthreads.transformer.classcache.IClassInfoCache;
+import org.serialthreads.transformer.strategies.frequent4.FrequentInterruptsTransformer4;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.serialthreads.SerialThreads.park;
+
+/**
+ * Test for {@link SpeculativeSerialThreadManager}.
+ */
+@Transform(transformer = SpeculativeSerialThreadManagerTest.TrackingTransformer.class)
+class SpeculativeSerialThreadManagerTest {
+  private static final int THREADS = 8;
+  private static final int ROUNDS = 20;
+
+  /**
+   * Test that conflicting serial threads get rolled back, so that the result is the same as for serial execution.
+   */
+  @Test
+  @Timeout(10)
+  void testExecute_conflicts() {
+    var serial = incrementers();
+    new SimpleSerialThreadManager(serial).execute(ROUNDS);
+
+    var pool = new ForkJoinPool(4);
+    try {
+      var speculative = incrementers();
+      var manager = new SpeculativeSerialThreadManager(pool, 3, speculative);
+      manager.execute(ROUNDS);
+
+      assertEquals(Integer.valueOf(THREADS * ROUNDS), speculative[0].counter.get());
+      for (int i = 0; i < THREADS; i++) {
+        assertEquals(serial[i].seen.get(), speculative[i].seen.get());
+      }
+      assertTrue(manager.getConflicts() > 0);
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  /**
+   * Test that serial threads without conflicts do not get rolled back.
+   */
+  @Test
+  @Timeout(10)
+  void testExecute_noConflicts() {
+    var counters = new Counter[THREADS];
+    for (int i = 0; i < THREADS; i++) {
+      counters[i] = new Counter(ROUNDS);
+    }
+    var manager = new SpeculativeSerialThreadManager(counters);
+    manager.execute();
+
+    for (var counter : counters) {
+      assertEquals(Integer.valueOf(ROUNDS), counter.count.get());
+    }
+    assertEquals(0, manager.getConflicts());
+  }
+
+  /**
+   * Serial threads sharing one counter.
+   */
+  private static Incrementer[] incrementers() {
+    var counter = new TxRef<>(0);
+    var result = new Incrementer[THREADS];
+    for (int i = 0; i < THREADS; i++) {
+      result[i] = new Incrementer(counter);
+    }
+    return result;
+  }
+
+  public static class Incrementer implements IRunnable {
+    private final TxRef<Integer> counter;
+    public final TxRef<Long> seen = new TxRef<>(0L);
+
+    public Incrementer(TxRef<Integer> counter) {
+      this.counter = counter;
+    }
+
+    @Override
+    @Interruptible
+    public void run() {
+      // Local state gets rolled back together with the stack.
+      long sum = 0;
+      while (true) {
+        int value = counter.get();
+        counter.set(value + 1);
+        sum = 31 * sum + value;
+        seen.set(sum);
+        park();
+      }
+    }
+  }
+
+  public static class Counter implements IRunnable {
+    private final int rounds;
+    public final TxRef<Integer> count = new TxRef<>(0);
+
+    public Counter(int rounds) {
+      this.rounds = rounds;
+    }
+
+    @Override
+    @Interruptible
+    public void run() {
+      for (int i = 1; i <= rounds; i++) {
+        count.set(i);
+        park();
+      }
+    }
+  }
+
+  /**
+   * {@link FrequentInterruptsTransformer4} tracking modifications of frames, needed for forks.
+   */
+  public static class TrackingTransformer extends FrequentInterruptsTransformer4 {
+    public TrackingTransformer(IClassInfoCache classInfoCache) {
+      super(classInfoCache);
+      trackModifications();
+    }
+  }
+}
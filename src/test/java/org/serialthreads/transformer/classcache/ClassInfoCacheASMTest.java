@@ -1,6 +1,10 @@
 package org.serialthreads.transformer.classcache;
 
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.Type;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
 
 /**
  * Test for ClassInfoCacheASM.
@@ -10,4 +14,11 @@ class ClassInfoCacheASMTest extends ClassInfoCacheAbstractTest {
   void setUp() {
     cache = new ClassInfoCacheASM(ClassInfoCacheASMTest.class.getClassLoader());
   }
+
+  @Test
+  void testIsInterruptible_signaturePolymorphic() {
+    var objectDesc = Type.getType(Object.class).getDescriptor();
+    assertFalse(cache.isInterruptible("java/lang/invoke/VarHandle", "getAndSet", "(" + objectDesc + objectDesc + ")" + objectDesc));
+    assertFalse(cache.isInterruptible("java/lang/invoke/MethodHandle", "invokeExact", "(" + objectDesc + ")V"));
+  }
 }
@@ -2,11 +2,16 @@ package org.serialthreads.transformer.classcache;
 
 import org.junit.jupiter.api.Test;
 import org.objectweb.asm.Type;
+import org.objectweb.asm.tree.MethodInsnNode;
+import org.serialthreads.transformer.strategies.TestCountedInterrupt;
 
 import java.util.Map;
 import java.util.SortedMap;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.objectweb.asm.Opcodes.INVOKESPECIAL;
+import static org.serialthreads.transformer.code.MethodCode.methodName;
 
 /**
  * Test for ClassInfoCache.
@@ -23,4 +28,20 @@ abstract class ClassInfoCacheAbstractTest {
     assertFalse(cache.isInterruptible(mapName, "put", "(" + objectDesc + objectDesc + ")" + objectDesc));
     assertFalse(cache.isInterruptible(sortedMapName, "put", "(" + objectDesc + objectDesc + ")" + objectDesc));
   }
+
+  @Test
+  void testGetInterruptEvery() {
+    var owner = Type.getType(TestCountedInterrupt.class).getInternalName();
+    var interrupt = new MethodInsnNode(INVOKESPECIAL, owner, "interrupt", "()V", false);
+    var run = methodName(owner, "run", "()V");
+    var other = methodName(owner, "other", "()V");
+    assertEquals(4, cache.getInterruptEvery(run, interrupt));
+
+    cache.setInterruptEvery(owner, "interrupt", "()V", 8);
+    assertEquals(8, cache.getInterruptEvery(run, interrupt));
+
+    cache.setInterruptEvery(run, owner, "interrupt", "()V", 16);
+    assertEquals(16, cache.getInterruptEvery(run, interrupt));
+    assertEquals(8, cache.getInterruptEvery(other, interrupt));
+  }
 }
@@ -1,11 +1,18 @@
 package org.serialthreads.transformer.classcache;
 
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 /**
  * Test for ClassInfoCacheASM.
  */
 class ClassInfoCacheReflectionTest extends ClassInfoCacheAbstractTest {
+  @BeforeEach
+  void setUp() {
+    cache = new ClassInfoCacheReflection();
+    ((ClassInfoCacheReflection) cache).setClassLoader(getClass().getClassLoader());
+  }
+
   @Override
   @Test
   void testIsInterruptible() {
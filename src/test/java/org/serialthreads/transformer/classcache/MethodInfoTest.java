@@ -4,6 +4,7 @@ import org.junit.jupiter.api.Test;
 import org.objectweb.asm.Type;
 
 import java.util.HashSet;
+import java.util.Map;
 
 import static java.util.Collections.singleton;
 import static org.junit.jupiter.api.Assertions.*;
@@ -45,14 +46,24 @@ class MethodInfoTest {
     assertThrows(UnsupportedOperationException.class, () -> info.getAnnotations().add(Type.getType(getClass())));
   }
 
+  @Test
+  void testGetAnnotationValue() {
+    var info = new MethodInfo("name", "desc", singleton(INT_TYPE), Map.of(INT_TYPE, Map.of("every", 4)));
+
+    assertEquals(Integer.valueOf(4), info.getAnnotationValue(INT_TYPE, "every", 1));
+    assertEquals(Integer.valueOf(1), info.getAnnotationValue(INT_TYPE, "other", 1));
+    assertEquals(Integer.valueOf(1), info.getAnnotationValue(Type.LONG_TYPE, "every", 1));
+  }
+
   @Test
   void testCopy() {
-    var info = new MethodInfo("name", "desc", singleton(INT_TYPE));
+    var info = new MethodInfo("name", "desc", singleton(INT_TYPE), Map.of(INT_TYPE, Map.of("every", 4)));
     var copy = info.copy();
 
     assertEquals(info.getId(), copy.getId());
     assertEquals(info.getName(), copy.getName());
     assertEquals(info.getDesc(), copy.getDesc());
     assertEquals(info.getAnnotations(), copy.getAnnotations());
+    assertEquals(Integer.valueOf(4), copy.getAnnotationValue(INT_TYPE, "every", 1));
   }
 }
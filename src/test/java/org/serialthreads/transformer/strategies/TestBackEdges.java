@@ -0,0 +1,24 @@
+package org.serialthreads.transformer.strategies;
+
+import org.serialthreads.Interruptible;
+import org.serialthreads.context.IRunnable;
+
+/**
+ * Test object for interrupts at loop back edges.
+ * Contains no explicit interrupts.
+ */
+public class TestBackEdges implements IRunnable {
+  public int value = 0;
+
+  @Interruptible
+  public void run() {
+    for (int i = 0; i < 100; i++) {
+      value = increment(value);
+    }
+  }
+
+  @Interruptible
+  private int increment(int value) {
+    return value + 1;
+  }
+}
@@ -0,0 +1,25 @@
+package org.serialthreads.transformer.strategies;
+
+import org.serialthreads.Interrupt;
+import org.serialthreads.Interruptible;
+import org.serialthreads.context.IRunnable;
+
+/**
+ * Test object for counted interrupts.
+ */
+public class TestCountedInterrupt implements IRunnable {
+  public int value = 0;
+
+  @Interruptible
+  public void run() {
+    for (int i = 0; i < 100; i++) {
+      value++;
+      interrupt();
+    }
+  }
+
+  @Interrupt(every = 4)
+  private void interrupt() {
+    // method call will be redirected to interrupt code
+  }
+}
@@ -0,0 +1,31 @@
+package org.serialthreads.transformer.strategies;
+
+import org.serialthreads.Interrupt;
+import org.serialthreads.Interruptible;
+import org.serialthreads.context.IRunnable;
+
+/**
+ * Test object for counted interrupts with different intervals.
+ */
+public class TestCountedInterrupts implements IRunnable {
+  public int value = 0;
+
+  @Interruptible
+  public void run() {
+    for (int i = 0; i < 100; i++) {
+      value++;
+      often();
+      rarely();
+    }
+  }
+
+  @Interrupt(every = 2)
+  private void often() {
+    // method call will be redirected to interrupt code
+  }
+
+  @Interrupt(every = 64)
+  private void rarely() {
+    // method call will be redirected to interrupt code
+  }
+}
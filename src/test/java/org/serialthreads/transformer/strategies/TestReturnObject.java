@@ -0,0 +1,29 @@
+package org.serialthreads.transformer.strategies;
+
+import org.serialthreads.Interrupt;
+import org.serialthreads.Interruptible;
+import org.serialthreads.context.IRunnable;
+
+/**
+ * Test object for restoring object return values of interruptible methods.
+ */
+public class TestReturnObject implements IRunnable {
+  public String value = null;
+
+  @Interruptible
+  public void run() {
+    value = greet("serial");
+    interrupt();
+  }
+
+  @Interruptible
+  private String greet(String name) {
+    interrupt();
+    return "Hello " + name;
+  }
+
+  @Interrupt
+  private void interrupt() {
+    // method call will be redirected to interrupt code
+  }
+}
@@ -0,0 +1,29 @@
+package org.serialthreads.transformer.strategies;
+
+import org.serialthreads.Interruptible;
+import org.serialthreads.context.IRunnable;
+
+/**
+ * Test object for polling yield requests.
+ * Contains no explicit interrupts.
+ */
+public class TestYieldRequests implements IRunnable {
+  private final int iterations;
+  public int value = 0;
+
+  public TestYieldRequests(int iterations) {
+    this.iterations = iterations;
+  }
+
+  @Interruptible
+  public void run() {
+    for (int i = 0; i < iterations; i++) {
+      value = increment(value);
+    }
+  }
+
+  @Interruptible
+  private int increment(int value) {
+    return value + 1;
+  }
+}
@@ -0,0 +1,19 @@
+package org.serialthreads.transformer.strategies;
+
+import org.serialthreads.Interruptible;
+import org.serialthreads.context.IRunnable;
+
+/**
+ * Test object for polling yield requests in a tight loop.
+ * Contains no explicit interrupts and no calls, so just the safepoint at the loop's back edge may interrupt it.
+ */
+public class TestYieldRequestsLoop implements IRunnable {
+  public long value = 0;
+
+  @Interruptible
+  public void run() {
+    while (true) {
+      value++;
+    }
+  }
+}
@@ -10,6 +10,7 @@ import org.serialthreads.context.SimpleSerialThreadManager;
 import java.util.function.Function;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 
 /**
  * Integration test for transformer.
@@ -82,6 +83,19 @@ public abstract class TransformerIntegration_AbstractTest {
     test.assertExpectedResult();
   }
 
+  /**
+   * Test restore of object return values of interruptible methods.
+   */
+  @Test
+  void testReturnObject() {
+    var test = new TestReturnObject();
+    manager = new SimpleSerialThreadManager(test);
+    manager.execute(1);
+    assertNull(test.value);
+    manager.execute(1);
+    assertEquals("Hello serial", test.value);
+  }
+
   /**
    * Test capture and restore of locals of type {@link int}.
    */
@@ -145,6 +159,41 @@ public abstract class TransformerIntegration_AbstractTest {
     assertEquals(1, test.value);
   }
 
+  /**
+   * Test that counted interrupts interrupt just every n-th call.
+   */
+  @Test
+  void testCountedInterrupt() {
+    var test = new TestCountedInterrupt();
+    manager = new SimpleSerialThreadManager(test);
+    // The countdown starts at 0, so the first call interrupts.
+    manager.execute(1);
+    assertEquals(1, test.value);
+    manager.execute(1);
+    assertEquals(5, test.value);
+    manager.execute(1);
+    assertEquals(9, test.value);
+  }
+
+  /**
+   * Test that counted interrupts with different intervals count independently.
+   */
+  @Test
+  void testCountedInterrupts() {
+    var test = new TestCountedInterrupts();
+    manager = new SimpleSerialThreadManager(test);
+    // The countdowns start at 0, so the first call of each interrupt interrupts.
+    manager.execute(1);
+    assertEquals(1, test.value);
+    manager.execute(1);
+    assertEquals(1, test.value);
+    // The rarely interrupting interrupt does not reset the countdown of the often interrupting one.
+    manager.execute(1);
+    assertEquals(3, test.value);
+    manager.execute(1);
+    assertEquals(5, test.value);
+  }
+
   /**
    * Test exception handling.
    */
@@ -0,0 +1,52 @@
+package org.serialthreads.transformer.strategies.frequent4;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.serialthreads.agent.Transform;
+import org.serialthreads.context.SerialThreadManager;
+import org.serialthreads.context.SimpleSerialThreadManager;
+import org.serialthreads.transformer.classcache.IClassInfoCache;
+import org.serialthreads.transformer.strategies.TestBackEdges;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Integration-test for {@link FrequentInterruptsTransformer4} with interrupts at loop back edges.
+ */
+@Transform(transformer = BackEdgeInterruptsTransformer4_IntegrationTest.BackEdgeTransformer.class)
+class BackEdgeInterruptsTransformer4_IntegrationTest {
+  private SerialThreadManager manager;
+
+  @AfterEach
+  void tearDown() {
+    if (manager != null) {
+      manager.close();
+    }
+  }
+
+  /**
+   * Test that loops get interrupted every n-th iteration.
+   */
+  @Test
+  void testBackEdges() {
+    var test = new TestBackEdges();
+    manager = new SimpleSerialThreadManager(test);
+    // The countdown starts at 0, so the loop gets interrupted before the first iteration.
+    manager.execute(1);
+    assertEquals(0, test.value);
+    manager.execute(1);
+    assertEquals(10, test.value);
+    manager.execute(1);
+    assertEquals(20, test.value);
+  }
+
+  /**
+   * {@link FrequentInterruptsTransformer4} interrupting every 10th loop iteration.
+   */
+  public static class BackEdgeTransformer extends FrequentInterruptsTransformer4 {
+    public BackEdgeTransformer(IClassInfoCache classInfoCache) {
+      super(classInfoCache);
+      interruptBackEdges(10);
+    }
+  }
+}
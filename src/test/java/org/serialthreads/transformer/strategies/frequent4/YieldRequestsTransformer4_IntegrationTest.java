@@ -0,0 +1,135 @@
+package org.serialthreads.transformer.strategies.frequent4;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.serialthreads.agent.Transform;
+import org.serialthreads.context.SerialThreadManager;
+import org.serialthreads.context.SimpleSerialThreadManager;
+import org.serialthreads.transformer.classcache.IClassInfoCache;
+import org.serialthreads.transformer.strategies.TestYieldRequests;
+import org.serialthreads.transformer.strategies.TestYieldRequestsLoop;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Integration-test for {@link FrequentInterruptsTransformer4} polling yield requests.
+ */
+@Transform(transformer = YieldRequestsTransformer4_IntegrationTest.YieldRequestsTransformer.class)
+class YieldRequestsTransformer4_IntegrationTest {
+  private SerialThreadManager manager;
+
+  @AfterEach
+  void tearDown() {
+    if (manager != null) {
+      manager.close();
+    }
+  }
+
+  /**
+   * Test that serial threads yield at the next safepoint after a yield request.
+   */
+  @Test
+  void testRequestYield() {
+    var test = new TestYieldRequests(100);
+    manager = new SimpleSerialThreadManager(test);
+    // Yield at the start of run().
+    manager.requestYield();
+    manager.execute(1);
+    assertEquals(0, test.value);
+    // Yield at the start of the loop, before the first iteration.
+    manager.requestYield();
+    manager.execute(1);
+    assertEquals(0, test.value);
+    // Yield at the start of increment().
+    manager.requestYield();
+    manager.execute(1);
+    assertEquals(0, test.value);
+    // Yield at the start of the loop, after the first iteration.
+    manager.requestYield();
+    manager.execute(1);
+    assertEquals(1, test.value);
+    // Without yield request, the serial thread runs until its end.
+    manager.execute(1);
+    assertEquals(100, test.value);
+  }
+
+  /**
+   * Test that a yield request is consumed by just the serial thread reaching a safepoint first.
+   */
+  @Test
+  void testRequestYield_running() {
+    var first = new TestYieldRequests(100);
+    var second = new TestYieldRequests(100);
+    manager = new SimpleSerialThreadManager(first, second);
+    // Yield of the first serial thread at the start of run(), the second one runs until its end.
+    manager.requestYield();
+    manager.execute(1);
+    assertEquals(0, first.value);
+    assertEquals(100, second.value);
+  }
+
+  /**
+   * Test that long-running serial threads can be preempted from another thread.
+   */
+  @Test
+  @Timeout(10)
+  void testRequestYield_watchdog() throws Exception {
+    var test = new TestYieldRequests(Integer.MAX_VALUE);
+    manager = new SimpleSerialThreadManager(test);
+    var watchdog = new Thread(() -> {
+      try {
+        Thread.sleep(10);
+      } catch (InterruptedException e) {
+        // ignore
+      }
+      manager.requestYield();
+    });
+    watchdog.start();
+    manager.execute(1);
+    watchdog.join();
+
+    assertTrue(test.value > 0);
+    assertTrue(test.value < Integer.MAX_VALUE);
+  }
+
+  /**
+   * Test that a tight loop gets preempted by a yield request of another thread, even when compiled by the JIT.
+   */
+  @Test
+  @Timeout(10)
+  void testRequestYield_tightLoop() throws Exception {
+    var test = new TestYieldRequestsLoop();
+    manager = new SimpleSerialThreadManager(test);
+    var watchdog = new Thread(() -> {
+      try {
+        // Give the JIT time to compile the loop.
+        Thread.sleep(500);
+      } catch (InterruptedException e) {
+        // ignore
+      }
+      manager.requestYield();
+    });
+    watchdog.start();
+    manager.execute(1);
+    watchdog.join();
+
+    long value = test.value;
+    assertTrue(value > 0);
+    // Resumes at the loop's back edge and yields at the next one.
+    manager.requestYield();
+    manager.execute(1);
+    assertEquals(value + 1, test.value);
+  }
+
+  /**
+   * {@link FrequentInterruptsTransformer4} polling yield requests.
+   */
+  public static class YieldRequestsTransformer extends FrequentInterruptsTransformer4 {
+    public YieldRequestsTransformer(IClassInfoCache classInfoCache) {
+      super(classInfoCache);
+      pollYieldRequests();
+    }
+  }
+}
@@ -0,0 +1,118 @@
+package org.serialthreads.performance;
+
+import org.junit.jupiter.api.Test;
+import org.serialthreads.Interruptible;
+import org.serialthreads.actor.Actor;
+import org.serialthreads.actor.ActorSystem;
+import org.serialthreads.agent.Transform;
+import org.serialthreads.transformer.strategies.frequent4.FrequentInterruptsTransformer4;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Test to compare the throughput of fanning out messages from one producer to many consumers
+ * between {@link Actor}s and virtual threads using blocking queues.
+ */
+@Transform(transformer = FrequentInterruptsTransformer4.class, classPrefixes = "org.serialthreads.performance")
+class ActorFanOutTest {
+  private static final int CONSUMERS = 10000;
+  private static final int MESSAGES = 100;
+  private static final int CAPACITY = 16;
+  private static final int RUNS = 3;
+
+  @Test
+  void testPerformance() throws Exception {
+    long actorTime = Long.MAX_VALUE;
+    long virtualTime = Long.MAX_VALUE;
+    for (int run = 0; run < RUNS; run++) {
+      var consumers = new Consumer[CONSUMERS];
+      for (int i = 0; i < CONSUMERS; i++) {
+        consumers[i] = new Consumer();
+      }
+      try (var system = new ActorSystem(consumers)) {
+        system.spawn(new Producer(consumers));
+        long start = System.nanoTime();
+        system.execute();
+        actorTime = Math.min(actorTime, System.nanoTime() - start);
+      }
+      for (var consumer : consumers) {
+        assertEquals(MESSAGES, consumer.received);
+      }
+
+      @SuppressWarnings("unchecked")
+      var queues = (ArrayBlockingQueue<Integer>[]) new ArrayBlockingQueue<?>[CONSUMERS];
+      for (int i = 0; i < CONSUMERS; i++) {
+        queues[i] = new ArrayBlockingQueue<>(CAPACITY);
+      }
+      long start = System.nanoTime();
+      try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+        for (var queue : queues) {
+          executor.submit(() -> {
+            for (int i = 0; i < MESSAGES; i++) {
+              queue.take();
+            }
+            return null;
+          });
+        }
+        executor.submit(() -> {
+          for (int i = 0; i < MESSAGES; i++) {
+            for (var queue : queues) {
+              queue.put(i);
+            }
+          }
+          return null;
+        });
+      }
+      virtualTime = Math.min(virtualTime, System.nanoTime() - start);
+    }
+
+    long messages = (long) CONSUMERS * MESSAGES;
+    System.out.println("Actors:          " + messages * 1000 / (actorTime / 1000000) + " messages/s");
+    System.out.println("Virtual threads: " + messages * 1000 / (virtualTime / 1000000) + " messages/s");
+  }
+
+  /**
+   * Sends all messages to all consumers.
+   */
+  private static class Producer extends Actor<Void> {
+    private final Consumer[] consumers;
+
+    Producer(Consumer[] consumers) {
+      super(1);
+      this.consumers = consumers;
+    }
+
+    @Override
+    @Interruptible
+    protected void act() {
+      for (int i = 0; i < MESSAGES; i++) {
+        for (var consumer : consumers) {
+          consumer.send(i);
+        }
+      }
+    }
+  }
+
+  /**
+   * Receives all messages.
+   */
+  private static class Consumer extends Actor<Integer> {
+    private int received;
+
+    Consumer() {
+      super(CAPACITY);
+    }
+
+    @Override
+    @Interruptible
+    protected void act() {
+      for (int i = 0; i < MESSAGES; i++) {
+        receive();
+        received++;
+      }
+    }
+  }
+}
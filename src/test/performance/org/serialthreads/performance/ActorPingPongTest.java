@@ -0,0 +1,118 @@
+package org.serialthreads.performance;
+
+import org.junit.jupiter.api.Test;
+import org.serialthreads.Interruptible;
+import org.serialthreads.actor.Actor;
+import org.serialthreads.actor.ActorSystem;
+import org.serialthreads.agent.Transform;
+import org.serialthreads.transformer.strategies.frequent4.FrequentInterruptsTransformer4;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Test to compare the latency of ping-pong messages
+ * between {@link Actor}s and between virtual threads using blocking queues.
+ */
+@Transform(transformer = FrequentInterruptsTransformer4.class, classPrefixes = "org.serialthreads.performance")
+class ActorPingPongTest {
+  private static final int ROUND_TRIPS = 1000000;
+  private static final int RUNS = 3;
+
+  @Test
+  void testPerformance() throws Exception {
+    long actorTime = Long.MAX_VALUE;
+    long virtualTime = Long.MAX_VALUE;
+    for (int run = 0; run < RUNS; run++) {
+      var ping = new Ping();
+      var pong = new Pong();
+      ping.pong = pong;
+      pong.ping = ping;
+      try (var system = new ActorSystem(ping, pong)) {
+        long start = System.nanoTime();
+        system.execute();
+        actorTime = Math.min(actorTime, System.nanoTime() - start);
+      }
+      assertEquals(ROUND_TRIPS, ping.received);
+
+      var pings = new ArrayBlockingQueue<Integer>(1);
+      var pongs = new ArrayBlockingQueue<Integer>(1);
+      long start = System.nanoTime();
+      try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+        executor.submit(() -> ping(pings, pongs));
+        executor.submit(() -> pong(pings, pongs));
+      }
+      virtualTime = Math.min(virtualTime, System.nanoTime() - start);
+    }
+
+    System.out.println("Actors:          " + actorTime / ROUND_TRIPS + " ns per round trip");
+    System.out.println("Virtual threads: " + virtualTime / ROUND_TRIPS + " ns per round trip");
+  }
+
+  /**
+   * Send pings with blocking queues and wait for their pongs.
+   */
+  private static Void ping(BlockingQueue<Integer> pings, BlockingQueue<Integer> pongs) throws InterruptedException {
+    for (int i = 0; i < ROUND_TRIPS; i++) {
+      pings.put(i);
+      pongs.take();
+    }
+    pings.put(-1);
+    return null;
+  }
+
+  /**
+   * Answer pings with blocking queues.
+   */
+  private static Void pong(BlockingQueue<Integer> pings, BlockingQueue<Integer> pongs) throws InterruptedException {
+    for (int message; (message = pings.take()) >= 0; ) {
+      pongs.put(message);
+    }
+    return null;
+  }
+
+  /**
+   * Sends pings and waits for their pongs.
+   */
+  private static class Ping extends Actor<Integer> {
+    private Actor<Integer> pong;
+    private int received;
+
+    Ping() {
+      super(1);
+    }
+
+    @Override
+    @Interruptible
+    protected void act() {
+      for (int i = 0; i < ROUND_TRIPS; i++) {
+        pong.send(i);
+        receive();
+        received++;
+      }
+      pong.send(-1);
+    }
+  }
+
+  /**
+   * Answers pings.
+   */
+  private static class Pong extends Actor<Integer> {
+    private Actor<Integer> ping;
+
+    Pong() {
+      super(1);
+    }
+
+    @Override
+    @Interruptible
+    protected void act() {
+      for (int message; (message = receive()) >= 0; ) {
+        ping.send(message);
+      }
+    }
+  }
+}
@@ -0,0 +1,83 @@
+package org.serialthreads.performance;
+
+import org.junit.jupiter.api.Test;
+import org.serialthreads.Interruptible;
+import org.serialthreads.agent.Transform;
+import org.serialthreads.context.IRunnable;
+import org.serialthreads.context.SimpleSerialThreadManager;
+import org.serialthreads.transformer.classcache.IClassInfoCache;
+import org.serialthreads.transformer.strategies.frequent4.FrequentInterruptsTransformer4;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Test to analyze the overhead of interrupts at loop back edges.
+ * Compares a loop without any interrupts with the same loop executed as serial thread.
+ */
+@Transform(transformer = BackEdgeInterruptsTest.BackEdgeTransformer.class, classPrefixes = "org.serialthreads.performance")
+class BackEdgeInterruptsTest {
+  private static final int EVERY = 1024;
+  private static final int ITERATIONS = 100_000_000;
+  private static final int RUNS = 5;
+
+  @Test
+  void testPerformance() {
+    long plainTime = Long.MAX_VALUE;
+    long serialTime = Long.MAX_VALUE;
+    for (int run = 0; run < RUNS; run++) {
+      long start = System.nanoTime();
+      long plainResult = loop(ITERATIONS);
+      plainTime = Math.min(plainTime, System.nanoTime() - start);
+
+      var looper = new Looper();
+      var manager = new SimpleSerialThreadManager(looper);
+      start = System.nanoTime();
+      manager.execute();
+      serialTime = Math.min(serialTime, System.nanoTime() - start);
+
+      assertEquals(plainResult, looper.result);
+    }
+
+    System.out.println("Plain loop:      " + plainTime / 1000000 + " ms for " + ITERATIONS + " iterations");
+    System.out.println("Serial thread:   " + serialTime / 1000000 + " ms for " + ITERATIONS + " iterations, interrupt every " + EVERY);
+    System.out.println("Overhead:        " + (serialTime - plainTime) * 100 / plainTime + " %");
+  }
+
+  /**
+   * Loop without interrupts.
+   */
+  private static long loop(int iterations) {
+    long result = 0;
+    for (int i = 0; i < iterations; i++) {
+      result += i ^ (result >>> 3);
+    }
+    return result;
+  }
+
+  /**
+   * Same loop as {@link #loop(int)}, but interrupted at its back edge.
+   */
+  private static class Looper implements IRunnable {
+    private long result;
+
+    @Override
+    @Interruptible
+    public void run() {
+      long result = 0;
+      for (int i = 0; i < ITERATIONS; i++) {
+        result += i ^ (result >>> 3);
+      }
+      this.result = result;
+    }
+  }
+
+  /**
+   * {@link FrequentInterruptsTransformer4} interrupting every {@value #EVERY}th loop iteration.
+   */
+  public static class BackEdgeTransformer extends FrequentInterruptsTransformer4 {
+    public BackEdgeTransformer(IClassInfoCache classInfoCache) {
+      super(classInfoCache);
+      interruptBackEdges(EVERY);
+    }
+  }
+}
@@ -0,0 +1,576 @@
+package org.serialthreads.performance;
+
+import org.junit.jupiter.api.Test;
+import org.serialthreads.Interruptible;
+import org.serialthreads.agent.Transform;
+import org.serialthreads.context.BatchSerialThreadManager;
+import org.serialthreads.context.IRunnable;
+import org.serialthreads.context.SerialThreadManager;
+import org.serialthreads.context.SimpleSerialThreadManager;
+import org.serialthreads.context.SpecializedSerialThreadManager;
+import org.serialthreads.transformer.strategies.frequent4.FrequentInterruptsTransformer4;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.serialthreads.SerialThreads.park;
+
+/**
+ * Test to compare the throughput of serial threads of {@value #TYPES} different classes
+ * executed interleaved by a {@link SimpleSerialThreadManager}, batched by type by a {@link BatchSerialThreadManager}
+ * and by generated loops per type by a {@link SpecializedSerialThreadManager}.
+ */
+@Transform(transformer = FrequentInterruptsTransformer4.class, classPrefixes = "org.serialthreads.performance")
+class BatchByTypeTest {
+  private static final int TYPES = 40;
+  private static final int ROUNDS = 1000;
+  private static final int RUNS = 5;
+
+  @Test
+  void testPerformance() {
+    long interleavedTime = measure(SimpleSerialThreadManager::new);
+    long batchedTime = measure(BatchSerialThreadManager::new);
+    long specializedTime = measure(SpecializedSerialThreadManager::new);
+
+    int steps = steps().size();
+    System.out.println("Interleaved: " + (long) ROUNDS * steps * 1000 / (interleavedTime / 1000) + " steps/ms");
+    System.out.println("Batched:     " + (long) ROUNDS * steps * 1000 / (batchedTime / 1000) + " steps/ms");
+    System.out.println("Specialized: " + (long) ROUNDS * steps * 1000 / (specializedTime / 1000) + " steps/ms");
+  }
+
+  /**
+   * Measure the fastest run of a manager.
+   *
+   * @param factory creates the manager
+   * @return time in nanoseconds
+   */
+  private static long measure(Function<IRunnable[], SerialThreadManager> factory) {
+    long time = Long.MAX_VALUE;
+    for (int run = 0; run < RUNS; run++) {
+      var steps = steps();
+      var manager = factory.apply(steps.toArray(new IRunnable[0]));
+      long start = System.nanoTime();
+      manager.execute(ROUNDS);
+      time = Math.min(time, System.nanoTime() - start);
+      for (var step : steps) {
+        assertEquals(ROUNDS * step.increment(), step.count);
+      }
+    }
+    return time;
+  }
+
+  /**
+   * Serial threads of all types, the first types are the most frequent ones, in random order.
+   */
+  private static List<Step> steps() {
+    var result = new ArrayList<Step>();
+    for (int type = 0; type < TYPES; type++) {
+      for (int i = 0; i < 10 * (TYPES - type); i++) {
+        result.add(TYPE_FACTORIES.get(type).get());
+      }
+    }
+    Collections.shuffle(result, new Random(0));
+    return result;
+  }
+
+  private static final List<Supplier<Step>> TYPE_FACTORIES = List.of(
+    Type00::new,
+    Type01::new,
+    Type02::new,
+    Type03::new,
+    Type04::new,
+    Type05::new,
+    Type06::new,
+    Type07::new,
+    Type08::new,
+    Type09::new,
+    Type10::new,
+    Type11::new,
+    Type12::new,
+    Type13::new,
+    Type14::new,
+    Type15::new,
+    Type16::new,
+    Type17::new,
+    Type18::new,
+    Type19::new,
+    Type20::new,
+    Type21::new,
+    Type22::new,
+    Type23::new,
+    Type24::new,
+    Type25::new,
+    Type26::new,
+    Type27::new,
+    Type28::new,
+    Type29::new,
+    Type30::new,
+    Type31::new,
+    Type32::new,
+    Type33::new,
+    Type34::new,
+    Type35::new,
+    Type36::new,
+    Type37::new,
+    Type38::new,
+    Type39::new);
+
+  /**
+   * Base class of all serial threads.
+   */
+  private abstract static class Step implements IRunnable {
+    protected long count;
+
+    /**
+     * Increment of count per step.
+     */
+    long increment() {
+      return Long.parseLong(getClass().getSimpleName().substring(4)) + 1;
+    }
+  }
+
+  private static final class Type00 extends Step {
+    @Override
+    @Interruptible
+    public void run() {
+      while (true) {
+        count += 1;
+        park();
+      }
+    }
+  }
+
+  private static final class Type01 extends Step {
+    @Override
+    @Interruptible
+    public void run() {
+      while (true) {
+        count += 2;
+        park();
+      }
+    }
+  }
+
+  private static final class Type02 extends Step {
+    @Override
+    @Interruptible
+    public void run() {
+      while (true) {
+        count += 3;
+        park();
+      }
+    }
+  }
+
+  private static final class Type03 extends Step {
+    @Override
+    @Interruptible
+    public void run() {
+      while (true) {
+        count += 4;
+        park();
+      }
+    }
+  }
+
+  private static final class Type04 extends Step {
+    @Override
+    @Interruptible
+    public void run() {
+      while (true) {
+        count += 5;
+        park();
+      }
+    }
+  }
+
+  private static final class Type05 extends Step {
+    @Override
+    @Interruptible
+    public void run() {
+      while (true) {
+        count += 6;
+        park();
+      }
+    }
+  }
+
+  private static final class Type06 extends Step {
+    @Override
+    @Interruptible
+    public void run() {
+      while (true) {
+        count += 7;
+        park();
+      }
+    }
+  }
+
+  private static final class Type07 extends Step {
+    @Override
+    @Interruptible
+    public void run() {
+      while (true) {
+        count += 8;
+        park();
+      }
+    }
+  }
+
+  private static final class Type08 extends Step {
+    @Override
+    @Interruptible
+    public void run() {
+      while (true) {
+        count += 9;
+        park();
+      }
+    }
+  }
+
+  private static final class Type09 extends Step {
+    @Override
+    @Interruptible
+    public void run() {
+      while (true) {
+        count += 10;
+        park();
+      }
+    }
+  }
+
+  private static final class Type10 extends Step {
+    @Override
+    @Interruptible
+    public void run() {
+      while (true) {
+        count += 11;
+        park();
+      }
+    }
+  }
+
+  private static final class Type11 extends Step {
+    @Override
+    @Interruptible
+    public void run() {
+      while (true) {
+        count += 12;
+        park();
+      }
+    }
+  }
+
+  private static final class Type12 extends Step {
+    @Override
+    @Interruptible
+    public void run() {
+      while (true) {
+        count += 13;
+        park();
+      }
+    }
+  }
+
+  private static final class Type13 extends Step {
+    @Override
+    @Interruptible
+    public void run() {
+      while (true) {
+        count += 14;
+        park();
+      }
+    }
+  }
+
+  private static final class Type14 extends Step {
+    @Override
+    @Interruptible
+    public void run() {
+      while (true) {
+        count += 15;
+        park();
+      }
+    }
+  }
+
+  private static final class Type15 extends Step {
+    @Override
+    @Interruptible
+    public void run() {
+      while (true) {
+        count += 16;
+        park();
+      }
+    }
+  }
+
+  private static final class Type16 extends Step {
+    @Override
+    @Interruptible
+    public void run() {
+      while (true) {
+        count += 17;
+        park();
+      }
+    }
+  }
+
+  private static final class Type17 extends Step {
+    @Override
+    @Interruptible
+    public void run() {
+      while (true) {
+        count += 18;
+        park();
+      }
+    }
+  }
+
+  private static final class Type18 extends Step {
+    @Override
+    @Interruptible
+    public void run() {
+      while (true) {
+        count += 19;
+        park();
+      }
+    }
+  }
+
+  private static final class Type19 extends Step {
+    @Override
+    @Interruptible
+    public void run() {
+      while (true) {
+        count += 20;
+        park();
+      }
+    }
+  }
+
+  private static final class Type20 extends Step {
+    @Override
+    @Interruptible
+    public void run() {
+      while (true) {
+        count += 21;
+        park();
+      }
+    }
+  }
+
+  private static final class Type21 extends Step {
+    @Override
+    @Interruptible
+    public void run() {
+      while (true) {
+        count += 22;
+        park();
+      }
+    }
+  }
+
+  private static final class Type22 extends Step {
+    @Override
+    @Interruptible
+    public void run() {
+      while (true) {
+        count += 23;
+        park();
+      }
+    }
+  }
+
+  private static final class Type23 extends Step {
+    @Override
+    @Interruptible
+    public void run() {
+      while (true) {
+        count += 24;
+        park();
+      }
+    }
+  }
+
+  private static final class Type24 extends Step {
+    @Override
+    @Interruptible
+    public void run() {
+      while (true) {
+        count += 25;
+        park();
+      }
+    }
+  }
+
+  private static final class Type25 extends Step {
+    @Override
+    @Interruptible
+    public void run() {
+      while (true) {
+        count += 26;
+        park();
+      }
+    }
+  }
+
+  private static final class Type26 extends Step {
+    @Override
+    @Interruptible
+    public void run() {
+      while (true) {
+        count += 27;
+        park();
+      }
+    }
+  }
+
+  private static final class Type27 extends Step {
+    @Override
+    @Interruptible
+    public void run() {
+      while (true) {
+        count += 28;
+        park();
+      }
+    }
+  }
+
+  private static final class Type28 extends Step {
+    @Override
+    @Interruptible
+    public void run() {
+      while (true) {
+        count += 29;
+        park();
+      }
+    }
+  }
+
+  private static final class Type29 extends Step {
+    @Override
+    @Interruptible
+    public void run() {
+      while (true) {
+        count += 30;
+        park();
+      }
+    }
+  }
+
+  private static final class Type30 extends Step {
+    @Override
+    @Interruptible
+    public void run() {
+      while (true) {
+        count += 31;
+        park();
+      }
+    }
+  }
+
+  private static final class Type31 extends Step {
+    @Override
+    @Interruptible
+    public void run() {
+      while (true) {
+        count += 32;
+        park();
+      }
+    }
+  }
+
+  private static final class Type32 extends Step {
+    @Override
+    @Interruptible
+    public void run() {
+      while (true) {
+        count += 33;
+        park();
+      }
+    }
+  }
+
+  private static final class Type33 extends Step {
+    @Override
+    @Interruptible
+    public void run() {
+      while (true) {
+        count += 34;
+        park();
+      }
+    }
+  }
+
+  private static final class Type34 extends Step {
+    @Override
+    @Interruptible
+    public void run() {
+      while (true) {
+        count += 35;
+        park();
+      }
+    }
+  }
+
+  private static final class Type35 extends Step {
+    @Override
+    @Interruptible
+    public void run() {
+      while (true) {
+        count += 36;
+        park();
+      }
+    }
+  }
+
+  private static final class Type36 extends Step {
+    @Override
+    @Interruptible
+    public void run() {
+      while (true) {
+        count += 37;
+        park();
+      }
+    }
+  }
+
+  private static final class Type37 extends Step {
+    @Override
+    @Interruptible
+    public void run() {
+      while (true) {
+        count += 38;
+        park();
+      }
+    }
+  }
+
+  private static final class Type38 extends Step {
+    @Override
+    @Interruptible
+    public void run() {
+      while (true) {
+        count += 39;
+        park();
+      }
+    }
+  }
+
+  private static final class Type39 extends Step {
+    @Override
+    @Interruptible
+    public void run() {
+      while (true) {
+        count += 40;
+        park();
+      }
+    }
+  }
+}
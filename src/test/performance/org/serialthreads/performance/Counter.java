@@ -48,6 +48,10 @@ public abstract class Counter implements ICounter {
     }
   }
 
+  protected static boolean isRunning() {
+    return run;
+  }
+
   public static void stopAll() {
     System.out.println("stopping all");
     run = false;
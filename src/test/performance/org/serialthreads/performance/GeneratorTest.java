@@ -0,0 +1,132 @@
+package org.serialthreads.performance;
+
+import org.junit.jupiter.api.Test;
+import org.serialthreads.IntGenerator;
+import org.serialthreads.Interruptible;
+import org.serialthreads.agent.Transform;
+import org.serialthreads.transformer.strategies.frequent4.FrequentInterruptsTransformer4;
+
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Test to compare the performance of a pull-based tokenizer
+ * implemented as {@link IntGenerator} and as hand-written iterator.
+ */
+@Transform(transformer = FrequentInterruptsTransformer4.class, classPrefixes = "org.serialthreads.performance")
+class GeneratorTest {
+  private static final int WORDS = 1000000;
+  private static final int RUNS = 5;
+
+  @Test
+  void testPerformance() {
+    var text = new StringBuilder();
+    long expected = 0;
+    for (int i = 0; i < WORDS; i++) {
+      int length = 1 + i % 9;
+      text.append("x".repeat(length)).append(i % 5 == 0 ? "  " : " ");
+      expected += length;
+    }
+    var input = text.toString();
+
+    long generatorTime = Long.MAX_VALUE;
+    long iteratorTime = Long.MAX_VALUE;
+    for (int run = 0; run < RUNS; run++) {
+      long start = System.nanoTime();
+      assertEquals(expected, sum(new GeneratedTokenizer(input)));
+      generatorTime = Math.min(generatorTime, System.nanoTime() - start);
+
+      start = System.nanoTime();
+      assertEquals(expected, sum(new HandWrittenTokenizer(input)));
+      iteratorTime = Math.min(iteratorTime, System.nanoTime() - start);
+    }
+
+    System.out.println("Generator: " + generatorTime / 1000000 + " ms for " + WORDS + " tokens");
+    System.out.println("Iterator:  " + iteratorTime / 1000000 + " ms for " + WORDS + " tokens");
+  }
+
+  /**
+   * Sum all token lengths.
+   */
+  private static long sum(PrimitiveIterator.OfInt tokenizer) {
+    long sum = 0;
+    while (tokenizer.hasNext()) {
+      sum += tokenizer.nextInt();
+    }
+    return sum;
+  }
+
+  /**
+   * Tokenizer which yields the lengths of the space separated tokens.
+   */
+  private static class GeneratedTokenizer extends IntGenerator {
+    private final String text;
+
+    GeneratedTokenizer(String text) {
+      this.text = text;
+    }
+
+    @Override
+    @Interruptible
+    protected void generate() {
+      int length = 0;
+      for (int i = 0; i < text.length(); i++) {
+        if (text.charAt(i) != ' ') {
+          length++;
+        } else if (length > 0) {
+          this.yield(length);
+          length = 0;
+        }
+      }
+      if (length > 0) {
+        this.yield(length);
+      }
+    }
+  }
+
+  /**
+   * Hand-written state machine equivalent to {@link GeneratedTokenizer}.
+   */
+  private static class HandWrittenTokenizer implements PrimitiveIterator.OfInt {
+    private final String text;
+    private int position;
+    private int next = -1;
+
+    HandWrittenTokenizer(String text) {
+      this.text = text;
+    }
+
+    @Override
+    public boolean hasNext() {
+      if (next >= 0) {
+        return true;
+      }
+
+      int length = 0;
+      for (; position < text.length(); position++) {
+        if (text.charAt(position) != ' ') {
+          length++;
+        } else if (length > 0) {
+          break;
+        }
+      }
+      if (length > 0) {
+        next = length;
+      }
+      return next >= 0;
+    }
+
+    @Override
+    public int nextInt() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+
+      int result = next;
+      next = -1;
+      return result;
+    }
+  }
+}
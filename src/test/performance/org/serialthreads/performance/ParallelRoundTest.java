@@ -0,0 +1,102 @@
+package org.serialthreads.performance;
+
+import org.junit.jupiter.api.Test;
+import org.serialthreads.Interruptible;
+import org.serialthreads.agent.Transform;
+import org.serialthreads.context.IRunnable;
+import org.serialthreads.context.ParallelSerialThreadManager;
+import org.serialthreads.transformer.strategies.frequent4.FrequentInterruptsTransformer4;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.serialthreads.SerialThreads.park;
+
+/**
+ * Test to analyze the scaling of the round throughput of a {@link ParallelSerialThreadManager} with the number of cores.
+ */
+@Transform(transformer = FrequentInterruptsTransformer4.class, classPrefixes = "org.serialthreads.performance")
+class ParallelRoundTest {
+  private static final int AGENTS = 100000;
+  private static final int ROUNDS = 200;
+  private static final int RUNS = 3;
+
+  @Test
+  void testPerformance() {
+    int cores = Runtime.getRuntime().availableProcessors();
+    double[] expected = null;
+    for (int parallelism = 1; parallelism <= cores; parallelism *= 2) {
+      var pool = new ForkJoinPool(parallelism);
+      long time = Long.MAX_VALUE;
+      try {
+        for (int run = 0; run < RUNS; run++) {
+          var world = new World();
+          var manager = new ParallelSerialThreadManager(pool, 4 * parallelism, world::swap, world.agents());
+          long start = System.nanoTime();
+          manager.execute(ROUNDS);
+          time = Math.min(time, System.nanoTime() - start);
+          if (expected == null) {
+            expected = world.current;
+          }
+          assertArrayEquals(expected, world.current);
+        }
+      } finally {
+        pool.shutdown();
+      }
+      System.out.println(parallelism + " cores: " + ROUNDS * 1000000000L / time + " rounds/s with " + AGENTS + " agents");
+    }
+  }
+
+  /**
+   * Double-buffered state of all agents.
+   */
+  private static class World {
+    private double[] current = new double[AGENTS];
+    private double[] next = new double[AGENTS];
+
+    World() {
+      for (int i = 0; i < AGENTS; i++) {
+        current[i] = i % 7;
+      }
+    }
+
+    private void swap() {
+      var swap = current;
+      current = next;
+      next = swap;
+    }
+
+    private IRunnable[] agents() {
+      var result = new IRunnable[AGENTS];
+      for (int i = 0; i < AGENTS; i++) {
+        result[i] = new Agent(this, i);
+      }
+      return result;
+    }
+  }
+
+  /**
+   * Agent which computes its next state from the last state of it and its neighbours.
+   */
+  private static class Agent implements IRunnable {
+    private final World world;
+    private final int index;
+
+    Agent(World world, int index) {
+      this.world = world;
+      this.index = index;
+    }
+
+    @Override
+    @Interruptible
+    public void run() {
+      while (true) {
+        var state = world.current;
+        double left = state[(index + AGENTS - 1) % AGENTS];
+        double right = state[(index + 1) % AGENTS];
+        world.next[index] = Math.sin(state[index]) + 0.5 * (left - right);
+        park();
+      }
+    }
+  }
+}
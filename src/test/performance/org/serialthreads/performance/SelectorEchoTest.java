@@ -0,0 +1,210 @@
+package org.serialthreads.performance;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.serialthreads.Interruptible;
+import org.serialthreads.agent.Transform;
+import org.serialthreads.context.IRunnable;
+import org.serialthreads.context.SelectorSerialThreadManager;
+import org.serialthreads.transformer.strategies.frequent4.FrequentInterruptsTransformer4;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.serialthreads.SerialChannels.read;
+import static org.serialthreads.SerialChannels.write;
+
+/**
+ * Test to compare the performance of echoing messages via loopback
+ * between serial threads of a {@link SelectorSerialThreadManager} and virtual threads.
+ */
+@Transform(transformer = FrequentInterruptsTransformer4.class, classPrefixes = "org.serialthreads.performance")
+class SelectorEchoTest {
+  private static final int CONNECTIONS = 100;
+  private static final int MESSAGES = 1000;
+  private static final int MESSAGE_SIZE = 64;
+  private static final int RUNS = 3;
+
+  private ServerSocketChannel serverChannel;
+  private final SocketChannel[] clientChannels = new SocketChannel[CONNECTIONS];
+  private final SocketChannel[] serverChannels = new SocketChannel[CONNECTIONS];
+
+  @BeforeEach
+  void setUp() throws Exception {
+    serverChannel = ServerSocketChannel.open();
+    serverChannel.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), CONNECTIONS);
+  }
+
+  @AfterEach
+  void tearDown() throws Exception {
+    serverChannel.close();
+  }
+
+  @Test
+  void testPerformance() throws Exception {
+    long serialTime = Long.MAX_VALUE;
+    long virtualTime = Long.MAX_VALUE;
+    for (int run = 0; run < RUNS; run++) {
+      connect(false);
+      var runnables = new IRunnable[2 * CONNECTIONS];
+      var clients = new SerialClient[CONNECTIONS];
+      for (int i = 0; i < CONNECTIONS; i++) {
+        runnables[i] = new SerialServer(serverChannels[i]);
+        runnables[CONNECTIONS + i] = clients[i] = new SerialClient(clientChannels[i]);
+      }
+      try (var manager = new SelectorSerialThreadManager(runnables)) {
+        long start = System.nanoTime();
+        manager.execute();
+        serialTime = Math.min(serialTime, System.nanoTime() - start);
+      }
+      for (var client : clients) {
+        assertEquals(MESSAGES, client.received);
+      }
+      disconnect();
+
+      connect(true);
+      long start = System.nanoTime();
+      try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+        for (int i = 0; i < CONNECTIONS; i++) {
+          var serverChannel = serverChannels[i];
+          var clientChannel = clientChannels[i];
+          executor.submit(() -> echo(serverChannel));
+          executor.submit(() -> ping(clientChannel));
+        }
+      }
+      virtualTime = Math.min(virtualTime, System.nanoTime() - start);
+      disconnect();
+    }
+
+    long roundTrips = (long) CONNECTIONS * MESSAGES;
+    System.out.println("Serial threads:  " + serialTime / 1000000 + " ms for " + roundTrips + " round trips");
+    System.out.println("Virtual threads: " + virtualTime / 1000000 + " ms for " + roundTrips + " round trips");
+  }
+
+  /**
+   * Open all connections.
+   *
+   * @param blocking configure channels as blocking?
+   */
+  private void connect(boolean blocking) throws IOException {
+    for (int i = 0; i < CONNECTIONS; i++) {
+      clientChannels[i] = SocketChannel.open(serverChannel.getLocalAddress());
+      serverChannels[i] = serverChannel.accept();
+      clientChannels[i].configureBlocking(blocking);
+      serverChannels[i].configureBlocking(blocking);
+    }
+  }
+
+  /**
+   * Close all connections.
+   */
+  private void disconnect() throws IOException {
+    for (int i = 0; i < CONNECTIONS; i++) {
+      clientChannels[i].close();
+      serverChannels[i].close();
+    }
+  }
+
+  /**
+   * Echo all messages with blocking I/O.
+   */
+  private static Void echo(SocketChannel channel) throws IOException {
+    var buffer = ByteBuffer.allocate(MESSAGE_SIZE);
+    for (int i = 0; i < MESSAGES; i++) {
+      buffer.clear();
+      while (buffer.hasRemaining()) {
+        channel.read(buffer);
+      }
+      buffer.flip();
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Send all messages with blocking I/O and wait for their echoes.
+   */
+  private static Void ping(SocketChannel channel) throws IOException {
+    var buffer = ByteBuffer.allocate(MESSAGE_SIZE);
+    for (int i = 0; i < MESSAGES; i++) {
+      buffer.clear();
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+      buffer.clear();
+      while (buffer.hasRemaining()) {
+        channel.read(buffer);
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Echo all messages with serial I/O.
+   */
+  private static class SerialServer implements IRunnable {
+    private final SocketChannel channel;
+
+    SerialServer(SocketChannel channel) {
+      this.channel = channel;
+    }
+
+    @Override
+    @Interruptible
+    public void run() {
+      try {
+        var buffer = ByteBuffer.allocate(MESSAGE_SIZE);
+        for (int i = 0; i < MESSAGES; i++) {
+          buffer.clear();
+          while (buffer.hasRemaining()) {
+            read(channel, buffer);
+          }
+          buffer.flip();
+          write(channel, buffer);
+        }
+      } catch (IOException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+  }
+
+  /**
+   * Send all messages with serial I/O and wait for their echoes.
+   */
+  private static class SerialClient implements IRunnable {
+    private final SocketChannel channel;
+    private int received;
+
+    SerialClient(SocketChannel channel) {
+      this.channel = channel;
+    }
+
+    @Override
+    @Interruptible
+    public void run() {
+      try {
+        var buffer = ByteBuffer.allocate(MESSAGE_SIZE);
+        for (int i = 0; i < MESSAGES; i++) {
+          buffer.clear();
+          write(channel, buffer);
+          buffer.clear();
+          while (buffer.hasRemaining()) {
+            read(channel, buffer);
+          }
+          received++;
+        }
+      } catch (IOException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+  }
+}
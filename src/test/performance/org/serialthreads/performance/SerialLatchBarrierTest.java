@@ -0,0 +1,109 @@
+package org.serialthreads.performance;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.serialthreads.Interruptible;
+import org.serialthreads.agent.Transform;
+import org.serialthreads.concurrent.SerialCountDownLatch;
+import org.serialthreads.context.ParkingSerialThreadManager;
+import org.serialthreads.transformer.strategies.frequent4.FrequentInterruptsTransformer4;
+
+/**
+ * Test to analyze performance of a barrier built from {@link SerialCountDownLatch}es.
+ * Compare with {@link SynchronizedBarrierTest} and {@link CyclicBarrierTest}.
+ */
+@Transform(transformer = FrequentInterruptsTransformer4.class, classPrefixes = "org.serialthreads.performance")
+class SerialLatchBarrierTest extends AbstractPerformanceTest {
+  private Thread managerThread;
+  private volatile boolean ready;
+  private final Object lock = new Object();
+  private SerialCountDownLatch latch;
+  private boolean stopped;
+
+  @BeforeEach
+  void setUp() {
+    latch = new SerialCountDownLatch(COUNT);
+    stopped = false;
+    for (int i = 0; i < counters.length; i++) {
+      counters[i] = new LatchCounter(i);
+    }
+  }
+
+  @Override
+  protected void doStartThreads() {
+    ready = false;
+    managerThread = new Thread(() -> {
+      try {
+        var manager = new ParkingSerialThreadManager(counters);
+        synchronized (lock) {
+          ready = true;
+          lock.wait();
+        }
+        manager.execute();
+        System.out.println("stopped scheduling");
+      } catch (Exception e) {
+        e.printStackTrace();
+      }
+    }, "Serial thread manager");
+    managerThread.start();
+
+    do {
+      Thread.yield();
+    } while (!ready);
+  }
+
+  @Override
+  protected void doUnlockThreads() {
+    Counter.startAll();
+    synchronized (lock) {
+      lock.notifyAll();
+    }
+  }
+
+  @Override
+  protected void doStop() {
+    // not needed
+  }
+
+  @Override
+  protected void doJoinThreads() throws Exception {
+    managerThread.join();
+  }
+
+  private class LatchCounter extends Counter {
+    LatchCounter(int number) {
+      super(number);
+    }
+
+    @Override
+    protected void waitForStart() {
+      // not needed
+    }
+
+    /**
+     * Stop only at the end of a generation, so that no counter waits for ever.
+     */
+    @Override
+    @Interruptible
+    public void run() {
+      do {
+        count++;
+        tick(count);
+      } while (!stopped);
+    }
+
+    @Override
+    @Interruptible
+    protected final void tick(long count) {
+      var latch = SerialLatchBarrierTest.this.latch;
+      latch.countDown();
+      if (latch.getCount() > 0) {
+        latch.await();
+        return;
+      }
+
+      // Last counter of this generation: Start the next one.
+      SerialLatchBarrierTest.this.latch = new SerialCountDownLatch(COUNT);
+      stopped = !isRunning();
+    }
+  }
+}
@@ -0,0 +1,98 @@
+package org.serialthreads.performance;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.serialthreads.Interruptible;
+import org.serialthreads.agent.Transform;
+import org.serialthreads.concurrent.SerialBarrier;
+import org.serialthreads.context.ParkingSerialThreadManager;
+import org.serialthreads.transformer.strategies.frequent4.FrequentInterruptsTransformer4;
+
+/**
+ * Test to analyze performance of threading with a {@link SerialBarrier}.
+ * Compare with {@link SynchronizedBarrierTest}, {@link CyclicBarrierTest} and {@link SerialThreadTest}.
+ */
+@Transform(transformer = FrequentInterruptsTransformer4.class, classPrefixes = "org.serialthreads.performance")
+class SerialThreadBarrierTest extends AbstractPerformanceTest {
+  private Thread managerThread;
+  private volatile boolean ready;
+  private final Object lock = new Object();
+  private SerialBarrier barrier;
+  private boolean stopped;
+
+  @BeforeEach
+  void setUp() {
+    // Stop only at the end of a generation, so that no counter waits for ever.
+    barrier = new SerialBarrier(COUNT, () -> stopped = !Counter.isRunning());
+    stopped = false;
+    for (int i = 0; i < counters.length; i++) {
+      counters[i] = new BarrierCounter(i);
+    }
+  }
+
+  @Override
+  protected void doStartThreads() {
+    ready = false;
+    managerThread = new Thread(() -> {
+      try {
+        var manager = new ParkingSerialThreadManager(counters);
+        synchronized (lock) {
+          ready = true;
+          lock.wait();
+        }
+        manager.execute();
+        System.out.println("stopped scheduling");
+      } catch (Exception e) {
+        e.printStackTrace();
+      }
+    }, "Serial thread manager");
+    managerThread.start();
+
+    do {
+      Thread.yield();
+    } while (!ready);
+  }
+
+  @Override
+  protected void doUnlockThreads() {
+    Counter.startAll();
+    synchronized (lock) {
+      lock.notifyAll();
+    }
+  }
+
+  @Override
+  protected void doStop() {
+    // not needed
+  }
+
+  @Override
+  protected void doJoinThreads() throws Exception {
+    managerThread.join();
+  }
+
+  private class BarrierCounter extends Counter {
+    BarrierCounter(int number) {
+      super(number);
+    }
+
+    @Override
+    protected void waitForStart() {
+      // not needed
+    }
+
+    @Override
+    @Interruptible
+    public void run() {
+      do {
+        count++;
+        tick(count);
+      } while (!stopped);
+    }
+
+    @Override
+    @Interruptible
+    protected final void tick(long count) {
+      barrier.await();
+    }
+  }
+}
@@ -0,0 +1,106 @@
+package org.serialthreads.performance;
+
+import org.junit.jupiter.api.Test;
+import org.serialthreads.Interruptible;
+import org.serialthreads.agent.Transform;
+import org.serialthreads.context.IRunnable;
+import org.serialthreads.simulation.Simulation;
+import org.serialthreads.transformer.strategies.frequent4.FrequentInterruptsTransformer4;
+
+import java.util.Comparator;
+import java.util.PriorityQueue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.serialthreads.simulation.Simulation.advance;
+
+/**
+ * Test to compare the performance of a {@link Simulation} of many entities
+ * with a callback-style simulation using a {@link PriorityQueue} of events.
+ */
+@Transform(transformer = FrequentInterruptsTransformer4.class, classPrefixes = "org.serialthreads.performance")
+class SimulationTest {
+  private static final int ENTITIES = 100000;
+  private static final int STEPS = 100;
+  private static final int RUNS = 3;
+
+  @Test
+  void testPerformance() {
+    long serialTime = Long.MAX_VALUE;
+    long callbackTime = Long.MAX_VALUE;
+    for (int run = 0; run < RUNS; run++) {
+      var entities = new Entity[ENTITIES];
+      for (int i = 0; i < ENTITIES; i++) {
+        entities[i] = new Entity(i);
+      }
+      long serialEnd;
+      try (var simulation = new Simulation(entities)) {
+        long start = System.nanoTime();
+        simulation.execute();
+        serialTime = Math.min(serialTime, System.nanoTime() - start);
+        serialEnd = simulation.getTime();
+      }
+
+      long start = System.nanoTime();
+      long callbackEnd = simulateWithCallbacks();
+      callbackTime = Math.min(callbackTime, System.nanoTime() - start);
+      assertEquals(callbackEnd, serialEnd);
+    }
+
+    long events = (long) ENTITIES * STEPS;
+    System.out.println("Serial threads: " + serialTime / 1000000 + " ms for " + events + " events");
+    System.out.println("Callbacks:      " + callbackTime / 1000000 + " ms for " + events + " events");
+  }
+
+  /**
+   * Delay of an entity before its next step.
+   */
+  private static long delay(int entity, int step) {
+    return (entity * 31L + step * 17L) % 100 + 1;
+  }
+
+  /**
+   * Simulate all entities as state machines with an event queue.
+   *
+   * @return end time
+   */
+  private static long simulateWithCallbacks() {
+    var events = new PriorityQueue<Event>(ENTITIES, Comparator.comparingLong(Event::time).thenComparingLong(Event::sequence));
+    long sequence = 0;
+    for (int i = 0; i < ENTITIES; i++) {
+      events.add(new Event(0, sequence++, i, 0));
+    }
+    long now = 0;
+    for (Event event; (event = events.poll()) != null; ) {
+      now = event.time();
+      if (event.step() < STEPS) {
+        events.add(new Event(now + delay(event.entity(), event.step()), sequence++, event.entity(), event.step() + 1));
+      }
+    }
+    return now;
+  }
+
+  /**
+   * Event of the callback-style simulation.
+   */
+  private record Event(long time, long sequence, int entity, int step) {
+  }
+
+  /**
+   * Entity doing its steps.
+   */
+  private static class Entity implements IRunnable {
+    private final int number;
+
+    Entity(int number) {
+      this.number = number;
+    }
+
+    @Override
+    @Interruptible
+    public void run() {
+      for (int step = 0; step < STEPS; step++) {
+        advance(delay(number, step));
+      }
+    }
+  }
+}
@@ -0,0 +1,129 @@
+package org.serialthreads.performance;
+
+import org.junit.jupiter.api.Test;
+import org.serialthreads.Interruptible;
+import org.serialthreads.agent.Transform;
+import org.serialthreads.context.IRunnable;
+import org.serialthreads.context.ITransformedRunnable;
+import org.serialthreads.context.ReferenceCodec;
+import org.serialthreads.context.SimpleSerialThreadManager;
+import org.serialthreads.context.Stack;
+import org.serialthreads.context.StackCodec;
+import org.serialthreads.transformer.strategies.frequent4.FrequentInterruptsTransformer4;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.serialthreads.SerialThreads.park;
+
+/**
+ * Test to compare the throughput and the size of stacks of serial threads
+ * encoded by {@link StackCodec} and by Java serialization.
+ */
+@Transform(transformer = FrequentInterruptsTransformer4.class, classPrefixes = "org.serialthreads.performance")
+class StackCodecTest {
+  private static final int THREADS = 10000;
+  private static final int RUNS = 5;
+
+  @Test
+  void testPerformance() throws Exception {
+    var walkers = new Walker[THREADS];
+    for (int i = 0; i < walkers.length; i++) {
+      walkers[i] = new Walker(i);
+    }
+    var manager = new SimpleSerialThreadManager(walkers);
+    manager.execute(10);
+    var stacks = new Stack[THREADS];
+    for (int i = 0; i < walkers.length; i++) {
+      stacks[i] = Stack.stack((ITransformedRunnable) walkers[i]);
+    }
+
+    var codec = new StackCodec(new ReferenceCodec(Arrays.asList(walkers)));
+    long codecTime = Long.MAX_VALUE;
+    long codecSize = 0;
+    var copy = ByteBuffer.allocate(1 << 16).order(StackCodec.ORDER);
+    for (int run = 0; run < RUNS; run++) {
+      long start = System.nanoTime();
+      codecSize = 0;
+      for (var stack : stacks) {
+        var buffer = codec.encode(stack);
+        codecSize += buffer.remaining();
+        copy.clear();
+        copy.put(buffer).flip();
+        codec.decode(copy, stack);
+      }
+      codecTime = Math.min(codecTime, System.nanoTime() - start);
+    }
+
+    long serializationTime = Long.MAX_VALUE;
+    long serializationSize = 0;
+    var bytes = new ByteArrayOutputStream(1 << 16);
+    for (int run = 0; run < RUNS; run++) {
+      long start = System.nanoTime();
+      serializationSize = 0;
+      for (var stack : stacks) {
+        bytes.reset();
+        try (var out = new ObjectOutputStream(bytes)) {
+          out.writeObject(stack);
+        }
+        serializationSize += bytes.size();
+        try (var in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+          in.readObject();
+        }
+      }
+      serializationTime = Math.min(serializationTime, System.nanoTime() - start);
+    }
+
+    // The serial threads continue correctly after being decoded.
+    manager.execute(1);
+    for (var walker : walkers) {
+      assertEquals(5, walker.steps);
+    }
+
+    System.out.println("Stack codec:   " + codecTime / THREADS + " ns, " + codecSize / THREADS + " bytes per stack");
+    System.out.println("Serialization: " + serializationTime / THREADS + " ns, " + serializationSize / THREADS + " bytes per stack");
+  }
+
+  /**
+   * Serial thread with a few nested frames and locals of different types.
+   */
+  private static class Walker implements IRunnable, Serializable {
+    private final int id;
+    private int steps;
+
+    private Walker(int id) {
+      this.id = id;
+    }
+
+    @Override
+    @Interruptible
+    public void run() {
+      long position = id;
+      for (int i = 0; true; i++) {
+        position = walk(position, i, id * 0.5);
+      }
+    }
+
+    @Interruptible
+    private long walk(long position, int step, double factor) {
+      var label = "step";
+      park();
+      steps++;
+      long delta = step(step, factor);
+      return position + delta + label.length();
+    }
+
+    @Interruptible
+    private long step(int step, double factor) {
+      float scale = step * 0.25f;
+      park();
+      return (long) (step * factor * scale);
+    }
+  }
+}